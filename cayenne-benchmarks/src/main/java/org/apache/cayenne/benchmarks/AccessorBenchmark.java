@@ -0,0 +1,132 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.reflect.Accessor;
+import org.apache.cayenne.reflect.AccessorFactory;
+import org.apache.cayenne.reflect.BeanAccessor;
+import org.apache.cayenne.reflect.FieldAccessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reflection-based property accessors with the ones compiled by
+ * {@link AccessorFactory}. These do not need a database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccessorBenchmark {
+
+    Bean bean;
+
+    Accessor reflectionBeanAccessor;
+    Accessor compiledBeanAccessor;
+    Accessor reflectionFieldAccessor;
+    Accessor compiledFieldAccessor;
+
+    @Setup
+    public void setUp() {
+        bean = new Bean();
+        bean.setName("name");
+        bean.setCount(5);
+
+        AccessorFactory factory = new AccessorFactory();
+
+        reflectionBeanAccessor = new BeanAccessor(Bean.class, "name", String.class);
+        compiledBeanAccessor = factory.beanAccessor(Bean.class, "name", String.class);
+        reflectionFieldAccessor = new FieldAccessor(Bean.class, "count", Integer.TYPE);
+        compiledFieldAccessor = factory.fieldAccessor(Bean.class, "count", Integer.TYPE);
+    }
+
+    @Benchmark
+    public Object readBeanReflection() {
+        return reflectionBeanAccessor.getValue(bean);
+    }
+
+    @Benchmark
+    public Object readBeanCompiled() {
+        return compiledBeanAccessor.getValue(bean);
+    }
+
+    @Benchmark
+    public void writeBeanReflection() {
+        reflectionBeanAccessor.setValue(bean, "name");
+    }
+
+    @Benchmark
+    public void writeBeanCompiled() {
+        compiledBeanAccessor.setValue(bean, "name");
+    }
+
+    @Benchmark
+    public Object readFieldReflection() {
+        return reflectionFieldAccessor.getValue(bean);
+    }
+
+    @Benchmark
+    public Object readFieldCompiled() {
+        return compiledFieldAccessor.getValue(bean);
+    }
+
+    @Benchmark
+    public void writeFieldReflection() {
+        reflectionFieldAccessor.setValue(bean, 7);
+    }
+
+    @Benchmark
+    public void writeFieldCompiled() {
+        compiledFieldAccessor.setValue(bean, 7);
+    }
+
+    public static class Bean {
+
+        private String name;
+        private int count;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+}
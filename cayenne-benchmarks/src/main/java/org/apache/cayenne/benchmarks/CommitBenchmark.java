@@ -0,0 +1,145 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.benchmarks.persistent.Artist;
+import org.apache.cayenne.benchmarks.persistent.Painting;
+import org.apache.cayenne.query.ObjectSelect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Commit benchmarks measuring batch inserts, updates and deletes going through
+ * DataDomainFlushAction, including commit ordering of dependent entities.
+ * Changes are prepared outside of the measured code with invocation level
+ * fixtures, which is acceptable as each commit takes milliseconds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommitBenchmark {
+
+    static final int BATCH_SIZE = 100;
+
+    static List<Artist> newArtists(ObjectContext context, int count) {
+        List<Artist> artists = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Artist artist = context.newObject(Artist.class);
+            artist.setArtistName("new_artist" + i);
+
+            Painting painting = context.newObject(Painting.class);
+            painting.setPaintingTitle("new_painting" + i);
+            painting.setEstimatedPrice(BigDecimal.ONE);
+            painting.setToArtist(artist);
+
+            artists.add(artist);
+        }
+
+        return artists;
+    }
+
+    @State(Scope.Thread)
+    public static class InsertState {
+
+        ObjectContext context;
+        List<Artist> artists;
+
+        @Setup(Level.Invocation)
+        public void setUp(DatabaseState db) {
+            context = db.newContext();
+            artists = newArtists(context, BATCH_SIZE);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            // remove inserted rows, so that table size stays the same
+            context.deleteObjects(artists);
+            context.commitChanges();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class UpdateState {
+
+        ObjectContext context;
+        int counter;
+
+        @Setup(Level.Invocation)
+        public void setUp(DatabaseState db) {
+            context = db.newContext();
+
+            // alternate between two names, so that each invocation changes every row without growing the value
+            String name = "artist_" + (counter++ % 2);
+            for (Artist artist : ObjectSelect.query(Artist.class).limit(BATCH_SIZE).select(context)) {
+                artist.setArtistName(name);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DeleteState {
+
+        ObjectContext context;
+
+        @Setup(Level.Invocation)
+        public void setUp(DatabaseState db) {
+            context = db.newContext();
+
+            List<Artist> artists = newArtists(context, BATCH_SIZE);
+            context.commitChanges();
+
+            // paintings are deleted via the cascade rule
+            context.deleteObjects(artists);
+        }
+    }
+
+    @Benchmark
+    public void insert(InsertState state) {
+        state.context.commitChanges();
+    }
+
+    @Benchmark
+    public void update(UpdateState state) {
+        state.context.commitChanges();
+    }
+
+    @Benchmark
+    public void delete(DeleteState state) {
+        state.context.commitChanges();
+    }
+}
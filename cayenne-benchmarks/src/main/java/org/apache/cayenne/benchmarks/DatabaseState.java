@@ -0,0 +1,117 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.access.dbsync.CreateIfNoSchemaStrategy;
+import org.apache.cayenne.access.dbsync.SchemaUpdateStrategyFactory;
+import org.apache.cayenne.benchmarks.persistent.Artist;
+import org.apache.cayenne.benchmarks.persistent.Painting;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A JMH state holding a {@link ServerRuntime} over an in-memory database,
+ * populated with a fixed data set of artists and paintings. A database is
+ * selected with the "db" benchmark parameter.
+ */
+@State(Scope.Benchmark)
+public class DatabaseState {
+
+    public static final int ARTISTS = 200;
+    public static final int PAINTINGS_PER_ARTIST = 5;
+
+    @Param({"hsqldb", "h2", "derby"})
+    public String db;
+
+    ServerRuntime runtime;
+
+    @Setup
+    public void setUp() {
+        runtime = ServerRuntime.builder()
+                .addConfig("cayenne-benchmarks.xml")
+                .jdbcDriver(driver())
+                .url(url())
+                .addModule(binder -> binder
+                        .bind(SchemaUpdateStrategyFactory.class)
+                        .toInstance(descriptor -> new CreateIfNoSchemaStrategy()))
+                .build();
+
+        ObjectContext context = runtime.newContext();
+        for (int i = 0; i < ARTISTS; i++) {
+            Artist artist = context.newObject(Artist.class);
+            artist.setArtistName("artist" + i);
+            artist.setDateOfBirth(new Date(-i * 86400000L));
+
+            for (int j = 0; j < PAINTINGS_PER_ARTIST; j++) {
+                Painting painting = context.newObject(Painting.class);
+                painting.setPaintingTitle("painting" + i + "_" + j);
+                painting.setEstimatedPrice(new BigDecimal(i * 100 + j));
+                painting.setToArtist(artist);
+            }
+        }
+        context.commitChanges();
+    }
+
+    @TearDown
+    public void tearDown() {
+        runtime.shutdown();
+    }
+
+    public ServerRuntime getRuntime() {
+        return runtime;
+    }
+
+    public ObjectContext newContext() {
+        return runtime.newContext();
+    }
+
+    private String driver() {
+        switch (db) {
+            case "hsqldb":
+                return "org.hsqldb.jdbc.JDBCDriver";
+            case "h2":
+                return "org.h2.Driver";
+            case "derby":
+                return "org.apache.derby.jdbc.EmbeddedDriver";
+            default:
+                throw new IllegalArgumentException("Unsupported database: " + db);
+        }
+    }
+
+    private String url() {
+        switch (db) {
+            case "hsqldb":
+                return "jdbc:hsqldb:mem:cayenne_benchmarks";
+            case "h2":
+                return "jdbc:h2:mem:cayenne_benchmarks;DB_CLOSE_DELAY=-1";
+            case "derby":
+                return "jdbc:derby:memory:cayenne_benchmarks;create=true";
+            default:
+                throw new IllegalArgumentException("Unsupported database: " + db);
+        }
+    }
+}
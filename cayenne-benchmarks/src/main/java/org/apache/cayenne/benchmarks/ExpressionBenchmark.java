@@ -0,0 +1,113 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.benchmarks.persistent.Artist;
+import org.apache.cayenne.exp.CompiledExpression;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.query.Ordering;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Expression parsing and in-memory evaluation benchmarks. These do not need a
+ * database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpressionBenchmark {
+
+    static final String SIMPLE_EXP = "artistName = 'artist1'";
+    static final String COMPLEX_EXP = "(artistName like 'artist1%' or artistName in ('a', 'b', 'c'))"
+            + " and dateOfBirth > $date and paintingArray.estimatedPrice between 10 and 1000";
+
+    List<Artist> artists;
+    Expression filter;
+    CompiledExpression compiledFilter;
+    List<Ordering> orderings;
+
+    @Setup
+    public void setUp() {
+        artists = new ArrayList<>(1000);
+        for (int i = 0; i < 1000; i++) {
+            Artist artist = new Artist();
+            artist.setArtistName("artist" + i);
+            artist.setDateOfBirth(new Date(i * 86400000L));
+            artists.add(artist);
+        }
+
+        filter = Artist.ARTIST_NAME.like("artist1%")
+                .andExp(Artist.DATE_OF_BIRTH.gt(new Date(100 * 86400000L)));
+        compiledFilter = filter.compile(null);
+
+        orderings = Artist.DATE_OF_BIRTH.desc().then(Artist.ARTIST_NAME.asc());
+    }
+
+    @Benchmark
+    public Expression parseSimple() {
+        return ExpressionFactory.exp(SIMPLE_EXP);
+    }
+
+    @Benchmark
+    public Expression parseComplex() {
+        return ExpressionFactory.exp(COMPLEX_EXP, new Date(0));
+    }
+
+    @Benchmark
+    public List<Artist> filterObjects() {
+        return filter.filterObjects(artists);
+    }
+
+    @Benchmark
+    public List<Artist> filterObjectsCompiled() {
+        return compiledFilter.filterObjects(artists);
+    }
+
+    @Benchmark
+    public List<Artist> orderList() {
+        List<Artist> list = new ArrayList<>(artists);
+        Ordering.orderList(list, orderings);
+        return list;
+    }
+
+    @Benchmark
+    public List<Artist> orderListCompiled() {
+        List<Artist> list = new ArrayList<>(artists);
+        Ordering.orderList(list, orderings, null);
+        return list;
+    }
+}
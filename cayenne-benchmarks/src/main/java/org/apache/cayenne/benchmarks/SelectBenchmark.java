@@ -0,0 +1,98 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.access.translator.select.SelectTranslator;
+import org.apache.cayenne.benchmarks.persistent.Artist;
+import org.apache.cayenne.benchmarks.persistent.Painting;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.SelectQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fetch benchmarks: resolving objects and data rows, prefetching with all
+ * semantics and SQL translation of a select query. Each fetch uses a fresh
+ * ObjectContext, so that objects are resolved from the result set every time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectBenchmark {
+
+    @Benchmark
+    public List<Artist> selectObjects(DatabaseState state) {
+        return ObjectSelect.query(Artist.class).select(state.newContext());
+    }
+
+    @Benchmark
+    public List<DataRow> selectDataRows(DatabaseState state) {
+        return ObjectSelect.dataRowQuery(Artist.class).select(state.newContext());
+    }
+
+    @Benchmark
+    public List<Artist> prefetchJoint(DatabaseState state) {
+        return ObjectSelect.query(Artist.class)
+                .prefetch(Artist.PAINTING_ARRAY.joint())
+                .select(state.newContext());
+    }
+
+    @Benchmark
+    public List<Artist> prefetchDisjoint(DatabaseState state) {
+        return ObjectSelect.query(Artist.class)
+                .prefetch(Artist.PAINTING_ARRAY.disjoint())
+                .select(state.newContext());
+    }
+
+    @Benchmark
+    public List<Artist> prefetchDisjointById(DatabaseState state) {
+        return ObjectSelect.query(Artist.class)
+                .prefetch(Artist.PAINTING_ARRAY.disjointById())
+                .select(state.newContext());
+    }
+
+    @Benchmark
+    public String translateSelect(DatabaseState state) throws Exception {
+        EntityResolver resolver = state.getRuntime().getDataDomain().getEntityResolver();
+        DbAdapter adapter = state.getRuntime().getDataDomain().getDefaultNode().getAdapter();
+
+        SelectQuery<Artist> query = new SelectQuery<>(Artist.class,
+                Artist.ARTIST_NAME.like("artist1%")
+                        .andExp(Artist.PAINTING_ARRAY.dot(Painting.ESTIMATED_PRICE).gt(BigDecimal.TEN)));
+        query.addOrdering(Artist.ARTIST_NAME.asc());
+        query.addPrefetch(Artist.PAINTING_ARRAY.joint());
+
+        SelectTranslator translator = adapter.getSelectTranslator(query, resolver);
+        return translator.getSql();
+    }
+}
@@ -0,0 +1,65 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmarks.persistent;
+
+import java.util.Date;
+import java.util.List;
+
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.exp.Property;
+
+public class Artist extends CayenneDataObject {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String ARTIST_ID_PK_COLUMN = "ARTIST_ID";
+
+    public static final Property<String> ARTIST_NAME = Property.create("artistName", String.class);
+    public static final Property<Date> DATE_OF_BIRTH = Property.create("dateOfBirth", Date.class);
+    public static final Property<List<Painting>> PAINTING_ARRAY = Property.create("paintingArray", List.class);
+
+    public void setArtistName(String artistName) {
+        writeProperty("artistName", artistName);
+    }
+
+    public String getArtistName() {
+        return (String) readProperty("artistName");
+    }
+
+    public void setDateOfBirth(Date dateOfBirth) {
+        writeProperty("dateOfBirth", dateOfBirth);
+    }
+
+    public Date getDateOfBirth() {
+        return (Date) readProperty("dateOfBirth");
+    }
+
+    public void addToPaintingArray(Painting obj) {
+        addToManyTarget("paintingArray", obj, true);
+    }
+
+    public void removeFromPaintingArray(Painting obj) {
+        removeToManyTarget("paintingArray", obj, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Painting> getPaintingArray() {
+        return (List<Painting>) readProperty("paintingArray");
+    }
+}
@@ -0,0 +1,59 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.benchmarks.persistent;
+
+import java.math.BigDecimal;
+
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.exp.Property;
+
+public class Painting extends CayenneDataObject {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String PAINTING_ID_PK_COLUMN = "PAINTING_ID";
+
+    public static final Property<BigDecimal> ESTIMATED_PRICE = Property.create("estimatedPrice", BigDecimal.class);
+    public static final Property<String> PAINTING_TITLE = Property.create("paintingTitle", String.class);
+    public static final Property<Artist> TO_ARTIST = Property.create("toArtist", Artist.class);
+
+    public void setEstimatedPrice(BigDecimal estimatedPrice) {
+        writeProperty("estimatedPrice", estimatedPrice);
+    }
+
+    public BigDecimal getEstimatedPrice() {
+        return (BigDecimal) readProperty("estimatedPrice");
+    }
+
+    public void setPaintingTitle(String paintingTitle) {
+        writeProperty("paintingTitle", paintingTitle);
+    }
+
+    public String getPaintingTitle() {
+        return (String) readProperty("paintingTitle");
+    }
+
+    public void setToArtist(Artist toArtist) {
+        setToOneTarget("toArtist", toArtist, true);
+    }
+
+    public Artist getToArtist() {
+        return (Artist) readProperty("toArtist");
+    }
+}
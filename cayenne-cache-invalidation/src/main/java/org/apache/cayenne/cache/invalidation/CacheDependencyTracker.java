@@ -0,0 +1,575 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.cache.invalidation;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.configuration.RuntimeProperties;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.Property;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.EntityInheritanceTree;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.map.ObjRelationship;
+import org.apache.cayenne.query.ColumnSelect;
+import org.apache.cayenne.query.FluentSelect;
+import org.apache.cayenne.query.Ordering;
+import org.apache.cayenne.query.PrefetchTreeNode;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryMetadata;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.reflect.ClassDescriptor;
+import org.apache.cayenne.util.CayenneMapEntry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of what the cached query results depend on, so that a commit only invalidates the results that it may
+ * have changed. A result depends on the ids of the objects it contains, on the root entity and qualifier of the query,
+ * and on the entities reachable via relationship paths in the qualifier, orderings, columns and prefetches. After a
+ * commit, a result is removed from the cache if it contains one of the changed objects, if a new or modified object
+ * of the root entity may now match its qualifier, or if an object of one of the related entities has changed.
+ * <p>
+ * Only the results of {@link SelectQuery}, {@link org.apache.cayenne.query.ObjectSelect} and {@link ColumnSelect}
+ * with a root ObjEntity are tracked. Results of other queries are only invalidated via cache groups.
+ * </p>
+ * <p>
+ * A result fetched during a commit is removed from the cache instead of being tracked. The result is stored in a
+ * local cache only after it is tracked. Removing it only stops the store when the cache detaches the loads in
+ * progress on removal, as {@link org.apache.cayenne.cache.MapQueryCache} does via
+ * {@link org.apache.cayenne.cache.CoalescingCacheLoader}. Other {@link QueryCache} implementations may still store
+ * such a stale local result.
+ * </p>
+ *
+ * @see CacheInvalidationModuleExtender#trackDependencies()
+ * @since 4.1
+ */
+public class CacheDependencyTracker {
+
+    /**
+     * A boolean property that enables dependency tracking. "false" by default.
+     */
+    public static final String TRACK_DEPENDENCIES_PROPERTY = "cayenne.cache.invalidation.track_dependencies";
+
+    /**
+     * Maximum number of cached results tracked at once. When exceeded, the oldest tracked result is removed from
+     * the cache. The default is 10000.
+     */
+    public static final String MAX_TRACKED_RESULTS_PROPERTY = "cayenne.cache.invalidation.max_tracked_results";
+
+    /**
+     * Maximum number of object ids tracked per cached result. Bigger results are invalidated on any change of their
+     * root entity. The default is 1000.
+     */
+    public static final String MAX_TRACKED_IDS_PROPERTY = "cayenne.cache.invalidation.max_tracked_ids";
+
+    static final int DEFAULT_MAX_TRACKED_RESULTS = 10000;
+    static final int DEFAULT_MAX_TRACKED_IDS = 1000;
+
+    private final boolean enabled;
+    private final int maxTrackedIds;
+    private final Map<ResultKey, TrackedResult> results;
+    private final Set<ResultKey> trackedKeys;
+    private final Map<ObjectId, Set<TrackedResult>> resultsById;
+    private final Map<String, Set<TrackedResult>> resultsByEntity;
+    private final Set<TrackedResult> resultsOnAnyChange;
+    private long invalidations;
+
+    public CacheDependencyTracker(@Inject RuntimeProperties properties) {
+        this(properties.getBoolean(TRACK_DEPENDENCIES_PROPERTY, false),
+                properties.getInt(MAX_TRACKED_RESULTS_PROPERTY, DEFAULT_MAX_TRACKED_RESULTS),
+                properties.getInt(MAX_TRACKED_IDS_PROPERTY, DEFAULT_MAX_TRACKED_IDS));
+    }
+
+    public CacheDependencyTracker(boolean enabled, final int maxTrackedResults, int maxTrackedIds) {
+        this.enabled = enabled;
+        this.maxTrackedIds = maxTrackedIds;
+        this.resultsById = new HashMap<>();
+        this.resultsByEntity = new HashMap<>();
+        this.resultsOnAnyChange = new HashSet<>();
+
+        // a copy of the "results" keys that can be checked without locking
+        this.trackedKeys = ConcurrentHashMap.newKeySet();
+        this.results = new LinkedHashMap<ResultKey, TrackedResult>() {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ResultKey, TrackedResult> eldest) {
+                if (size() > maxTrackedResults) {
+                    // an untracked result would never be invalidated, so it has to go away together with its
+                    // dependencies
+                    trackedKeys.remove(eldest.getKey());
+                    unindex(eldest.getValue());
+                    eldest.getValue().remove();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the number of currently tracked results.
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * Returns the number of commits processed by {@link #invalidate(Collection)} so far. Taken before a query is run
+     * and passed to {@link #track(QueryCache, Query, QueryMetadata, List, boolean, long)}, it allows to detect the
+     * commits that happened while the query result was fetched and not tracked yet.
+     */
+    public synchronized long getInvalidationCount() {
+        return invalidations;
+    }
+
+    /**
+     * Records dependencies of a query result stored in the cache under the query cache key. Does nothing if the
+     * result is already tracked, unless "refresh" is true. If a commit was processed since "invalidationCount" was
+     * taken, the commit may have changed the result before it was tracked, so the result is removed from the cache
+     * instead of being tracked.
+     */
+    public void track(QueryCache cache, Query query, QueryMetadata metadata, List<?> result, boolean refresh,
+                      long invalidationCount) {
+
+        ResultKey key = new ResultKey(cache, metadata.getCacheKey());
+        if (!refresh && trackedKeys.contains(key)) {
+            return;
+        }
+
+        TrackedResult tracked = createTrackedResult(key, query, metadata, result);
+        if (tracked == null) {
+            return;
+        }
+
+        synchronized (this) {
+            TrackedResult existing = results.remove(key);
+            if (existing != null) {
+                trackedKeys.remove(key);
+                unindex(existing);
+            }
+
+            if (invalidations == invalidationCount) {
+                trackedKeys.add(key);
+                results.put(key, tracked);
+                index(tracked);
+                return;
+            }
+        }
+
+        // a local cache result is stored after it is tracked, removing it now prevents a load in progress from
+        // storing it
+        tracked.remove();
+    }
+
+    /**
+     * Removes cached results that may have been changed by the committed objects.
+     */
+    public void invalidate(Collection<ChangedObject> changes) {
+
+        Set<TrackedResult> affected = new HashSet<>();
+
+        synchronized (this) {
+
+            // counting commits even if nothing is tracked, as results being fetched may be tracked later
+            invalidations++;
+
+            if (results.isEmpty()) {
+                return;
+            }
+
+            affected.addAll(resultsOnAnyChange);
+
+            for (ChangedObject change : changes) {
+
+                if (change.id != null && !change.id.isTemporary()) {
+                    affected.addAll(resultsById.getOrDefault(change.id, Collections.emptySet()));
+                }
+
+                // results of the super entity queries include objects of the subentities
+                for (ObjEntity entity = change.entity; entity != null; entity = entity.getSuperEntity()) {
+                    for (TrackedResult result : resultsByEntity.getOrDefault(entity.getName(), Collections.emptySet())) {
+                        if (result.relatedEntities.contains(entity.getName())
+                                || (result.rootEntity.equals(entity.getName()) && result.mayInclude(change.object))) {
+                            affected.add(result);
+                        }
+                    }
+                }
+            }
+
+            for (TrackedResult result : affected) {
+                results.remove(result.key);
+                trackedKeys.remove(result.key);
+                unindex(result);
+            }
+        }
+
+        for (TrackedResult result : affected) {
+            result.remove();
+        }
+    }
+
+    private void index(TrackedResult result) {
+
+        if (result.onAnyChange) {
+            resultsOnAnyChange.add(result);
+            return;
+        }
+
+        if (result.ids != null) {
+            for (ObjectId id : result.ids) {
+                resultsById.computeIfAbsent(id, i -> new HashSet<>()).add(result);
+            }
+        }
+
+        resultsByEntity.computeIfAbsent(result.rootEntity, e -> new HashSet<>()).add(result);
+        for (String entity : result.relatedEntities) {
+            resultsByEntity.computeIfAbsent(entity, e -> new HashSet<>()).add(result);
+        }
+    }
+
+    private void unindex(TrackedResult result) {
+
+        if (result.onAnyChange) {
+            resultsOnAnyChange.remove(result);
+            return;
+        }
+
+        if (result.ids != null) {
+            for (ObjectId id : result.ids) {
+                unindex(resultsById, id, result);
+            }
+        }
+
+        unindex(resultsByEntity, result.rootEntity, result);
+        for (String entity : result.relatedEntities) {
+            unindex(resultsByEntity, entity, result);
+        }
+    }
+
+    private static <K> void unindex(Map<K, Set<TrackedResult>> index, K key, TrackedResult result) {
+        Set<TrackedResult> set = index.get(key);
+        if (set != null) {
+            set.remove(result);
+            if (set.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private TrackedResult createTrackedResult(ResultKey key, Query query, QueryMetadata metadata, List<?> result) {
+
+        ObjEntity root = metadata.getObjEntity();
+        if (root == null) {
+            return null;
+        }
+
+        Expression qualifier;
+        Collection<Ordering> orderings;
+        Collection<Property<?>> columns = null;
+        Expression having = null;
+
+        if (query instanceof SelectQuery) {
+            SelectQuery<?> select = (SelectQuery<?>) query;
+            qualifier = select.getQualifier();
+            orderings = select.getOrderings();
+            columns = select.getColumns();
+            having = select.getHavingQualifier();
+        } else if (query instanceof ColumnSelect) {
+            ColumnSelect<?> select = (ColumnSelect<?>) query;
+            qualifier = select.getWhere();
+            orderings = select.getOrderings();
+            columns = select.getColumns();
+            having = select.getHaving();
+        } else if (query instanceof FluentSelect) {
+            FluentSelect<?> select = (FluentSelect<?>) query;
+            qualifier = select.getWhere();
+            orderings = select.getOrderings();
+        } else {
+            return null;
+        }
+
+        TrackedResult tracked = new TrackedResult(key, root.getName());
+
+        try {
+            tracked.qualifier = qualifier;
+            tracked.qualifierMatchable = collectRelatedEntities(root, qualifier, tracked);
+
+            collectRelatedEntities(root, having, tracked);
+
+            if (orderings != null) {
+                for (Ordering ordering : orderings) {
+                    collectRelatedEntities(root, ordering.getSortSpec(), tracked);
+                }
+            }
+
+            boolean hasColumns = columns != null && !columns.isEmpty();
+            if (hasColumns) {
+                for (Property<?> column : columns) {
+                    collectRelatedEntities(root, column.getExpression(), tracked);
+                }
+            }
+
+            PrefetchTreeNode prefetchTree = metadata.getPrefetchTree();
+            if (prefetchTree != null) {
+                for (PrefetchTreeNode node : prefetchTree.nonPhantomNodes()) {
+                    collectRelatedEntities(root, root.resolvePathComponents(node.getPath()), tracked);
+                }
+            }
+
+            // column results do not map to root objects, so they can change whenever any root object changes
+            if (!hasColumns) {
+                tracked.ids = resultIds(root, metadata, result);
+            }
+        } catch (CayenneRuntimeException e) {
+            // a path that we can't resolve (e.g. an alias), so can't tell what the result depends on
+            tracked.onAnyChange = true;
+        }
+
+        return tracked;
+    }
+
+    /**
+     * Collects target entities of relationships in the expression paths. Returns true if the expression only
+     * references root attributes and can be evaluated in memory.
+     */
+    private boolean collectRelatedEntities(ObjEntity root, Expression expression, TrackedResult tracked) {
+
+        if (expression == null) {
+            return true;
+        }
+
+        switch (expression.getType()) {
+            case Expression.OBJ_PATH:
+                return collectRelatedEntities(root, root.resolvePathComponents(expression), tracked);
+            case Expression.DB_PATH:
+                if (((String) expression.getOperand(0)).indexOf('.') >= 0) {
+                    // DB relationships are not mapped to entities here
+                    tracked.onAnyChange = true;
+                }
+                return false;
+            default:
+                boolean matchable = true;
+                for (int i = 0; i < expression.getOperandCount(); i++) {
+                    Object operand = expression.getOperand(i);
+                    if (operand instanceof Expression) {
+                        matchable &= collectRelatedEntities(root, (Expression) operand, tracked);
+                    }
+                }
+                return matchable;
+        }
+    }
+
+    private boolean collectRelatedEntities(ObjEntity root, Iterator<CayenneMapEntry> path, TrackedResult tracked) {
+        boolean matchable = true;
+        while (path.hasNext()) {
+            CayenneMapEntry component = path.next();
+            if (component instanceof ObjRelationship) {
+                tracked.relatedEntities.add(((ObjRelationship) component).getTargetEntityName());
+                matchable = false;
+            }
+        }
+
+        return matchable;
+    }
+
+    /**
+     * Returns ids of the result objects or null if they can't be tracked.
+     */
+    private Set<ObjectId> resultIds(ObjEntity root, QueryMetadata metadata, List<?> result) {
+
+        // paginated lists are resolved lazily, and rows skipped by the offset affect the result
+        if (result == null
+                || result.size() > maxTrackedIds
+                || metadata.getPageSize() > 0
+                || metadata.getFetchOffset() > 0) {
+            return null;
+        }
+
+        ClassDescriptor descriptor = metadata.getClassDescriptor();
+        EntityInheritanceTree inheritanceTree = descriptor != null ? descriptor.getEntityInheritanceTree() : null;
+
+        Set<ObjectId> ids = new HashSet<>((int) (result.size() / 0.75f) + 1);
+        for (Object object : result) {
+
+            ObjectId id;
+            if (object instanceof Persistent) {
+                id = ((Persistent) object).getObjectId();
+            } else if (object instanceof DataRow) {
+                DataRow row = (DataRow) object;
+                ObjEntity entity = inheritanceTree != null ? inheritanceTree.entityMatchingRow(row) : null;
+                id = rowId(entity != null ? entity : root, row);
+            } else {
+                return null;
+            }
+
+            if (id == null || id.isTemporary()) {
+                return null;
+            }
+
+            ids.add(id);
+        }
+
+        return ids;
+    }
+
+    private static ObjectId rowId(ObjEntity entity, DataRow row) {
+
+        Collection<DbAttribute> pk = entity.getDbEntity().getPrimaryKeys();
+
+        if (pk.size() == 1) {
+            String name = pk.iterator().next().getName();
+            Object value = row.get(name);
+            return value != null ? new ObjectId(entity.getName(), name, value) : null;
+        }
+
+        Map<String, Object> idMap = new HashMap<>(pk.size() * 2);
+        for (DbAttribute attribute : pk) {
+            Object value = row.get(attribute.getName());
+            if (value == null) {
+                return null;
+            }
+
+            idMap.put(attribute.getName(), value);
+        }
+
+        return new ObjectId(entity.getName(), idMap);
+    }
+
+    /**
+     * A committed object passed to {@link #invalidate(Collection)}.
+     */
+    static class ChangedObject {
+
+        final ObjEntity entity;
+        final ObjectId id;
+        final Persistent object;
+
+        /**
+         * @param entity entity of the object
+         * @param id     id of the object before commit
+         * @param object the object to match against query qualifiers after commit, or null if it was deleted
+         */
+        ChangedObject(ObjEntity entity, ObjectId id, Persistent object) {
+            this.entity = entity;
+            this.id = id;
+            this.object = object;
+        }
+    }
+
+    private static class ResultKey {
+
+        final QueryCache cache;
+        final String key;
+
+        ResultKey(QueryCache cache, String key) {
+            this.cache = cache;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof ResultKey)) {
+                return false;
+            }
+
+            ResultKey other = (ResultKey) o;
+            return cache == other.cache && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(cache) + key.hashCode();
+        }
+    }
+
+    private static class TrackedResult {
+
+        final ResultKey key;
+        final String rootEntity;
+        final Set<String> relatedEntities;
+        Expression qualifier;
+        boolean qualifierMatchable;
+        Set<ObjectId> ids;
+        boolean onAnyChange;
+
+        TrackedResult(ResultKey key, String rootEntity) {
+            this.key = key;
+            this.rootEntity = Objects.requireNonNull(rootEntity);
+            this.relatedEntities = new HashSet<>();
+        }
+
+        /**
+         * Returns whether the result may include the committed root entity object, when it is not one of the result
+         * ids. Deleted objects are passed as null.
+         */
+        boolean mayInclude(Persistent object) {
+
+            if (ids == null) {
+                return true;
+            }
+
+            if (object == null) {
+                return false;
+            }
+
+            if (qualifier == null) {
+                return true;
+            }
+
+            if (!qualifierMatchable) {
+                return true;
+            }
+
+            try {
+                return qualifier.match(object);
+            } catch (RuntimeException e) {
+                return true;
+            }
+        }
+
+        void remove() {
+            key.cache.remove(key.key);
+        }
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.apache.cayenne.cache.invalidation;
 
+import org.apache.cayenne.BaseContext;
 import org.apache.cayenne.DataChannel;
 import org.apache.cayenne.DataChannelFilter;
 import org.apache.cayenne.DataChannelFilterChain;
@@ -29,11 +30,16 @@ import org.apache.cayenne.annotation.PrePersist;
 import org.apache.cayenne.annotation.PreRemove;
 import org.apache.cayenne.annotation.PreUpdate;
 import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.invalidation.CacheDependencyTracker.ChangedObject;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.di.Provider;
 import org.apache.cayenne.graph.GraphDiff;
+import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryMetadata;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -52,6 +58,11 @@ import java.util.function.Function;
  * Default rule is based on entities' {@link CacheGroups} annotation.
  * </p>
  * <p>
+ * If {@link CacheDependencyTracker} is enabled, the filter also records dependencies of the cached query results and
+ * removes the results that may have been changed by a commit, so that entities that change often don't need to be
+ * mapped to cache groups.
+ * </p>
+ * <p>
  * To add default filter: <pre>
  *         ServerRuntime.builder("cayenne-project.xml")
  *              .addModule(CacheInvalidationModuleBuilder.builder().build());
@@ -69,21 +80,86 @@ public class CacheInvalidationFilter implements DataChannelFilter {
     private final Map<Class<? extends Persistent>, Function<Persistent, Collection<CacheGroupDescriptor>>> mappedHandlers;
     private final Function<Persistent, Collection<CacheGroupDescriptor>> skipHandler;
     private final ThreadLocal<Set<CacheGroupDescriptor>> groups;
+    private final CacheDependencyTracker dependencyTracker;
+    private final ThreadLocal<List<ChangedObject>> changedObjects;
+    private EntityResolver entityResolver;
 
-    public CacheInvalidationFilter(@Inject Provider<QueryCache> cacheProvider, @Inject List<InvalidationHandler> handlers) {
+    public CacheInvalidationFilter(Provider<QueryCache> cacheProvider, List<InvalidationHandler> handlers) {
+        this(cacheProvider, handlers, new CacheDependencyTracker(false, 0, 0));
+    }
+
+    /**
+     * @since 4.1
+     */
+    public CacheInvalidationFilter(@Inject Provider<QueryCache> cacheProvider, @Inject List<InvalidationHandler> handlers,
+                                   @Inject CacheDependencyTracker dependencyTracker) {
         this.mappedHandlers = new ConcurrentHashMap<>();
         this.skipHandler = p -> Collections.emptyList();
         this.groups = new ThreadLocal<>();
+        this.changedObjects = new ThreadLocal<>();
         this.cacheProvider = cacheProvider;
         this.handlers = handlers;
+        this.dependencyTracker = dependencyTracker;
     }
 
     public void init(DataChannel channel) {
-        // noop
+        this.entityResolver = channel.getEntityResolver();
     }
 
     public QueryResponse onQuery(ObjectContext originatingContext, Query query, DataChannelFilterChain filterChain) {
-        return filterChain.onQuery(originatingContext, query);
+
+        if (!dependencyTracker.isEnabled()) {
+            return filterChain.onQuery(originatingContext, query);
+        }
+
+        // commits that happen from now on may change the result before it is tracked
+        long invalidationCount = dependencyTracker.getInvalidationCount();
+        QueryResponse response = filterChain.onQuery(originatingContext, query);
+        trackDependencies(originatingContext, query, response, invalidationCount);
+        return response;
+    }
+
+    /**
+     * Records dependencies of a cached query result. Shared cache results are tracked here, after they were put in
+     * the cache by the DataDomain, and local cache results are tracked right before the originating context puts
+     * them in its cache. If a commit was processed since "invalidationCount" was taken, the result is removed from
+     * the cache instead.
+     *
+     * @since 4.1
+     */
+    protected void trackDependencies(ObjectContext originatingContext, Query query, QueryResponse response,
+                                     long invalidationCount) {
+
+        QueryMetadata metadata = query.getMetaData(entityResolver);
+        QueryCacheStrategy strategy = metadata.getCacheStrategy();
+        if (strategy == null || metadata.getCacheKey() == null) {
+            return;
+        }
+
+        QueryCache cache;
+        switch (strategy) {
+            case SHARED_CACHE:
+            case SHARED_CACHE_REFRESH:
+                cache = cacheProvider.get();
+                break;
+            case LOCAL_CACHE:
+            case LOCAL_CACHE_REFRESH:
+                if (!(originatingContext instanceof BaseContext)) {
+                    return;
+                }
+                cache = ((BaseContext) originatingContext).getQueryCache();
+                break;
+            default:
+                return;
+        }
+
+        List<?> result = response.firstList();
+        if (result != null) {
+            // shared cache hits pass through the filter as well, while local cache queries get here only when the
+            // result is (re)fetched
+            boolean refresh = strategy != QueryCacheStrategy.SHARED_CACHE;
+            dependencyTracker.track(cache, query, metadata, result, refresh, invalidationCount);
+        }
     }
 
     public GraphDiff onSync(ObjectContext originatingContext, GraphDiff changes,
@@ -102,9 +178,16 @@ public class CacheInvalidationFilter implements DataChannelFilter {
                     }
                 }
             }
+
+            List<ChangedObject> changed = changedObjects.get();
+            if (changed != null && !changed.isEmpty()) {
+                dependencyTracker.invalidate(changed);
+            }
+
             return result;
         } finally {
             groups.set(null);
+            changedObjects.set(null);
         }
     }
 
@@ -137,6 +220,35 @@ public class CacheInvalidationFilter implements DataChannelFilter {
         }
     }
 
+    /**
+     * A callback method that records new and modified objects to match against the tracked query results at the end
+     * of the commit.
+     *
+     * @since 4.1
+     */
+    @PrePersist
+    @PreUpdate
+    protected void prePersistOrUpdate(Object object) {
+        if (dependencyTracker.isEnabled()) {
+            Persistent p = (Persistent) object;
+            getOrCreateTxChangedObjects().add(new ChangedObject(entityResolver.getObjEntity(p), p.getObjectId(), p));
+        }
+    }
+
+    /**
+     * A callback method that records deleted objects to match against the tracked query results at the end of the
+     * commit.
+     *
+     * @since 4.1
+     */
+    @PreRemove
+    protected void preRemove(Object object) {
+        if (dependencyTracker.isEnabled()) {
+            Persistent p = (Persistent) object;
+            getOrCreateTxChangedObjects().add(new ChangedObject(entityResolver.getObjEntity(p), p.getObjectId(), null));
+        }
+    }
+
     protected Set<CacheGroupDescriptor> getOrCreateTxGroups() {
         Set<CacheGroupDescriptor> txGroups = groups.get();
         if (txGroups == null) {
@@ -146,4 +258,14 @@ public class CacheInvalidationFilter implements DataChannelFilter {
 
         return txGroups;
     }
+
+    private List<ChangedObject> getOrCreateTxChangedObjects() {
+        List<ChangedObject> txChangedObjects = changedObjects.get();
+        if (txChangedObjects == null) {
+            txChangedObjects = new ArrayList<>();
+            changedObjects.set(txChangedObjects);
+        }
+
+        return txChangedObjects;
+    }
 }
@@ -49,6 +49,7 @@ public class CacheInvalidationModule implements Module {
     public void configure(Binder binder) {
 
         binder.bind(CacheGroupsHandler.class).to(CacheGroupsHandler.class);
+        binder.bind(CacheDependencyTracker.class).to(CacheDependencyTracker.class);
         contributeInvalidationHandler(binder).add(CacheGroupsHandler.class);
 
         // want the filter to be INSIDE transaction by default
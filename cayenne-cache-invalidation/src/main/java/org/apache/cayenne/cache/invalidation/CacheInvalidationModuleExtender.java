@@ -20,6 +20,7 @@
 package org.apache.cayenne.cache.invalidation;
 
 import org.apache.cayenne.Persistent;
+import org.apache.cayenne.configuration.server.ServerModule;
 import org.apache.cayenne.di.Binder;
 import org.apache.cayenne.di.ListBuilder;
 import org.apache.cayenne.di.Module;
@@ -36,6 +37,7 @@ public class CacheInvalidationModuleExtender {
     private Collection<Class<? extends InvalidationHandler>> handlerTypes;
     private Collection<InvalidationHandler> handlerInstances;
     private boolean noCacheGroupsHandler;
+    private boolean trackDependencies;
 
     CacheInvalidationModuleExtender() {
         this.handlerTypes = new HashSet<>();
@@ -51,6 +53,19 @@ public class CacheInvalidationModuleExtender {
         return this;
     }
 
+    /**
+     * Enables {@link CacheDependencyTracker}, so that on commit the cached query results are invalidated based on
+     * the objects they contain and the qualifiers of their queries, in addition to cache groups. Often combined with
+     * {@link #noCacheGroupsHandler()}, but note that the results of queries other than SelectQuery, ObjectSelect and
+     * ColumnSelect are not tracked and can only be invalidated via cache groups.
+     *
+     * @since 4.1
+     */
+    public CacheInvalidationModuleExtender trackDependencies() {
+        trackDependencies = true;
+        return this;
+    }
+
     public CacheInvalidationModuleExtender addHandler(Class<? extends InvalidationHandler> handlerType) {
         handlerTypes.add(handlerType);
         return this;
@@ -74,6 +89,11 @@ public class CacheInvalidationModuleExtender {
                 });
             }
 
+            if (trackDependencies) {
+                ServerModule.contributeProperties(binder)
+                        .put(CacheDependencyTracker.TRACK_DEPENDENCIES_PROPERTY, "true");
+            }
+
             ListBuilder<InvalidationHandler> handlers = CacheInvalidationModule.contributeInvalidationHandler(binder);
 
             handlers.addAll(handlerInstances);
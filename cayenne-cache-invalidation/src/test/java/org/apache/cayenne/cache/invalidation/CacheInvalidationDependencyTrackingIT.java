@@ -0,0 +1,185 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.cache.invalidation;
+
+import org.apache.cayenne.Cayenne;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.invalidation.db.E1;
+import org.apache.cayenne.di.Module;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.QueryMetadata;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @since 4.1
+ */
+public class CacheInvalidationDependencyTrackingIT extends CacheInvalidationCase {
+
+    private TableHelper e1WithName;
+
+    @Override
+    protected Module extendInvalidationModule() {
+        return CacheInvalidationModule.extend()
+                .noCacheGroupsHandler()
+                .trackDependencies()
+                .module();
+    }
+
+    @Before
+    public void createTableHelper() {
+        this.e1WithName = new TableHelper(new DBHelper(runtime.getDataSource()), "E1").setColumns("ID", "NAME");
+    }
+
+    @Test
+    public void testSharedCache() throws Exception {
+        e1WithName.insert(1, "a").insert(2, "b");
+
+        ObjectContext context = runtime.newContext();
+
+        ObjectSelect<E1> a = ObjectSelect.query(E1.class).where(E1.NAME.eq("a")).sharedCache();
+        ObjectSelect<E1> b = ObjectSelect.query(E1.class).where(E1.NAME.eq("b")).sharedCache();
+
+        assertEquals(1, a.select(context).size());
+        assertEquals(1, b.select(context).size());
+
+        e1WithName.insert(10, "a").insert(11, "b").insert(12, "b");
+
+        // inserted via SQL... query results are still cached...
+        assertEquals(1, a.select(context).size());
+        assertEquals(1, b.select(context).size());
+
+        E1 e2 = Cayenne.objectForPK(context, E1.class, 2);
+        e2.setName("c");
+        context.commitChanges();
+
+        // "b" contains the updated object and must be refreshed, "a" is unaffected and still stale
+        assertEquals(1, a.select(context).size());
+        assertEquals(2, b.select(context).size());
+
+        e1WithName.insert(13, "b");
+
+        E1 e5 = context.newObject(E1.class);
+        e5.setName("a");
+        context.commitChanges();
+
+        // "a" matches the new object and must be refreshed, "b" is unaffected and still stale
+        assertEquals(3, a.select(context).size());
+        assertEquals(2, b.select(context).size());
+
+        context.deleteObject(e5);
+        context.commitChanges();
+
+        assertEquals(2, a.select(context).size());
+        assertEquals(2, b.select(context).size());
+    }
+
+    @Test
+    public void testLocalCache() throws Exception {
+        e1WithName.insert(1, "a").insert(2, "b");
+
+        ObjectContext context = runtime.newContext();
+
+        ObjectSelect<E1> a = ObjectSelect.query(E1.class).where(E1.NAME.eq("a")).localCache();
+        ObjectSelect<E1> b = ObjectSelect.query(E1.class).where(E1.NAME.eq("b")).localCache();
+
+        assertEquals(1, a.select(context).size());
+        assertEquals(1, b.select(context).size());
+
+        e1WithName.insert(10, "a").insert(11, "a").insert(12, "b");
+
+        assertEquals(1, a.select(context).size());
+        assertEquals(1, b.select(context).size());
+
+        E1 e1 = Cayenne.objectForPK(context, E1.class, 1);
+        context.deleteObject(e1);
+        context.commitChanges();
+
+        // "a" contained the deleted object and must be refreshed, "b" is unaffected and still stale
+        assertEquals(2, a.select(context).size());
+        assertEquals(1, b.select(context).size());
+
+        e1WithName.insert(13, "a");
+
+        E1 e5 = context.newObject(E1.class);
+        e5.setName("b");
+        context.commitChanges();
+
+        // "b" matches the new object and must be refreshed, "a" is unaffected and still stale
+        assertEquals(2, a.select(context).size());
+        assertEquals(3, b.select(context).size());
+    }
+
+    @Test
+    public void testColumnQuery() throws Exception {
+        e1WithName.insert(1, "a").insert(2, "b");
+
+        ObjectContext context = runtime.newContext();
+
+        ObjectSelect<E1> a = ObjectSelect.query(E1.class).where(E1.NAME.eq("a")).sharedCache();
+
+        assertEquals(1, a.selectCount(context));
+
+        e1WithName.insert(3, "a");
+        assertEquals(1, a.selectCount(context));
+
+        // ids of the counted objects are unknown, so any change of E1 must invalidate the count
+        E1 e2 = Cayenne.objectForPK(context, E1.class, 2);
+        e2.setName("c");
+        context.commitChanges();
+
+        assertEquals(2, a.selectCount(context));
+    }
+
+    @Test
+    public void testCommitWhileFetching() throws Exception {
+        e1WithName.insert(1, "a").insert(2, "b");
+
+        ObjectContext context = runtime.newContext();
+        CacheDependencyTracker tracker = runtime.getInjector().getInstance(CacheDependencyTracker.class);
+        QueryCache cache = runtime.getInjector().getInstance(QueryCache.class);
+
+        ObjectSelect<E1> a = ObjectSelect.query(E1.class).where(E1.NAME.eq("a")).sharedCache();
+        QueryMetadata metadata = a.getMetaData(context.getEntityResolver());
+
+        // emulate a commit that happens after the result is fetched and cached, but before it is tracked
+        long invalidationCount = tracker.getInvalidationCount();
+        List<E1> result = ObjectSelect.query(E1.class).where(E1.NAME.eq("a")).select(context);
+        cache.put(metadata, result);
+
+        E1 e3 = context.newObject(E1.class);
+        e3.setName("a");
+        context.commitChanges();
+
+        tracker.track(cache, a, metadata, result, true, invalidationCount);
+
+        // the commit might have changed the result, so it can't be tracked and must be dropped
+        assertNull(cache.get(metadata));
+        assertEquals(2, a.select(context).size());
+    }
+}
@@ -1,6 +1,7 @@
 package org.apache.cayenne.cache.invalidation.db.auto;
 
 import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.exp.Property;
 
 /**
  * Class _E1 was generated by Cayenne.
@@ -14,5 +15,14 @@ public abstract class _E1 extends CayenneDataObject {
 
     public static final String ID_PK_COLUMN = "ID";
 
+    public static final Property<String> NAME = Property.create("name", String.class);
+
+    public void setName(String name) {
+        writeProperty("name", name);
+    }
+
+    public String getName() {
+        return (String)readProperty("name");
+    }
 
 }
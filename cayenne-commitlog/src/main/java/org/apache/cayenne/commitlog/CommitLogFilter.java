@@ -92,9 +92,12 @@ public class CommitLogFilter implements DataChannelFilter {
 	private void beforeCommit(MutableChangeMap changes, DataChannel channel, GraphDiff contextDiff) {
 
 		// capture snapshots of deleted objects before they are purged from cache
-		GraphChangeHandler handler = new DiffFilter(entityFactory,
-				new DeletedDiffProcessor(changes, channel, entityFactory));
-		contextDiff.apply(handler);
+		DeletedDiffProcessor deletedProcessor = new DeletedDiffProcessor(changes, channel, entityFactory);
+		contextDiff.apply(new DiffFilter(entityFactory, deletedProcessor));
+
+		// fetch all snapshots missing from the cache in batches, instead of
+		// one query per deleted object
+		deletedProcessor.processRemoved();
 	}
 
 	private void afterCommit(MutableChangeMap changes, DataChannel channel, GraphDiff contextDiff, GraphDiff dbDiff) {
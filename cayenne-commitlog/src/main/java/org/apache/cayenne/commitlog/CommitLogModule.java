@@ -19,6 +19,8 @@
 
 package org.apache.cayenne.commitlog;
 
+import org.apache.cayenne.commitlog.async.BinaryChangeMapCodec;
+import org.apache.cayenne.commitlog.async.ChangeMapCodec;
 import org.apache.cayenne.di.Binder;
 import org.apache.cayenne.di.ListBuilder;
 import org.apache.cayenne.di.Module;
@@ -52,5 +54,6 @@ public class CommitLogModule implements Module {
         contributeListeners(binder);
         binder.bind(CommitLogEntityFactory.class).to(IncludeAllCommitLogEntityFactory.class);
         binder.bind(CommitLogFilter.class).to(CommitLogFilter.class);
+        binder.bind(ChangeMapCodec.class).to(BinaryChangeMapCodec.class);
     }
 }
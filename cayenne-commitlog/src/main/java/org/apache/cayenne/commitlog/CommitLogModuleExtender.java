@@ -18,6 +18,7 @@
  ****************************************************************/
 package org.apache.cayenne.commitlog;
 
+import org.apache.cayenne.commitlog.async.AsyncCommitLogListener;
 import org.apache.cayenne.commitlog.meta.AnnotationCommitLogEntityFactory;
 import org.apache.cayenne.commitlog.meta.CommitLogEntity;
 import org.apache.cayenne.commitlog.meta.CommitLogEntityFactory;
@@ -29,6 +30,7 @@ import org.apache.cayenne.tx.TransactionFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.HashSet;
 
@@ -46,6 +48,7 @@ public class CommitLogModuleExtender {
     private Collection<Class<? extends CommitLogListener>> listenerTypes;
     private Collection<CommitLogListener> listenerInstances;
     private boolean excludeFromTransaction;
+    private File journalDirectory;
 
     CommitLogModuleExtender() {
         entityFactory(IncludeAllCommitLogEntityFactory.class);
@@ -73,6 +76,22 @@ public class CommitLogModuleExtender {
         return this;
     }
 
+    /**
+     * If called, listeners will be invoked asynchronously. Commit changes are
+     * appended to a journal in the specified directory after the commit
+     * transaction ends, and are delivered to the listeners by a background
+     * thread. Failed deliveries are retried, and changes not delivered before
+     * shutdown are delivered on the next startup from the same directory.
+     * Listeners receive a new ObjectContext instead of the originating one.
+     *
+     * @see AsyncCommitLogListener
+     * @since 4.1
+     */
+    public CommitLogModuleExtender deliverAsync(File journalDirectory) {
+        this.journalDirectory = journalDirectory;
+        return this;
+    }
+
     /**
      * Installs entity filter that would only include entities annotated with
      * {@link CommitLog} on the callbacks. Also {@link CommitLog#confidential()}
@@ -106,15 +125,28 @@ public class CommitLogModuleExtender {
 
             binder.bind(CommitLogEntityFactory.class).to(entityFactoryType);
 
-            ListBuilder<CommitLogListener> listeners = CommitLogModule.contributeListeners(binder)
-                    .addAll(listenerInstances);
+            ListBuilder<CommitLogListener> listeners;
+
+            if (journalDirectory != null) {
+                // the filter only talks to the journaling listener, that passes changes to the actual listeners
+                binder.bind(AsyncCommitLogListener.class).to(AsyncCommitLogListener.class);
+                CommitLogModule.contributeListeners(binder).add(AsyncCommitLogListener.class);
+                ServerModule.contributeProperties(binder)
+                        .put(AsyncCommitLogListener.JOURNAL_DIR_PROPERTY, journalDirectory.getAbsolutePath());
+
+                listeners = binder.bindList(CommitLogListener.class, AsyncCommitLogListener.DELEGATE_LISTENERS_LIST)
+                        .addAll(listenerInstances);
+            } else {
+                listeners = CommitLogModule.contributeListeners(binder).addAll(listenerInstances);
+            }
 
             // types have to be added one-by-one
             for (Class<? extends CommitLogListener> type : listenerTypes) {
                 listeners.add(type);
             }
 
-            if (excludeFromTransaction) {
+            // async changes are journaled only once they are committed
+            if (excludeFromTransaction || journalDirectory != null) {
                 ServerModule.contributeDomainFilters(binder).addAfter(CommitLogFilter.class, TransactionFilter.class);
             } else {
                 ServerModule.contributeDomainFilters(binder).insertBefore(CommitLogFilter.class, TransactionFilter.class);
@@ -18,12 +18,16 @@
  ****************************************************************/
 package org.apache.cayenne.commitlog;
 
+import java.io.Serializable;
+
 /**
  * A singleton representing a confidential property value.
  * 
  * @since 4.0
  */
-public class Confidential {
+public class Confidential implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	private static final Confidential instance = new Confidential();
 
@@ -34,6 +38,15 @@ public class Confidential {
 	private Confidential() {
 	}
 
+	/**
+	 * Preserves the singleton when deserialized.
+	 *
+	 * @since 4.1
+	 */
+	private Object readResolve() {
+		return instance;
+	}
+
 	@Override
 	public String toString() {
 		return "*******";
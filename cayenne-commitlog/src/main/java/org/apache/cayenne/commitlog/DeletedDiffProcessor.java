@@ -18,19 +18,26 @@
  ****************************************************************/
 package org.apache.cayenne.commitlog;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.cayenne.DataChannel;
 import org.apache.cayenne.DataRow;
 import org.apache.cayenne.ObjectId;
-import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.access.DataRowStore;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.ExpressionFactory;
 import org.apache.cayenne.graph.GraphChangeHandler;
 import org.apache.cayenne.commitlog.model.MutableChangeMap;
 import org.apache.cayenne.commitlog.model.MutableObjectChange;
 import org.apache.cayenne.commitlog.model.ObjectChangeType;
 import org.apache.cayenne.commitlog.meta.CommitLogEntity;
 import org.apache.cayenne.commitlog.meta.CommitLogEntityFactory;
-import org.apache.cayenne.query.ObjectIdQuery;
+import org.apache.cayenne.query.SelectQuery;
 import org.apache.cayenne.reflect.AttributeProperty;
 import org.apache.cayenne.reflect.ClassDescriptor;
 import org.apache.cayenne.reflect.PropertyVisitor;
@@ -39,39 +46,144 @@ import org.apache.cayenne.reflect.ToOneProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Captures snapshots of deleted objects. Removed ids are collected while the
+ * diff is processed, and then their snapshots are taken from the shared cache
+ * or fetched in batches by {@link #processRemoved()}.
+ */
 class DeletedDiffProcessor implements GraphChangeHandler {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(DeletedDiffProcessor.class);
 
+	// an upper bound of ids in a single snapshot query; lowered if the domain
+	// defines a smaller "cayenne.server.max_id_qualifier_size"
+	static final int MAX_IDS_PER_QUERY = 1000;
+
 	private CommitLogEntityFactory entityFactory;
 	private MutableChangeMap changeSet;
 	private DataChannel channel;
+	private Map<String, List<ObjectId>> removedIds;
 
 	DeletedDiffProcessor(MutableChangeMap changeSet, DataChannel channel, CommitLogEntityFactory entityFactory) {
 		this.changeSet = changeSet;
 		this.channel = channel;
 		this.entityFactory = entityFactory;
+		this.removedIds = new LinkedHashMap<>();
 	}
 
 	@Override
 	public void nodeRemoved(Object nodeId) {
 		ObjectId id = (ObjectId) nodeId;
 
-		final MutableObjectChange objectChangeSet = changeSet.getOrCreate(id, ObjectChangeType.DELETE);
+		// register the change right away to preserve the order of changes
+		changeSet.getOrCreate(id, ObjectChangeType.DELETE);
+
+		List<ObjectId> ids = removedIds.get(id.getEntityName());
+		if (ids == null) {
+			ids = new ArrayList<>();
+			removedIds.put(id.getEntityName(), ids);
+		}
+
+		ids.add(id);
+	}
+
+	/**
+	 * Records pre-delete attribute values of all objects removed so far.
+	 */
+	void processRemoved() {
+
+		for (Map.Entry<String, List<ObjectId>> e : removedIds.entrySet()) {
+
+			Map<ObjectId, DataRow> snapshots = getSnapshots(e.getKey(), e.getValue());
+
+			for (ObjectId id : e.getValue()) {
+				DataRow row = snapshots.get(id);
+				if (row == null) {
+					LOGGER.warn("No DB snapshot for object to be deleted, no changes will be recorded. ID: " + id);
+					continue;
+				}
+
+				recordSnapshot(id, row);
+			}
+		}
+
+		removedIds.clear();
+	}
+
+	private Map<ObjectId, DataRow> getSnapshots(String entityName, List<ObjectId> ids) {
+
+		Map<ObjectId, DataRow> snapshots = new HashMap<>();
+		List<ObjectId> missing = new ArrayList<>();
+
+		DataRowStore cache = channel instanceof DataDomain ? ((DataDomain) channel).getSharedSnapshotCache() : null;
+		for (ObjectId id : ids) {
+
+			DataRow row = cache != null ? cache.getCachedSnapshot(id) : null;
+			if (row != null) {
+				snapshots.put(id, row);
+			} else if (!id.isTemporary()) {
+				missing.add(id);
+			}
+		}
 
-		// TODO: rewrite with SelectById query after Cayenne upgrade
-		ObjectIdQuery query = new ObjectIdQuery(id, true, ObjectIdQuery.CACHE);
-		QueryResponse result = channel.onQuery(null, query);
+		int batchSize = MAX_IDS_PER_QUERY;
+		if (channel instanceof DataDomain) {
+			int maxIdQualifierSize = ((DataDomain) channel).getMaxIdQualifierSize();
+			if (maxIdQualifierSize > 0 && maxIdQualifierSize < batchSize) {
+				batchSize = maxIdQualifierSize;
+			}
+		}
+
+		for (int i = 0; i < missing.size(); i += batchSize) {
+			List<ObjectId> batch = missing.subList(i, Math.min(i + batchSize, missing.size()));
+
+			SelectQuery<DataRow> query = new SelectQuery<>(entityName, idQualifier(batch));
+			query.setFetchingDataRows(true);
+
+			@SuppressWarnings("unchecked")
+			List<DataRow> rows = channel.onQuery(null, query).firstList();
+
+			for (DataRow row : rows) {
+				snapshots.put(rowId(entityName, batch.get(0), row), row);
+			}
+		}
+
+		return snapshots;
+	}
+
+	private Expression idQualifier(List<ObjectId> ids) {
 
-		@SuppressWarnings("unchecked")
-		List<DataRow> rows = result.firstList();
+		Map<String, Object> firstId = ids.get(0).getIdSnapshot();
+		if (firstId.size() == 1) {
+			String pk = firstId.keySet().iterator().next();
+			List<Object> values = new ArrayList<>(ids.size());
+			for (ObjectId id : ids) {
+				values.add(id.getIdSnapshot().get(pk));
+			}
+
+			return ExpressionFactory.inDbExp(pk, values);
+		}
 
-		if (rows.isEmpty()) {
-			LOGGER.warn("No DB snapshot for object to be deleted, no changes will be recorded. ID: " + id);
-			return;
+		List<Expression> qualifiers = new ArrayList<>(ids.size());
+		for (ObjectId id : ids) {
+			qualifiers.add(ExpressionFactory.matchAllDbExp(id.getIdSnapshot(), Expression.EQUAL_TO));
 		}
 
-		final DataRow row = rows.get(0);
+		return ExpressionFactory.joinExp(Expression.OR, qualifiers);
+	}
+
+	private ObjectId rowId(String entityName, ObjectId prototype, DataRow row) {
+		Map<String, Object> idMap = new HashMap<>();
+		for (String pk : prototype.getIdSnapshot().keySet()) {
+			idMap.put(pk, row.get(pk));
+		}
+
+		return new ObjectId(entityName, idMap);
+	}
+
+	private void recordSnapshot(ObjectId id, final DataRow row) {
+
+		final MutableObjectChange objectChangeSet = changeSet.getOrCreate(id, ObjectChangeType.DELETE);
 
 		ClassDescriptor descriptor = channel.getEntityResolver().getClassDescriptor(id.getEntityName());
 		final CommitLogEntity entity = entityFactory.getEntity(id);
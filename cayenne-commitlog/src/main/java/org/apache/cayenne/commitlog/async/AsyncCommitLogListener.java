@@ -0,0 +1,395 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.commitlog.CommitLogListener;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.configuration.ObjectContextFactory;
+import org.apache.cayenne.configuration.RuntimeProperties;
+import org.apache.cayenne.di.BeforeScopeEnd;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.di.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link CommitLogListener} that appends committed changes to a local
+ * {@link CommitLogJournal} and returns immediately, while a background thread
+ * delivers journaled changes to the actual listeners in batches. Failed
+ * deliveries are retried with an increasing delay, and changes not delivered
+ * before shutdown are delivered after restart. So each change is delivered at
+ * least once, but may be delivered more than once after a failure or a crash.
+ * A change that still fails after the maximum number of retries, or can't be
+ * decoded at all, is written to the "dead-letter" subdirectory of the journal
+ * directory and skipped, so that it doesn't hold back the changes that follow
+ * it.
+ * <p>
+ * With {@link BinaryChangeMapCodec}, the mapping dictionary is saved in the
+ * journal directory, so that changes journaled before a mapping change are
+ * still delivered after restart.
+ * </p>
+ * <p>
+ * As the delivery happens after the originating context may have been
+ * discarded, listeners receive a new ObjectContext instead. Changes of each
+ * commit are delivered in the order they were committed.
+ * </p>
+ *
+ * @since 4.1
+ */
+public class AsyncCommitLogListener implements CommitLogListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncCommitLogListener.class);
+
+	/**
+	 * A name of the DI list of listeners receiving changes from the background
+	 * thread.
+	 */
+	public static final String DELEGATE_LISTENERS_LIST = "cayenne.commitlog.async.listeners";
+
+	/**
+	 * A property defining a directory of the journal files. Required.
+	 */
+	public static final String JOURNAL_DIR_PROPERTY = "cayenne.commitlog.async.journal_dir";
+
+	/**
+	 * A property defining a size of the journal segment files in bytes. 16MB
+	 * by default.
+	 */
+	public static final String SEGMENT_SIZE_PROPERTY = "cayenne.commitlog.async.segment_size";
+
+	/**
+	 * A property defining whether each journal write is forced to the storage
+	 * device before the commit returns. False by default.
+	 */
+	public static final String SYNC_PROPERTY = "cayenne.commitlog.async.sync";
+
+	/**
+	 * A property defining the maximum number of changes delivered in one
+	 * batch. 100 by default.
+	 */
+	public static final String BATCH_SIZE_PROPERTY = "cayenne.commitlog.async.batch_size";
+
+	/**
+	 * A property defining the maximum delay in milliseconds between retries
+	 * of a failed delivery. 30 seconds by default.
+	 */
+	public static final String MAX_RETRY_DELAY_PROPERTY = "cayenne.commitlog.async.max_retry_delay";
+
+	/**
+	 * A property defining the number of retries of a failed delivery, after
+	 * which the change is moved to the dead-letter directory. 10 by default. A
+	 * negative value means retrying until the delivery succeeds.
+	 */
+	public static final String MAX_RETRIES_PROPERTY = "cayenne.commitlog.async.max_retries";
+
+	/**
+	 * A subdirectory of the journal directory where the changes that could not
+	 * be delivered are stored, one file per change, named after the journal
+	 * sequence number of the change.
+	 */
+	public static final String DEAD_LETTER_DIR = "dead-letter";
+
+	static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+	static final int DEFAULT_BATCH_SIZE = 100;
+	static final long DEFAULT_MAX_RETRY_DELAY = 30000;
+	static final int DEFAULT_MAX_RETRIES = 10;
+
+	private static final long MIN_RETRY_DELAY = 100;
+	private static final long POLL_TIMEOUT = 1000;
+	private static final long SHUTDOWN_TIMEOUT = 5000;
+
+	private List<CommitLogListener> delegates;
+	private ChangeMapCodec codec;
+	private Provider<ObjectContextFactory> contextFactory;
+
+	private CommitLogJournal journal;
+	private AsyncCommitLogMetrics metrics;
+	private int batchSize;
+	private long maxRetryDelay;
+	private int maxRetries;
+	private File deadLetterDir;
+
+	private Thread dispatchThread;
+	private volatile boolean stopped;
+
+	// a timestamp of the oldest change being delivered or zero
+	private volatile long deliveringTimestamp;
+	private volatile boolean dictionaryStored;
+
+	public AsyncCommitLogListener(@Inject(DELEGATE_LISTENERS_LIST) List<CommitLogListener> delegates,
+			@Inject ChangeMapCodec codec, @Inject Provider<ObjectContextFactory> contextFactory,
+			@Inject RuntimeProperties properties) {
+
+		String journalDir = properties.get(JOURNAL_DIR_PROPERTY);
+		if (journalDir == null) {
+			throw new CayenneRuntimeException("Commit log journal directory is not set. Use '%s' property",
+					JOURNAL_DIR_PROPERTY);
+		}
+
+		this.delegates = delegates;
+		this.codec = codec;
+		this.contextFactory = contextFactory;
+		this.batchSize = Math.max(1, properties.getInt(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE));
+		this.maxRetryDelay = Math.max(MIN_RETRY_DELAY,
+				properties.getLong(MAX_RETRY_DELAY_PROPERTY, DEFAULT_MAX_RETRY_DELAY));
+		this.maxRetries = properties.getInt(MAX_RETRIES_PROPERTY, DEFAULT_MAX_RETRIES);
+		this.deadLetterDir = new File(journalDir, DEAD_LETTER_DIR);
+		this.metrics = new AsyncCommitLogMetrics(this);
+		this.journal = new CommitLogJournal(new File(journalDir),
+				properties.getInt(SEGMENT_SIZE_PROPERTY, DEFAULT_SEGMENT_SIZE),
+				properties.getBoolean(SYNC_PROPERTY, false));
+
+		// dictionaries of the mappings used by the previous runs, needed to
+		// decode their undelivered entries
+		if (codec instanceof BinaryChangeMapCodec) {
+			((BinaryChangeMapCodec) codec).loadDictionaries(journal.getDirectory());
+		}
+
+		long pending = journal.getPendingCount();
+		if (pending > 0) {
+			LOGGER.info("Replaying " + pending + " undelivered commit log entries from " + journalDir);
+		}
+
+		this.dispatchThread = new Thread(this::dispatch, "cayenne-commitlog-dispatcher");
+		dispatchThread.setDaemon(true);
+		dispatchThread.start();
+	}
+
+	@Override
+	public void onPostCommit(ObjectContext originatingContext, ChangeMap changes) {
+
+		// nothing to deliver
+		if (changes.getUniqueChanges().isEmpty()) {
+			return;
+		}
+
+		try {
+			storeDictionary();
+			journal.append(codec.encode(changes));
+			metrics.appended();
+		} catch (RuntimeException e) {
+
+			// the changes are already committed, so the best we can do is to
+			// deliver them right away
+			LOGGER.warn("Error journaling commit log changes, delivering synchronously", e);
+			metrics.deliveredSynchronously();
+
+			for (CommitLogListener l : delegates) {
+				l.onPostCommit(originatingContext, changes);
+			}
+		}
+	}
+
+	private void storeDictionary() {
+
+		// the dictionary is built from the mapping, which is not available
+		// yet when the listener is created, so storing it on the first commit
+		if (!dictionaryStored && codec instanceof BinaryChangeMapCodec) {
+			synchronized (this) {
+				if (!dictionaryStored) {
+					((BinaryChangeMapCodec) codec).storeDictionary(journal.getDirectory());
+					dictionaryStored = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns an object with statistics of the asynchronous delivery.
+	 */
+	public AsyncCommitLogMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Stops the delivery thread and closes the journal. Changes not delivered
+	 * by this time will be delivered when the journal is opened again.
+	 */
+	@BeforeScopeEnd
+	public void shutdown() {
+
+		if (!stopped) {
+			this.stopped = true;
+
+			dispatchThread.interrupt();
+			try {
+				dispatchThread.join(SHUTDOWN_TIMEOUT);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			journal.close();
+		}
+	}
+
+	long pendingCount() {
+		return journal.getPendingCount();
+	}
+
+	long lag() {
+		long timestamp = deliveringTimestamp;
+		return timestamp > 0 ? Math.max(0, System.currentTimeMillis() - timestamp) : 0;
+	}
+
+	void dispatch() {
+		while (!stopped) {
+
+			List<JournalEntry> batch;
+			try {
+				batch = journal.poll(batchSize, POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				break;
+			}
+
+			if (!batch.isEmpty() && !deliver(batch)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Delivers a batch of entries, retrying failed entries until they succeed,
+	 * run out of retries or the listener is stopped. Returns false if stopped.
+	 */
+	private boolean deliver(List<JournalEntry> batch) {
+
+		int next = 0;
+		int retries = 0;
+		long retryDelay = MIN_RETRY_DELAY;
+
+		while (next < batch.size()) {
+
+			JournalEntry entry = batch.get(next);
+			deliveringTimestamp = entry.getTimestamp();
+
+			try {
+				deliver(entry);
+				next++;
+				retries = 0;
+				retryDelay = MIN_RETRY_DELAY;
+			} catch (Exception e) {
+
+				metrics.failed();
+
+				// retrying won't help if the entry can't be decoded
+				boolean undecodable = e instanceof UndecodableEntryException;
+				if ((undecodable || maxRetries >= 0 && retries >= maxRetries) && deadLetter(entry, e)) {
+					if (undecodable) {
+						metrics.skipped();
+					}
+
+					next++;
+					retries = 0;
+					retryDelay = MIN_RETRY_DELAY;
+					continue;
+				}
+
+				LOGGER.warn("Error delivering commit log entry " + entry.getSequence() + ", will retry in "
+						+ retryDelay + " ms", e);
+
+				// don't redeliver the successful part of the batch after restart
+				if (next > 0) {
+					journal.acknowledge(batch.get(next - 1).getSequence());
+				}
+
+				try {
+					Thread.sleep(retryDelay);
+				} catch (InterruptedException ie) {
+					return false;
+				}
+
+				if (stopped) {
+					return false;
+				}
+
+				retries++;
+				retryDelay = Math.min(retryDelay * 2, maxRetryDelay);
+			}
+		}
+
+		journal.acknowledge(batch.get(batch.size() - 1).getSequence());
+		deliveringTimestamp = 0;
+		metrics.batchDelivered();
+		return true;
+	}
+
+	/**
+	 * Stores an entry that can't be delivered in the dead-letter directory.
+	 * Returns false if the entry could not be stored, so it must not be
+	 * skipped.
+	 */
+	private boolean deadLetter(JournalEntry entry, Exception cause) {
+
+		File file = new File(deadLetterDir, String.format("commitlog-%016d.entry", entry.getSequence()));
+		try {
+			if (!deadLetterDir.isDirectory() && !deadLetterDir.mkdirs()) {
+				throw new IOException("Can't create directory " + deadLetterDir);
+			}
+
+			Files.write(file.toPath(), entry.getPayload());
+		} catch (IOException e) {
+			LOGGER.error("Error storing undelivered commit log entry " + entry.getSequence() + " in " + file, e);
+			return false;
+		}
+
+		LOGGER.error("Giving up on commit log entry " + entry.getSequence() + ", stored it in " + file, cause);
+		metrics.deadLettered();
+		return true;
+	}
+
+	private void deliver(JournalEntry entry) {
+
+		ChangeMap changes;
+		try {
+			changes = codec.decode(entry.getPayload());
+		} catch (RuntimeException e) {
+			throw new UndecodableEntryException(entry, e);
+		}
+
+		long start = System.nanoTime();
+
+		ObjectContext context = contextFactory.get().createContext();
+		for (CommitLogListener l : delegates) {
+			l.onPostCommit(context, changes);
+		}
+
+		metrics.delivered(System.nanoTime() - start, System.currentTimeMillis() - entry.getTimestamp());
+	}
+
+	/**
+	 * Thrown when a journal entry can't be decoded, e.g. because it was
+	 * written with a mapping whose dictionary is not known.
+	 */
+	private static class UndecodableEntryException extends CayenneRuntimeException {
+
+		private static final long serialVersionUID = -2950377264146207744L;
+
+		UndecodableEntryException(JournalEntry entry, Throwable cause) {
+			super("Commit log entry %s can't be decoded", cause, entry.getSequence());
+		}
+	}
+}
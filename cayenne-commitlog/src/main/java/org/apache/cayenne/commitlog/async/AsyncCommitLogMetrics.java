@@ -0,0 +1,150 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects statistics of the asynchronous commit log delivery of an
+ * {@link AsyncCommitLogListener}.
+ *
+ * @since 4.1
+ */
+public class AsyncCommitLogMetrics implements AsyncCommitLogMetricsMXBean {
+
+	private AsyncCommitLogListener listener;
+
+	private LongAdder appended;
+	private LongAdder delivered;
+	private LongAdder batches;
+	private LongAdder failed;
+	private LongAdder skipped;
+	private LongAdder deadLettered;
+	private LongAdder synchronous;
+	private LongAdder deliveryNanos;
+	private LongAdder latencyMillis;
+	private LongAccumulator maxLatencyMillis;
+
+	AsyncCommitLogMetrics(AsyncCommitLogListener listener) {
+		this.listener = listener;
+		this.appended = new LongAdder();
+		this.delivered = new LongAdder();
+		this.batches = new LongAdder();
+		this.failed = new LongAdder();
+		this.skipped = new LongAdder();
+		this.deadLettered = new LongAdder();
+		this.synchronous = new LongAdder();
+		this.deliveryNanos = new LongAdder();
+		this.latencyMillis = new LongAdder();
+		this.maxLatencyMillis = new LongAccumulator(Math::max, 0);
+	}
+
+	void appended() {
+		appended.increment();
+	}
+
+	void delivered(long nanos, long latency) {
+		delivered.increment();
+		deliveryNanos.add(nanos);
+		latencyMillis.add(latency);
+		maxLatencyMillis.accumulate(latency);
+	}
+
+	void batchDelivered() {
+		batches.increment();
+	}
+
+	void failed() {
+		failed.increment();
+	}
+
+	void skipped() {
+		skipped.increment();
+	}
+
+	void deadLettered() {
+		deadLettered.increment();
+	}
+
+	void deliveredSynchronously() {
+		synchronous.increment();
+	}
+
+	@Override
+	public long getPendingCount() {
+		return listener.pendingCount();
+	}
+
+	@Override
+	public long getLag() {
+		return listener.lag();
+	}
+
+	@Override
+	public long getAppendedCount() {
+		return appended.sum();
+	}
+
+	@Override
+	public long getDeliveredCount() {
+		return delivered.sum();
+	}
+
+	@Override
+	public long getBatchCount() {
+		return batches.sum();
+	}
+
+	@Override
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+	@Override
+	public long getSkippedCount() {
+		return skipped.sum();
+	}
+
+	@Override
+	public long getDeadLetterCount() {
+		return deadLettered.sum();
+	}
+
+	@Override
+	public long getSynchronousCount() {
+		return synchronous.sum();
+	}
+
+	@Override
+	public long getTotalDeliveryTime() {
+		return TimeUnit.NANOSECONDS.toMillis(deliveryNanos.sum());
+	}
+
+	@Override
+	public long getTotalDeliveryLatency() {
+		return latencyMillis.sum();
+	}
+
+	@Override
+	public long getMaxDeliveryLatency() {
+		return maxLatencyMillis.get();
+	}
+}
@@ -0,0 +1,96 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+/**
+ * A JMX-compatible view of {@link AsyncCommitLogListener} delivery statistics.
+ * Can be registered with an MBeanServer by the application.
+ *
+ * @since 4.1
+ */
+public interface AsyncCommitLogMetricsMXBean {
+
+	/**
+	 * Returns the number of journaled changes not yet delivered to all
+	 * listeners.
+	 */
+	long getPendingCount();
+
+	/**
+	 * Returns the age in milliseconds of the oldest change that is being
+	 * delivered, or zero if the delivery is up to date.
+	 */
+	long getLag();
+
+	/**
+	 * Returns the number of changes appended to the journal.
+	 */
+	long getAppendedCount();
+
+	/**
+	 * Returns the number of changes delivered to all listeners.
+	 */
+	long getDeliveredCount();
+
+	/**
+	 * Returns the number of delivered batches of changes.
+	 */
+	long getBatchCount();
+
+	/**
+	 * Returns the number of failed delivery attempts.
+	 */
+	long getFailedCount();
+
+	/**
+	 * Returns the number of journal entries that could not be decoded, and
+	 * were moved to the dead-letter directory without delivery attempts.
+	 */
+	long getSkippedCount();
+
+	/**
+	 * Returns the number of changes moved to the dead-letter directory, either
+	 * after running out of delivery retries or because they could not be
+	 * decoded.
+	 */
+	long getDeadLetterCount();
+
+	/**
+	 * Returns the number of changes delivered synchronously, because they
+	 * could not be encoded or appended to the journal.
+	 */
+	long getSynchronousCount();
+
+	/**
+	 * Returns the total time in milliseconds spent in the listeners.
+	 */
+	long getTotalDeliveryTime();
+
+	/**
+	 * Returns the total time in milliseconds between journaling and completed
+	 * delivery of all delivered changes.
+	 */
+	long getTotalDeliveryLatency();
+
+	/**
+	 * Returns the longest time in milliseconds between journaling and
+	 * completed delivery of a change.
+	 */
+	long getMaxDeliveryLatency();
+}
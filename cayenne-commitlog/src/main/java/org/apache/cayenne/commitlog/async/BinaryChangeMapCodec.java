@@ -0,0 +1,196 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.DataChannel;
+import org.apache.cayenne.commitlog.meta.CommitLogEntityFactory;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.di.Provider;
+
+/**
+ * A compact binary {@link ChangeMapCodec}. Entity and property names are
+ * replaced with their numbers from a {@link ChangeMapDictionary} built from the
+ * mapping and the {@link CommitLogEntityFactory}, and integer values are
+ * stored as variable length numbers, so that a typical change takes a few
+ * bytes per property. Values of common JDBC-mapped types are encoded
+ * natively, while other {@link java.io.Serializable} values fall back to Java
+ * serialization.
+ * <p>
+ * Change maps can only be decoded with the dictionary they were encoded with.
+ * Dictionaries of earlier mappings can be provided with
+ * {@link #addDictionary(ChangeMapDictionary)}, e.g. by saving the current
+ * dictionary next to the encoded data with {@link #storeDictionary(File)} and
+ * restoring it after a mapping change with {@link #loadDictionaries(File)}.
+ * </p>
+ *
+ * @since 4.1
+ */
+public class BinaryChangeMapCodec implements ChangeMapCodec {
+
+	static final String DICTIONARY_PREFIX = "dictionary-";
+	static final String DICTIONARY_SUFFIX = ".bin";
+
+	private Provider<DataChannel> channelProvider;
+	private CommitLogEntityFactory entityFactory;
+	private volatile ChangeMapDictionary dictionary;
+	private Map<Integer, ChangeMapDictionary> previousDictionaries = new ConcurrentHashMap<>();
+
+	public BinaryChangeMapCodec(@Inject Provider<DataChannel> channelProvider,
+			@Inject CommitLogEntityFactory entityFactory) {
+
+		// injecting provider instead of DataChannel, as otherwise we end up
+		// with circular dependency.
+		this.channelProvider = channelProvider;
+		this.entityFactory = entityFactory;
+	}
+
+	public BinaryChangeMapCodec(ChangeMapDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	@Override
+	public byte[] encode(ChangeMap changes) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(changes, out);
+		return out.toByteArray();
+	}
+
+	@Override
+	public ChangeMap decode(byte[] data) {
+		return reader(new ByteArrayInputStream(data)).readAll();
+	}
+
+	/**
+	 * Writes a change map to the stream.
+	 */
+	public void write(ChangeMap changes, OutputStream out) {
+		try {
+			new ChangeMapWriter(out, getDictionary()).write(changes);
+		} catch (IOException e) {
+			throw new CayenneRuntimeException("Error writing change map", e);
+		}
+	}
+
+	/**
+	 * Returns a reader of a single change map from the stream, that decodes
+	 * object changes as they are requested.
+	 */
+	public ChangeMapReader reader(InputStream in) {
+		return new ChangeMapReader(in, this::getDictionary);
+	}
+
+	/**
+	 * Registers a dictionary of a different mapping, so that change maps
+	 * encoded with it can be decoded.
+	 */
+	public void addDictionary(ChangeMapDictionary dictionary) {
+		previousDictionaries.put(dictionary.getFingerprint(), dictionary);
+	}
+
+	/**
+	 * Saves the current dictionary to a file in the directory, unless it is
+	 * already there.
+	 */
+	public void storeDictionary(File directory) {
+
+		ChangeMapDictionary dictionary = getDictionary();
+		File file = new File(directory, dictionaryFileName(dictionary.getFingerprint()));
+		if (file.isFile()) {
+			return;
+		}
+
+		// write to a temp file first, so that a crash doesn't leave a partial
+		// dictionary behind
+		File tempFile = new File(directory, file.getName() + ".tmp");
+		try {
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+				dictionary.write(out);
+			}
+
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new CayenneRuntimeException("Error saving change map dictionary to %s", e, file);
+		}
+	}
+
+	/**
+	 * Registers all dictionaries saved in the directory with
+	 * {@link #storeDictionary(File)}.
+	 */
+	public void loadDictionaries(File directory) {
+
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		for (File file : files) {
+			String name = file.getName();
+			if (name.startsWith(DICTIONARY_PREFIX) && name.endsWith(DICTIONARY_SUFFIX)) {
+				try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+					addDictionary(ChangeMapDictionary.read(in));
+				} catch (IOException e) {
+					throw new CayenneRuntimeException("Error reading change map dictionary from %s", e, file);
+				}
+			}
+		}
+	}
+
+	private static String dictionaryFileName(int fingerprint) {
+		return String.format("%s%08x%s", DICTIONARY_PREFIX, fingerprint, DICTIONARY_SUFFIX);
+	}
+
+	ChangeMapDictionary getDictionary(int fingerprint) {
+		ChangeMapDictionary dictionary = getDictionary();
+		return dictionary.getFingerprint() == fingerprint ? dictionary : previousDictionaries.get(fingerprint);
+	}
+
+	public ChangeMapDictionary getDictionary() {
+
+		ChangeMapDictionary dictionary = this.dictionary;
+		if (dictionary == null) {
+			synchronized (this) {
+				dictionary = this.dictionary;
+				if (dictionary == null) {
+					dictionary = new ChangeMapDictionary(channelProvider.get().getEntityResolver(), entityFactory);
+					this.dictionary = dictionary;
+				}
+			}
+		}
+
+		return dictionary;
+	}
+}
@@ -0,0 +1,62 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+/**
+ * Constants of the binary change map format of {@link BinaryChangeMapCodec}.
+ *
+ * @since 4.1
+ */
+final class BinaryFormat {
+
+	static final int VERSION = 1;
+
+	// ObjectId kinds
+	static final int PERMANENT_ID = 0;
+	static final int TEMPORARY_ID = 1;
+
+	// value types
+	static final int NULL = 0;
+	static final int CONFIDENTIAL = 1;
+	static final int STRING = 2;
+	static final int INTEGER = 3;
+	static final int LONG = 4;
+	static final int SHORT = 5;
+	static final int BYTE = 6;
+	static final int TRUE = 7;
+	static final int FALSE = 8;
+	static final int DOUBLE = 9;
+	static final int FLOAT = 10;
+	static final int BIG_DECIMAL = 11;
+	static final int BIG_INTEGER = 12;
+	static final int DATE = 13;
+	static final int SQL_DATE = 14;
+	static final int SQL_TIME = 15;
+	static final int SQL_TIMESTAMP = 16;
+	static final int BYTES = 17;
+	static final int CHARACTER = 18;
+	static final int LOCAL_DATE = 19;
+	static final int LOCAL_TIME = 20;
+	static final int LOCAL_DATE_TIME = 21;
+	static final int UUID = 22;
+	static final int SERIALIZED = 127;
+
+	private BinaryFormat() {
+	}
+}
@@ -0,0 +1,38 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+import org.apache.cayenne.commitlog.model.ChangeMap;
+
+/**
+ * Converts {@link ChangeMap} objects to and from a binary form stored in the
+ * {@link CommitLogJournal} for asynchronous delivery to commit log listeners.
+ *
+ * @since 4.1
+ */
+public interface ChangeMapCodec {
+
+	/**
+	 * Encodes a change map into a byte array. Throws an exception if some of
+	 * the changes can't be encoded.
+	 */
+	byte[] encode(ChangeMap changes);
+
+	ChangeMap decode(byte[] data);
+}
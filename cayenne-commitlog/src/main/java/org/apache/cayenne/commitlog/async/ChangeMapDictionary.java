@@ -0,0 +1,238 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.meta.CommitLogEntity;
+import org.apache.cayenne.commitlog.meta.CommitLogEntityFactory;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.map.ObjRelationship;
+
+/**
+ * Numbers entities and their properties included in the commit log, so that
+ * {@link BinaryChangeMapCodec} can store small numbers instead of names. The
+ * numbering is derived from the sorted names of the mapping, so it is the same
+ * in every application instance that uses the same mapping and
+ * {@link CommitLogEntityFactory}. Names missing from the dictionary are
+ * encoded as is. A dictionary can be {@link #write(OutputStream) saved} and
+ * {@link #read(InputStream) restored}, so that change maps encoded before a
+ * mapping change can still be decoded.
+ *
+ * @since 4.1
+ */
+public class ChangeMapDictionary {
+
+	private List<String> entities;
+	private Map<String, Integer> entityIndex;
+	private Map<String, List<String>> properties;
+	private Map<String, Map<String, Integer>> propertyIndex;
+	private int fingerprint;
+
+	public ChangeMapDictionary(EntityResolver resolver, CommitLogEntityFactory entityFactory) {
+
+		Map<String, CommitLogEntity> logEntities = new TreeMap<>();
+		for (ObjEntity entity : resolver.getObjEntities()) {
+			CommitLogEntity logEntity = entityFactory.getEntity(new ObjectId(entity.getName()));
+			if (logEntity.isIncluded()) {
+				logEntities.put(entity.getName(), logEntity);
+			}
+		}
+
+		this.entities = new ArrayList<>(logEntities.keySet());
+		this.properties = new HashMap<>();
+		for (String entityName : entities) {
+			properties.put(entityName, new ArrayList<>(
+					entityProperties(resolver.getObjEntity(entityName), logEntities.get(entityName))));
+		}
+
+		index();
+	}
+
+	ChangeMapDictionary(List<String> entities, Map<String, List<String>> properties) {
+		this.entities = entities;
+		this.properties = properties;
+		index();
+	}
+
+	/**
+	 * Reads a dictionary saved with {@link #write(OutputStream)}.
+	 */
+	public static ChangeMapDictionary read(InputStream in) throws IOException {
+
+		DataInputStream dataIn = new DataInputStream(in);
+
+		int version = dataIn.readUnsignedByte();
+		if (version != BinaryFormat.VERSION) {
+			throw new IOException("Unsupported change map dictionary version: " + version);
+		}
+
+		int entityCount = dataIn.readInt();
+		List<String> entities = new ArrayList<>(entityCount);
+		Map<String, List<String>> properties = new HashMap<>();
+
+		for (int i = 0; i < entityCount; i++) {
+			String entityName = dataIn.readUTF();
+
+			int propertyCount = dataIn.readInt();
+			List<String> entityProperties = new ArrayList<>(propertyCount);
+			for (int j = 0; j < propertyCount; j++) {
+				entityProperties.add(dataIn.readUTF());
+			}
+
+			entities.add(entityName);
+			properties.put(entityName, entityProperties);
+		}
+
+		return new ChangeMapDictionary(entities, properties);
+	}
+
+	private void index() {
+
+		this.entityIndex = new HashMap<>();
+		this.propertyIndex = new HashMap<>();
+
+		int hash = 1;
+		for (String entityName : entities) {
+
+			entityIndex.put(entityName, entityIndex.size());
+			hash = 31 * hash + entityName.hashCode();
+
+			Map<String, Integer> index = new HashMap<>();
+			for (String property : properties.get(entityName)) {
+				index.put(property, index.size());
+				hash = 31 * hash + property.hashCode();
+			}
+
+			propertyIndex.put(entityName, index);
+
+			// separate entities, so that moving a property changes the result
+			hash = 31 * hash + '/';
+		}
+
+		this.fingerprint = hash;
+	}
+
+	private static Set<String> entityProperties(ObjEntity entity, CommitLogEntity logEntity) {
+		Set<String> names = new TreeSet<>();
+
+		for (ObjAttribute attribute : entity.getAttributes()) {
+			if (logEntity.isIncluded(attribute.getName())) {
+				names.add(attribute.getName());
+			}
+		}
+
+		for (ObjRelationship relationship : entity.getRelationships()) {
+			if (logEntity.isIncluded(relationship.getName())) {
+				names.add(relationship.getName());
+			}
+		}
+
+		// PK columns are needed to encode ObjectIds
+		if (entity.getDbEntity() != null) {
+			for (DbAttribute pk : entity.getDbEntity().getPrimaryKeys()) {
+				names.add(pk.getName());
+			}
+		}
+
+		return names;
+	}
+
+	/**
+	 * Returns a number that changes whenever the dictionary changes. Used to
+	 * detect that a change map was encoded with a different mapping.
+	 */
+	public int getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Returns a list of entity names in the dictionary order.
+	 */
+	public List<String> getEntities() {
+		return Collections.unmodifiableList(entities);
+	}
+
+	/**
+	 * Returns a list of property names of the entity in the dictionary order.
+	 */
+	public List<String> getProperties(String entityName) {
+		List<String> entityProperties = properties.get(entityName);
+		return entityProperties != null ? Collections.unmodifiableList(entityProperties)
+				: Collections.<String> emptyList();
+	}
+
+	/**
+	 * Saves the dictionary to a stream, so that it can be restored with
+	 * {@link #read(InputStream)}.
+	 */
+	public void write(OutputStream out) throws IOException {
+
+		DataOutputStream dataOut = new DataOutputStream(out);
+		dataOut.writeByte(BinaryFormat.VERSION);
+		dataOut.writeInt(entities.size());
+
+		for (String entityName : entities) {
+			dataOut.writeUTF(entityName);
+
+			List<String> entityProperties = properties.get(entityName);
+			dataOut.writeInt(entityProperties.size());
+			for (String property : entityProperties) {
+				dataOut.writeUTF(property);
+			}
+		}
+
+		dataOut.flush();
+	}
+
+	int entityIndex(String entityName) {
+		Integer index = entityIndex.get(entityName);
+		return index != null ? index : -1;
+	}
+
+	String entityName(int index) {
+		return entities.get(index);
+	}
+
+	int propertyIndex(String entityName, String property) {
+		Map<String, Integer> index = propertyIndex.get(entityName);
+		Integer i = index != null ? index.get(property) : null;
+		return i != null ? i : -1;
+	}
+
+	String propertyName(String entityName, int index) {
+		return properties.get(entityName).get(index);
+	}
+}
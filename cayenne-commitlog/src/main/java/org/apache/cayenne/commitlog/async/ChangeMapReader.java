@@ -0,0 +1,356 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.Confidential;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.commitlog.model.MutableChangeMap;
+import org.apache.cayenne.commitlog.model.MutableObjectChange;
+import org.apache.cayenne.commitlog.model.ObjectChange;
+import org.apache.cayenne.commitlog.model.ObjectChangeType;
+
+/**
+ * A streaming reader of a change map written by {@link BinaryChangeMapCodec}.
+ * Object changes are decoded one at a time, so the whole map doesn't need to
+ * be held in memory. Alternatively {@link #readAll()} returns the remaining
+ * changes as a {@link ChangeMap}.
+ *
+ * @since 4.1
+ */
+public class ChangeMapReader implements Closeable {
+
+	private static final ObjectChangeType[] CHANGE_TYPES = ObjectChangeType.values();
+
+	private DataInputStream in;
+	private ChangeMapDictionary dictionary;
+	private int size;
+	private int read;
+
+	ChangeMapReader(InputStream in, ChangeMapDictionary dictionary) {
+		this(in, fingerprint -> fingerprint == dictionary.getFingerprint() ? dictionary : null);
+	}
+
+	/**
+	 * Creates a reader that looks up the dictionary by the fingerprint stored
+	 * in the change map header.
+	 */
+	ChangeMapReader(InputStream in, IntFunction<ChangeMapDictionary> dictionaries) {
+		this.in = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+
+		try {
+			readHeader(dictionaries);
+		} catch (IOException e) {
+			throw new CayenneRuntimeException("Error reading change map", e);
+		}
+	}
+
+	private void readHeader(IntFunction<ChangeMapDictionary> dictionaries) throws IOException {
+
+		int version = in.readUnsignedByte();
+		if (version != BinaryFormat.VERSION) {
+			throw new CayenneRuntimeException("Unsupported change map format version: %s", version);
+		}
+
+		int fingerprint = in.readInt();
+		this.dictionary = dictionaries.apply(fingerprint);
+		if (dictionary == null) {
+			throw new CayenneRuntimeException("Change map was written with a different mapping or commit log configuration");
+		}
+
+		this.size = readVarInt();
+	}
+
+	/**
+	 * Returns the total number of object changes in the change map.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean hasNext() {
+		return read < size;
+	}
+
+	/**
+	 * Reads the next object change.
+	 */
+	public ObjectChange next() {
+
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		try {
+			return readChange(null);
+		} catch (IOException e) {
+			throw new CayenneRuntimeException("Error reading change map", e);
+		}
+	}
+
+	/**
+	 * Reads all remaining object changes into a change map.
+	 */
+	public ChangeMap readAll() {
+
+		MutableChangeMap changes = new MutableChangeMap();
+
+		try {
+			while (hasNext()) {
+				readChange(changes);
+			}
+		} catch (IOException e) {
+			throw new CayenneRuntimeException("Error reading change map", e);
+		}
+
+		return changes;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private MutableObjectChange readChange(MutableChangeMap changes) throws IOException {
+
+		ObjectChangeType type = CHANGE_TYPES[in.readUnsignedByte()];
+		ObjectId preCommitId = readId();
+		ObjectId postCommitId = in.readBoolean() ? readId() : null;
+
+		MutableObjectChange change;
+		if (changes != null) {
+			change = changes.getOrCreate(preCommitId, type);
+			if (postCommitId != null) {
+				changes.aliasId(preCommitId, postCommitId);
+			}
+		} else {
+			change = new MutableObjectChange(preCommitId);
+			change.setType(type);
+			change.setPostCommitId(postCommitId);
+		}
+
+		String entityName = preCommitId.getEntityName();
+
+		int attributes = readVarInt();
+		for (int i = 0; i < attributes; i++) {
+			String property = readProperty(entityName);
+			Object oldValue = readValue();
+			Object newValue = readValue();
+			change.attributeChanged(property, oldValue, newValue);
+		}
+
+		int toOne = readVarInt();
+		for (int i = 0; i < toOne; i++) {
+			String property = readProperty(entityName);
+			ObjectId oldValue = in.readBoolean() ? readId() : null;
+			ObjectId newValue = in.readBoolean() ? readId() : null;
+
+			if (oldValue != null) {
+				change.toOneRelationshipDisconnected(property, oldValue);
+			}
+
+			if (newValue != null) {
+				change.toOneRelationshipConnected(property, newValue);
+			}
+		}
+
+		int toMany = readVarInt();
+		for (int i = 0; i < toMany; i++) {
+			String property = readProperty(entityName);
+
+			for (ObjectId id : readIds()) {
+				change.toManyRelationshipConnected(property, id);
+			}
+
+			for (ObjectId id : readIds()) {
+				change.toManyRelationshipDisconnected(property, id);
+			}
+		}
+
+		read++;
+		return change;
+	}
+
+	private List<ObjectId> readIds() throws IOException {
+		int size = readVarInt();
+		if (size == 0) {
+			return Collections.emptyList();
+		}
+
+		List<ObjectId> ids = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			ids.add(readId());
+		}
+
+		return ids;
+	}
+
+	private ObjectId readId() throws IOException {
+
+		int entity = readVarInt();
+		String entityName = entity > 0 ? dictionary.entityName(entity - 1) : readString();
+
+		int kind = in.readUnsignedByte();
+		if (kind == BinaryFormat.TEMPORARY_ID) {
+			return new ObjectId(entityName, readBytes());
+		}
+
+		int size = readVarInt();
+		if (size == 1) {
+			String key = readProperty(entityName);
+			return new ObjectId(entityName, key, readValue());
+		}
+
+		Map<String, Object> snapshot = new HashMap<>((int) (size / 0.75f) + 1);
+		for (int i = 0; i < size; i++) {
+			String key = readProperty(entityName);
+			snapshot.put(key, readValue());
+		}
+
+		return new ObjectId(entityName, snapshot);
+	}
+
+	private String readProperty(String entityName) throws IOException {
+		int index = readVarInt();
+		return index > 0 ? dictionary.propertyName(entityName, index - 1) : readString();
+	}
+
+	private Object readValue() throws IOException {
+
+		int type = in.readUnsignedByte();
+		switch (type) {
+		case BinaryFormat.NULL:
+			return null;
+		case BinaryFormat.CONFIDENTIAL:
+			return Confidential.getInstance();
+		case BinaryFormat.STRING:
+			return readString();
+		case BinaryFormat.INTEGER:
+			return (int) unZigZag(readVarLong());
+		case BinaryFormat.LONG:
+			return unZigZag(readVarLong());
+		case BinaryFormat.SHORT:
+			return (short) unZigZag(readVarLong());
+		case BinaryFormat.BYTE:
+			return in.readByte();
+		case BinaryFormat.TRUE:
+			return Boolean.TRUE;
+		case BinaryFormat.FALSE:
+			return Boolean.FALSE;
+		case BinaryFormat.DOUBLE:
+			return in.readDouble();
+		case BinaryFormat.FLOAT:
+			return in.readFloat();
+		case BinaryFormat.BIG_DECIMAL:
+			int scale = (int) unZigZag(readVarLong());
+			return new BigDecimal(new BigInteger(readBytes()), scale);
+		case BinaryFormat.BIG_INTEGER:
+			return new BigInteger(readBytes());
+		case BinaryFormat.DATE:
+			return new Date(unZigZag(readVarLong()));
+		case BinaryFormat.SQL_DATE:
+			return new java.sql.Date(unZigZag(readVarLong()));
+		case BinaryFormat.SQL_TIME:
+			return new java.sql.Time(unZigZag(readVarLong()));
+		case BinaryFormat.SQL_TIMESTAMP:
+			java.sql.Timestamp timestamp = new java.sql.Timestamp(unZigZag(readVarLong()));
+			timestamp.setNanos(readVarInt());
+			return timestamp;
+		case BinaryFormat.BYTES:
+			return readBytes();
+		case BinaryFormat.CHARACTER:
+			return in.readChar();
+		case BinaryFormat.LOCAL_DATE:
+			return LocalDate.ofEpochDay(unZigZag(readVarLong()));
+		case BinaryFormat.LOCAL_TIME:
+			return LocalTime.ofNanoOfDay(readVarLong());
+		case BinaryFormat.LOCAL_DATE_TIME:
+			LocalDate date = LocalDate.ofEpochDay(unZigZag(readVarLong()));
+			return LocalDateTime.of(date, LocalTime.ofNanoOfDay(readVarLong()));
+		case BinaryFormat.UUID:
+			return new UUID(in.readLong(), in.readLong());
+		case BinaryFormat.SERIALIZED:
+			return deserialize(readBytes());
+		default:
+			throw new CayenneRuntimeException("Unknown value type: %s", type);
+		}
+	}
+
+	private static Object deserialize(byte[] bytes) throws IOException {
+		try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return objectIn.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new CayenneRuntimeException("Can't deserialize value", e);
+		}
+	}
+
+	private String readString() throws IOException {
+		return new String(readBytes(), StandardCharsets.UTF_8);
+	}
+
+	private byte[] readBytes() throws IOException {
+		byte[] bytes = new byte[readVarInt()];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private int readVarInt() throws IOException {
+		return (int) readVarLong();
+	}
+
+	private long readVarLong() throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+
+		throw new CayenneRuntimeException("Malformed variable length number");
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,299 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.Confidential;
+import org.apache.cayenne.commitlog.model.AttributeChange;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.commitlog.model.ObjectChange;
+import org.apache.cayenne.commitlog.model.ToManyRelationshipChange;
+import org.apache.cayenne.commitlog.model.ToOneRelationshipChange;
+
+/**
+ * Writes change maps in the format of {@link BinaryChangeMapCodec}.
+ *
+ * @since 4.1
+ */
+class ChangeMapWriter {
+
+	private DataOutputStream out;
+	private ChangeMapDictionary dictionary;
+
+	ChangeMapWriter(OutputStream out, ChangeMapDictionary dictionary) {
+		this.out = out instanceof DataOutputStream ? (DataOutputStream) out : new DataOutputStream(out);
+		this.dictionary = dictionary;
+	}
+
+	void write(ChangeMap changes) throws IOException {
+
+		Collection<? extends ObjectChange> uniqueChanges = changes.getUniqueChanges();
+
+		out.writeByte(BinaryFormat.VERSION);
+		out.writeInt(dictionary.getFingerprint());
+		writeVarInt(uniqueChanges.size());
+
+		for (ObjectChange change : uniqueChanges) {
+			writeChange(change);
+		}
+
+		out.flush();
+	}
+
+	private void writeChange(ObjectChange change) throws IOException {
+
+		ObjectId preCommitId = change.getPreCommitId();
+		ObjectId postCommitId = change.getPostCommitId();
+		String entityName = preCommitId.getEntityName();
+
+		out.writeByte(change.getType().ordinal());
+		writeId(preCommitId);
+
+		if (postCommitId != null && !postCommitId.equals(preCommitId)) {
+			out.writeBoolean(true);
+			writeId(postCommitId);
+		} else {
+			out.writeBoolean(false);
+		}
+
+		Map<String, ? extends AttributeChange> attributes = change.getAttributeChanges();
+		writeVarInt(attributes.size());
+		for (Map.Entry<String, ? extends AttributeChange> e : attributes.entrySet()) {
+			writeProperty(entityName, e.getKey());
+			writeValue(e.getValue().getOldValue());
+			writeValue(e.getValue().getNewValue());
+		}
+
+		Map<String, ? extends ToOneRelationshipChange> toOne = change.getToOneRelationshipChanges();
+		writeVarInt(toOne.size());
+		for (Map.Entry<String, ? extends ToOneRelationshipChange> e : toOne.entrySet()) {
+			writeProperty(entityName, e.getKey());
+			writeNullableId(e.getValue().getOldValue());
+			writeNullableId(e.getValue().getNewValue());
+		}
+
+		Map<String, ? extends ToManyRelationshipChange> toMany = change.getToManyRelationshipChanges();
+		writeVarInt(toMany.size());
+		for (Map.Entry<String, ? extends ToManyRelationshipChange> e : toMany.entrySet()) {
+			writeProperty(entityName, e.getKey());
+			writeIds(e.getValue().getAdded());
+			writeIds(e.getValue().getRemoved());
+		}
+	}
+
+	private void writeIds(Collection<ObjectId> ids) throws IOException {
+		writeVarInt(ids.size());
+		for (ObjectId id : ids) {
+			writeId(id);
+		}
+	}
+
+	private void writeNullableId(ObjectId id) throws IOException {
+		if (id == null) {
+			out.writeBoolean(false);
+		} else {
+			out.writeBoolean(true);
+			writeId(id);
+		}
+	}
+
+	private void writeId(ObjectId id) throws IOException {
+
+		String entityName = id.getEntityName();
+
+		int entity = dictionary.entityIndex(entityName);
+		if (entity >= 0) {
+			writeVarInt(entity + 1);
+		} else {
+			writeVarInt(0);
+			writeString(entityName);
+		}
+
+		if (id.isTemporary()) {
+			out.writeByte(BinaryFormat.TEMPORARY_ID);
+			byte[] key = id.getKey();
+			writeVarInt(key.length);
+			out.write(key);
+		} else {
+			out.writeByte(BinaryFormat.PERMANENT_ID);
+
+			Map<String, Object> snapshot = id.getIdSnapshot();
+			writeVarInt(snapshot.size());
+			for (Map.Entry<String, Object> e : snapshot.entrySet()) {
+				writeProperty(entityName, e.getKey());
+				writeValue(e.getValue());
+			}
+		}
+	}
+
+	private void writeProperty(String entityName, String property) throws IOException {
+		int index = dictionary.propertyIndex(entityName, property);
+		if (index >= 0) {
+			writeVarInt(index + 1);
+		} else {
+			writeVarInt(0);
+			writeString(property);
+		}
+	}
+
+	private void writeValue(Object value) throws IOException {
+
+		if (value == null) {
+			out.writeByte(BinaryFormat.NULL);
+		} else if (value instanceof String) {
+			out.writeByte(BinaryFormat.STRING);
+			writeString((String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(BinaryFormat.INTEGER);
+			writeVarLong(zigZag((Integer) value));
+		} else if (value instanceof Long) {
+			out.writeByte(BinaryFormat.LONG);
+			writeVarLong(zigZag((Long) value));
+		} else if (value instanceof Boolean) {
+			out.writeByte((Boolean) value ? BinaryFormat.TRUE : BinaryFormat.FALSE);
+		} else if (value instanceof Confidential) {
+			out.writeByte(BinaryFormat.CONFIDENTIAL);
+		} else if (value instanceof Short) {
+			out.writeByte(BinaryFormat.SHORT);
+			writeVarLong(zigZag((Short) value));
+		} else if (value instanceof Byte) {
+			out.writeByte(BinaryFormat.BYTE);
+			out.writeByte((Byte) value);
+		} else if (value instanceof Double) {
+			out.writeByte(BinaryFormat.DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Float) {
+			out.writeByte(BinaryFormat.FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof BigDecimal) {
+			BigDecimal decimal = (BigDecimal) value;
+			out.writeByte(BinaryFormat.BIG_DECIMAL);
+			writeVarLong(zigZag(decimal.scale()));
+			writeBytes(decimal.unscaledValue().toByteArray());
+		} else if (value instanceof BigInteger) {
+			out.writeByte(BinaryFormat.BIG_INTEGER);
+			writeBytes(((BigInteger) value).toByteArray());
+		} else if (value instanceof Date) {
+			writeDate((Date) value);
+		} else if (value instanceof byte[]) {
+			out.writeByte(BinaryFormat.BYTES);
+			writeBytes((byte[]) value);
+		} else if (value instanceof Character) {
+			out.writeByte(BinaryFormat.CHARACTER);
+			out.writeChar((Character) value);
+		} else if (value instanceof LocalDate) {
+			out.writeByte(BinaryFormat.LOCAL_DATE);
+			writeVarLong(zigZag(((LocalDate) value).toEpochDay()));
+		} else if (value instanceof LocalTime) {
+			out.writeByte(BinaryFormat.LOCAL_TIME);
+			writeVarLong(((LocalTime) value).toNanoOfDay());
+		} else if (value instanceof LocalDateTime) {
+			LocalDateTime dateTime = (LocalDateTime) value;
+			out.writeByte(BinaryFormat.LOCAL_DATE_TIME);
+			writeVarLong(zigZag(dateTime.toLocalDate().toEpochDay()));
+			writeVarLong(dateTime.toLocalTime().toNanoOfDay());
+		} else if (value instanceof UUID) {
+			UUID uuid = (UUID) value;
+			out.writeByte(BinaryFormat.UUID);
+			out.writeLong(uuid.getMostSignificantBits());
+			out.writeLong(uuid.getLeastSignificantBits());
+		} else if (value instanceof Serializable) {
+			out.writeByte(BinaryFormat.SERIALIZED);
+			writeBytes(serialize(value));
+		} else {
+			throw new CayenneRuntimeException("Can't encode value of type %s", value.getClass().getName());
+		}
+	}
+
+	private void writeDate(Date date) throws IOException {
+
+		// subclasses of java.util.Date are recreated on read, so only the
+		// standard ones are supported
+		Class<?> type = date.getClass();
+		if (type == Date.class) {
+			out.writeByte(BinaryFormat.DATE);
+			writeVarLong(zigZag(date.getTime()));
+		} else if (type == java.sql.Date.class) {
+			out.writeByte(BinaryFormat.SQL_DATE);
+			writeVarLong(zigZag(date.getTime()));
+		} else if (type == java.sql.Time.class) {
+			out.writeByte(BinaryFormat.SQL_TIME);
+			writeVarLong(zigZag(date.getTime()));
+		} else if (type == java.sql.Timestamp.class) {
+			java.sql.Timestamp timestamp = (java.sql.Timestamp) date;
+			out.writeByte(BinaryFormat.SQL_TIMESTAMP);
+			writeVarLong(zigZag(timestamp.getTime()));
+			writeVarInt(timestamp.getNanos());
+		} else {
+			out.writeByte(BinaryFormat.SERIALIZED);
+			writeBytes(serialize(date));
+		}
+	}
+
+	private static byte[] serialize(Object value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+			objectOut.writeObject(value);
+		}
+		return bytes.toByteArray();
+	}
+
+	private void writeString(String string) throws IOException {
+		writeBytes(string.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void writeBytes(byte[] bytes) throws IOException {
+		writeVarInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		writeVarLong(value & 0xFFFFFFFFL);
+	}
+
+	private void writeVarLong(long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+}
@@ -0,0 +1,445 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A local append-only journal of binary records stored in a directory of
+ * memory-mapped segment files. Each record gets an increasing sequence number.
+ * Readers {@link #poll(int, long, TimeUnit) poll} records in the order they
+ * were appended and {@link #acknowledge(long) acknowledge} them once
+ * processed. The last acknowledged sequence number is stored in a cursor file,
+ * so when the journal is reopened, all unacknowledged records are read again.
+ * Segments that only contain acknowledged records are deleted.
+ * <p>
+ * Each record is stored as a header of record length, sequence number,
+ * timestamp and CRC32 of the payload, followed by the payload bytes. A zero
+ * length marks the end of data in a segment. A record that was only partially
+ * written (e.g. because of a crash) fails the CRC check and is discarded when
+ * the journal is reopened.
+ * </p>
+ *
+ * @since 4.1
+ */
+public class CommitLogJournal implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CommitLogJournal.class);
+
+	// length (4) + sequence (8) + timestamp (8) + crc (4)
+	static final int HEADER_SIZE = 24;
+
+	static final String SEGMENT_PREFIX = "commitlog-";
+	static final String SEGMENT_SUFFIX = ".journal";
+	static final String CURSOR_FILE = "commitlog.cursor";
+
+	private File directory;
+	private int segmentSize;
+	private boolean forceOnAppend;
+
+	private List<Segment> segments;
+	private long nextSegmentIndex;
+	private MappedByteBuffer cursor;
+
+	private long nextSequence;
+	private long acknowledgedSequence;
+
+	private Segment readSegment;
+	private int readPosition;
+	private long readSequence;
+
+	private boolean closed;
+
+	/**
+	 * Opens a journal in the specified directory, creating the directory if
+	 * needed.
+	 *
+	 * @param directory
+	 *            a directory of the journal files.
+	 * @param segmentSize
+	 *            the size in bytes of each segment file. Records larger than
+	 *            this size are stored in their own bigger segment.
+	 * @param forceOnAppend
+	 *            if true, each appended record and acknowledgement is forced
+	 *            to the storage device before returning. Otherwise the data
+	 *            is written by the OS in the background, so it survives a
+	 *            crash of the JVM, but not necessarily of the machine.
+	 */
+	public CommitLogJournal(File directory, int segmentSize, boolean forceOnAppend) {
+
+		if (segmentSize <= HEADER_SIZE) {
+			throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+		}
+
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.forceOnAppend = forceOnAppend;
+		this.segments = new ArrayList<>();
+
+		try {
+			open();
+		} catch (IOException e) {
+			throw new CayenneRuntimeException("Error opening commit log journal in %s", e, directory);
+		}
+	}
+
+	private void open() throws IOException {
+
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Can't create directory " + directory);
+		}
+
+		this.cursor = map(new File(directory, CURSOR_FILE), 8);
+		this.acknowledgedSequence = cursor.getLong(0);
+
+		List<File> files = new ArrayList<>();
+		File[] allFiles = directory.listFiles();
+		if (allFiles != null) {
+			for (File f : allFiles) {
+				if (segmentIndex(f) >= 0) {
+					files.add(f);
+				}
+			}
+		}
+
+		Collections.sort(files, (f1, f2) -> Long.compare(segmentIndex(f1), segmentIndex(f2)));
+
+		long lastSequence = acknowledgedSequence;
+		for (File f : files) {
+
+			this.nextSegmentIndex = segmentIndex(f) + 1;
+
+			Segment segment = new Segment(f, map(f, (int) f.length()));
+			segment.scan();
+
+			// a segment with only acknowledged records is not needed
+			if (segment.lastSequence <= acknowledgedSequence) {
+				segment.delete();
+			} else {
+				segments.add(segment);
+				lastSequence = Math.max(lastSequence, segment.lastSequence);
+			}
+		}
+
+		this.nextSequence = lastSequence + 1;
+		this.readSequence = acknowledgedSequence;
+	}
+
+	/**
+	 * Appends a record to the journal, returning its sequence number.
+	 */
+	public synchronized long append(byte[] payload) {
+
+		ensureOpen();
+
+		if (payload.length == 0) {
+			throw new IllegalArgumentException("Empty journal record");
+		}
+
+		int recordSize = HEADER_SIZE + payload.length;
+		Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+		if (segment == null || segment.writePosition + recordSize > segment.buffer.capacity()) {
+			segment = createSegment(recordSize);
+		}
+
+		long sequence = nextSequence++;
+		long timestamp = System.currentTimeMillis();
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		int position = segment.writePosition;
+		MappedByteBuffer buffer = segment.buffer;
+
+		// mark the end of data past the new record, unless the segment is full
+		if (position + recordSize + 4 <= buffer.capacity()) {
+			buffer.putInt(position + recordSize, 0);
+		}
+
+		buffer.putLong(position + 4, sequence);
+		buffer.putLong(position + 12, timestamp);
+		buffer.putInt(position + 20, (int) crc.getValue());
+		ByteBuffer payloadBuffer = buffer.duplicate();
+		payloadBuffer.position(position + HEADER_SIZE);
+		payloadBuffer.put(payload);
+
+		// write length last, so that the record becomes visible only once
+		// complete
+		buffer.putInt(position, payload.length);
+
+		if (forceOnAppend) {
+			buffer.force();
+		}
+
+		segment.writePosition += recordSize;
+		segment.lastSequence = sequence;
+
+		notifyAll();
+		return sequence;
+	}
+
+	/**
+	 * Returns up to "maxEntries" records that have not been returned yet,
+	 * waiting up to the specified time for new records if there are none.
+	 * Returns an empty list if no records arrived before the timeout or the
+	 * journal was closed.
+	 */
+	public synchronized List<JournalEntry> poll(int maxEntries, long timeout, TimeUnit unit)
+			throws InterruptedException {
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!closed && readSequence >= nextSequence - 1) {
+
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return Collections.emptyList();
+			}
+
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+
+		if (closed) {
+			return Collections.emptyList();
+		}
+
+		List<JournalEntry> entries = new ArrayList<>(Math.min(maxEntries, (int) (nextSequence - 1 - readSequence)));
+		while (entries.size() < maxEntries && readSequence < nextSequence - 1) {
+
+			if (readSegment == null) {
+				readSegment = segments.get(0);
+				readPosition = 0;
+			}
+
+			MappedByteBuffer buffer = readSegment.buffer;
+			int length = readPosition + HEADER_SIZE <= readSegment.writePosition ? buffer.getInt(readPosition) : 0;
+
+			// end of segment, switch to the next one
+			if (length <= 0) {
+				readSegment = segments.get(segments.indexOf(readSegment) + 1);
+				readPosition = 0;
+				continue;
+			}
+
+			long sequence = buffer.getLong(readPosition + 4);
+			long timestamp = buffer.getLong(readPosition + 12);
+			byte[] payload = new byte[length];
+			ByteBuffer payloadBuffer = buffer.duplicate();
+			payloadBuffer.position(readPosition + HEADER_SIZE);
+			payloadBuffer.get(payload);
+
+			readPosition += HEADER_SIZE + length;
+
+			// skip records acknowledged before the journal was reopened
+			if (sequence > readSequence) {
+				readSequence = sequence;
+				entries.add(new JournalEntry(sequence, timestamp, payload));
+			}
+		}
+
+		return entries;
+	}
+
+	/**
+	 * Marks all records up to and including the specified sequence number as
+	 * processed. They will not be read again when the journal is reopened.
+	 */
+	public synchronized void acknowledge(long sequence) {
+
+		if (closed || sequence <= acknowledgedSequence) {
+			return;
+		}
+
+		this.acknowledgedSequence = sequence;
+		cursor.putLong(0, sequence);
+		if (forceOnAppend) {
+			cursor.force();
+		}
+
+		// delete fully acknowledged segments, keeping the one being appended
+		// to and the one being read
+		Iterator<Segment> it = segments.iterator();
+		while (it.hasNext()) {
+			Segment segment = it.next();
+			if (segments.size() == 1 || segment == readSegment || segment.lastSequence > sequence) {
+				break;
+			}
+
+			it.remove();
+			segment.delete();
+		}
+	}
+
+	/**
+	 * Returns the directory of the journal files.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the number of appended records that were not acknowledged yet.
+	 */
+	public synchronized long getPendingCount() {
+		return nextSequence - 1 - acknowledgedSequence;
+	}
+
+	/**
+	 * Returns the number of segment files currently used by the journal.
+	 */
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	@Override
+	public synchronized void close() {
+		if (!closed) {
+			closed = true;
+
+			for (Segment segment : segments) {
+				segment.buffer.force();
+			}
+			cursor.force();
+
+			// MappedByteBuffers are released when garbage collected
+			segments.clear();
+			readSegment = null;
+			cursor = null;
+
+			notifyAll();
+		}
+	}
+
+	private void ensureOpen() {
+		if (closed) {
+			throw new CayenneRuntimeException("Commit log journal in %s is closed", directory);
+		}
+	}
+
+	private Segment createSegment(int recordSize) {
+
+		// records bigger than the segment size get their own segment
+		int size = Math.max(segmentSize, recordSize + 4);
+		File file = new File(directory, String.format("%s%016d%s", SEGMENT_PREFIX, nextSegmentIndex++, SEGMENT_SUFFIX));
+
+		try {
+			Segment segment = new Segment(file, map(file, size));
+			segments.add(segment);
+			return segment;
+		} catch (IOException e) {
+			throw new CayenneRuntimeException("Error creating commit log journal segment %s", e, file);
+		}
+	}
+
+	private static MappedByteBuffer map(File file, int size) throws IOException {
+		// the mapping stays valid after the file is closed
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			if (raf.length() < size) {
+				raf.setLength(size);
+			}
+			return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+	}
+
+	private static long segmentIndex(File file) {
+		String name = file.getName();
+		if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+			return -1;
+		}
+
+		try {
+			return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static class Segment {
+
+		File file;
+		MappedByteBuffer buffer;
+		int writePosition;
+		long lastSequence;
+
+		Segment(File file, MappedByteBuffer buffer) {
+			this.file = file;
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Finds the end of valid data in a segment written earlier.
+		 */
+		void scan() {
+
+			int position = 0;
+			int capacity = buffer.capacity();
+
+			while (position + HEADER_SIZE <= capacity) {
+
+				int length = buffer.getInt(position);
+				if (length <= 0 || position + HEADER_SIZE + length > capacity) {
+					break;
+				}
+
+				ByteBuffer payload = buffer.duplicate();
+				payload.position(position + HEADER_SIZE);
+				payload.limit(position + HEADER_SIZE + length);
+
+				CRC32 crc = new CRC32();
+				crc.update(payload);
+
+				if ((int) crc.getValue() != buffer.getInt(position + 20)) {
+					LOGGER.warn("Discarding incomplete record at position " + position + " of " + file);
+					break;
+				}
+
+				lastSequence = buffer.getLong(position + 4);
+				position += HEADER_SIZE + length;
+			}
+
+			// mark the end of data, overwriting any incomplete record
+			if (position + 4 <= capacity) {
+				buffer.putInt(position, 0);
+			}
+
+			this.writePosition = position;
+		}
+
+		void delete() {
+			if (!file.delete()) {
+				LOGGER.warn("Failed to delete commit log journal segment " + file);
+			}
+		}
+	}
+}
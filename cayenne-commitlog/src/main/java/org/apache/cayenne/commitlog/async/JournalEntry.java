@@ -0,0 +1,57 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+/**
+ * A single record read from a {@link CommitLogJournal}.
+ *
+ * @since 4.1
+ */
+public class JournalEntry {
+
+	private long sequence;
+	private long timestamp;
+	private byte[] payload;
+
+	JournalEntry(long sequence, long timestamp, byte[] payload) {
+		this.sequence = sequence;
+		this.timestamp = timestamp;
+		this.payload = payload;
+	}
+
+	/**
+	 * Returns a sequence number of the entry, unique and increasing within the
+	 * journal.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Returns the time in milliseconds when the entry was appended to the
+	 * journal.
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public byte[] getPayload() {
+		return payload;
+	}
+}
@@ -0,0 +1,58 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.commitlog.async;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+
+/**
+ * A {@link ChangeMapCodec} based on Java serialization. Requires all changed
+ * attribute values to be serializable.
+ *
+ * @since 4.1
+ */
+public class SerializationChangeMapCodec implements ChangeMapCodec {
+
+	@Override
+	public byte[] encode(ChangeMap changes) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(changes);
+		} catch (IOException e) {
+			throw new CayenneRuntimeException("Error serializing commit log changes", e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public ChangeMap decode(byte[] data) {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+			return (ChangeMap) in.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new CayenneRuntimeException("Error deserializing commit log changes", e);
+		}
+	}
+}
@@ -18,10 +18,14 @@
  ****************************************************************/
 package org.apache.cayenne.commitlog.model;
 
+import java.io.Serializable;
+
 /**
  * @since 4.0
  */
-public class MutableAttributeChange implements AttributeChange {
+public class MutableAttributeChange implements AttributeChange, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	private Object oldValue;
 	private Object newValue;
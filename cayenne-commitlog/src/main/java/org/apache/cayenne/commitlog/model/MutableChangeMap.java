@@ -18,6 +18,7 @@
  ****************************************************************/
 package org.apache.cayenne.commitlog.model;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -31,7 +32,9 @@ import org.apache.cayenne.ObjectId;
  * 
  * @since 4.0
  */
-public class MutableChangeMap implements ChangeMap {
+public class MutableChangeMap implements ChangeMap, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	private Map<ObjectId, MutableObjectChange> changes;
 
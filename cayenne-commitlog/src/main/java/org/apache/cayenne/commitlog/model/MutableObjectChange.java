@@ -18,6 +18,7 @@
  ****************************************************************/
 package org.apache.cayenne.commitlog.model;
 
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -29,7 +30,9 @@ import org.apache.cayenne.ObjectId;
  * 
  * @since 4.0
  */
-public class MutableObjectChange implements ObjectChange {
+public class MutableObjectChange implements ObjectChange, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	private static final int[] TYPE_PRECEDENCE;
 
@@ -18,6 +18,7 @@
  ****************************************************************/
 package org.apache.cayenne.commitlog.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -27,7 +28,9 @@ import org.apache.cayenne.ObjectId;
 /**
  * @since 4.0
  */
-public class MutableToManyRelationshipChange implements ToManyRelationshipChange {
+public class MutableToManyRelationshipChange implements ToManyRelationshipChange, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	private Collection<ObjectId> added;
 	private Collection<ObjectId> removed;
@@ -18,12 +18,16 @@
  ****************************************************************/
 package org.apache.cayenne.commitlog.model;
 
+import java.io.Serializable;
+
 import org.apache.cayenne.ObjectId;
 
 /**
  * @since 4.0
  */
-public class MutableToOneRelationshipChange implements ToOneRelationshipChange {
+public class MutableToOneRelationshipChange implements ToOneRelationshipChange, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	private ObjectId oldValue;
 	private ObjectId newValue;
@@ -30,6 +30,7 @@ import org.apache.cayenne.commitlog.model.ToManyRelationshipChange;
 import org.apache.cayenne.commitlog.model.ToOneRelationshipChange;
 import org.apache.cayenne.commitlog.unit.AuditableServerCase;
 import org.apache.cayenne.configuration.server.ServerRuntimeBuilder;
+import org.apache.cayenne.query.ObjectSelect;
 import org.apache.cayenne.query.SelectById;
 import org.junit.Before;
 import org.junit.Test;
@@ -37,6 +38,7 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.sql.SQLException;
+import java.util.List;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -169,6 +171,45 @@ public class CommitLogFilter_AllIT extends AuditableServerCase {
 		verify(mockListener).onPostCommit(any(ObjectContext.class), any(ChangeMap.class));
 	}
 
+	@Test
+	public void testPostCommit_Delete_SnapshotsNotCached() throws SQLException {
+		auditable1.insert(1, "xx");
+		auditable1.insert(2, "yy");
+		auditable1.insert(3, "zz");
+
+		doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+
+				ChangeMap changes = (ChangeMap) invocation.getArguments()[1];
+				assertNotNull(changes);
+				assertEquals(3, changes.getUniqueChanges().size());
+
+				ObjectChange c2 = changes.getChanges().get(new ObjectId("Auditable1", Auditable1.ID_PK_COLUMN, 2));
+				assertNotNull(c2);
+				assertEquals(ObjectChangeType.DELETE, c2.getType());
+				assertEquals("yy", c2.getAttributeChanges().get(Auditable1.CHAR_PROPERTY1.getName()).getOldValue());
+
+				ObjectChange c3 = changes.getChanges().get(new ObjectId("Auditable1", Auditable1.ID_PK_COLUMN, 3));
+				assertNotNull(c3);
+				assertEquals("zz", c3.getAttributeChanges().get(Auditable1.CHAR_PROPERTY1.getName()).getOldValue());
+
+				return null;
+			}
+		}).when(mockListener).onPostCommit(any(ObjectContext.class), any(ChangeMap.class));
+
+		List<Auditable1> objects = ObjectSelect.query(Auditable1.class).select(context);
+		assertEquals(3, objects.size());
+
+		// force snapshots to be fetched from DB
+		runtime.getDataDomain().getSharedSnapshotCache().clear();
+
+		context.deleteObjects(objects);
+		context.commitChanges();
+
+		verify(mockListener).onPostCommit(any(ObjectContext.class), any(ChangeMap.class));
+	}
+
 	@Test
 	public void testPostCommit_UpdateToOne() throws SQLException {
 		auditable1.insert(1, "xx");
@@ -0,0 +1,185 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.commitlog;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.commitlog.async.AsyncCommitLogListener;
+import org.apache.cayenne.commitlog.async.AsyncCommitLogMetrics;
+import org.apache.cayenne.commitlog.db.Auditable2;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.commitlog.model.ObjectChange;
+import org.apache.cayenne.commitlog.model.ObjectChangeType;
+import org.apache.cayenne.commitlog.unit.AuditableServerCase;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.configuration.server.ServerModule;
+import org.apache.cayenne.configuration.server.ServerRuntimeBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CommitLogFilter_AsyncIT extends AuditableServerCase {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File journalDir;
+	private BlockingQueue<ChangeMap> delivered;
+	private AtomicInteger failures;
+
+	@Override
+	protected ServerRuntimeBuilder configureCayenne() {
+		this.delivered = new LinkedBlockingQueue<>();
+		this.failures = new AtomicInteger();
+		this.journalDir = new File(folder.getRoot(), "journal");
+
+		return configureCayenne(journalDir, (originatingContext, changes) -> {
+			if (failures.getAndDecrement() > 0) {
+				throw new RuntimeException("Test failure");
+			}
+
+			delivered.add(changes);
+		});
+	}
+
+	private ServerRuntimeBuilder configureCayenne(File journalDir, CommitLogListener listener) {
+		return super.configureCayenne().addModule(
+				CommitLogModule.extend().commitLogAnnotationEntitiesOnly().deliverAsync(journalDir)
+						.addListener(listener).module())
+				.addModule(binder -> ServerModule.contributeProperties(binder)
+						.put(AsyncCommitLogListener.MAX_RETRIES_PROPERTY, "3"));
+	}
+
+	@Test
+	public void testDelivery() throws InterruptedException {
+
+		ObjectContext context = runtime.newContext();
+		Auditable2 a1 = context.newObject(Auditable2.class);
+		a1.setCharProperty1("yy");
+		a1.setCharProperty2("zz");
+		context.commitChanges();
+
+		ChangeMap changes = delivered.poll(5, TimeUnit.SECONDS);
+		assertNotNull(changes);
+		assertEquals(1, changes.getUniqueChanges().size());
+
+		ObjectChange change = changes.getUniqueChanges().iterator().next();
+		assertEquals(ObjectChangeType.INSERT, change.getType());
+		assertEquals(a1.getObjectId(), change.getPostCommitId());
+		assertSame(Confidential.getInstance(),
+				change.getAttributeChanges().get(Auditable2.CHAR_PROPERTY2.getName()).getNewValue());
+
+		AsyncCommitLogMetrics metrics = runtime.getInjector().getInstance(AsyncCommitLogListener.class).getMetrics();
+		assertEquals(1, metrics.getAppendedCount());
+		assertEquals(0, metrics.getPendingCount());
+	}
+
+	@Test
+	public void testDelivery_Retry() throws InterruptedException {
+
+		failures.set(2);
+
+		ObjectContext context = runtime.newContext();
+		Auditable2 a1 = context.newObject(Auditable2.class);
+		a1.setCharProperty1("yy");
+		a1.setCharProperty2("zz");
+		context.commitChanges();
+
+		assertNotNull(delivered.poll(5, TimeUnit.SECONDS));
+
+		AsyncCommitLogMetrics metrics = runtime.getInjector().getInstance(AsyncCommitLogListener.class).getMetrics();
+		assertEquals(2, metrics.getFailedCount());
+		assertEquals(1, metrics.getDeliveredCount());
+	}
+
+	@Test
+	public void testDelivery_DeadLetter() throws Exception {
+
+		failures.set(4);
+
+		ObjectContext context = runtime.newContext();
+		Auditable2 a1 = context.newObject(Auditable2.class);
+		a1.setCharProperty1("yy");
+		a1.setCharProperty2("zz");
+		context.commitChanges();
+
+		// the first attempt and 3 retries fail, so the entry is given up on, and the next one is delivered
+		Auditable2 a2 = context.newObject(Auditable2.class);
+		a2.setCharProperty1("aa");
+		a2.setCharProperty2("bb");
+		context.commitChanges();
+
+		ChangeMap changes = delivered.poll(5, TimeUnit.SECONDS);
+		assertNotNull(changes);
+		assertEquals(a2.getObjectId(), changes.getUniqueChanges().iterator().next().getPostCommitId());
+
+		AsyncCommitLogMetrics metrics = runtime.getInjector().getInstance(AsyncCommitLogListener.class).getMetrics();
+		assertEquals(4, metrics.getFailedCount());
+		assertEquals(1, metrics.getDeadLetterCount());
+		assertEquals(1, metrics.getDeliveredCount());
+
+		File[] deadLetters = new File(journalDir, AsyncCommitLogListener.DEAD_LETTER_DIR).listFiles();
+		assertNotNull(deadLetters);
+		assertEquals(1, deadLetters.length);
+		assertTrue(deadLetters[0].length() > 0);
+	}
+
+	@Test
+	public void testReplayOnRestart() throws InterruptedException {
+
+		// the first runtime never manages to deliver
+		failures.set(Integer.MAX_VALUE);
+
+		ObjectContext context = runtime.newContext();
+		Auditable2 a1 = context.newObject(Auditable2.class);
+		a1.setCharProperty1("yy");
+		a1.setCharProperty2("zz");
+		context.commitChanges();
+
+		runtime.shutdown();
+		runtime = null;
+		assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+
+		BlockingQueue<ChangeMap> replayed = new LinkedBlockingQueue<>();
+		ServerRuntime restarted = configureCayenne(journalDir, (originatingContext, changes) -> replayed.add(changes))
+				.build();
+		try {
+			// the listener is started together with the stack
+			restarted.newContext();
+
+			ChangeMap changes = replayed.poll(5, TimeUnit.SECONDS);
+			assertNotNull(changes);
+			assertEquals(a1.getObjectId(), changes.getUniqueChanges().iterator().next().getPostCommitId());
+		} finally {
+			restarted.shutdown();
+		}
+	}
+}
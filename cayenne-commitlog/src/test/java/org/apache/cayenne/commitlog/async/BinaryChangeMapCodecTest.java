@@ -0,0 +1,264 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.commitlog.async;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.commitlog.Confidential;
+import org.apache.cayenne.commitlog.meta.IncludeAllCommitLogEntityFactory;
+import org.apache.cayenne.commitlog.model.ChangeMap;
+import org.apache.cayenne.commitlog.model.MutableChangeMap;
+import org.apache.cayenne.commitlog.model.MutableObjectChange;
+import org.apache.cayenne.commitlog.model.ObjectChange;
+import org.apache.cayenne.commitlog.model.ObjectChangeType;
+import org.apache.cayenne.map.DataMap;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.map.ObjRelationship;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryChangeMapCodecTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private EntityResolver resolver;
+	private BinaryChangeMapCodec codec;
+
+	@Before
+	public void before() {
+		this.resolver = createResolver("name");
+		this.codec = new BinaryChangeMapCodec(new ChangeMapDictionary(resolver, new IncludeAllCommitLogEntityFactory()));
+	}
+
+	private static EntityResolver createResolver(String attributeName) {
+		DataMap map = new DataMap("m");
+
+		DbEntity artistTable = new DbEntity("ARTIST");
+		DbAttribute pk = new DbAttribute("ID", Types.INTEGER, artistTable);
+		pk.setPrimaryKey(true);
+		artistTable.addAttribute(pk);
+		map.addDbEntity(artistTable);
+
+		ObjEntity artist = new ObjEntity("Artist");
+		artist.setDbEntityName("ARTIST");
+		artist.addAttribute(new ObjAttribute(attributeName, String.class.getName(), artist));
+		artist.addAttribute(new ObjAttribute("birthDate", Date.class.getName(), artist));
+		artist.addRelationship(new ObjRelationship("paintings"));
+		artist.addRelationship(new ObjRelationship("gallery"));
+		map.addObjEntity(artist);
+
+		ObjEntity painting = new ObjEntity("Painting");
+		map.addObjEntity(painting);
+
+		return new EntityResolver(Collections.singleton(map));
+	}
+
+	@Test
+	public void testDictionary() {
+		ChangeMapDictionary dictionary = codec.getDictionary();
+		assertEquals(Arrays.asList("Artist", "Painting"), dictionary.getEntities());
+		assertEquals(Arrays.asList("ID", "birthDate", "gallery", "name", "paintings"),
+				dictionary.getProperties("Artist"));
+	}
+
+	@Test
+	public void testRoundTrip() {
+
+		ObjectId tempId = new ObjectId("Artist");
+		ObjectId id = new ObjectId("Artist", "ID", 5);
+
+		MutableChangeMap changes = new MutableChangeMap();
+		MutableObjectChange c1 = changes.getOrCreate(tempId, ObjectChangeType.INSERT);
+		changes.aliasId(tempId, id);
+		c1.attributeChanged("name", null, "X");
+		c1.attributeChanged("birthDate", null, new Date(123456789L));
+		c1.attributeChanged("secret", null, Confidential.getInstance());
+		c1.toManyRelationshipConnected("paintings", new ObjectId("Painting", "ID", 1L));
+		c1.toManyRelationshipConnected("paintings", new ObjectId("Painting", "ID", 2L));
+		c1.toOneRelationshipConnected("gallery", new ObjectId("Gallery", "ID", 3));
+
+		Map<String, Object> compound = new HashMap<>();
+		compound.put("K1", "a");
+		compound.put("K2", -7);
+		ObjectId compoundId = new ObjectId("Other", compound);
+
+		MutableObjectChange c2 = changes.getOrCreate(compoundId, ObjectChangeType.UPDATE);
+		Timestamp timestamp = new Timestamp(1000L);
+		timestamp.setNanos(123456789);
+		c2.attributeChanged("a", new BigDecimal("-12.345"), new BigDecimal("1E+20"));
+		c2.attributeChanged("b", timestamp, LocalDateTime.of(2017, 1, 2, 3, 4, 5, 6));
+		c2.attributeChanged("c", Long.MIN_VALUE, Integer.MAX_VALUE);
+		c2.attributeChanged("d", Boolean.TRUE, new byte[] { 1, 2 });
+		c2.attributeChanged("e", 1.5d, ObjectChangeType.DELETE);
+
+		ChangeMap decoded = codec.decode(codec.encode(changes));
+
+		assertEquals(2, decoded.getUniqueChanges().size());
+		assertEquals(3, decoded.getChanges().size());
+
+		ObjectChange d1 = decoded.getChanges().get(id);
+		assertSame(d1, decoded.getChanges().get(tempId));
+		assertEquals(ObjectChangeType.INSERT, d1.getType());
+		assertEquals(tempId, d1.getPreCommitId());
+		assertEquals(id, d1.getPostCommitId());
+		assertNull(d1.getAttributeChanges().get("name").getOldValue());
+		assertEquals("X", d1.getAttributeChanges().get("name").getNewValue());
+		assertEquals(new Date(123456789L), d1.getAttributeChanges().get("birthDate").getNewValue());
+		assertSame(Confidential.getInstance(), d1.getAttributeChanges().get("secret").getNewValue());
+		assertEquals(Arrays.asList(new ObjectId("Painting", "ID", 1L), new ObjectId("Painting", "ID", 2L)),
+				d1.getToManyRelationshipChanges().get("paintings").getAdded());
+		assertTrue(d1.getToManyRelationshipChanges().get("paintings").getRemoved().isEmpty());
+		assertNull(d1.getToOneRelationshipChanges().get("gallery").getOldValue());
+		assertEquals(new ObjectId("Gallery", "ID", 3), d1.getToOneRelationshipChanges().get("gallery").getNewValue());
+
+		ObjectChange d2 = decoded.getChanges().get(compoundId);
+		assertEquals(ObjectChangeType.UPDATE, d2.getType());
+		assertEquals(compoundId, d2.getPostCommitId());
+		assertEquals(new BigDecimal("-12.345"), d2.getAttributeChanges().get("a").getOldValue());
+		assertEquals(new BigDecimal("1E+20"), d2.getAttributeChanges().get("a").getNewValue());
+		assertEquals(timestamp, d2.getAttributeChanges().get("b").getOldValue());
+		assertEquals(LocalDateTime.of(2017, 1, 2, 3, 4, 5, 6), d2.getAttributeChanges().get("b").getNewValue());
+		assertEquals(Long.MIN_VALUE, d2.getAttributeChanges().get("c").getOldValue());
+		assertEquals(Integer.MAX_VALUE, d2.getAttributeChanges().get("c").getNewValue());
+		assertEquals(Boolean.TRUE, d2.getAttributeChanges().get("d").getOldValue());
+		assertArrayEquals(new byte[] { 1, 2 }, (byte[]) d2.getAttributeChanges().get("d").getNewValue());
+		assertEquals(1.5d, d2.getAttributeChanges().get("e").getOldValue());
+		assertEquals(ObjectChangeType.DELETE, d2.getAttributeChanges().get("e").getNewValue());
+	}
+
+	@Test
+	public void testReader() {
+
+		MutableChangeMap changes = new MutableChangeMap();
+		for (int i = 0; i < 3; i++) {
+			changes.getOrCreate(new ObjectId("Artist", "ID", i), ObjectChangeType.UPDATE).attributeChanged("name",
+					"a" + i, "b" + i);
+		}
+
+		ChangeMapReader reader = codec.reader(new ByteArrayInputStream(codec.encode(changes)));
+		assertEquals(3, reader.size());
+
+		int read = 0;
+		while (reader.hasNext()) {
+			ObjectChange c = reader.next();
+			int i = (Integer) c.getPostCommitId().getIdSnapshot().get("ID");
+			assertEquals("b" + i, c.getAttributeChanges().get("name").getNewValue());
+			read++;
+		}
+
+		assertEquals(3, read);
+		assertFalse(reader.hasNext());
+	}
+
+	@Test
+	public void testCompact() {
+
+		MutableChangeMap changes = new MutableChangeMap();
+		changes.getOrCreate(new ObjectId("Artist", "ID", 5), ObjectChangeType.UPDATE).attributeChanged("name", "a",
+				"b");
+
+		// header (6), type (1), id (6), post id flag (1), attribute count (1),
+		// attribute (7), to-one and to-many counts (2)
+		assertEquals(24, codec.encode(changes).length);
+		assertTrue(codec.encode(changes).length * 10 < new SerializationChangeMapCodec().encode(changes).length);
+	}
+
+	@Test(expected = CayenneRuntimeException.class)
+	public void testDecode_DifferentMapping() {
+
+		MutableChangeMap changes = new MutableChangeMap();
+		changes.getOrCreate(new ObjectId("Artist", "ID", 5), ObjectChangeType.UPDATE).attributeChanged("name", "a",
+				"b");
+
+		BinaryChangeMapCodec otherCodec = new BinaryChangeMapCodec(
+				new ChangeMapDictionary(createResolver("title"), new IncludeAllCommitLogEntityFactory()));
+		otherCodec.decode(codec.encode(changes));
+	}
+
+	@Test
+	public void testDecode_DifferentMapping_StoredDictionary() throws Exception {
+
+		MutableChangeMap changes = new MutableChangeMap();
+		changes.getOrCreate(new ObjectId("Artist", "ID", 5), ObjectChangeType.UPDATE).attributeChanged("name", "a",
+				"b");
+
+		byte[] encoded = codec.encode(changes);
+		codec.storeDictionary(folder.getRoot());
+
+		// "name" was renamed to "title" since the change was encoded
+		BinaryChangeMapCodec otherCodec = new BinaryChangeMapCodec(
+				new ChangeMapDictionary(createResolver("title"), new IncludeAllCommitLogEntityFactory()));
+		otherCodec.storeDictionary(folder.getRoot());
+		assertEquals(2, folder.getRoot().list().length);
+
+		otherCodec.loadDictionaries(folder.getRoot());
+
+		ObjectChange change = otherCodec.decode(encoded).getUniqueChanges().iterator().next();
+		assertEquals(new ObjectId("Artist", "ID", 5), change.getPreCommitId());
+		assertEquals("b", change.getAttributeChanges().get("name").getNewValue());
+
+		// the current dictionary is still used for the new changes
+		MutableChangeMap newChanges = new MutableChangeMap();
+		newChanges.getOrCreate(new ObjectId("Artist", "ID", 6), ObjectChangeType.UPDATE).attributeChanged("title",
+				"c", "d");
+		ObjectChange newChange = otherCodec.decode(otherCodec.encode(newChanges)).getUniqueChanges().iterator().next();
+		assertEquals("d", newChange.getAttributeChanges().get("title").getNewValue());
+	}
+
+	@Test
+	public void testDictionary_WriteRead() throws Exception {
+
+		ChangeMapDictionary dictionary = codec.getDictionary();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		dictionary.write(out);
+		ChangeMapDictionary restored = ChangeMapDictionary.read(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(dictionary.getFingerprint(), restored.getFingerprint());
+		assertEquals(dictionary.getEntities(), restored.getEntities());
+		assertEquals(dictionary.getProperties("Artist"), restored.getProperties("Artist"));
+	}
+}
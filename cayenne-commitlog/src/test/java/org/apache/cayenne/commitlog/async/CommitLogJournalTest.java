@@ -0,0 +1,198 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.commitlog.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CommitLogJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File dir;
+	private CommitLogJournal journal;
+
+	@Before
+	public void before() {
+		this.dir = new File(folder.getRoot(), "journal");
+		this.journal = new CommitLogJournal(dir, 1024, false);
+	}
+
+	@After
+	public void after() {
+		journal.close();
+	}
+
+	@Test
+	public void testAppendPoll() throws InterruptedException {
+		assertEquals(1, journal.append(bytes("a")));
+		assertEquals(2, journal.append(bytes("b")));
+		assertEquals(3, journal.append(bytes("c")));
+		assertEquals(3, journal.getPendingCount());
+
+		List<JournalEntry> e1 = journal.poll(2, 0, TimeUnit.MILLISECONDS);
+		assertEquals(2, e1.size());
+		assertEquals(1, e1.get(0).getSequence());
+		assertArrayEquals(bytes("a"), e1.get(0).getPayload());
+		assertEquals(2, e1.get(1).getSequence());
+		assertArrayEquals(bytes("b"), e1.get(1).getPayload());
+
+		List<JournalEntry> e2 = journal.poll(2, 0, TimeUnit.MILLISECONDS);
+		assertEquals(1, e2.size());
+		assertArrayEquals(bytes("c"), e2.get(0).getPayload());
+
+		assertTrue(journal.poll(2, 10, TimeUnit.MILLISECONDS).isEmpty());
+
+		// polling doesn't acknowledge
+		assertEquals(3, journal.getPendingCount());
+		journal.acknowledge(2);
+		assertEquals(1, journal.getPendingCount());
+	}
+
+	@Test
+	public void testPoll_Wait() throws InterruptedException {
+		Thread appender = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				return;
+			}
+			journal.append(bytes("a"));
+		});
+		appender.start();
+
+		List<JournalEntry> entries = journal.poll(10, 5, TimeUnit.SECONDS);
+		assertEquals(1, entries.size());
+		assertArrayEquals(bytes("a"), entries.get(0).getPayload());
+		appender.join();
+	}
+
+	@Test
+	public void testReopen_ReplaysUnacknowledged() throws InterruptedException {
+		journal.append(bytes("a"));
+		journal.append(bytes("b"));
+		journal.append(bytes("c"));
+
+		assertEquals(3, journal.poll(10, 0, TimeUnit.MILLISECONDS).size());
+		journal.acknowledge(1);
+		journal.close();
+
+		this.journal = new CommitLogJournal(dir, 1024, false);
+		assertEquals(2, journal.getPendingCount());
+
+		List<JournalEntry> entries = journal.poll(10, 0, TimeUnit.MILLISECONDS);
+		assertEquals(2, entries.size());
+		assertEquals(2, entries.get(0).getSequence());
+		assertArrayEquals(bytes("b"), entries.get(0).getPayload());
+		assertEquals(3, entries.get(1).getSequence());
+
+		// sequence continues after reopening
+		assertEquals(4, journal.append(bytes("d")));
+		entries = journal.poll(10, 0, TimeUnit.MILLISECONDS);
+		assertEquals(1, entries.size());
+		assertArrayEquals(bytes("d"), entries.get(0).getPayload());
+	}
+
+	@Test
+	public void testReopen_DiscardsIncompleteRecord() throws Exception {
+		journal.append(bytes("a"));
+		journal.append(bytes("b"));
+		journal.close();
+
+		// corrupt the payload of the last record
+		File segment = dir.listFiles((d, name) -> name.endsWith(CommitLogJournal.SEGMENT_SUFFIX))[0];
+		try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+			raf.seek(2 * CommitLogJournal.HEADER_SIZE + 1);
+			raf.write('x');
+		}
+
+		this.journal = new CommitLogJournal(dir, 1024, false);
+		assertEquals(1, journal.getPendingCount());
+		assertEquals(2, journal.append(bytes("c")));
+
+		List<JournalEntry> entries = journal.poll(10, 0, TimeUnit.MILLISECONDS);
+		assertEquals(2, entries.size());
+		assertArrayEquals(bytes("a"), entries.get(0).getPayload());
+		assertArrayEquals(bytes("c"), entries.get(1).getPayload());
+	}
+
+	@Test
+	public void testSegments() throws InterruptedException {
+
+		// 4 records per segment
+		byte[] payload = new byte[200];
+		for (int i = 0; i < 10; i++) {
+			payload[0] = (byte) i;
+			journal.append(payload);
+		}
+
+		assertEquals(3, journal.getSegmentCount());
+
+		List<JournalEntry> entries = journal.poll(100, 0, TimeUnit.MILLISECONDS);
+		assertEquals(10, entries.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i + 1, entries.get(i).getSequence());
+			assertEquals(i, entries.get(i).getPayload()[0]);
+		}
+
+		journal.acknowledge(5);
+		assertEquals(2, journal.getSegmentCount());
+
+		// the last segment is kept for appending
+		journal.acknowledge(10);
+		assertEquals(1, journal.getSegmentCount());
+		assertEquals(0, journal.getPendingCount());
+	}
+
+	@Test
+	public void testLargeRecord() throws InterruptedException {
+		byte[] payload = new byte[5000];
+		payload[4999] = 1;
+
+		journal.append(bytes("a"));
+		journal.append(payload);
+		journal.append(bytes("b"));
+		journal.close();
+
+		this.journal = new CommitLogJournal(dir, 1024, false);
+		List<JournalEntry> entries = journal.poll(10, 0, TimeUnit.MILLISECONDS);
+		assertEquals(3, entries.size());
+		assertArrayEquals(payload, entries.get(1).getPayload());
+		assertArrayEquals(bytes("b"), entries.get(2).getPayload());
+	}
+
+	private static byte[] bytes(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+}
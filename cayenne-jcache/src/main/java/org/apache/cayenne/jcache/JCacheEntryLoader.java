@@ -29,7 +29,10 @@ import org.apache.cayenne.cache.QueryCacheEntryFactory;
 
 /**
  * @since 4.0
+ * @deprecated since 4.1, as {@link JCacheQueryCache} no longer uses it and loads entries via
+ * {@link org.apache.cayenne.cache.CoalescingCacheLoader} outside of the cache lock.
  */
+@Deprecated
 public class JCacheEntryLoader implements EntryProcessor<String, List, List> {
 
     private QueryCacheEntryFactory entryFactory;
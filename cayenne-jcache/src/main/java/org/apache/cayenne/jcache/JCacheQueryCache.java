@@ -19,8 +19,12 @@
 
 package org.apache.cayenne.jcache;
 
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.cache.CoalescingCacheLoader;
 import org.apache.cayenne.cache.QueryCache;
 import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.configuration.Constants;
+import org.apache.cayenne.configuration.RuntimeProperties;
 import org.apache.cayenne.di.BeforeScopeEnd;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.query.QueryMetadata;
@@ -35,18 +39,35 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * A {@link QueryCache} storing entries in JCache caches. Concurrent requests for the same missing entry wait for a
+ * single fetch. If {@link Constants#QUERY_CACHE_REFRESH_AHEAD_PROPERTY} is set, entries older than that are re-fetched
+ * by the first caller that reads them, while other callers keep getting the old value.
+ *
  * @since 4.0
  */
 public class JCacheQueryCache implements QueryCache {
 
+    /**
+     * Maximum number of entries whose write times are remembered for refresh-ahead.
+     */
+    static final int MAX_REFRESH_AHEAD_ENTRIES = 10000;
+
     @Inject
     protected CacheManager cacheManager;
 
     @Inject
     protected JCacheConfigurationFactory configurationFactory;
 
+    /**
+     * @since 4.1
+     */
+    @Inject
+    protected RuntimeProperties properties;
+
     private Set<String> seenCacheNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
+    private volatile CoalescingCacheLoader loader;
+
     @Override
     public List get(QueryMetadata metadata) {
         String key = Objects.requireNonNull(metadata.getCacheKey());
@@ -60,10 +81,36 @@ public class JCacheQueryCache implements QueryCache {
         String key = Objects.requireNonNull(metadata.getCacheKey());
         Cache<String, List> cache = createIfAbsent(metadata);
 
+        CoalescingCacheLoader loader = getLoader();
+
         List<?> result = cache.get(key);
-        return result != null
-                ? result
-                : cache.invoke(key, new JCacheEntryLoader(factory));
+        if (result != null) {
+            return loader.get(key, result, () -> fetch(cache, key, factory));
+        }
+
+        return loader.load(key, () -> {
+
+            // may have been stored while we were waiting to start the fetch
+            List cached = cache.get(key);
+            return cached != null ? cached : fetch(cache, key, factory);
+        });
+    }
+
+    private List fetch(Cache<String, List> cache, String key, QueryCacheEntryFactory factory) {
+        CoalescingCacheLoader loader = getLoader();
+        long generation = loader.getGeneration();
+
+        List newObject = factory.createObject();
+        if (newObject == null) {
+            throw new CayenneRuntimeException("Null object created: %s", key);
+        }
+
+        // not stored if the entry was invalidated during the fetch, as the result may be stale
+        loader.store(key, generation, () -> {
+            cache.put(key, newObject);
+            loader.written(key);
+        });
+        return newObject;
     }
 
     @Override
@@ -72,11 +119,14 @@ public class JCacheQueryCache implements QueryCache {
         Cache<String, List> cache = createIfAbsent(metadata);
 
         cache.put(key, results);
+        getLoader().written(key);
     }
 
     @Override
     public void remove(String key) {
         if (key != null) {
+            getLoader().removed(key);
+
             for (String cache : cacheManager.getCacheNames()) {
                 getCache(cache).remove(key);
             }
@@ -87,6 +137,7 @@ public class JCacheQueryCache implements QueryCache {
     public void removeGroup(String groupKey) {
         Cache<String, List> cache = getCache(groupKey);
         if (cache != null) {
+            getLoader().clear();
             cache.clear();
         }
     }
@@ -95,17 +146,40 @@ public class JCacheQueryCache implements QueryCache {
     public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
         Cache cache = cacheManager.getCache(groupKey, keyType, valueType);
         if (cache != null) {
+            getLoader().clear();
             cache.clear();
         }
     }
 
     @Override
     public void clear() {
+        getLoader().clear();
+
         for (String name : seenCacheNames) {
             getCache(name).clear();
         }
     }
 
+    protected CoalescingCacheLoader getLoader() {
+
+        // created lazily, as properties are injected after the constructor is called
+        CoalescingCacheLoader loader = this.loader;
+        if (loader == null) {
+            synchronized (this) {
+                loader = this.loader;
+                if (loader == null) {
+                    long refreshAhead = properties != null
+                            ? properties.getLong(Constants.QUERY_CACHE_REFRESH_AHEAD_PROPERTY, 0)
+                            : 0;
+                    loader = new CoalescingCacheLoader(refreshAhead, MAX_REFRESH_AHEAD_ENTRIES);
+                    this.loader = loader;
+                }
+            }
+        }
+
+        return loader;
+    }
+
     protected Cache<String, List> createIfAbsent(QueryMetadata metadata) {
         return createIfAbsent(cacheName(metadata));
     }
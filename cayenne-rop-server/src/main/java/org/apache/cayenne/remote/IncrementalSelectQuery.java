@@ -21,6 +21,7 @@ package org.apache.cayenne.remote;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.apache.cayenne.ObjectContext;
 import org.apache.cayenne.ResultBatchIterator;
@@ -297,4 +298,9 @@ class IncrementalSelectQuery<T> extends SelectQuery<T> {
 	public ResultBatchIterator<T> batchIterator(ObjectContext context, int size) {
 		return query.batchIterator(context, size);
 	}
+
+	@Override
+	public Stream<T> stream(ObjectContext context) {
+		return query.stream(context);
+	}
 }
@@ -28,7 +28,7 @@ import java.util.List;
  * 
  * @since 4.0
  */
-class CollectionResultIterator<T> implements ResultIterator<T> {
+public class CollectionResultIterator<T> implements ResultIterator<T> {
 
     protected Iterator<T> iterator;
 
@@ -0,0 +1,651 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne;
+
+import java.io.ObjectStreamException;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A {@link DataRow} that stores its values in a plain array, using a column
+ * index shared by all rows of the same shape (see {@link Layout}). This avoids
+ * allocating hash table entries for every column of every fetched row.
+ * <p>
+ * The row fully supports the {@link Map} contract. If a key not present in the
+ * layout is added, the row transparently switches to the regular hash map
+ * storage of the superclass. Rows are serialized as regular DataRows.
+ * </p>
+ * 
+ * @since 4.1
+ */
+public class CompactDataRow extends DataRow {
+
+    private static final long serialVersionUID = -2954478218536787812L;
+
+    // marks values removed from the row
+    private static final Object ABSENT = new Object();
+
+    private transient Layout layout;
+
+    // null if the row was converted to the hash map storage
+    private transient Object[] values;
+    private transient int size;
+
+    public CompactDataRow(Layout layout) {
+        super(0);
+        this.layout = layout;
+        this.values = new Object[layout.size()];
+        Arrays.fill(values, ABSENT);
+    }
+
+    /**
+     * Creates a row over a values array that contains a value for each key of
+     * the layout. The array is used as is, without copying.
+     */
+    public CompactDataRow(Layout layout, Object[] values) {
+        this(layout, values, values.length);
+
+        if (values.length != layout.size()) {
+            throw new IllegalArgumentException("Expected " + layout.size() + " values, got " + values.length);
+        }
+    }
+
+    private CompactDataRow(Layout layout, Object[] values, int size) {
+        super(0);
+        this.layout = layout;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Returns a layout of this row, or null if the row no longer uses the
+     * compact storage.
+     */
+    public Layout getLayout() {
+        return values != null ? layout : null;
+    }
+
+    private void inflate() {
+        if (values == null) {
+            return;
+        }
+
+        Object[] values = this.values;
+        this.values = null;
+        this.size = 0;
+
+        String[] keys = layout.keys;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != ABSENT) {
+                super.put(keys[i], values[i]);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return values != null ? size : super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (values == null) {
+            return super.get(key);
+        }
+
+        int i = layout.indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+
+        Object value = values[i];
+        return value != ABSENT ? value : null;
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+        if (values == null) {
+            return super.getOrDefault(key, defaultValue);
+        }
+
+        int i = layout.indexOf(key);
+        return i >= 0 && values[i] != ABSENT ? values[i] : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (values == null) {
+            return super.containsKey(key);
+        }
+
+        int i = layout.indexOf(key);
+        return i >= 0 && values[i] != ABSENT;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (values == null) {
+            return super.containsValue(value);
+        }
+
+        for (Object v : values) {
+            if (v != ABSENT && Objects.equals(v, value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (values != null) {
+            int i = layout.indexOf(key);
+            if (i >= 0) {
+                Object old = values[i];
+                values[i] = value;
+
+                if (old == ABSENT) {
+                    size++;
+                    return null;
+                }
+
+                return old;
+            }
+
+            inflate();
+        }
+
+        return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+        for (Map.Entry<? extends String, ?> e : m.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (values == null) {
+            return super.remove(key);
+        }
+
+        int i = layout.indexOf(key);
+        if (i < 0 || values[i] == ABSENT) {
+            return null;
+        }
+
+        Object old = values[i];
+        values[i] = ABSENT;
+        size--;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        if (values == null) {
+            super.clear();
+        } else {
+            Arrays.fill(values, ABSENT);
+            size = 0;
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        if (values == null) {
+            super.forEach(action);
+            return;
+        }
+
+        String[] keys = layout.keys;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != ABSENT) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    // less common Map operations simply switch to the hash map storage
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        inflate();
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        inflate();
+        return super.remove(key, value);
+    }
+
+    @Override
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        inflate();
+        return super.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public Object replace(String key, Object value) {
+        inflate();
+        return super.replace(key, value);
+    }
+
+    @Override
+    public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+        inflate();
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        inflate();
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        inflate();
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        inflate();
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+        inflate();
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return values != null ? new KeySet() : super.keySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return values != null ? new Values() : super.values();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return values != null ? new EntrySet() : super.entrySet();
+    }
+
+    @Override
+    public Object clone() {
+        if (values == null) {
+            return super.clone();
+        }
+
+        CompactDataRow clone = new CompactDataRow(layout, values.clone(), size);
+        clone.version = version;
+        clone.replacesVersion = replacesVersion;
+        clone.entityName = entityName;
+        return clone;
+    }
+
+    @Override
+    public DataRow applyDiff(DataRow diff) {
+        if (values == null) {
+            return super.applyDiff(diff);
+        }
+
+        DataRow merged = new CompactDataRow(layout, values.clone(), size);
+
+        for (Map.Entry<String, Object> entry : diff.entrySet()) {
+            merged.put(entry.getKey(), entry.getValue());
+        }
+
+        return merged;
+    }
+
+    /**
+     * Replaces this row with a regular DataRow on serialization.
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        DataRow row = new DataRow(this);
+        row.version = version;
+        row.replacesVersion = replacesVersion;
+        row.entityName = entityName;
+        return row;
+    }
+
+    private int nextIndex(int from) {
+        for (int i = from; i < values.length; i++) {
+            if (values[i] != ABSENT) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * A shared ordered set of DataRow keys that maps each key to a position in
+     * the values array of a {@link CompactDataRow}. Layouts are immutable and
+     * interned, so rows fetched by different queries with the same columns
+     * share a single instance.
+     * 
+     * @since 4.1
+     */
+    public static final class Layout {
+
+        // do not intern an unlimited number of layouts, e.g. for ad-hoc SQL
+        private static final int MAX_INTERNED = 2000;
+        private static final Map<List<String>, Layout> INTERNED = new ConcurrentHashMap<>();
+
+        private final String[] keys;
+        private final Map<String, Integer> index;
+
+        private Layout(String[] keys) {
+            this.keys = keys;
+            this.index = new HashMap<>((int) Math.ceil(keys.length / 0.75));
+            for (int i = 0; i < keys.length; i++) {
+                index.put(keys[i], i);
+            }
+        }
+
+        /**
+         * Returns a layout for the provided keys. Duplicate keys are merged
+         * into a single position.
+         */
+        public static Layout forKeys(String... keys) {
+
+            // dedupe preserving the order
+            Map<String, Boolean> unique = new LinkedHashMap<>();
+            for (String key : keys) {
+                unique.put(key, Boolean.TRUE);
+            }
+
+            String[] uniqueKeys = unique.keySet().toArray(new String[unique.size()]);
+            List<String> cacheKey = Arrays.asList(uniqueKeys);
+
+            Layout layout = INTERNED.get(cacheKey);
+            if (layout == null) {
+                layout = new Layout(uniqueKeys);
+
+                if (INTERNED.size() < MAX_INTERNED) {
+                    Layout existing = INTERNED.putIfAbsent(cacheKey, layout);
+                    if (existing != null) {
+                        layout = existing;
+                    }
+                }
+            }
+
+            return layout;
+        }
+
+        public int size() {
+            return keys.length;
+        }
+
+        /**
+         * Returns a position of the key in the layout or -1 if the key is not
+         * a part of the layout.
+         */
+        public int indexOf(Object key) {
+            Integer i = index.get(key);
+            return i != null ? i : -1;
+        }
+
+        /**
+         * Returns positions of each of the provided keys, -1 for keys not in
+         * the layout.
+         */
+        public int[] indexesOf(String[] keys) {
+            int[] indexes = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                indexes[i] = indexOf(keys[i]);
+            }
+            return indexes;
+        }
+
+        public String getKey(int index) {
+            return keys[index];
+        }
+    }
+
+    // iterates over the compact storage and fails if the row switches to the
+    // hash map storage in the meantime
+    abstract class IndexIterator<T> implements Iterator<T> {
+
+        final Object[] array;
+        int next;
+        int last;
+
+        IndexIterator() {
+            array = values;
+            next = nextIndex(0);
+            last = -1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        void checkForComodification() {
+            if (values != array) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        int nextIndexOrFail() {
+            checkForComodification();
+
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+
+            last = next;
+            next = nextIndex(next + 1);
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+
+            checkForComodification();
+            values[last] = ABSENT;
+            size--;
+            last = -1;
+        }
+    }
+
+    // reads and writes through the current storage of the row, so it stays
+    // valid after the row switches to the hash map storage
+    final class Entry implements Map.Entry<String, Object> {
+
+        private final int index;
+
+        Entry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return layout.keys[index];
+        }
+
+        @Override
+        public Object getValue() {
+            return get(getKey());
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return put(getKey(), value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            if (values == null) {
+                return CompactDataRow.super.entrySet().iterator();
+            }
+
+            return new IndexIterator<Map.Entry<String, Object>>() {
+
+                @Override
+                public Map.Entry<String, Object> next() {
+                    return new Entry(nextIndexOrFail());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return CompactDataRow.this.size();
+        }
+
+        @Override
+        public void clear() {
+            CompactDataRow.this.clear();
+        }
+    }
+
+    final class KeySet extends AbstractSet<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            if (values == null) {
+                return CompactDataRow.super.keySet().iterator();
+            }
+
+            return new IndexIterator<String>() {
+
+                @Override
+                public String next() {
+                    return layout.keys[nextIndexOrFail()];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return CompactDataRow.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!containsKey(o)) {
+                return false;
+            }
+
+            CompactDataRow.this.remove(o);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            CompactDataRow.this.clear();
+        }
+    }
+
+    final class Values extends AbstractCollection<Object> {
+
+        @Override
+        public Iterator<Object> iterator() {
+            if (values == null) {
+                return CompactDataRow.super.values().iterator();
+            }
+
+            return new IndexIterator<Object>() {
+
+                @Override
+                public Object next() {
+                    return array[nextIndexOrFail()];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return CompactDataRow.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        @Override
+        public void clear() {
+            CompactDataRow.this.clear();
+        }
+    }
+}
@@ -23,10 +23,12 @@ import org.apache.cayenne.graph.GraphManager;
 import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.Select;
+import org.apache.cayenne.util.ResultIteratorSpliterator;
 
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * A Cayenne object facade to a persistent store. Instances of ObjectContext are
@@ -244,6 +246,21 @@ public interface ObjectContext extends DataChannel, Serializable {
      */
     <T> ResultBatchIterator<T> batchIterator(Select<T> query, int size);
 
+    /**
+     * Creates a sequential Stream of query results. Like
+     * {@link #iterator(Select)}, it is backed by an open result set and
+     * preserves a constant memory footprint for large data sets. The result
+     * set is released when the stream is fully consumed or closed. A stream
+     * that may not be consumed to the end (e.g. because of a short-circuiting
+     * operation or an exception) must be closed explicitly, e.g. with
+     * try-with-resources.
+     *
+     * @since 4.1
+     */
+    default <T> Stream<T> stream(Select<T> query) {
+        return ResultIteratorSpliterator.stream(iterator(query));
+    }
+
     /**
      * Executes any kind of query providing the result in a form of
      * QueryResponse.
@@ -24,13 +24,20 @@ import org.apache.cayenne.util.HashCodeBuilder;
 import org.apache.cayenne.util.IDUtil;
 import org.apache.cayenne.util.Util;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * A portable global identifier for persistent objects. ObjectId can be
@@ -38,18 +45,47 @@ import java.util.Map;
  * for objects that have been already stored in DB). A temporary ObjectId stores
  * object entity name and a pseudo-unique binary key; permanent id stores a map
  * of values from an external persistent store (aka "primary key").
- * 
+ * <p>
+ * Internally a permanent id is stored either as a single key/value pair (the
+ * most common case of a single column PK), or as sorted arrays of keys and
+ * values for compound PKs, so no maps are allocated per id. Hash code is
+ * computed once and cached. The serialized form is the same as before, with
+ * compound keys written as the "objectIdKeys" map, so ids can be exchanged
+ * with older versions.
+ * </p>
  */
 public class ObjectId implements Serializable {
 
 	private static final long serialVersionUID = -2265029098344119323L;
+
+	// serialized form of ObjectId prior to 4.1
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("entityName", String.class),
+			new ObjectStreamField("objectIdKeys", Map.class),
+			new ObjectStreamField("singleKey", String.class),
+			new ObjectStreamField("singleValue", Object.class),
+			new ObjectStreamField("key", byte[].class),
+			new ObjectStreamField("replacementIdMap", Map.class)
+	};
 	
 	protected String entityName;
+
+	/**
+	 * A copy of compound id values, only populated for subclasses of ObjectId.
+	 * 
+	 * @deprecated since 4.1 compound ids are stored internally in sorted
+	 *             arrays. Use {@link #getIdSnapshot()} instead.
+	 */
+	@Deprecated
 	protected Map<String, Object> objectIdKeys;
 
 	private String singleKey;
 	private Object singleValue;
 
+	// compound id keys in natural order, with matching values
+	private String[] compoundKeys;
+	private Object[] compoundValues;
+
 	// key which is used for temporary ObjectIds only
 	protected byte[] key;
 
@@ -130,6 +166,11 @@ public class ObjectId implements Serializable {
 	 */
 	public ObjectId(String entityName, Map<String, ?> idMap) {
 		this.entityName = entityName;
+		setIdValues(idMap);
+	}
+
+	@SuppressWarnings("deprecation")
+	private void setIdValues(Map<String, ?> idMap) {
 
 		if (idMap == null || idMap.size() == 0) {
 
@@ -139,10 +180,64 @@ public class ObjectId implements Serializable {
 			this.singleValue = e.getValue();
 		} else {
 
-			// we have to create a copy of the map, otherwise we may run into
-			// serialization
-			// problems with hessian
-			this.objectIdKeys = new HashMap<>(idMap);
+			// sorting the keys allows to compare and hash compound ids
+			// positionally
+			String[] keys = new String[idMap.size()];
+			int i = 0;
+			for (String key : idMap.keySet()) {
+				keys[i++] = key;
+			}
+			Arrays.sort(keys);
+
+			Object[] values = new Object[keys.length];
+			for (i = 0; i < keys.length; i++) {
+				values[i] = idMap.get(keys[i]);
+			}
+
+			this.compoundKeys = keys;
+			this.compoundValues = values;
+
+			// subclasses may still be reading the legacy field
+			if (getClass() != ObjectId.class) {
+				this.objectIdKeys = new HashMap<>(idMap);
+			}
+		}
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+
+		Map<String, Object> idMap = null;
+		if (compoundKeys != null) {
+			idMap = new HashMap<>((int) Math.ceil(compoundKeys.length / 0.75));
+			for (int i = 0; i < compoundKeys.length; i++) {
+				idMap.put(compoundKeys[i], compoundValues[i]);
+			}
+		}
+
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("entityName", entityName);
+		fields.put("objectIdKeys", idMap);
+		fields.put("singleKey", singleKey);
+		fields.put("singleValue", singleValue);
+		fields.put("key", key);
+		fields.put("replacementIdMap", replacementIdMap);
+		out.writeFields();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+
+		ObjectInputStream.GetField fields = in.readFields();
+		this.entityName = (String) fields.get("entityName", null);
+		this.key = (byte[]) fields.get("key", null);
+		this.replacementIdMap = (Map<String, Object>) fields.get("replacementIdMap", null);
+
+		String singleKey = (String) fields.get("singleKey", null);
+		if (singleKey != null) {
+			this.singleKey = singleKey;
+			this.singleValue = fields.get("singleValue", null);
+		} else {
+			setIdValues((Map<String, ?>) fields.get("objectIdKeys", null));
 		}
 	}
 
@@ -183,7 +278,7 @@ public class ObjectId implements Serializable {
 			return Collections.singletonMap(singleKey, singleValue);
 		}
 
-		return objectIdKeys != null ? Collections.unmodifiableMap(objectIdKeys) : Collections.<String, Object>emptyMap();
+		return compoundKeys != null ? new CompoundIdMap(compoundKeys, compoundValues) : Collections.<String, Object>emptyMap();
 	}
 
 	@Override
@@ -198,6 +293,11 @@ public class ObjectId implements Serializable {
 
 		ObjectId id = (ObjectId) object;
 
+		// cheap rejection if both hash codes are already calculated
+		if (hashCode != 0 && id.hashCode != 0 && hashCode != id.hashCode) {
+			return false;
+		}
+
 		if (!Util.nullSafeEquals(entityName, id.entityName)) {
 			return false;
 		}
@@ -210,26 +310,24 @@ public class ObjectId implements Serializable {
 			return Util.nullSafeEquals(singleKey, id.singleKey) && valueEquals(singleValue, id.singleValue);
 		}
 
-		if (id.objectIdKeys == null) {
-			return objectIdKeys == null;
+		if (compoundKeys == null || id.compoundKeys == null) {
+			return compoundKeys == id.compoundKeys && id.singleKey == null;
 		}
 
-		if (id.objectIdKeys.size() != objectIdKeys.size()) {
+		int len = compoundKeys.length;
+		if (id.compoundKeys.length != len) {
 			return false;
 		}
 
-		for (Map.Entry<String, ?> entry : objectIdKeys.entrySet()) {
-			String entryKey = entry.getKey();
-			Object entryValue = entry.getValue();
+		for (int i = 0; i < len; i++) {
+			if (!compoundKeys[i].equals(id.compoundKeys[i])) {
+				return false;
+			}
+		}
 
-			if (entryValue == null) {
-				if (id.objectIdKeys.get(entryKey) != null || !id.objectIdKeys.containsKey(entryKey)) {
-					return false;
-				}
-			} else {
-				if (!valueEquals(entryValue, id.objectIdKeys.get(entryKey))) {
-					return false;
-				}
+		for (int i = 0; i < len; i++) {
+			if (!valueEquals(compoundValues[i], id.compoundValues[i])) {
+				return false;
 			}
 		}
 
@@ -275,15 +373,10 @@ public class ObjectId implements Serializable {
 				} else {
 					builder.append(singleValue);
 				}
-			} else if (objectIdKeys != null) {
-				int len = objectIdKeys.size();
-
-				// handle multiple keys - must sort the keys to use with
-				// HashCodeBuilder
-
-				String[] keys = objectIdKeys.keySet().toArray(new String[0]);
-				Arrays.sort(keys);
+			} else if (compoundKeys != null) {
+				int len = compoundKeys.length;
 
+				// keys are already sorted
 				for (int i = 0; i < len; i++) {
 					// HashCodeBuilder will take care of processing object if it
 					// happens to be a primitive array such as byte[]
@@ -293,7 +386,7 @@ public class ObjectId implements Serializable {
 					// work
 					builder.append(i);
 
-					Object value = objectIdKeys.get(keys[i]);
+					Object value = compoundValues[i];
 					// must reconcile all possible numeric types
 					if (value instanceof Number) {
 						builder.append(((Number) value).longValue());
@@ -366,21 +459,82 @@ public class ObjectId implements Serializable {
 			}
 		} else if (singleKey != null) {
 			buffer.append(", ").append(String.valueOf(singleKey)).append("=").append(singleValue);
-		} else if (objectIdKeys != null) {
+		} else if (compoundKeys != null) {
 
-			// ensure consistent order of the keys, so that toString could be
-			// used as a
-			// unique key, just like id itself
-
-			List<String> keys = new ArrayList<>(objectIdKeys.keySet());
-			Collections.sort(keys);
-			for (String key : keys) {
+			// keys are sorted, so that toString could be used as a unique key,
+			// just like id itself
+			for (int i = 0; i < compoundKeys.length; i++) {
 				buffer.append(", ");
-				buffer.append(String.valueOf(key)).append("=").append(objectIdKeys.get(key));
+				buffer.append(compoundKeys[i]).append("=").append(compoundValues[i]);
 			}
 		}
 
 		buffer.append(">");
 		return buffer.toString();
 	}
+
+	/**
+	 * Unmodifiable map view of compound id arrays.
+	 */
+	private static final class CompoundIdMap extends AbstractMap<String, Object> {
+
+		private final String[] keys;
+		private final Object[] values;
+
+		CompoundIdMap(String[] keys, Object[] values) {
+			this.keys = keys;
+			this.values = values;
+		}
+
+		@Override
+		public int size() {
+			return keys.length;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return key instanceof String && Arrays.binarySearch(keys, key) >= 0;
+		}
+
+		@Override
+		public Object get(Object key) {
+			int i = key instanceof String ? Arrays.binarySearch(keys, key) : -1;
+			return i >= 0 ? values[i] : null;
+		}
+
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			return new AbstractSet<Map.Entry<String, Object>>() {
+
+				@Override
+				public int size() {
+					return keys.length;
+				}
+
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					return new Iterator<Map.Entry<String, Object>>() {
+
+						int i;
+
+						@Override
+						public boolean hasNext() {
+							return i < keys.length;
+						}
+
+						@Override
+						public Map.Entry<String, Object> next() {
+							if (i >= keys.length) {
+								throw new NoSuchElementException();
+							}
+
+							Map.Entry<String, Object> e = new AbstractMap.SimpleImmutableEntry<>(keys[i], values[i]);
+							i++;
+							return e;
+						}
+					};
+				}
+			};
+		}
+	}
 }
@@ -123,7 +123,8 @@ class ClientServerChannelQueryAction {
         if (pageSize > 0 && serverMetadata.getCacheKey() != null) {
 
             List list = response.firstList();
-            if (list.size() > pageSize && list instanceof IncrementalFaultList) {
+            if (list.size() > pageSize
+                    && (list instanceof IncrementalFaultList || list instanceof KeysetIncrementalFaultList)) {
 
                 // cache
                 channel.getQueryCache().put(serverMetadata, list);
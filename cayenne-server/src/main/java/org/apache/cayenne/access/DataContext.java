@@ -25,9 +25,13 @@ import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.apache.cayenne.BaseContext;
 import org.apache.cayenne.CayenneRuntimeException;
@@ -65,6 +69,7 @@ import org.apache.cayenne.tx.TransactionFactory;
 import org.apache.cayenne.util.EventUtil;
 import org.apache.cayenne.util.GenericResponse;
 import org.apache.cayenne.util.ResultIteratorIterator;
+import org.apache.cayenne.util.ResultIteratorSpliterator;
 import org.apache.cayenne.util.Util;
 
 /**
@@ -75,6 +80,14 @@ import org.apache.cayenne.util.Util;
  */
 public class DataContext extends BaseContext {
 
+    /**
+     * Default number of rows resolved to objects at once by
+     * {@link #stream(Select)}.
+     *
+     * @since 4.1
+     */
+    public static final int DEFAULT_STREAM_BATCH_SIZE = 100;
+
     private DataContextDelegate delegate;
     protected boolean usingSharedSnaphsotCache;
     protected ObjectStore objectStore;
@@ -811,8 +824,110 @@ public class DataContext extends BaseContext {
             // this is a bit optimized version of 'objectFromDataRow' with
             // resolver cached for reuse... still the rest is pretty suboptimal
             final ObjectResolver resolver = new ObjectResolver(this, md.getClassDescriptor(), true);
-            return new DataRowResultIterator(rows, resolver);
+            return new DataRowResultIterator(rows, () -> resolver, 1);
+        }
+    }
+
+    /**
+     * Creates an iterator over query results that keeps the ObjectStore of
+     * this context from growing during iteration. Objects are resolved in
+     * batches of "batchSize" rows. Once the caller moves past a batch (and
+     * when the iterator is closed), objects registered in this context by
+     * that batch are evicted from the ObjectStore, unless they were modified,
+     * deleted, or registered in the context before the iteration. Their
+     * snapshots are released only if this context doesn't use the shared
+     * snapshot cache. Evicted objects become TRANSIENT, so the
+     * caller should not keep references to them after moving to the next
+     * batch. {@link EvictingResultIterator#getEvictedCount()} reports how many
+     * objects were evicted so far.
+     * <p>
+     * To process results in lists of objects, wrap the iterator in a
+     * {@link org.apache.cayenne.ResultBatchIterator} of the same size. The
+     * caller must close the iterator explicitly.
+     *
+     * @since 4.1
+     */
+    public <T> EvictingResultIterator<T> evictingIterator(Select<T> query, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+
+        QueryMetadata md = query.getMetaData(getEntityResolver());
+        if (md.isFetchingDataRows() || isObjectArrayResult(md)) {
+            throw new CayenneRuntimeException("Evicting iterator can only be used with queries returning objects");
+        }
+
+        ResultIterator<?> rows = performIteratedQuery(query);
+        return new EvictingResultIterator<>(this, rows, new ObjectResolver(this, md.getClassDescriptor(), true),
+                batchSize);
+    }
+
+    /**
+     * Creates a sequential Stream of query results, resolving objects in
+     * batches of {@link #DEFAULT_STREAM_BATCH_SIZE}.
+     *
+     * @since 4.1
+     * @see #stream(Select, int, boolean)
+     */
+    @Override
+    public <T> Stream<T> stream(Select<T> query) {
+        return stream(query, DEFAULT_STREAM_BATCH_SIZE, false);
+    }
+
+    /**
+     * Creates a sequential Stream of query results. Objects are resolved from
+     * the result set in batches of "batchSize" rows, so that the cost of
+     * object resolution and ObjectStore locking is paid once per batch. The
+     * result set is released when the stream is fully consumed or closed.
+     * <p>
+     * If "scratchContext" is true, each batch of objects is registered in a
+     * new DataContext that shares the channel and snapshot cache with this
+     * context, instead of in this context. Objects emitted by the stream are
+     * then released as soon as the caller stops referencing them, so
+     * arbitrarily large results can be processed with a constant memory
+     * footprint. Such objects are fully functional, but any changes to them
+     * must be committed via their own context.
+     *
+     * @since 4.1
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Stream<T> stream(Select<T> query, int batchSize, boolean scratchContext) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+
+        final ResultIterator<?> rows = performIteratedQuery(query);
+        final QueryMetadata md = query.getMetaData(getEntityResolver());
+
+        if (md.isFetchingDataRows() || isObjectArrayResult(md)) {
+            return ResultIteratorSpliterator.stream((ResultIterator<T>) rows);
+        }
+
+        ClassDescriptor descriptor = md.getClassDescriptor();
+        Supplier<ObjectResolver> resolvers;
+        if (scratchContext) {
+            resolvers = () -> new ObjectResolver(createScratchContext(), descriptor, true);
+        } else {
+            ObjectResolver resolver = new ObjectResolver(this, descriptor, true);
+            resolvers = () -> resolver;
         }
+
+        return ResultIteratorSpliterator.stream(new DataRowResultIterator<>(rows, resolvers, batchSize));
+    }
+
+    /**
+     * Creates a context for objects that do not need to stay registered in
+     * this context. The new context uses the same channel and snapshot cache,
+     * but does not receive snapshot events.
+     */
+    DataContext createScratchContext() {
+        ObjectStore scratchStore = new NoSyncObjectStore(getObjectStore().getDataRowCache(), new HashMap<>());
+        DataContext context = new DataContext(getChannel(), scratchStore);
+        context.setValidatingObjectsOnCommit(isValidatingObjectsOnCommit());
+        context.setUsingSharedSnapshotCache(isUsingSharedSnapshotCache());
+        context.setQueryCache(getQueryCache());
+        context.setTransactionFactory(transactionFactory);
+        return context;
     }
 
     /**
@@ -1198,15 +1313,22 @@ public class DataContext extends BaseContext {
 
     /**
      * ResultIterator that can convert DataRow to Persistent object on the fly.
+     * Rows are read and converted in batches of a given size.
      */
     static class DataRowResultIterator<T> implements ResultIterator<T> {
 
         final ResultIterator<?> rows;
-        ObjectResolver resolver;
+        final Supplier<ObjectResolver> resolvers;
+        final int batchSize;
+
+        List<T> batch;
+        int batchIndex;
 
-        DataRowResultIterator(ResultIterator<?> rows, ObjectResolver resolver) {
+        DataRowResultIterator(ResultIterator<?> rows, Supplier<ObjectResolver> resolvers, int batchSize) {
             this.rows = rows;
-            this.resolver = resolver;
+            this.resolvers = resolvers;
+            this.batchSize = batchSize;
+            this.batch = Collections.emptyList();
         }
 
         @Override
@@ -1225,20 +1347,44 @@ public class DataContext extends BaseContext {
 
         @Override
         public boolean hasNextRow() {
-            return rows.hasNextRow();
+            return batchIndex < batch.size() || rows.hasNextRow();
         }
 
         @Override
-        @SuppressWarnings("unchecked")
         public T nextRow() {
-            DataRow row = (DataRow) rows.nextRow();
-            List<T> objects = (List<T>) resolver.synchronizedObjectsFromDataRows(Collections.singletonList(row));
-            return objects.get(0);
+            if (batchIndex >= batch.size()) {
+                readBatch();
+            }
+
+            return batch.get(batchIndex++);
+        }
+
+        private void readBatch() {
+            List<DataRow> dataRows = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize && rows.hasNextRow(); i++) {
+                dataRows.add((DataRow) rows.nextRow());
+            }
+
+            if (dataRows.isEmpty()) {
+                throw new NoSuchElementException("No more rows");
+            }
+
+            batch = resolveBatch(dataRows);
+            batchIndex = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> resolveBatch(List<DataRow> dataRows) {
+            return (List<T>) resolvers.get().synchronizedObjectsFromDataRows(dataRows);
         }
 
         @Override
         public void skipRow() {
-            rows.skipRow();
+            if (batchIndex < batch.size()) {
+                batchIndex++;
+            } else {
+                rows.skipRow();
+            }
         }
 
         @Override
@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.cayenne.ObjectContext;
 import org.apache.cayenne.PersistenceState;
@@ -104,7 +105,8 @@ class DataContextQueryAction extends ObjectContextQueryAction {
     @Override
     protected boolean interceptPaginatedQuery() {
         if (metadata.getPageSize() > 0) {
-            Integer maxIdQualifierSize = actingDataContext.getParentDataDomain().getMaxIdQualifierSize();
+            DataDomain domain = actingDataContext.getParentDataDomain();
+            Integer maxIdQualifierSize = domain.getMaxIdQualifierSize();
             List<?> paginatedList;
             List<Object> rsMapping = metadata.getResultSetMapping();
             boolean mixedResults = false;
@@ -121,11 +123,19 @@ class DataContextQueryAction extends ObjectContextQueryAction {
                 paginatedList = new MixedResultIncrementalFaultList<>(actingDataContext, query, maxIdQualifierSize);
             } else {
                 DbEntity dbEntity = metadata.getDbEntity();
-                if (dbEntity != null && dbEntity.getPrimaryKeys().size() == 1) {
-                    paginatedList = new SimpleIdIncrementalFaultList<>(actingDataContext, query, maxIdQualifierSize);
-                } else {
-                    paginatedList = new IncrementalFaultList<>(actingDataContext, query, maxIdQualifierSize);
+                paginatedList = domain.isKeysetPagination()
+                        ? KeysetIncrementalFaultList.forQuery(actingDataContext, query, metadata)
+                        : null;
+
+                if (paginatedList == null) {
+                    if (dbEntity != null && dbEntity.getPrimaryKeys().size() == 1) {
+                        paginatedList = new SimpleIdIncrementalFaultList<>(actingDataContext, query, maxIdQualifierSize);
+                    } else {
+                        paginatedList = new IncrementalFaultList<>(actingDataContext, query, maxIdQualifierSize);
+                    }
                 }
+
+                configureReadAhead(domain, paginatedList);
             }
 
             response = new ListResponse(paginatedList);
@@ -135,6 +145,24 @@ class DataContextQueryAction extends ObjectContextQueryAction {
         return !DONE;
     }
 
+    private void configureReadAhead(DataDomain domain, List<?> paginatedList) {
+        int pages = domain.getPageReadAhead();
+        if (pages <= 0) {
+            return;
+        }
+
+        Executor executor = domain.getReadAheadExecutor();
+        if (executor == null) {
+            return;
+        }
+
+        if (paginatedList instanceof KeysetIncrementalFaultList) {
+            ((KeysetIncrementalFaultList<?>) paginatedList).setReadAhead(pages, executor);
+        } else {
+            ((IncrementalFaultList<?>) paginatedList).setReadAhead(pages, executor);
+        }
+    }
+
     @Override
     protected boolean interceptRefreshQuery() {
         if (query instanceof RefreshQuery) {
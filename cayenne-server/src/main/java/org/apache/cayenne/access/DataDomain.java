@@ -52,6 +52,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * DataDomain performs query routing functions in Cayenne. DataDomain creates
@@ -89,6 +94,24 @@ public class DataDomain implements QueryEngine, DataChannel {
 	 */
 	protected int maxIdQualifierSize;
 
+	/**
+	 * @since 4.1
+	 */
+	protected int prefetchThreads;
+
+	/**
+	 * @since 4.1
+	 */
+	protected boolean keysetPagination;
+
+	/**
+	 * @since 4.1
+	 */
+	protected int pageReadAhead;
+
+	private volatile ExecutorService prefetchExecutor;
+	private volatile ExecutorService readAheadExecutor;
+
 	/**
 	 * @since 3.1
 	 */
@@ -513,6 +536,14 @@ public class DataDomain implements QueryEngine, DataChannel {
 			if (sharedSnapshotCache != null) {
 				sharedSnapshotCache.shutdown();
 			}
+
+			if (prefetchExecutor != null) {
+				prefetchExecutor.shutdownNow();
+			}
+
+			if (readAheadExecutor != null) {
+				readAheadExecutor.shutdownNow();
+			}
 		}
 	}
 
@@ -800,6 +831,163 @@ public class DataDomain implements QueryEngine, DataChannel {
 		this.maxIdQualifierSize = maxIdQualifierSize;
 	}
 
+	/**
+	 * Returns a maximum number of threads used to run DISJOINT_BY_ID prefetch
+	 * queries in parallel. Zero (the default) means that such queries are
+	 * executed one after another in the thread that runs the main query. It
+	 * can be changed either by calling {@link #setPrefetchThreads(int)} or
+	 * changing the value for property
+	 * {@link Constants#SERVER_PREFETCH_THREADS_PROPERTY}.
+	 *
+	 * @since 4.1
+	 */
+	public int getPrefetchThreads() {
+		return prefetchThreads;
+	}
+
+	/**
+	 * Sets a maximum number of threads used to run DISJOINT_BY_ID prefetch
+	 * queries in parallel. Must be called before the domain starts processing
+	 * queries. Each thread uses its own connection, so the value should be
+	 * below the connection pool size.
+	 *
+	 * @since 4.1
+	 */
+	public void setPrefetchThreads(int prefetchThreads) {
+		this.prefetchThreads = prefetchThreads;
+	}
+
+	/**
+	 * Returns true if paginated queries should use keyset (seek) pagination
+	 * when the query allows it. The default is false. It can be changed either
+	 * by calling {@link #setKeysetPagination(boolean)} or changing the value
+	 * for property {@link Constants#SERVER_KEYSET_PAGINATION_PROPERTY}.
+	 *
+	 * @since 4.1
+	 */
+	public boolean isKeysetPagination() {
+		return keysetPagination;
+	}
+
+	/**
+	 * @since 4.1
+	 */
+	public void setKeysetPagination(boolean keysetPagination) {
+		this.keysetPagination = keysetPagination;
+	}
+
+	/**
+	 * Returns a number of pages of paginated query results that are resolved
+	 * in the background ahead of the page being accessed. Zero (the default)
+	 * disables read-ahead. Read-ahead queries are executed by a dedicated pool
+	 * of as many threads as the number of pages to read ahead. When the pool
+	 * is busy, read-ahead of a page is skipped and the page is resolved by the
+	 * list consumer. It can be changed either by calling
+	 * {@link #setPageReadAhead(int)} or changing the value for property
+	 * {@link Constants#SERVER_PAGE_READ_AHEAD_PROPERTY}.
+	 *
+	 * @since 4.1
+	 */
+	public int getPageReadAhead() {
+		return pageReadAhead;
+	}
+
+	/**
+	 * @since 4.1
+	 */
+	public void setPageReadAhead(int pageReadAhead) {
+		this.pageReadAhead = pageReadAhead;
+	}
+
+	/**
+	 * Returns an executor for parallel prefetch queries, or null if parallel
+	 * prefetching is disabled. Also returns null in page read-ahead threads,
+	 * so that read-ahead pages resolve their prefetches sequentially instead
+	 * of holding two threads per page.
+	 */
+	ExecutorService getPrefetchExecutor() {
+
+		if (prefetchThreads <= 0 || stopped || Thread.currentThread() instanceof ReadAheadThread) {
+			return null;
+		}
+
+		if (prefetchExecutor == null) {
+			synchronized (this) {
+				if (prefetchExecutor == null) {
+					prefetchExecutor = createPrefetchExecutor(prefetchThreads);
+				}
+			}
+		}
+
+		return prefetchExecutor;
+	}
+
+	/**
+	 * Returns an executor for page read-ahead queries, or null if read-ahead
+	 * is disabled. The executor rejects tasks when its queue is full.
+	 */
+	ExecutorService getReadAheadExecutor() {
+
+		if (pageReadAhead <= 0 || stopped) {
+			return null;
+		}
+
+		if (readAheadExecutor == null) {
+			synchronized (this) {
+				if (readAheadExecutor == null) {
+					readAheadExecutor = createReadAheadExecutor(pageReadAhead);
+				}
+			}
+		}
+
+		return readAheadExecutor;
+	}
+
+	private ExecutorService createPrefetchExecutor(int threads) {
+
+		final String threadName = "cayenne-prefetch-" + getName() + "-";
+		final AtomicInteger counter = new AtomicInteger();
+
+		// bounded queue with caller-runs policy ensures that a flood of
+		// prefetch queries degrades to sequential execution instead of
+		// piling up
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(threads * 4), r -> {
+					Thread thread = new Thread(r, threadName + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private ExecutorService createReadAheadExecutor(int threads) {
+
+		final String threadName = "cayenne-read-ahead-" + getName() + "-";
+		final AtomicInteger counter = new AtomicInteger();
+
+		// unlike prefetch, read-ahead is optional, so instead of running in
+		// the caller thread, tasks that don't fit in the queue are rejected
+		// and the lists skip them
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(threads * 4),
+				r -> new ReadAheadThread(r, threadName + counter.incrementAndGet()),
+				new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * A thread of the read-ahead executor.
+	 */
+	private static final class ReadAheadThread extends Thread {
+
+		ReadAheadThread(Runnable target, String name) {
+			super(target, name);
+			setDaemon(true);
+		}
+	}
+
 	TransactionManager getTransactionManager() {
 		return transactionManager;
 	}
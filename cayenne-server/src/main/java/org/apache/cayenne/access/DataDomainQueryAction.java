@@ -28,13 +28,17 @@ import org.apache.cayenne.QueryResponse;
 import org.apache.cayenne.ResultIterator;
 import org.apache.cayenne.cache.QueryCache;
 import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.TraversalHelper;
 import org.apache.cayenne.map.DataMap;
 import org.apache.cayenne.map.DbEntity;
 import org.apache.cayenne.map.DbRelationship;
 import org.apache.cayenne.map.EntityInheritanceTree;
 import org.apache.cayenne.map.LifecycleEvent;
+import org.apache.cayenne.map.ObjEntity;
 import org.apache.cayenne.map.ObjRelationship;
 import org.apache.cayenne.query.EntityResultSegment;
+import org.apache.cayenne.query.ObjectBulkQuery;
 import org.apache.cayenne.query.ObjectIdQuery;
 import org.apache.cayenne.query.PrefetchSelectQuery;
 import org.apache.cayenne.query.PrefetchTreeNode;
@@ -44,6 +48,7 @@ import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.QueryRouter;
 import org.apache.cayenne.query.RefreshQuery;
 import org.apache.cayenne.query.RelationshipQuery;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.reflect.ClassDescriptor;
 import org.apache.cayenne.reflect.LifecycleCallbackRegistry;
 import org.apache.cayenne.tx.TransactionalOperation;
@@ -126,6 +131,12 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
             }
         }
 
+        if (query instanceof ObjectBulkQuery) {
+            invalidateBulkQueryResults((ObjectBulkQuery<?, ?>) query);
+        } else if (query instanceof UpsertBatchQuery) {
+            invalidateSnapshots(((UpsertBatchQuery) query).getDbEntity(), null);
+        }
+
         if (!noObjectConversion) {
             interceptObjectConversion();
         }
@@ -133,6 +144,76 @@ class DataDomainQueryAction implements QueryRouter, OperationObserver {
         return response;
     }
 
+    /**
+     * Invalidates cached snapshots of the rows that may have been changed or
+     * deleted by a bulk query, and clears the query cache groups of the
+     * query.
+     */
+    private void invalidateBulkQueryResults(ObjectBulkQuery<?, ?> bulkQuery) {
+
+        ObjEntity entity = metadata.getObjEntity();
+        Expression dbQualifier = bulkQuery.getWhere() != null
+                ? entity.translateToDbPath(bulkQuery.getWhere())
+                : null;
+
+        // snapshots can only be matched against the table columns, e.g. a
+        // match on a relationship, translated to "db:toArtist", never matches
+        // a DataRow, so invalidate all snapshots of the table instead
+        if (dbQualifier != null && !isColumnQualifier(entity.getDbEntity(), dbQualifier)) {
+            dbQualifier = null;
+        }
+
+        invalidateSnapshots(entity.getDbEntity(), dbQualifier);
+
+        for (String group : bulkQuery.getCacheGroups()) {
+            domain.getQueryCache().removeGroup(group);
+        }
+    }
+
+    /**
+     * Returns true if all paths of a DB qualifier are columns of the table.
+     */
+    private static boolean isColumnQualifier(final DbEntity table, Expression dbQualifier) {
+
+        final boolean[] columnsOnly = {true};
+        dbQualifier.traverse(new TraversalHelper() {
+
+            @Override
+            public void startNode(Expression node, Expression parentNode) {
+                if (node.getType() == Expression.OBJ_PATH) {
+                    columnsOnly[0] = false;
+                } else if (node.getType() == Expression.DB_PATH) {
+                    String path = (String) node.getOperand(0);
+                    if (path.indexOf('.') >= 0 || table.getAttribute(path) == null) {
+                        columnsOnly[0] = false;
+                    }
+                }
+            }
+        });
+
+        return columnsOnly[0];
+    }
+
+    /**
+     * Invalidates cached snapshots of the rows of a table that match a
+     * qualifier, or of all rows of the table if the qualifier is null.
+     */
+    private void invalidateSnapshots(DbEntity table, Expression dbQualifier) {
+
+        if (cache != null) {
+
+            // all entities mapped to the table are affected
+            Collection<String> entityNames = new HashSet<>();
+            for (ObjEntity e : domain.getEntityResolver().getObjEntities()) {
+                if (e.getDbEntity() == table) {
+                    entityNames.add(e.getName());
+                }
+            }
+
+            cache.processSnapshotInvalidation(domain, entityNames, dbQualifier);
+        }
+    }
+
     private boolean interceptDataDomainQuery() {
         if (query instanceof DataDomainQuery) {
             response = new ListResponse(domain);
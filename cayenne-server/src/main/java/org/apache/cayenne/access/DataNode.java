@@ -77,6 +77,7 @@ public class DataNode implements QueryEngine {
 	private BatchTranslatorFactory batchTranslatorFactory;
 	private SelectTranslatorFactory selectTranslatorFactory;
 	private SQLTemplateProcessor sqlTemplateProcessor;
+	private int multiRowBatchSize;
 
 	TransactionDataSource readThroughDataSource;
 
@@ -98,6 +99,7 @@ public class DataNode implements QueryEngine {
 
 		// make sure logger is not null
 		this.jdbcEventLogger = NoopJdbcEventLogger.getInstance();
+		this.multiRowBatchSize = 1;
 	}
 
 	/**
@@ -380,6 +382,25 @@ public class DataNode implements QueryEngine {
 		this.batchTranslatorFactory = batchTranslatorFactory;
 	}
 
+	/**
+	 * Returns a maximum number of rows of an insert or upsert batch that are
+	 * sent to the database in a single multi-row statement, if the adapter
+	 * supports it. Values less than 2 disable multi-row statements.
+	 * 
+	 * @since 4.1
+	 * @see DbAdapter#supportsMultiRowInsert()
+	 */
+	public int getMultiRowBatchSize() {
+		return multiRowBatchSize;
+	}
+
+	/**
+	 * @since 4.1
+	 */
+	public void setMultiRowBatchSize(int multiRowBatchSize) {
+		this.multiRowBatchSize = multiRowBatchSize;
+	}
+
 	/**
 	 * @since 4.0
 	 */
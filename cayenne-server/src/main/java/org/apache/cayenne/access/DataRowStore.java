@@ -31,6 +31,7 @@ import org.apache.cayenne.configuration.RuntimeProperties;
 import org.apache.cayenne.event.EventBridge;
 import org.apache.cayenne.event.EventManager;
 import org.apache.cayenne.event.EventSubject;
+import org.apache.cayenne.exp.Expression;
 import org.apache.cayenne.util.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +39,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -59,6 +61,11 @@ public class DataRowStore implements Serializable {
     public static final long SNAPSHOT_EXPIRATION_DEFAULT = 2 * 60 * 60; // default expiration time is 2 hours
     public static final int SNAPSHOT_CACHE_SIZE_DEFAULT = 10000;
 
+    /**
+     * @since 4.1
+     */
+    public static final int SNAPSHOT_EVENTS_WINDOW_SIZE_DEFAULT = 1000;
+
     protected String name;
     private int maxSize;
     protected ConcurrentMap<ObjectId, DataRow> snapshots;
@@ -70,6 +77,9 @@ public class DataRowStore implements Serializable {
     // too early, and thus disabling events.
     protected transient EventSubject eventSubject;
 
+    // null unless snapshot events coalescing is enabled
+    transient SnapshotEventCoalescer eventCoalescer;
+
     /**
      * Creates new DataRowStore with a specified name and a set of properties. If no
      * properties are defined, default values are used.
@@ -109,6 +119,13 @@ public class DataRowStore implements Serializable {
         this.snapshots = new ConcurrentLinkedHashMap.Builder<ObjectId, DataRow>()
                 .maximumWeightedCapacity(maxSize)
                 .build();
+
+        long eventsWindow = properties.getLong(Constants.SNAPSHOT_EVENTS_WINDOW_PROPERTY, 0);
+        if (eventsWindow > 0) {
+            int eventsWindowSize = properties.getInt(Constants.SNAPSHOT_EVENTS_WINDOW_SIZE_PROPERTY,
+                    SNAPSHOT_EVENTS_WINDOW_SIZE_DEFAULT);
+            this.eventCoalescer = new SnapshotEventCoalescer(this, eventsWindow, eventsWindowSize);
+        }
     }
 
     protected void setEventBridge(EventBridge eventBridge) {
@@ -212,6 +229,10 @@ public class DataRowStore implements Serializable {
      * Shuts down any remote notification connections, and clears internal cache.
      */
     public void shutdown() {
+        if (eventCoalescer != null) {
+            eventCoalescer.shutdown();
+        }
+
         stopListeners();
         clear();
     }
@@ -344,12 +365,63 @@ public class DataRowStore implements Serializable {
         processDeletedIDs(deletedSnapshotIds);
         processInvalidatedIDs(invalidatedSnapshotIds);
         Map<ObjectId, DataRow> diffs = processUpdatedSnapshots(updatedSnapshots);
-        sendUpdateNotification(
-                postedBy,
-                diffs,
-                deletedSnapshotIds,
-                invalidatedSnapshotIds,
-                indirectlyModifiedIds);
+
+        if (eventCoalescer != null) {
+            eventCoalescer.add(
+                    postedBy,
+                    diffs,
+                    deletedSnapshotIds,
+                    invalidatedSnapshotIds,
+                    indirectlyModifiedIds);
+        } else {
+            sendUpdateNotification(
+                    postedBy,
+                    diffs,
+                    deletedSnapshotIds,
+                    invalidatedSnapshotIds,
+                    indirectlyModifiedIds);
+        }
+    }
+
+    /**
+     * Invalidates cached snapshots of the given entities that match a
+     * qualifier expressed in terms of DB columns, e.g. after the matching rows
+     * were changed with a bulk query. Snapshots that can't be evaluated
+     * against the qualifier are invalidated as well. A null qualifier matches
+     * all snapshots of the entities. Sends a snapshot event with the
+     * invalidated ids to the listeners.
+     *
+     * @return the number of invalidated snapshots.
+     * @since 4.1
+     */
+    public int processSnapshotInvalidation(Object postedBy, Collection<String> entityNames, Expression dbQualifier) {
+
+        Collection<ObjectId> invalidated = new ArrayList<>();
+        for (Map.Entry<ObjectId, DataRow> entry : snapshots.entrySet()) {
+            if (entityNames.contains(entry.getKey().getEntityName()) && matches(dbQualifier, entry.getValue())) {
+                invalidated.add(entry.getKey());
+            }
+        }
+
+        if (!invalidated.isEmpty()) {
+            processSnapshotChanges(postedBy, Collections.<ObjectId, DataRow>emptyMap(),
+                    Collections.<ObjectId>emptyList(), invalidated, Collections.<ObjectId>emptyList());
+        }
+
+        return invalidated.size();
+    }
+
+    private static boolean matches(Expression dbQualifier, DataRow snapshot) {
+        if (dbQualifier == null) {
+            return true;
+        }
+
+        try {
+            return dbQualifier.match(snapshot);
+        } catch (RuntimeException e) {
+            // can't tell, so assume the row was affected
+            return true;
+        }
     }
 
     private void processDeletedIDs(Collection<ObjectId> deletedSnapshotIDs) {
@@ -450,7 +522,7 @@ public class DataRowStore implements Serializable {
         }
     }
 
-    private void sendUpdateNotification(
+    void sendUpdateNotification(
             Object postedBy,
             Map<ObjectId, DataRow> diffs,
             Collection<ObjectId> deletedSnapshotIDs,
@@ -0,0 +1,109 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.ResultIterator;
+
+/**
+ * A ResultIterator that evicts objects registered in the context by a batch of
+ * rows once the caller moves past that batch, keeping the ObjectStore size
+ * constant during iteration over large results.
+ *
+ * @see DataContext#evictingIterator(org.apache.cayenne.query.Select, int)
+ * @since 4.1
+ */
+public class EvictingResultIterator<T> extends DataContext.DataRowResultIterator<T> {
+
+    private final ObjectStore objectStore;
+    private final ObjectResolver resolver;
+
+    private List<Persistent> registered;
+    private long evictedCount;
+
+    EvictingResultIterator(DataContext context, ResultIterator<?> rows, ObjectResolver resolver, int batchSize) {
+        super(rows, () -> resolver, batchSize);
+        this.objectStore = context.getObjectStore();
+        this.resolver = resolver;
+        this.registered = Collections.emptyList();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    List<T> resolveBatch(List<DataRow> dataRows) {
+        evictBatch();
+
+        List<Persistent> objects;
+        List<Persistent> newObjects = new ArrayList<>(dataRows.size());
+
+        synchronized (objectStore) {
+            int len = dataRows.size();
+            boolean[] existing = new boolean[len];
+            for (int i = 0; i < len; i++) {
+                ObjectId id = resolver.objectIdForRow(dataRows.get(i));
+                existing[i] = id != null && objectStore.getNode(id) != null;
+            }
+
+            objects = resolver.objectsFromDataRows(dataRows);
+
+            for (int i = 0; i < len; i++) {
+                Persistent object = objects.get(i);
+                if (object != null && !existing[i]) {
+                    newObjects.add(object);
+                }
+            }
+        }
+
+        this.registered = newObjects;
+        return (List<T>) objects;
+    }
+
+    private void evictBatch() {
+        if (!registered.isEmpty()) {
+            evictedCount += objectStore.objectsEvicted(registered);
+            registered = Collections.emptyList();
+        }
+    }
+
+    /**
+     * Returns the number of objects evicted from the ObjectStore so far.
+     */
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * Closes the underlying result set and evicts the objects of the last
+     * batch.
+     */
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } finally {
+            evictBatch();
+        }
+    }
+}
@@ -32,13 +32,19 @@ import org.apache.cayenne.query.PrefetchSelectQuery;
 import org.apache.cayenne.query.PrefetchTreeNode;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.reflect.ClassDescriptor;
+import org.apache.cayenne.tx.BaseTransaction;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Processes a number of DataRow sets corresponding to a given prefetch tree, resolving
@@ -101,8 +107,24 @@ class HierarchicalObjectResolver {
         return decoratedTree;
     }
 
+    /**
+     * Returns an executor to run prefetch queries in parallel, or null if the queries should run in the current
+     * thread. Queries are never run in parallel if there's a transaction bound to the current thread, as they
+     * would not see the transaction uncommitted changes.
+     */
+    ExecutorService prefetchExecutor() {
+        if (BaseTransaction.getThreadTransaction() != null) {
+            return null;
+        }
+
+        return context.getParentDataDomain().getPrefetchExecutor();
+    }
+
     final class DisjointProcessor implements PrefetchProcessor {
 
+        // DISJOINT_BY_ID rows being fetched in parallel with the sibling nodes
+        private Map<PrefetchTreeNode, List<Future<List<DataRow>>>> pendingFetches;
+
         @Override
         public boolean startDisjointPrefetch(PrefetchTreeNode node) {
 
@@ -122,6 +144,7 @@ class HierarchicalObjectResolver {
             List<Persistent> objects = processorNode.getResolver().objectsFromDataRows(processorNode.getDataRows());
             processorNode.setObjects(objects);
 
+            fetchChildrenAhead(processorNode);
             return true;
         }
 
@@ -134,6 +157,23 @@ class HierarchicalObjectResolver {
                 return true;
             }
 
+            // rows may have been fetched ahead together with the sibling nodes
+            List<Future<List<DataRow>>> pending = pendingFetches != null ? pendingFetches.remove(node) : null;
+
+            List<DataRow> dataRows = pending != null
+                    ? collectDataRows(pending)
+                    : fetchDataRows(createDisjointByIdQueries(processorNode));
+            processorNode.setDataRows(dataRows);
+
+            return startDisjointPrefetch(node);
+        }
+
+        /**
+         * Builds a list of queries fetching DISJOINT_BY_ID prefetch rows for the node, split in chunks according to
+         * the domain "maxIdQualifierSize".
+         */
+        private List<PrefetchSelectQuery> createDisjointByIdQueries(PrefetchProcessorNode processorNode) {
+
             PrefetchProcessorNode parentProcessorNode = (PrefetchProcessorNode) processorNode
                     .getParent();
             ObjRelationship relationship = processorNode.getIncoming().getRelationship();
@@ -188,7 +228,7 @@ class HierarchicalObjectResolver {
 
                     createDisjointByIdPrefetchQualifier(pathPrefix, currentQuery, joins, values);
 
-                    currentQuery = new PrefetchSelectQuery(node.getPath(), relationship);
+                    currentQuery = new PrefetchSelectQuery(processorNode.getPath(), relationship);
                     queries.add(currentQuery);
                     qualifiersCount = 0;
                     values = new HashSet<>();
@@ -207,9 +247,8 @@ class HierarchicalObjectResolver {
             // add final part of values
             createDisjointByIdPrefetchQualifier(pathPrefix, currentQuery, joins, values);
 
-            PrefetchTreeNode jointSubtree = node.cloneJointSubtree();
+            PrefetchTreeNode jointSubtree = processorNode.cloneJointSubtree();
 
-            List<DataRow> dataRows = new ArrayList<>();
             for (PrefetchSelectQuery query : queries) {
                 // need to pass the remaining tree to make joint prefetches work
                 if (jointSubtree.hasChildren()) {
@@ -223,17 +262,132 @@ class HierarchicalObjectResolver {
                     query.addResultPath("db:"
                             + relationship.getReverseDbRelationshipPath());
                 }
+            }
+
+            return queries;
+        }
+
+        /**
+         * Starts fetching rows for all DISJOINT_BY_ID children of the node in parallel, provided the node rows are
+         * already resolved and parallel prefetching is enabled.
+         */
+        private void fetchChildrenAhead(PrefetchProcessorNode node) {
+
+            if (node.isPhantom() || node.getSemantics() == PrefetchTreeNode.JOINT_PREFETCH_SEMANTICS) {
+                return;
+            }
+
+            ExecutorService executor = prefetchExecutor();
+            if (executor == null) {
+                return;
+            }
+
+            Map<PrefetchTreeNode, List<PrefetchSelectQuery>> queriesByNode = new LinkedHashMap<>();
+            int queriesCount = 0;
+            for (PrefetchTreeNode child : node.getChildren()) {
+                if (child.isDisjointByIdPrefetch()) {
+                    List<PrefetchSelectQuery> queries = createDisjointByIdQueries((PrefetchProcessorNode) child);
+                    queriesByNode.put(child, queries);
+                    queriesCount += queries.size();
+                }
+            }
+
+            // nothing to run concurrently
+            if (queriesCount < 2) {
+                return;
+            }
+
+            if (pendingFetches == null) {
+                pendingFetches = new HashMap<>();
+            }
+
+            for (Map.Entry<PrefetchTreeNode, List<PrefetchSelectQuery>> entry : queriesByNode.entrySet()) {
+                pendingFetches.put(entry.getKey(), submit(executor, entry.getValue()));
+            }
+        }
+
+        private List<DataRow> fetchDataRows(List<PrefetchSelectQuery> queries) {
+
+            ExecutorService executor = queries.size() > 1 ? prefetchExecutor() : null;
+            if (executor != null) {
+                return collectDataRows(submit(executor, queries));
+            }
+
+            List<DataRow> dataRows = new ArrayList<>();
+            for (PrefetchSelectQuery query : queries) {
                 dataRows.addAll((List<DataRow>)context.performQuery(query));
             }
-            processorNode.setDataRows(dataRows);
+            return dataRows;
+        }
 
-            return startDisjointPrefetch(node);
+        private List<Future<List<DataRow>>> submit(ExecutorService executor, List<PrefetchSelectQuery> queries) {
+
+            // the context and its ObjectStore are not thread-safe and are locked by the calling thread, so the
+            // workers fetch the rows straight from the DataDomain
+            DataDomain domain = context.getParentDataDomain();
+
+            List<Future<List<DataRow>>> futures = new ArrayList<>(queries.size());
+            for (PrefetchSelectQuery query : queries) {
+                futures.add(executor.submit(() -> (List<DataRow>) domain.onQuery(null, query).firstList()));
+            }
+            return futures;
+        }
+
+        /**
+         * Waits for the parallel queries to finish, merging their rows in the order of the queries.
+         */
+        private List<DataRow> collectDataRows(List<Future<List<DataRow>>> futures) {
+
+            List<DataRow> dataRows = new ArrayList<>();
+
+            try {
+                for (Future<List<DataRow>> future : futures) {
+                    dataRows.addAll(future.get());
+                }
+            } catch (InterruptedException e) {
+                cancel(futures);
+                Thread.currentThread().interrupt();
+                throw new CayenneRuntimeException("Interrupted while waiting for prefetch queries", e);
+            } catch (ExecutionException e) {
+                cancel(futures);
+
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+
+                throw new CayenneRuntimeException("Error running prefetch query", cause);
+            }
+
+            return dataRows;
+        }
+
+        private void cancel(List<Future<List<DataRow>>> futures) {
+            for (Future<List<DataRow>> future : futures) {
+                future.cancel(true);
+            }
         }
 
         private void createDisjointByIdPrefetchQualifier(String pathPrefix, PrefetchSelectQuery currentQuery,
                                                          List<DbJoin> joins, Set<List<Object>> values) {
             Expression allJoinsQualifier;
             if(currentQuery != null) {
+
+                // single column keys can be matched with a single IN, that the adapter may translate to an array
+                // parameter or pad to reduce the number of distinct statements
+                if (joins.size() == 1) {
+                    List<Object> keys = new ArrayList<>(values.size());
+                    for (List<Object> joinValues : values) {
+                        // NULL never matches a join key, so these can be skipped
+                        if (joinValues.get(0) != null) {
+                            keys.add(joinValues.get(0));
+                        }
+                    }
+
+                    currentQuery.orQualifier(ExpressionFactory.inDbExp(pathPrefix + joins.get(0).getTargetName(), keys));
+                    return;
+                }
+
                 for(List<Object> joinValues : values) {
                     allJoinsQualifier = null;
                     for(int i=0; i<joins.size(); i++) {
@@ -24,10 +24,12 @@ import org.apache.cayenne.Persistent;
 import org.apache.cayenne.ResultIterator;
 import org.apache.cayenne.exp.Expression;
 import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.exp.parser.ASTDbPath;
 import org.apache.cayenne.map.ObjEntity;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.QueryMetadata;
 import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.tx.BaseTransaction;
 import org.apache.cayenne.util.Util;
 
 import java.io.Serializable;
@@ -39,6 +41,12 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * A synchronized list that serves as a container of DataObjects. It is returned
@@ -79,6 +87,22 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
 	 */
 	protected int maxFetchSize;
 
+	/**
+	 * A number of pages following the accessed page that are resolved in the
+	 * background.
+	 * 
+	 * @since 4.1
+	 */
+	protected int readAheadPages;
+
+	/**
+	 * @since 4.1
+	 */
+	protected transient Executor readAheadExecutor;
+
+	private transient Map<Integer, Future<?>> readAheadTasks;
+	private transient volatile int lastAccessedPage = -1;
+
 	// Don't confuse this with the JDBC ResultSet fetch size setting - this
 	// controls
 	// the where clause generation that is necessary to fetch specific records a
@@ -234,19 +258,7 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
 				return;
 			}
 
-			// fetch the range of objects in fetchSize chunks
-			List<Object> objects = new ArrayList<>(qualsSize);
-
-			int fetchSize = maxFetchSize > 0 ? maxFetchSize : Integer.MAX_VALUE;
-
-			int fetchEnd = Math.min(qualsSize, fetchSize);
-			int fetchBegin = 0;
-			while (fetchBegin < qualsSize) {
-				SelectQuery<Object> query = createSelectQuery(quals.subList(fetchBegin, fetchEnd));
-				objects.addAll(dataContext.performQuery(query));
-				fetchBegin = fetchEnd;
-				fetchEnd += Math.min(fetchSize, qualsSize - fetchEnd);
-			}
+			List<Object> objects = fetchObjects(quals);
 
 			// sanity check - database data may have changed
 			checkPageResultConsistency(objects, ids);
@@ -256,6 +268,146 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
 		}
 	}
 
+	/**
+	 * Fetches objects matching id qualifiers in "maxFetchSize" chunks.
+	 */
+	List<Object> fetchObjects(List<Expression> quals) {
+
+		int qualsSize = quals.size();
+		List<Object> objects = new ArrayList<>(qualsSize);
+
+		int fetchSize = maxFetchSize > 0 ? maxFetchSize : Integer.MAX_VALUE;
+
+		int fetchEnd = Math.min(qualsSize, fetchSize);
+		int fetchBegin = 0;
+		while (fetchBegin < qualsSize) {
+			SelectQuery<Object> query = createSelectQuery(quals.subList(fetchBegin, fetchEnd));
+			objects.addAll(dataContext.performQuery(query));
+			fetchBegin = fetchEnd;
+			fetchEnd += Math.min(fetchSize, qualsSize - fetchEnd);
+		}
+
+		return objects;
+	}
+
+	/**
+	 * Resolves a sublist of objects in a read-ahead thread. Unlike
+	 * {@link #resolveInterval(int, int)}, the list is not locked while the
+	 * objects are fetched, so that the list consumer can keep reading the
+	 * resolved pages. Objects that were resolved by another thread in the
+	 * meantime are left as is.
+	 * 
+	 * @since 4.1
+	 */
+	void readAheadInterval(int fromIndex, int toIndex) {
+
+		List<Expression> quals = new ArrayList<>(pageSize);
+		List<Object> ids = new ArrayList<>(pageSize);
+
+		synchronized (elements) {
+			toIndex = Math.min(toIndex, elements.size());
+			for (int i = fromIndex; i < toIndex; i++) {
+				Object object = elements.get(i);
+				if (helper.unresolvedSuspect(object)) {
+					quals.add(buildIdQualifier(object));
+					ids.add(object);
+				}
+			}
+		}
+
+		if (quals.isEmpty()) {
+			return;
+		}
+
+		List<Object> objects = fetchObjects(quals);
+		checkPageResultConsistency(objects, ids);
+
+		synchronized (elements) {
+			toIndex = Math.min(toIndex, elements.size());
+			for (Object object : objects) {
+				for (int i = fromIndex; i < toIndex; i++) {
+					if (helper.replacesObject(object, elements.get(i))) {
+						elements.set(i, object);
+						unfetchedObjects--;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits for a pending read-ahead of the page and schedules read-ahead of
+	 * the following pages if the page differs from the one accessed
+	 * previously.
+	 */
+	private void readAhead(int pageIndex) {
+
+		Executor executor = readAheadExecutor;
+		if (executor == null || readAheadPages <= 0) {
+			return;
+		}
+
+		// waiting while holding the list lock would block the read-ahead
+		// thread, so let the caller resolve the page itself
+		if (!Thread.holdsLock(elements)) {
+			Future<?> pending = readAheadTasks.get(pageIndex);
+			if (pending != null) {
+				try {
+					pending.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException e) {
+					// ignore, the page will be resolved by the caller,
+					// reporting the error if it persists
+				}
+			}
+		}
+
+		if (pageIndex == lastAccessedPage) {
+			return;
+		}
+
+		lastAccessedPage = pageIndex;
+
+		// read-ahead queries would not see the changes of the caller
+		// transaction
+		if (BaseTransaction.getThreadTransaction() != null) {
+			return;
+		}
+
+		for (int i = 1; i <= readAheadPages; i++) {
+			final int page = pageIndex + i;
+			final int fromIndex = page * pageSize;
+
+			synchronized (elements) {
+				if (fromIndex >= elements.size()) {
+					break;
+				}
+
+				if (!helper.unresolvedSuspect(elements.get(fromIndex))) {
+					continue;
+				}
+			}
+
+			FutureTask<Void> task = new FutureTask<>(() -> {
+				try {
+					readAheadInterval(fromIndex, fromIndex + pageSize);
+				} finally {
+					readAheadTasks.remove(page);
+				}
+			}, null);
+
+			if (readAheadTasks.putIfAbsent(page, task) == null) {
+				try {
+					executor.execute(task);
+				} catch (RejectedExecutionException e) {
+					readAheadTasks.remove(page);
+				}
+			}
+		}
+	}
+
 	void updatePageWithResults(List<Object> objects, int fromIndex, int toIndex) {
 		for (Object object : objects) {
 			helper.updateWithResolvedObjectInRange(object, fromIndex, toIndex);
@@ -265,7 +417,7 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
 	}
 
 	SelectQuery<Object> createSelectQuery(List<Expression> expressions) {
-		SelectQuery<Object> query = new SelectQuery<>(rootEntity, ExpressionFactory.joinExp(Expression.OR, expressions));
+		SelectQuery<Object> query = new SelectQuery<>(rootEntity, joinIdQualifiers(expressions));
 
 		query.setFetchingDataRows(internalQuery.isFetchingDataRows());
 		if (!query.isFetchingDataRows()) {
@@ -275,6 +427,41 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
 		return query;
 	}
 
+	/**
+	 * OR-joins id qualifiers. If all of them match the same single DB column,
+	 * a single IN expression is built instead, so that the adapter could bind
+	 * the ids as an array or pad the list.
+	 *
+	 * @since 4.1
+	 */
+	static Expression joinIdQualifiers(List<Expression> expressions) {
+
+		if (expressions.size() > 1) {
+			Object path = null;
+			List<Object> ids = new ArrayList<>(expressions.size());
+
+			for (Expression e : expressions) {
+				if (e.getType() != Expression.EQUAL_TO || !(e.getOperand(0) instanceof ASTDbPath)
+						|| e.getOperand(1) == null) {
+					return ExpressionFactory.joinExp(Expression.OR, expressions);
+				}
+
+				Object ePath = ((ASTDbPath) e.getOperand(0)).getOperand(0);
+				if (path == null) {
+					path = ePath;
+				} else if (!path.equals(ePath)) {
+					return ExpressionFactory.joinExp(Expression.OR, expressions);
+				}
+
+				ids.add(e.getOperand(1));
+			}
+
+			return ExpressionFactory.inDbExp((String) path, ids);
+		}
+
+		return ExpressionFactory.joinExp(Expression.OR, expressions);
+	}
+
 	/**
 	 * Returns a qualifier expression for an unresolved id object.
 	 * 
@@ -361,6 +548,46 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
 		this.maxFetchSize = fetchSize;
 	}
 
+	/**
+	 * Returns a number of pages following the accessed page that are resolved
+	 * in the background. Zero means that read-ahead is disabled.
+	 * 
+	 * @since 4.1
+	 */
+	public int getReadAheadPages() {
+		return readAheadPages;
+	}
+
+	/**
+	 * Enables background resolution of the pages that follow the page being
+	 * accessed, so that sequential consumers of the list do not stall on page
+	 * boundaries. Read-ahead queries run in the executor threads outside of
+	 * the caller transaction, each using its own connection. Read-ahead is
+	 * skipped when a transaction is bound to the thread accessing the list.
+	 * 
+	 * @param pages
+	 *            a number of pages to read ahead. Zero disables read-ahead.
+	 * @param executor
+	 *            executor that runs read-ahead queries. Pages rejected by the
+	 *            executor are not read ahead, so a bounded executor should
+	 *            reject tasks rather than run them in the caller thread.
+	 * @since 4.1
+	 */
+	public void setReadAhead(int pages, Executor executor) {
+		if (pages > 0 && executor == null) {
+			throw new IllegalArgumentException("Null read-ahead executor");
+		}
+
+		synchronized (elements) {
+			if (readAheadTasks == null) {
+				readAheadTasks = new ConcurrentHashMap<>();
+			}
+
+			this.readAheadPages = pages;
+			this.readAheadExecutor = pages > 0 ? executor : null;
+		}
+	}
+
 	/**
 	 * Returns the dataContext.
 	 * 
@@ -503,6 +730,10 @@ public class IncrementalFaultList<E> implements List<E>, Serializable {
 	}
 
 	public E get(int index) {
+		if (readAheadPages > 0) {
+			readAhead(index / pageSize);
+		}
+
 		synchronized (elements) {
 			Object o = elements.get(index);
 
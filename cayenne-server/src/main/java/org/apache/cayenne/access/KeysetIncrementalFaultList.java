@@ -0,0 +1,538 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.exp.Property;
+import org.apache.cayenne.exp.TraversalHelper;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.map.Relationship;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.Ordering;
+import org.apache.cayenne.query.PrefetchTreeNode;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryMetadata;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.query.SortOrder;
+import org.apache.cayenne.reflect.ClassDescriptor;
+import org.apache.cayenne.tx.BaseTransaction;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.lang.ref.SoftReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A paginated list that uses keyset (a.k.a. "seek") pagination. Unlike
+ * {@link IncrementalFaultList}, it doesn't read the ids of the entire result
+ * on creation. Instead it runs a COUNT query to determine the list size and
+ * fetches each page with a query like
+ * <code>WHERE (sort keys) &gt; (last keys of the previous page) LIMIT pageSize</code>.
+ * Only the sort keys of the last object of each page are kept in memory for
+ * the lifetime of the list. Resolved pages are softly referenced and are
+ * fetched again if reclaimed by the garbage collector.
+ * <p>
+ * Pages are resolved under per-page locks, so threads reading different pages
+ * of the same list do not block each other. Random access to a page requires
+ * all the preceding pages to have been resolved at least once, as their last
+ * keys are needed to build the page query.
+ * </p>
+ * <p>
+ * Keyset pagination is only used for queries whose orderings are on non-null
+ * attributes of the root entity. The primary key columns are appended to the
+ * orderings to make them stable. The list is read-only.
+ * </p>
+ *
+ * @see org.apache.cayenne.configuration.Constants#SERVER_KEYSET_PAGINATION_PROPERTY
+ * @since 4.1
+ */
+public class KeysetIncrementalFaultList<E> extends AbstractList<E> implements Serializable {
+
+	private static final int MAX_LOCKS = 64;
+
+	protected DataContext dataContext;
+	protected ObjEntity rootEntity;
+	protected int pageSize;
+	protected int size;
+
+	protected Expression qualifier;
+	protected List<Ordering> orderings;
+	protected boolean fetchingDataRows;
+	protected PrefetchTreeNode prefetchTree;
+
+	// sort key columns, including the trailing PK columns
+	protected String[] keyColumns;
+
+	// ObjAttribute names to read key values from objects, null for PK columns
+	// that are read from ObjectIds
+	protected String[] keyProperties;
+	protected boolean[] keyAscending;
+
+	// keys of the last object of each page
+	protected final AtomicReferenceArray<Object[]> boundaries;
+	protected transient AtomicReferenceArray<SoftReference<List<E>>> pages;
+	private transient Object[] pageLocks;
+
+	protected int readAheadPages;
+	protected transient Executor readAheadExecutor;
+	private transient volatile int lastAccessedPage = -1;
+
+	/**
+	 * Creates a keyset paginated list for the query if the query is suitable
+	 * for keyset pagination, or returns null otherwise.
+	 */
+	static <E> KeysetIncrementalFaultList<E> forQuery(DataContext dataContext, Query query, QueryMetadata metadata) {
+
+		ObjEntity entity = metadata.getObjEntity();
+		if (entity == null || metadata.getPageSize() <= 0 || metadata.getFetchLimit() > 0
+				|| metadata.getFetchOffset() > 0) {
+			return null;
+		}
+
+		Expression qualifier;
+		Collection<Ordering> orderings;
+
+		if (query instanceof SelectQuery) {
+			SelectQuery<?> select = (SelectQuery<?>) query;
+			if (select.getColumns() != null && !select.getColumns().isEmpty() || select.getHavingQualifier() != null) {
+				return null;
+			}
+
+			qualifier = select.getQualifier();
+			orderings = select.getOrderings();
+		} else if (query instanceof ObjectSelect) {
+			ObjectSelect<?> select = (ObjectSelect<?>) query;
+			qualifier = select.getWhere();
+			orderings = select.getOrderings();
+		} else {
+			return null;
+		}
+
+		// joint prefetches multiply rows of the root entity and break the limit
+		PrefetchTreeNode prefetchTree = metadata.getPrefetchTree();
+		if (prefetchTree != null && !prefetchTree.adjacentJointNodes().isEmpty()) {
+			return null;
+		}
+
+		// to-many joins multiply rows and break COUNT
+		if (qualifier != null && traversesToMany(entity, qualifier)) {
+			return null;
+		}
+
+		List<String> keyColumns = new ArrayList<>();
+		List<String> keyProperties = new ArrayList<>();
+		List<Boolean> keyAscending = new ArrayList<>();
+
+		if (orderings != null) {
+			for (Ordering ordering : orderings) {
+				if (ordering.isCaseInsensitive()) {
+					return null;
+				}
+
+				DbAttribute column = keyColumn(entity, ordering.getSortSpec());
+				if (column == null || keyColumns.contains(column.getName())) {
+					return null;
+				}
+
+				keyColumns.add(column.getName());
+				keyProperties.add(column.isPrimaryKey() ? null : entity.getAttributeForDbAttribute(column).getName());
+				keyAscending.add(ordering.isAscending());
+			}
+		}
+
+		List<Ordering> allOrderings = orderings != null ? new ArrayList<>(orderings) : new ArrayList<Ordering>();
+		for (DbAttribute pk : entity.getDbEntity().getPrimaryKeys()) {
+			if (!keyColumns.contains(pk.getName())) {
+				keyColumns.add(pk.getName());
+				keyProperties.add(null);
+				keyAscending.add(Boolean.TRUE);
+				allOrderings.add(new Ordering(ExpressionFactory.dbPathExp(pk.getName()), SortOrder.ASCENDING));
+			}
+		}
+
+		if (keyColumns.isEmpty()) {
+			return null;
+		}
+
+		boolean[] ascending = new boolean[keyAscending.size()];
+		for (int i = 0; i < ascending.length; i++) {
+			ascending[i] = keyAscending.get(i);
+		}
+
+		return new KeysetIncrementalFaultList<>(dataContext, metadata, qualifier, allOrderings,
+				keyColumns.toArray(new String[0]), keyProperties.toArray(new String[0]), ascending);
+	}
+
+	/**
+	 * Returns a DbAttribute of the root entity that an ordering expression
+	 * points to, provided it can be used as a sort key, i.e. it is never null
+	 * and can be read from a fetched object.
+	 */
+	private static DbAttribute keyColumn(ObjEntity entity, Expression sortSpec) {
+
+		// functions and other expressions can't be used as keys
+		int type = sortSpec.getType();
+		if (type != Expression.OBJ_PATH && type != Expression.DB_PATH) {
+			return null;
+		}
+
+		String path = (String) sortSpec.getOperand(0);
+		if (path.indexOf('.') >= 0) {
+			return null;
+		}
+
+		DbAttribute column;
+		if (type == Expression.OBJ_PATH) {
+			ObjAttribute attribute = entity.getAttribute(path);
+			if (attribute == null || attribute.isFlattened()) {
+				return null;
+			}
+
+			column = attribute.getDbAttribute();
+		} else {
+			column = entity.getDbEntity().getAttribute(path);
+		}
+
+		if (column == null) {
+			return null;
+		}
+
+		if (column.isPrimaryKey()) {
+			return column;
+		}
+
+		return column.isMandatory() && entity.getAttributeForDbAttribute(column) != null ? column : null;
+	}
+
+	private static boolean traversesToMany(final ObjEntity entity, Expression qualifier) {
+
+		final boolean[] toMany = new boolean[1];
+		qualifier.traverse(new TraversalHelper() {
+
+			@Override
+			public void startNode(Expression node, Expression parentNode) {
+				if (node.getType() == Expression.OBJ_PATH || node.getType() == Expression.DB_PATH) {
+					Iterator<?> it = entity.resolvePathComponents(node);
+					while (it.hasNext()) {
+						Object component = it.next();
+						if (component instanceof Relationship && ((Relationship) component).isToMany()) {
+							toMany[0] = true;
+						}
+					}
+				}
+			}
+		});
+
+		return toMany[0];
+	}
+
+	KeysetIncrementalFaultList(DataContext dataContext, QueryMetadata metadata, Expression qualifier,
+			List<Ordering> orderings, String[] keyColumns, String[] keyProperties, boolean[] keyAscending) {
+
+		this.dataContext = dataContext;
+		this.rootEntity = metadata.getObjEntity();
+		this.pageSize = metadata.getPageSize();
+		this.fetchingDataRows = metadata.isFetchingDataRows();
+		this.prefetchTree = metadata.getPrefetchTree();
+		this.qualifier = qualifier;
+		this.orderings = orderings;
+		this.keyColumns = keyColumns;
+		this.keyProperties = keyProperties;
+		this.keyAscending = keyAscending;
+
+		this.size = fetchSize();
+
+		int pageCount = (size + pageSize - 1) / pageSize;
+		this.boundaries = new AtomicReferenceArray<>(pageCount);
+		initPages();
+	}
+
+	private void initPages() {
+		int pageCount = boundaries.length();
+		this.pages = new AtomicReferenceArray<>(pageCount);
+		this.pageLocks = new Object[Math.max(1, Math.min(pageCount, MAX_LOCKS))];
+		for (int i = 0; i < pageLocks.length; i++) {
+			pageLocks[i] = new Object();
+		}
+	}
+
+	private int fetchSize() {
+		SelectQuery<Object> count = new SelectQuery<>(rootEntity, qualifier);
+		count.setColumns(Property.COUNT);
+
+		List<?> result = dataContext.performQuery(count);
+		return result.isEmpty() ? 0 : ((Number) result.get(0)).intValue();
+	}
+
+	@Override
+	public E get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+
+		int pageIndex = index / pageSize;
+		List<E> page = resolvePage(pageIndex);
+		readAhead(pageIndex);
+
+		int pageOffset = index % pageSize;
+		if (pageOffset >= page.size()) {
+			throw new CayenneRuntimeException(
+					"Object at index %d is missing from the database. Expected at least %d objects on page %d, fetched %d",
+					index, pageOffset + 1, pageIndex, page.size());
+		}
+
+		return page.get(pageOffset);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns zero-based index of the virtual "page" for a given element
+	 * index.
+	 */
+	public int pageIndex(int elementIndex) {
+		if (elementIndex < 0 || elementIndex > size) {
+			throw new IndexOutOfBoundsException("Index: " + elementIndex);
+		}
+
+		return elementIndex / pageSize;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public DataContext getDataContext() {
+		return dataContext;
+	}
+
+	/**
+	 * Returns a number of pages following the accessed page that are resolved
+	 * in the background. Zero means that read-ahead is disabled.
+	 */
+	public int getReadAheadPages() {
+		return readAheadPages;
+	}
+
+	/**
+	 * Enables background resolution of the pages that follow the page being
+	 * accessed. Read-ahead queries run in the executor threads outside of the
+	 * caller transaction, each using its own connection. A consumer accessing
+	 * a page that is being read ahead waits for the page instead of fetching
+	 * it again.
+	 *
+	 * @param pages
+	 *            a number of pages to read ahead. Zero disables read-ahead.
+	 * @param executor
+	 *            executor that runs read-ahead queries. Pages rejected by the
+	 *            executor are not read ahead, so a bounded executor should
+	 *            reject tasks rather than run them in the caller thread.
+	 */
+	public void setReadAhead(int pages, Executor executor) {
+		if (pages > 0 && executor == null) {
+			throw new IllegalArgumentException("Null read-ahead executor");
+		}
+
+		this.readAheadPages = pages;
+		this.readAheadExecutor = pages > 0 ? executor : null;
+	}
+
+	private void readAhead(int pageIndex) {
+
+		Executor executor = readAheadExecutor;
+		if (executor == null || pageIndex == lastAccessedPage) {
+			return;
+		}
+
+		lastAccessedPage = pageIndex;
+
+		// read-ahead queries would not see the changes of the caller
+		// transaction
+		if (BaseTransaction.getThreadTransaction() != null) {
+			return;
+		}
+
+		int last = Math.min(pageIndex + readAheadPages, pages.length() - 1);
+		for (int i = pageIndex + 1; i <= last; i++) {
+			final int page = i;
+			if (cachedPage(page) == null) {
+				try {
+					executor.execute(() -> {
+						try {
+							resolvePage(page);
+						} catch (RuntimeException e) {
+							// ignore, the consumer will fetch the page again,
+							// reporting the error if it persists
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a page with a given index, fetching it and the preceding pages
+	 * with unknown boundaries if needed.
+	 */
+	List<E> resolvePage(int pageIndex) {
+
+		List<E> page = cachedPage(pageIndex);
+		if (page != null) {
+			return page;
+		}
+
+		// seek forward from the closest page whose predecessor boundary is
+		// known
+		int from = pageIndex;
+		while (from > 0 && boundaries.get(from - 1) == null) {
+			from--;
+		}
+
+		for (int i = from; i < pageIndex; i++) {
+			if (boundaries.get(i) == null) {
+				fetchPage(i);
+			}
+		}
+
+		return fetchPage(pageIndex);
+	}
+
+	private List<E> cachedPage(int pageIndex) {
+		SoftReference<List<E>> ref = pages.get(pageIndex);
+		return ref != null ? ref.get() : null;
+	}
+
+	private List<E> fetchPage(int pageIndex) {
+
+		synchronized (pageLocks[pageIndex % pageLocks.length]) {
+
+			List<E> page = cachedPage(pageIndex);
+			if (page != null) {
+				return page;
+			}
+
+			Object[] after = null;
+			if (pageIndex > 0) {
+				after = boundaries.get(pageIndex - 1);
+				if (after == null) {
+					throw new CayenneRuntimeException(
+							"Page %d can't be resolved, as the previous page is empty. Database data may have changed",
+							pageIndex);
+				}
+			}
+
+			page = Collections.unmodifiableList(dataContext.performQuery(createPageQuery(after)));
+			pages.set(pageIndex, new SoftReference<>(page));
+
+			// boundaries are preserved once set, so that refetched pages
+			// contain the same range of keys
+			if (!page.isEmpty()) {
+				boundaries.compareAndSet(pageIndex, null, keyValues(page.get(page.size() - 1)));
+			}
+
+			return page;
+		}
+	}
+
+	SelectQuery<E> createPageQuery(Object[] after) {
+
+		Expression pageQualifier = qualifier;
+		if (after != null) {
+			Expression seek = seekQualifier(after);
+			pageQualifier = pageQualifier != null ? pageQualifier.andExp(seek) : seek;
+		}
+
+		SelectQuery<E> query = new SelectQuery<>(rootEntity, pageQualifier, orderings);
+		query.setFetchLimit(pageSize);
+		query.setFetchingDataRows(fetchingDataRows);
+		query.setPrefetchTree(prefetchTree);
+		return query;
+	}
+
+	/**
+	 * Builds a qualifier matching the rows that follow a given key in the sort
+	 * order: <code>(k1 &gt; v1) OR (k1 = v1 AND k2 &gt; v2) OR ...</code>
+	 */
+	Expression seekQualifier(Object[] after) {
+
+		List<Expression> alternatives = new ArrayList<>(keyColumns.length);
+		for (int i = 0; i < keyColumns.length; i++) {
+
+			List<Expression> parts = new ArrayList<>(i + 1);
+			for (int j = 0; j < i; j++) {
+				parts.add(ExpressionFactory.matchDbExp(keyColumns[j], after[j]));
+			}
+
+			parts.add(keyAscending[i]
+					? ExpressionFactory.greaterDbExp(keyColumns[i], after[i])
+					: ExpressionFactory.lessDbExp(keyColumns[i], after[i]));
+
+			alternatives.add(ExpressionFactory.joinExp(Expression.AND, parts));
+		}
+
+		return ExpressionFactory.joinExp(Expression.OR, alternatives);
+	}
+
+	Object[] keyValues(Object object) {
+
+		Object[] values = new Object[keyColumns.length];
+
+		if (fetchingDataRows) {
+			Map<?, ?> row = (Map<?, ?>) object;
+			for (int i = 0; i < values.length; i++) {
+				values[i] = row.get(keyColumns[i]);
+			}
+		} else {
+			Persistent persistent = (Persistent) object;
+			ClassDescriptor descriptor = dataContext.getEntityResolver().getClassDescriptor(rootEntity.getName());
+			for (int i = 0; i < values.length; i++) {
+				values[i] = keyProperties[i] != null
+						? descriptor.getProperty(keyProperties[i]).readProperty(persistent)
+						: persistent.getObjectId().getIdSnapshot().get(keyColumns[i]);
+			}
+		}
+
+		return values;
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		initPages();
+	}
+}
@@ -116,6 +116,12 @@ class MixedResultIncrementalFaultList<E> extends IncrementalFaultList<E> {
         unfetchedObjects = elementsList.size();
     }
 
+    @Override
+    void readAheadInterval(int fromIndex, int toIndex) {
+        // rows mix several entities, so resolve them the regular way
+        resolveInterval(fromIndex, toIndex);
+    }
+
     @Override
     protected void resolveInterval(int fromIndex, int toIndex) {
         if (fromIndex >= toIndex || scalarResult) {
@@ -178,7 +184,7 @@ class MixedResultIncrementalFaultList<E> extends IncrementalFaultList<E> {
     }
 
     SelectQuery<Persistent> createSelectQuery(ObjEntity entity, List<Expression> expressions) {
-        SelectQuery<Persistent> query = new SelectQuery<>(entity, ExpressionFactory.joinExp(Expression.OR, expressions));
+        SelectQuery<Persistent> query = new SelectQuery<>(entity, joinIdQualifiers(expressions));
         if (entity.equals(rootEntity)) {
             query.setPrefetchTree(internalQuery.getPrefetchTree());
         }
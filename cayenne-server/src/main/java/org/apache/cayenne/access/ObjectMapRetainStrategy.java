@@ -18,6 +18,7 @@
  ****************************************************************/
 package org.apache.cayenne.access;
 
+import java.util.Collections;
 import java.util.Map;
 
 import org.apache.cayenne.Persistent;
@@ -31,4 +32,14 @@ import org.apache.cayenne.Persistent;
 public interface ObjectMapRetainStrategy {
 
     Map<Object, Persistent> createObjectMap();
+
+    /**
+     * Creates a thread-safe object map, as required by {@link StripedObjectStore}. The default implementation
+     * synchronizes the map returned by {@link #createObjectMap()}.
+     *
+     * @since 4.1
+     */
+    default Map<Object, Persistent> createConcurrentObjectMap() {
+        return Collections.synchronizedMap(createObjectMap());
+    }
 }
@@ -124,6 +124,14 @@ class ObjectResolver {
 		return results;
 	}
 
+	/**
+	 * Returns an ObjectId of the object that would be resolved from the row.
+	 */
+	ObjectId objectIdForRow(DataRow row) {
+		ClassDescriptor classDescriptor = descriptorResolutionStrategy.descriptorForRow(row);
+		return createObjectId(row, classDescriptor.getEntity(), null);
+	}
+
 	Persistent objectFromDataRow(DataRow row) {
 		// determine entity to use
 		ClassDescriptor classDescriptor = descriptorResolutionStrategy.descriptorForRow(row);
@@ -105,7 +105,16 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
         else {
             throw new CayenneRuntimeException("Object map is null.");
         }
-        this.changes = new HashMap<>();
+        this.changes = createChangesMap();
+    }
+
+    /**
+     * Creates a map to store uncommitted object changes.
+     *
+     * @since 4.1
+     */
+    Map<Object, ObjectDiff> createChangesMap() {
+        return new HashMap<>();
     }
 
     /**
@@ -313,6 +322,51 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
         }
     }
 
+    /**
+     * Evicts unmodified objects from the ObjectStore. Their snapshots are
+     * forgotten only if the context uses its own DataRowStore, as the shared
+     * one is used by other contexts. Evicted objects are changed to TRANSIENT
+     * state. Unlike {@link #objectsUnregistered(Collection)}, this method skips
+     * objects that are NEW, MODIFIED or DELETED, or are not registered in this
+     * store, and doesn't post snapshot events, so objects registered in other
+     * contexts are not affected.
+     *
+     * @return the number of evicted objects.
+     * @since 4.1
+     */
+    public synchronized int objectsEvicted(Collection<? extends Persistent> objects) {
+        int evicted = 0;
+
+        for (Persistent object : objects) {
+            if (isEvictable(object)) {
+                ObjectId id = object.getObjectId();
+                objectMap.remove(id);
+                changes.remove(id);
+                objectEvicted(object);
+                evicted++;
+            }
+        }
+
+        return evicted;
+    }
+
+    boolean isEvictable(Persistent object) {
+        int state = object.getPersistenceState();
+        return (state == PersistenceState.COMMITTED || state == PersistenceState.HOLLOW)
+                && objectMap.get(object.getObjectId()) == object;
+    }
+
+    void objectEvicted(Persistent object) {
+
+        // other contexts may depend on the snapshots in a shared cache
+        if (getDataRowCache() != null && context != null && !context.isUsingSharedSnapshotCache()) {
+            getDataRowCache().forgetSnapshot(object.getObjectId());
+        }
+
+        object.setObjectContext(null);
+        object.setPersistenceState(PersistenceState.TRANSIENT);
+    }
+
     /**
      * Reverts changes to all stored uncomitted objects.
      * 
@@ -350,7 +404,7 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
 
         // reset changes ... using new HashMap to allow event listeners to analyze the
         // original changes map after the rollback
-        this.changes = new HashMap<>();
+        this.changes = createChangesMap();
     }
 
     /**
@@ -450,7 +504,7 @@ public class ObjectStore implements Serializable, SnapshotEventListener, GraphMa
 
         // create new instance of changes map so that event listeners who stored the
         // original diff don't get affected
-        this.changes = new HashMap<>();
+        this.changes = createChangesMap();
     }
 
     /**
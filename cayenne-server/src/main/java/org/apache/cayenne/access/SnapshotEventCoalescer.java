@@ -0,0 +1,221 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Accumulates snapshot changes of a {@link DataRowStore} within a time window
+ * and posts them as a single SnapshotEvent, merging changes to the same
+ * ObjectId. This reduces the number of events sent over the EventBridge and
+ * processed by ObjectStores during bursts of small commits.
+ * <p>
+ * Changes are flushed when the window expires or when the number of pending
+ * ids reaches the size limit, whichever happens first. If changes from more
+ * than one poster are merged, the resulting event has no "postedBy" object,
+ * so originating contexts will receive their own changes too.
+ * </p>
+ * 
+ * @since 4.1
+ */
+class SnapshotEventCoalescer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotEventCoalescer.class);
+
+    private final DataRowStore store;
+    private final long window;
+    private final int maxIds;
+    private final ScheduledExecutorService timer;
+
+    // serializes posting of events, so that they are delivered in order
+    private final Object flushLock;
+
+    // pending changes, guarded by "this"
+    private Object postedBy;
+    private boolean multiplePosters;
+    private Map<ObjectId, DataRow> modifiedDiffs;
+    private Set<ObjectId> deletedIds;
+    private Set<ObjectId> invalidatedIds;
+    private Set<ObjectId> indirectlyModifiedIds;
+    private boolean flushScheduled;
+
+    SnapshotEventCoalescer(DataRowStore store, long window, int maxIds) {
+        this.store = store;
+        this.window = window;
+        this.maxIds = maxIds;
+        this.flushLock = new Object();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cayenne-snapshot-events-" + store.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        reset();
+    }
+
+    void add(
+            Object postedBy,
+            Map<ObjectId, DataRow> diffs,
+            Collection<ObjectId> deletedIds,
+            Collection<ObjectId> invalidatedIds,
+            Collection<ObjectId> indirectlyModifiedIds) {
+
+        boolean flushNow;
+
+        synchronized (this) {
+            mergePoster(postedBy);
+
+            if (diffs != null) {
+                for (Map.Entry<ObjectId, DataRow> entry : diffs.entrySet()) {
+                    mergeDiff(entry.getKey(), entry.getValue());
+                }
+            }
+
+            if (deletedIds != null) {
+                for (ObjectId id : deletedIds) {
+                    // deletion supersedes any other change to the id
+                    modifiedDiffs.remove(id);
+                    this.invalidatedIds.remove(id);
+                    this.indirectlyModifiedIds.remove(id);
+                    this.deletedIds.add(id);
+                }
+            }
+
+            if (invalidatedIds != null) {
+                for (ObjectId id : invalidatedIds) {
+                    if (!this.deletedIds.contains(id)) {
+                        // invalidated objects are refetched, so diffs are not needed
+                        modifiedDiffs.remove(id);
+                        this.invalidatedIds.add(id);
+                    }
+                }
+            }
+
+            if (indirectlyModifiedIds != null) {
+                for (ObjectId id : indirectlyModifiedIds) {
+                    if (!this.deletedIds.contains(id)) {
+                        this.indirectlyModifiedIds.add(id);
+                    }
+                }
+            }
+
+            flushNow = size() >= maxIds;
+
+            if (!flushNow && !flushScheduled && size() > 0) {
+                flushScheduled = true;
+                timer.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    /**
+     * Posts all pending changes as a single event.
+     */
+    void flush() {
+        synchronized (flushLock) {
+
+            Object postedBy;
+            Map<ObjectId, DataRow> diffs;
+            Collection<ObjectId> deleted;
+            Collection<ObjectId> invalidated;
+            Collection<ObjectId> indirectlyModified;
+
+            synchronized (this) {
+                flushScheduled = false;
+
+                if (size() == 0) {
+                    return;
+                }
+
+                postedBy = multiplePosters ? null : this.postedBy;
+                diffs = modifiedDiffs;
+                deleted = deletedIds;
+                invalidated = invalidatedIds;
+                indirectlyModified = indirectlyModifiedIds;
+                reset();
+            }
+
+            try {
+                store.sendUpdateNotification(postedBy, diffs, deleted, invalidated, indirectlyModified);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Error posting coalesced snapshot event", e);
+            }
+        }
+    }
+
+    /**
+     * Posts pending changes and stops the timer thread.
+     */
+    void shutdown() {
+        flush();
+        timer.shutdownNow();
+    }
+
+    private void mergePoster(Object postedBy) {
+        if (size() == 0) {
+            this.postedBy = postedBy;
+            this.multiplePosters = false;
+        } else if (this.postedBy != postedBy) {
+            multiplePosters = true;
+        }
+    }
+
+    private void mergeDiff(ObjectId id, DataRow diff) {
+
+        // invalidated objects are refetched, so diffs are not needed
+        if (invalidatedIds.contains(id)) {
+            return;
+        }
+
+        // a diff after deletion means the object was re-inserted with the same id
+        deletedIds.remove(id);
+
+        DataRow pending = modifiedDiffs.get(id);
+        modifiedDiffs.put(id, pending != null ? pending.applyDiff(diff) : diff);
+    }
+
+    private int size() {
+        return modifiedDiffs.size() + deletedIds.size() + invalidatedIds.size() + indirectlyModifiedIds.size();
+    }
+
+    private void reset() {
+        postedBy = null;
+        multiplePosters = false;
+        modifiedDiffs = new HashMap<>();
+        deletedIds = new HashSet<>();
+        invalidatedIds = new HashSet<>();
+        indirectlyModifiedIds = new HashSet<>();
+    }
+}
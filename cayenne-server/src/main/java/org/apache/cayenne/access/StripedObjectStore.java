@@ -0,0 +1,180 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.PersistenceState;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.query.ObjectIdQuery;
+
+/**
+ * An {@link ObjectStore} intended for contexts shared by many reader threads.
+ * Reads of registered objects don't acquire the ObjectStore monitor, so
+ * processing of events coming from other contexts doesn't block readers.
+ * <p>
+ * Changes to the object graph (object resolution, commit, snapshot event
+ * merging, eviction) are still done under the ObjectStore monitor. Single
+ * updates of the object map done outside of the monitor rely on the map being
+ * thread-safe.
+ * </p>
+ * <p>
+ * The object map passed to this store must be thread-safe, e.g. a
+ * {@link ConcurrentHashMap} or a
+ * {@link org.apache.cayenne.util.ConcurrentWeakValueMap}. This store is best
+ * suited for read-mostly contexts.
+ * </p>
+ * 
+ * @since 4.1
+ */
+public class StripedObjectStore extends ObjectStore {
+
+    public StripedObjectStore(DataRowStore dataRowCache, Map<Object, Persistent> objectMap) {
+        super(dataRowCache, objectMap);
+    }
+
+    @Override
+    Map<Object, ObjectDiff> createChangesMap() {
+        return new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public synchronized void objectsUnregistered(Collection objects) {
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        Collection<ObjectId> ids = new ArrayList<>(objects.size());
+
+        for (Object object1 : objects) {
+            Persistent object = (Persistent) object1;
+
+            ObjectId id = object.getObjectId();
+
+            // remove object but not snapshot
+            objectMap.remove(id);
+            changes.remove(id);
+
+            ids.add(id);
+
+            object.setObjectContext(null);
+            object.setPersistenceState(PersistenceState.TRANSIENT);
+        }
+
+        if (getDataRowCache() != null) {
+            // send an event for removed snapshots
+            getDataRowCache().processSnapshotChanges(
+                    this,
+                    Collections.<ObjectId, DataRow>emptyMap(),
+                    Collections.<ObjectId>emptyList(),
+                    ids,
+                    Collections.<ObjectId>emptyList());
+        }
+    }
+
+    @Override
+    public synchronized int objectsEvicted(Collection<? extends Persistent> objects) {
+        int evicted = 0;
+
+        for (Persistent object : objects) {
+            ObjectId id = object.getObjectId();
+
+            if (!isEvictable(object)) {
+                continue;
+            }
+
+            objectMap.remove(id);
+            changes.remove(id);
+
+            objectEvicted(object);
+            evicted++;
+        }
+
+        return evicted;
+    }
+
+    @Override
+    public DataRow getSnapshot(ObjectId oid) {
+
+        if (context != null && context.getChannel() != null) {
+            ObjectIdQuery query = new ObjectIdQuery(oid, true, ObjectIdQuery.CACHE);
+            List<?> results = context.getChannel().onQuery(context, query).firstList();
+            return results.isEmpty() ? null : (DataRow) results.get(0);
+        }
+        else {
+            return null;
+        }
+    }
+
+    @Override
+    public Iterator<Persistent> getObjectIterator() {
+        return objectMap.values().iterator();
+    }
+
+    @Override
+    public boolean hasChanges() {
+        return !changes.isEmpty();
+    }
+
+    @Override
+    public List<Persistent> objectsInState(int state) {
+        List<Persistent> filteredObjects = new ArrayList<>();
+
+        for (Persistent object : objectMap.values()) {
+            if (object.getPersistenceState() == state) {
+                filteredObjects.add(object);
+            }
+        }
+
+        return filteredObjects;
+    }
+
+    @Override
+    public Object getNode(Object nodeId) {
+        return objectMap.get(nodeId);
+    }
+
+    @Override
+    public Collection<Object> registeredNodes() {
+        return new ArrayList<Object>(objectMap.values());
+    }
+
+    @Override
+    public void registerNode(Object nodeId, Object nodeObject) {
+        objectMap.put(nodeId, (Persistent) nodeObject);
+    }
+
+    @Override
+    public Object unregisterNode(Object nodeId) {
+        Object object = getNode(nodeId);
+        if (object != null) {
+            objectsUnregistered(Collections.singleton(object));
+        }
+
+        return object;
+    }
+}
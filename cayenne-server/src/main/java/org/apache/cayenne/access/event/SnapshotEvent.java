@@ -21,18 +21,23 @@ package org.apache.cayenne.access.event;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EventObject;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.cayenne.DataRow;
 import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.event.CayenneEvent;
+import org.apache.cayenne.event.CoalescibleEvent;
 
 /**
  * Event sent on modification of the DataRowStore.
  * 
  * @since 1.1
  */
-public class SnapshotEvent extends CayenneEvent {
+public class SnapshotEvent extends CayenneEvent implements CoalescibleEvent {
 
     protected long timestamp;
     protected Collection<ObjectId> deletedIds;
@@ -75,6 +80,62 @@ public class SnapshotEvent extends CayenneEvent {
                 : Collections.<ObjectId>emptyList();
     }
 
+    /**
+     * Returns an event combining the changes of the earlier event with the changes of this one. Deletion supersedes
+     * earlier changes of an id, invalidation supersedes earlier diffs, and a diff of an id deleted earlier means the
+     * object was re-inserted.
+     *
+     * @since 4.1
+     */
+    @Override
+    public EventObject coalesce(EventObject earlier) {
+        SnapshotEvent e = (SnapshotEvent) earlier;
+
+        Map<ObjectId, DataRow> diffs = new HashMap<>(e.getModifiedDiffs());
+        Set<ObjectId> deleted = new HashSet<>(e.getDeletedIds());
+        Set<ObjectId> invalidated = new HashSet<>(e.getInvalidatedIds());
+        Set<ObjectId> indirectlyModified = new HashSet<>(e.getIndirectlyModifiedIds());
+
+        for (Map.Entry<ObjectId, DataRow> entry : getModifiedDiffs().entrySet()) {
+            ObjectId id = entry.getKey();
+
+            // invalidated objects are refetched, so diffs are not needed
+            if (invalidated.contains(id)) {
+                continue;
+            }
+
+            deleted.remove(id);
+            DataRow pending = diffs.get(id);
+            diffs.put(id, pending != null ? pending.applyDiff(entry.getValue()) : entry.getValue());
+        }
+
+        for (ObjectId id : getDeletedIds()) {
+            diffs.remove(id);
+            invalidated.remove(id);
+            indirectlyModified.remove(id);
+            deleted.add(id);
+        }
+
+        for (ObjectId id : getInvalidatedIds()) {
+            if (!deleted.contains(id)) {
+                diffs.remove(id);
+                invalidated.add(id);
+            }
+        }
+
+        for (ObjectId id : getIndirectlyModifiedIds()) {
+            if (!deleted.contains(id)) {
+                indirectlyModified.add(id);
+            }
+        }
+
+        Object postedBy = e.getPostedBy() == getPostedBy() ? getPostedBy() : null;
+        SnapshotEvent merged = new SnapshotEvent(getSource(), postedBy, diffs, deleted, invalidated,
+                indirectlyModified);
+        merged.setSubject(getSubject());
+        return merged;
+    }
+
     @Override
     public String toString() {
         StringBuilder buffer = new StringBuilder();
@@ -20,6 +20,7 @@
 package org.apache.cayenne.access.jdbc;
 
 import org.apache.cayenne.CayenneException;
+import org.apache.cayenne.CollectionResultIterator;
 import org.apache.cayenne.ResultIterator;
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.OperationObserver;
@@ -27,6 +28,7 @@ import org.apache.cayenne.access.OptimisticLockException;
 import org.apache.cayenne.access.jdbc.reader.RowReader;
 import org.apache.cayenne.access.translator.DbAttributeBinding;
 import org.apache.cayenne.access.translator.batch.BatchTranslator;
+import org.apache.cayenne.access.translator.batch.MultiRowBatchTranslator;
 import org.apache.cayenne.dba.DbAdapter;
 import org.apache.cayenne.dba.TypesMapping;
 import org.apache.cayenne.log.JdbcEventLogger;
@@ -39,12 +41,21 @@ import org.apache.cayenne.query.InsertBatchQuery;
 import java.sql.*;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * @since 1.2
  */
 public class BatchAction extends BaseSQLAction {
 
+	/**
+	 * A maximum number of parameters of a multi-row statement. SQLite has the
+	 * lowest limit among the databases that support multi-row inserts.
+	 * 
+	 * @since 4.1
+	 */
+	protected static final int MAX_MULTI_ROW_PARAMETERS = 999;
+
 	protected boolean runningAsBatch;
 	protected BatchQuery query;
 	protected RowDescriptor keyRowDescriptor;
@@ -80,9 +91,14 @@ public class BatchAction extends BaseSQLAction {
 
 		BatchTranslator translator = createTranslator();
 		boolean generatesKeys = hasGeneratedKeys();
+		int rowsPerStatement = generatesKeys ? 1 : rowsPerStatement(translator);
 
-		if (runningAsBatch && !generatesKeys) {
+		if (rowsPerStatement > 1) {
+			runAsMultiRowStatements(connection, (MultiRowBatchTranslator) translator, observer, rowsPerStatement);
+		} else if (runningAsBatch && !generatesKeys) {
 			runAsBatch(connection, translator, observer);
+		} else if (runningAsBatch && dataNode.getAdapter().supportsGeneratedKeysForBatchInserts()) {
+			runAsBatchWithGeneratedKeys(connection, translator, observer);
 		} else {
 			runAsIndividualQueries(connection, translator, observer, generatesKeys);
 		}
@@ -139,6 +155,123 @@ public class BatchAction extends BaseSQLAction {
 		}
 	}
 
+	/**
+	 * Executes batch as a single JDBC batch, reading generated keys for all
+	 * rows after the batch is executed. Must only be used with adapters that
+	 * return {@code true} from
+	 * {@link DbAdapter#supportsGeneratedKeysForBatchInserts()}.
+	 *
+	 * @since 4.1
+	 */
+	protected void runAsBatchWithGeneratedKeys(Connection con, BatchTranslator translator,
+			OperationObserver delegate) throws SQLException, Exception {
+
+		String sql = translator.getSql();
+		JdbcEventLogger logger = dataNode.getJdbcEventLogger();
+
+		// log batch SQL execution
+		logger.log(sql);
+
+		DbAdapter adapter = dataNode.getAdapter();
+		List<BatchQueryRow> rows = query.getRows();
+
+		try (PreparedStatement statement = prepareStatement(con, sql, adapter, true)) {
+			for (BatchQueryRow row : rows) {
+
+				DbAttributeBinding[] bindings = translator.updateBindings(row);
+				logger.logQueryParameters("batch bind", bindings);
+				bind(adapter, statement, bindings);
+
+				statement.addBatch();
+			}
+
+			int[] results = statement.executeBatch();
+			delegate.nextBatchCount(query, results);
+			logger.logUpdateCount(rows.size());
+
+			processGeneratedKeys(statement, delegate, rows);
+		}
+	}
+
+	/**
+	 * Executes batch as a series of multi-row statements, each processing up
+	 * to a given number of rows.
+	 * 
+	 * @since 4.1
+	 */
+	protected void runAsMultiRowStatements(Connection con, MultiRowBatchTranslator translator,
+			OperationObserver delegate, int rowsPerStatement) throws SQLException, Exception {
+
+		JdbcEventLogger logger = dataNode.getJdbcEventLogger();
+		List<BatchQueryRow> rows = query.getRows();
+		int size = rows.size();
+		int remainder = size % rowsPerStatement;
+
+		// all full statements share the same SQL and can reuse one PreparedStatement
+		if (size >= rowsPerStatement) {
+			String sql = translator.getSql(rowsPerStatement);
+			logger.log(sql);
+
+			try (PreparedStatement statement = con.prepareStatement(sql)) {
+				for (int from = 0; from + rowsPerStatement <= size; from += rowsPerStatement) {
+					executeMultiRowStatement(statement, translator, delegate, rows.subList(from, from + rowsPerStatement));
+				}
+			}
+		}
+
+		if (remainder > 0) {
+			String sql = translator.getSql(remainder);
+			logger.log(sql);
+
+			try (PreparedStatement statement = con.prepareStatement(sql)) {
+				executeMultiRowStatement(statement, translator, delegate, rows.subList(size - remainder, size));
+			}
+		}
+	}
+
+	private void executeMultiRowStatement(PreparedStatement statement, MultiRowBatchTranslator translator,
+			OperationObserver delegate, List<BatchQueryRow> rows) throws SQLException, Exception {
+
+		JdbcEventLogger logger = dataNode.getJdbcEventLogger();
+		DbAdapter adapter = dataNode.getAdapter();
+
+		for (int i = 0; i < rows.size(); i++) {
+			DbAttributeBinding[] bindings = translator.updateBindings(rows.get(i), i);
+			logger.logQueryParameters("bind", bindings);
+			bind(adapter, statement, bindings);
+		}
+
+		int updated = statement.executeUpdate();
+		delegate.nextCount(query, updated);
+		logger.logUpdateCount(updated);
+	}
+
+	/**
+	 * Returns a number of batch rows to process with a single multi-row
+	 * statement, or 1 if multi-row statements can't be used for this batch.
+	 * 
+	 * @since 4.1
+	 */
+	protected int rowsPerStatement(BatchTranslator translator) {
+		if (!(translator instanceof MultiRowBatchTranslator) || !dataNode.getAdapter().supportsMultiRowInsert()) {
+			return 1;
+		}
+
+		int columns = 0;
+		for (DbAttributeBinding b : translator.getBindings()) {
+			if (!b.isExcluded()) {
+				columns++;
+			}
+		}
+
+		if (columns == 0) {
+			return 1;
+		}
+
+		int rows = Math.min(dataNode.getMultiRowBatchSize(), query.getRows().size());
+		return Math.min(rows, MAX_MULTI_ROW_PARAMETERS / columns);
+	}
+
 	/**
 	 * Executes batch as individual queries over the same prepared statement.
 	 */
@@ -222,6 +355,38 @@ public class BatchAction extends BaseSQLAction {
 			throws SQLException, CayenneException {
 
 		ResultSet keysRS = statement.getGeneratedKeys();
+		ResultIterator iterator = new JDBCResultIterator(null, keysRS, createKeyRowReader(keysRS));
+		observer.nextGeneratedRows(query, iterator, row.getObjectId());
+	}
+
+	/**
+	 * Reads generated keys of a statement executed as a JDBC batch, matching
+	 * key rows to batch rows by position.
+	 * 
+	 * @since 4.1
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	protected void processGeneratedKeys(Statement statement, OperationObserver observer, List<BatchQueryRow> rows)
+			throws SQLException, CayenneException {
+
+		ResultSet keysRS = statement.getGeneratedKeys();
+
+		List keys;
+		try (ResultIterator iterator = new JDBCResultIterator(null, keysRS, createKeyRowReader(keysRS))) {
+			keys = iterator.allRows();
+		}
+
+		if (keys.size() != rows.size()) {
+			throw new CayenneException("Expected %d generated key rows, instead got %d", rows.size(), keys.size());
+		}
+
+		for (int i = 0; i < keys.size(); i++) {
+			ResultIterator rowKeys = new CollectionResultIterator<>(Collections.singletonList(keys.get(i)));
+			observer.nextGeneratedRows(query, rowKeys, rows.get(i).getObjectId());
+		}
+	}
+
+	private RowReader<?> createKeyRowReader(ResultSet keysRS) throws SQLException {
 
 		// TODO: andrus, 7/4/2007 - (1) get the type of meaningful PK's from
 		// their
@@ -256,10 +421,8 @@ public class BatchAction extends BaseSQLAction {
 			this.keyRowDescriptor = builder.getDescriptor(dataNode.getAdapter().getExtendedTypes());
 		}
 
-		RowReader<?> rowReader = dataNode.rowReader(keyRowDescriptor, query.getMetaData(dataNode.getEntityResolver()),
+		return dataNode.rowReader(keyRowDescriptor, query.getMetaData(dataNode.getEntityResolver()),
 				Collections.<ObjAttribute, ColumnDescriptor> emptyMap());
-		ResultIterator iterator = new JDBCResultIterator(null, keysRS, rowReader);
-
-		observer.nextGeneratedRows(query, iterator, row.getObjectId());
 	}
+
 }
@@ -0,0 +1,77 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.jdbc;
+
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.OperationObserver;
+import org.apache.cayenne.access.translator.DbAttributeBinding;
+import org.apache.cayenne.access.translator.bulk.BulkTranslator;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.log.JdbcEventLogger;
+import org.apache.cayenne.query.ObjectBulkQuery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+/**
+ * Executes an {@link org.apache.cayenne.query.ObjectUpdate} or
+ * {@link org.apache.cayenne.query.ObjectDelete} query as a single statement.
+ *
+ * @since 4.1
+ */
+public class BulkAction extends BaseSQLAction {
+
+	protected ObjectBulkQuery<?, ?> query;
+
+	public BulkAction(ObjectBulkQuery<?, ?> query, DataNode dataNode) {
+		super(dataNode);
+		this.query = query;
+	}
+
+	/**
+	 * @return Query which originated this action
+	 */
+	public ObjectBulkQuery<?, ?> getQuery() {
+		return query;
+	}
+
+	@Override
+	public void performAction(Connection connection, OperationObserver observer) throws Exception {
+
+		BulkTranslator translator = new BulkTranslator(query, dataNode.getAdapter(), dataNode.getEntityResolver());
+
+		String sql = translator.getSql();
+		DbAttributeBinding[] bindings = translator.getBindings();
+
+		JdbcEventLogger logger = dataNode.getJdbcEventLogger();
+		logger.logQuery(sql, bindings);
+
+		DbAdapter adapter = dataNode.getAdapter();
+
+		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+			for (DbAttributeBinding binding : bindings) {
+				adapter.bindParameter(statement, binding);
+			}
+
+			int updated = statement.executeUpdate();
+			logger.logUpdateCount(updated);
+			observer.nextCount(query, updated);
+		}
+	}
+}
@@ -62,6 +62,23 @@ public class ColumnDescriptor {
     public ColumnDescriptor() {
     }
 
+    /**
+     * Creates a copy of another ColumnDescriptor.
+     * 
+     * @since 4.1
+     */
+    public ColumnDescriptor(ColumnDescriptor descriptor) {
+        this.attribute = descriptor.attribute;
+        this.tableName = descriptor.tableName;
+        this.procedureName = descriptor.procedureName;
+        this.name = descriptor.name;
+        this.namePrefix = descriptor.namePrefix;
+        this.dataRowKey = descriptor.dataRowKey;
+        this.jdbcType = descriptor.jdbcType;
+        this.javaClass = descriptor.javaClass;
+        this.isExpression = descriptor.isExpression;
+    }
+
     /**
      * Creates a column descriptor with user-specified parameters.
      * 
@@ -21,6 +21,7 @@ package org.apache.cayenne.access.jdbc.reader;
 import java.sql.ResultSet;
 
 import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.CompactDataRow;
 import org.apache.cayenne.DataRow;
 import org.apache.cayenne.access.jdbc.RowDescriptor;
 import org.apache.cayenne.query.QueryMetadata;
@@ -31,17 +32,21 @@ import org.apache.cayenne.util.Util;
  */
 class FullRowReader extends BaseRowReader<DataRow> {
 
-    int mapCapacity;
+    CompactDataRow.Layout layout;
+
+    // position of each result column in the row layout
+    int[] positions;
 
     FullRowReader(RowDescriptor descriptor, QueryMetadata queryMetadata, DataRowPostProcessor postProcessor) {
         super(descriptor, queryMetadata, postProcessor);
-        this.mapCapacity = (int) Math.ceil((descriptor.getWidth()) / 0.75);
+        this.layout = CompactDataRow.Layout.forKeys(labels);
+        this.positions = layout.indexesOf(labels);
     }
 
     @Override
     public DataRow readRow(ResultSet resultSet) {
         try {
-            DataRow dataRow = new DataRow(mapCapacity);
+            Object[] values = new Object[layout.size()];
 
             int resultWidth = labels.length;
 
@@ -49,10 +54,11 @@ class FullRowReader extends BaseRowReader<DataRow> {
             for (int i = 0; i < resultWidth; i++) {
                 // note: jdbc column indexes start from 1, not 0 unlike
                 // everywhere else
-                Object val = converters[i].materializeObject(resultSet, i + 1, types[i]);
-                dataRow.put(labels[i], val);
+                values[positions[i]] = converters[i].materializeObject(resultSet, i + 1, types[i]);
             }
 
+            DataRow dataRow = new CompactDataRow(layout, values);
+
             postprocessRow(resultSet, dataRow);
 
             return dataRow;
@@ -24,6 +24,7 @@ import org.apache.cayenne.query.BatchQuery;
 import org.apache.cayenne.query.DeleteBatchQuery;
 import org.apache.cayenne.query.InsertBatchQuery;
 import org.apache.cayenne.query.UpdateBatchQuery;
+import org.apache.cayenne.query.UpsertBatchQuery;
 
 /**
  * Default implementation of {@link BatchTranslatorFactory}.
@@ -40,6 +41,8 @@ public class DefaultBatchTranslatorFactory implements BatchTranslatorFactory {
             return updateTranslator((UpdateBatchQuery) query, adapter, trimFunction);
         } else if (query instanceof DeleteBatchQuery) {
             return deleteTranslator((DeleteBatchQuery) query, adapter, trimFunction);
+        } else if (query instanceof UpsertBatchQuery) {
+            return upsertTranslator((UpsertBatchQuery) query, adapter);
         } else {
             throw new CayenneRuntimeException("Unsupported batch query: %s", query);
         }
@@ -53,6 +56,13 @@ public class DefaultBatchTranslatorFactory implements BatchTranslatorFactory {
         return new InsertBatchTranslator(query, adapter);
     }
 
+    /**
+     * @since 4.1
+     */
+    protected BatchTranslator upsertTranslator(UpsertBatchQuery query, DbAdapter adapter) {
+        return adapter.getUpsertTranslator(query);
+    }
+
     protected BatchTranslator updateTranslator(UpdateBatchQuery query, DbAdapter adapter, String trimFunction) {
         return new UpdateBatchTranslator(query, adapter, trimFunction);
     }
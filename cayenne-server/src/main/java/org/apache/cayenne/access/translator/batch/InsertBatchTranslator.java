@@ -32,7 +32,7 @@ import org.apache.cayenne.query.InsertBatchQuery;
 /**
  * Translator of InsertBatchQueries.
  */
-public class InsertBatchTranslator extends DefaultBatchTranslator {
+public class InsertBatchTranslator extends DefaultBatchTranslator implements MultiRowBatchTranslator {
 
     public InsertBatchTranslator(InsertBatchQuery query, DbAdapter adapter) {
         // no trimming is needed here, so passing hardcoded NULL for trim
@@ -42,6 +42,24 @@ public class InsertBatchTranslator extends DefaultBatchTranslator {
 
     @Override
     protected String createSql() {
+        return createSql(1);
+    }
+
+    /**
+     * @since 4.1
+     */
+    @Override
+    public String getSql(int rowCount) {
+        return rowCount == 1 ? getSql() : createSql(rowCount);
+    }
+
+    /**
+     * Creates an INSERT statement with a given number of rows in the VALUES
+     * clause.
+     * 
+     * @since 4.1
+     */
+    protected String createSql(int rowCount) {
 
         List<DbAttribute> dbAttributes = query.getDbAttributes();
         QuotingStrategy strategy = adapter.getQuotingStrategy();
@@ -69,16 +87,24 @@ public class InsertBatchTranslator extends DefaultBatchTranslator {
             }
         }
 
-        buffer.append(") VALUES (");
+        buffer.append(") VALUES ");
 
-        for (int i = 0; i < columnCount; i++) {
-            if (i > 0) {
+        for (int r = 0; r < rowCount; r++) {
+            if (r > 0) {
                 buffer.append(", ");
             }
 
-            buffer.append('?');
+            buffer.append('(');
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+
+                buffer.append('?');
+            }
+            buffer.append(')');
         }
-        buffer.append(')');
+
         return buffer.toString();
     }
 
@@ -110,9 +136,34 @@ public class InsertBatchTranslator extends DefaultBatchTranslator {
 
     @Override
     protected DbAttributeBinding[] doUpdateBindings(BatchQueryRow row) {
+        return doUpdateBindings(row, 0);
+    }
+
+    /**
+     * @since 4.1
+     */
+    @Override
+    public DbAttributeBinding[] updateBindings(BatchQueryRow row, int rowIndex) {
+        ensureTranslated();
+        return doUpdateBindings(row, rowIndex);
+    }
+
+    /**
+     * @since 4.1
+     */
+    protected DbAttributeBinding[] doUpdateBindings(BatchQueryRow row, int rowIndex) {
         int len = bindings.length;
+        int columnCount = 0;
+
+        if (rowIndex > 0) {
+            for (DbAttributeBinding b : bindings) {
+                if (!b.isExcluded()) {
+                    columnCount++;
+                }
+            }
+        }
 
-        for (int i = 0, j = 1; i < len; i++) {
+        for (int i = 0, j = rowIndex * columnCount + 1; i < len; i++) {
 
             DbAttributeBinding b = bindings[i];
 
@@ -0,0 +1,46 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.translator.batch;
+
+import org.apache.cayenne.access.translator.DbAttributeBinding;
+import org.apache.cayenne.query.BatchQueryRow;
+
+/**
+ * A batch translator that can also generate statements that process multiple
+ * batch rows at once, with a "VALUES (...), (...), ..." list of row values.
+ * 
+ * @since 4.1
+ */
+public interface MultiRowBatchTranslator extends BatchTranslator {
+
+    /**
+     * Returns SQL String of a statement that processes a given number of rows.
+     * For a single row the result is the same as for {@link #getSql()}.
+     */
+    String getSql(int rowCount);
+
+    /**
+     * Updates internal bindings to be used with a given row placed at a given
+     * position in a multi-row statement, i.e. with statement parameter
+     * positions shifted by the number of parameters of all preceding rows.
+     * The returned array follows the same rules as the one returned from
+     * {@link #updateBindings(BatchQueryRow)}.
+     */
+    DbAttributeBinding[] updateBindings(BatchQueryRow row, int rowIndex);
+}
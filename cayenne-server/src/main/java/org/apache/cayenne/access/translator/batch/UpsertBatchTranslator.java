@@ -0,0 +1,281 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.translator.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cayenne.access.translator.DbAttributeBinding;
+import org.apache.cayenne.access.types.ExtendedType;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.dba.QuotingStrategy;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.query.BatchQueryRow;
+import org.apache.cayenne.query.UpsertBatchQuery;
+
+/**
+ * Translator of UpsertBatchQueries. Generates a standard SQL MERGE statement
+ * that takes row values from a "VALUES" table constructor. Adapters of the
+ * databases that use a different syntax provide their own subclasses via
+ * {@link DbAdapter#getUpsertTranslator(UpsertBatchQuery)}.
+ * 
+ * @since 4.1
+ */
+public class UpsertBatchTranslator extends DefaultBatchTranslator implements MultiRowBatchTranslator {
+
+    protected static final String TARGET_ALIAS = "tgt";
+    protected static final String SOURCE_ALIAS = "src";
+
+    private List<DbAttribute> columns;
+
+    public UpsertBatchTranslator(UpsertBatchQuery query, DbAdapter adapter) {
+        super(query, adapter, null);
+    }
+
+    @Override
+    protected String createSql() {
+        return createSql(1);
+    }
+
+    @Override
+    public String getSql(int rowCount) {
+        return rowCount == 1 ? getSql() : createSql(rowCount);
+    }
+
+    /**
+     * Creates a statement with a given number of rows in the source of the
+     * upsert.
+     */
+    protected String createSql(int rowCount) {
+
+        QuotingStrategy strategy = adapter.getQuotingStrategy();
+
+        StringBuilder buffer = new StringBuilder("MERGE INTO ");
+        buffer.append(strategy.quotedFullyQualifiedName(query.getDbEntity()));
+        buffer.append(' ').append(TARGET_ALIAS).append(" USING ");
+        appendSource(buffer, rowCount);
+        buffer.append(" ON (");
+        appendKeyMatch(buffer);
+        buffer.append(')');
+
+        List<DbAttribute> updated = getUpdatedColumns();
+        if (!updated.isEmpty()) {
+            buffer.append(" WHEN MATCHED THEN UPDATE SET ");
+            for (int i = 0; i < updated.size(); i++) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+
+                String column = strategy.quotedName(updated.get(i));
+                buffer.append(column).append(" = ").append(SOURCE_ALIAS).append('.').append(column);
+            }
+        }
+
+        buffer.append(" WHEN NOT MATCHED THEN INSERT ");
+        appendColumns(buffer);
+        buffer.append(" VALUES (");
+
+        List<DbAttribute> columns = getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+
+            buffer.append(SOURCE_ALIAS).append('.').append(strategy.quotedName(columns.get(i)));
+        }
+
+        buffer.append(')');
+        return buffer.toString();
+    }
+
+    /**
+     * Appends a source of the MERGE statement that holds parameters of the
+     * batch rows, aliased as {@link #SOURCE_ALIAS}.
+     */
+    protected void appendSource(StringBuilder buffer, int rowCount) {
+        buffer.append('(');
+        appendValues(buffer, rowCount);
+        buffer.append(") AS ").append(SOURCE_ALIAS).append(' ');
+        appendColumns(buffer);
+    }
+
+    /**
+     * Appends a condition that matches target rows to source rows by the key
+     * attributes.
+     */
+    protected void appendKeyMatch(StringBuilder buffer) {
+        QuotingStrategy strategy = adapter.getQuotingStrategy();
+
+        boolean first = true;
+        for (DbAttribute key : getUpsertQuery().getKeyAttributes()) {
+            if (!first) {
+                buffer.append(" AND ");
+            }
+
+            String column = strategy.quotedName(key);
+            buffer.append(TARGET_ALIAS).append('.').append(column).append(" = ").append(SOURCE_ALIAS).append('.')
+                    .append(column);
+            first = false;
+        }
+    }
+
+    /**
+     * Appends a parenthesized list of the names of the columns included in the
+     * batch.
+     */
+    protected void appendColumns(StringBuilder buffer) {
+        QuotingStrategy strategy = adapter.getQuotingStrategy();
+        List<DbAttribute> columns = getColumns();
+
+        buffer.append('(');
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+
+            buffer.append(strategy.quotedName(columns.get(i)));
+        }
+        buffer.append(')');
+    }
+
+    /**
+     * Appends a "VALUES" clause with parameter placeholders for a given number
+     * of rows.
+     */
+    protected void appendValues(StringBuilder buffer, int rowCount) {
+        int columnCount = getColumns().size();
+
+        buffer.append("VALUES ");
+        for (int r = 0; r < rowCount; r++) {
+            if (r > 0) {
+                buffer.append(", ");
+            }
+
+            buffer.append('(');
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+
+                buffer.append('?');
+            }
+            buffer.append(')');
+        }
+    }
+
+    /**
+     * Returns attributes included in the batch, in the order of statement
+     * parameters of each row.
+     */
+    protected List<DbAttribute> getColumns() {
+        if (columns == null) {
+            List<DbAttribute> columns = new ArrayList<>();
+            for (DbAttribute attribute : query.getDbAttributes()) {
+                if (includeInBatch(attribute)) {
+                    columns.add(attribute);
+                }
+            }
+
+            this.columns = columns;
+        }
+
+        return columns;
+    }
+
+    /**
+     * Returns attributes that are updated when a matching row exists, i.e.
+     * all included attributes except the keys.
+     */
+    protected List<DbAttribute> getUpdatedColumns() {
+        List<DbAttribute> updated = new ArrayList<>();
+        for (DbAttribute attribute : getColumns()) {
+            if (!getUpsertQuery().isKeyAttribute(attribute)) {
+                updated.add(attribute);
+            }
+        }
+
+        return updated;
+    }
+
+    /**
+     * Returns true if an attribute should be included in the batch. Generated
+     * columns are skipped, unless they are a part of the key.
+     */
+    protected boolean includeInBatch(DbAttribute attribute) {
+        return !attribute.isGenerated() || getUpsertQuery().isKeyAttribute(attribute);
+    }
+
+    protected UpsertBatchQuery getUpsertQuery() {
+        return (UpsertBatchQuery) query;
+    }
+
+    @Override
+    protected DbAttributeBinding[] createBindings() {
+        List<DbAttribute> attributes = query.getDbAttributes();
+        int len = attributes.size();
+
+        DbAttributeBinding[] bindings = new DbAttributeBinding[len];
+
+        for (int i = 0; i < len; i++) {
+            DbAttribute a = attributes.get(i);
+
+            bindings[i] = new DbAttributeBinding(a);
+
+            if (includeInBatch(a)) {
+                bindings[i].include(1, null, null);
+            } else {
+                bindings[i].exclude();
+            }
+        }
+
+        return bindings;
+    }
+
+    @Override
+    protected DbAttributeBinding[] doUpdateBindings(BatchQueryRow row) {
+        return doUpdateBindings(row, 0);
+    }
+
+    @Override
+    public DbAttributeBinding[] updateBindings(BatchQueryRow row, int rowIndex) {
+        ensureTranslated();
+        return doUpdateBindings(row, rowIndex);
+    }
+
+    protected DbAttributeBinding[] doUpdateBindings(BatchQueryRow row, int rowIndex) {
+        int len = bindings.length;
+
+        for (int i = 0, j = rowIndex * getColumns().size() + 1; i < len; i++) {
+
+            DbAttributeBinding b = bindings[i];
+
+            // exclusions are permanent
+            if (!b.isExcluded()) {
+                Object value = row.getValue(i);
+                ExtendedType extendedType = value != null
+                        ? adapter.getExtendedTypes().getRegisteredType(value.getClass())
+                        : adapter.getExtendedTypes().getDefaultType();
+
+                b.include(j++, value, extendedType);
+            }
+        }
+
+        return bindings;
+    }
+}
@@ -0,0 +1,137 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.translator.bulk;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.access.translator.select.QualifierTranslator;
+import org.apache.cayenne.access.translator.select.QueryAssembler;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.dba.QuotingStrategy;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.parser.ASTDbPath;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.map.DbRelationship;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.JoinType;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.ObjectBulkQuery;
+import org.apache.cayenne.query.ObjectUpdate;
+
+import java.util.Map;
+
+/**
+ * Translates {@link org.apache.cayenne.query.ObjectUpdate} and
+ * {@link org.apache.cayenne.query.ObjectDelete} queries to a single UPDATE or
+ * DELETE statement. The WHERE clause is produced by the adapter
+ * {@link QualifierTranslator}. As the statements are generated without table
+ * aliases and joins, qualifiers that traverse relationships are rejected.
+ *
+ * @since 4.1
+ */
+public class BulkTranslator extends QueryAssembler {
+
+	public BulkTranslator(ObjectBulkQuery<?, ?> query, DbAdapter adapter, EntityResolver entityResolver) {
+		super(query, adapter, entityResolver);
+	}
+
+	@Override
+	protected void doTranslate() {
+
+		DbEntity dbEntity = queryMetadata.getDbEntity();
+		QuotingStrategy strategy = adapter.getQuotingStrategy();
+
+		StringBuilder buffer = new StringBuilder();
+
+		if (query instanceof ObjectUpdate) {
+			Map<String, Object> values = ((ObjectUpdate<?>) query).getValues();
+			if (values.isEmpty()) {
+				throw new CayenneRuntimeException("No values to update in %s", query);
+			}
+
+			buffer.append("UPDATE ").append(strategy.quotedFullyQualifiedName(dbEntity)).append(" SET ");
+
+			boolean first = true;
+			for (Map.Entry<String, Object> entry : values.entrySet()) {
+				DbAttribute attribute = resolveAttribute(entry.getKey());
+
+				if (first) {
+					first = false;
+				} else {
+					buffer.append(", ");
+				}
+
+				buffer.append(strategy.quotedName(attribute)).append(" = ?");
+				addToParamList(attribute, entry.getValue());
+			}
+		} else {
+			buffer.append("DELETE FROM ").append(strategy.quotedFullyQualifiedName(dbEntity));
+		}
+
+		QualifierTranslator qualifierTranslator = adapter.getQualifierTranslator(this);
+		StringBuilder where = qualifierTranslator.appendPart(new StringBuilder());
+		if (where.length() > 0) {
+			buffer.append(" WHERE ").append(where);
+		}
+
+		this.sql = buffer.toString();
+	}
+
+	DbAttribute resolveAttribute(String name) {
+
+		DbAttribute attribute;
+		if (name.startsWith(ASTDbPath.DB_PREFIX)) {
+			attribute = queryMetadata.getDbEntity().getAttribute(name.substring(ASTDbPath.DB_PREFIX.length()));
+		} else {
+			ObjEntity entity = queryMetadata.getObjEntity();
+			ObjAttribute objAttribute = entity.getAttribute(name);
+			attribute = objAttribute != null && !objAttribute.isFlattened() ? objAttribute.getDbAttribute() : null;
+		}
+
+		if (attribute == null) {
+			throw new CayenneRuntimeException("Can't update '%s', it is not an attribute of entity '%s'", name,
+					queryMetadata.getObjEntity().getName());
+		}
+
+		return attribute;
+	}
+
+	@Override
+	public void resetJoinStack() {
+		// noop, no joins
+	}
+
+	@Override
+	public String getCurrentAlias() {
+		return null;
+	}
+
+	@Override
+	public void dbRelationshipAdded(DbRelationship relationship, JoinType joinType, String joinSplitAlias) {
+		throw new CayenneRuntimeException(
+				"Qualifier of %s can't traverse relationship '%s', as UPDATE and DELETE statements have no joins",
+				query, relationship.getName());
+	}
+
+	@Override
+	public String getAliasForExpression(Expression exp) {
+		return null;
+	}
+}
@@ -0,0 +1,172 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.translator.select;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cayenne.access.jdbc.ColumnDescriptor;
+import org.apache.cayenne.access.translator.DbAttributeBinding;
+import org.apache.cayenne.access.types.ExtendedTypeMap;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.ObjAttribute;
+
+/**
+ * A {@link SelectTranslator} that reuses the results of a previous
+ * translation of a query with the same {@link QueryShape}, binding a new set
+ * of parameter values.
+ * 
+ * @since 4.1
+ */
+class CachedSelectTranslator implements SelectTranslator {
+
+	private Template template;
+	private DbAttributeBinding[] bindings;
+
+	CachedSelectTranslator(Template template, DbAttributeBinding[] bindings) {
+		this.template = template;
+		this.bindings = bindings;
+	}
+
+	@Override
+	public String getSql() {
+		return template.sql;
+	}
+
+	@Override
+	public DbAttributeBinding[] getBindings() {
+		return bindings;
+	}
+
+	@Override
+	public Map<ObjAttribute, ColumnDescriptor> getAttributeOverrides() {
+		return template.attributeOverrides;
+	}
+
+	@Override
+	public ColumnDescriptor[] getResultColumns() {
+		return copy(template.resultColumns);
+	}
+
+	@Override
+	public boolean isSuppressingDistinct() {
+		return template.suppressingDistinct;
+	}
+
+	@Override
+	public boolean hasJoins() {
+		return template.hasJoins;
+	}
+
+	// descriptors are mutable, so each query gets its own copies
+	static ColumnDescriptor[] copy(ColumnDescriptor[] columns) {
+		if (columns == null) {
+			return null;
+		}
+
+		ColumnDescriptor[] copy = new ColumnDescriptor[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			copy[i] = new ColumnDescriptor(columns[i]);
+		}
+
+		return copy;
+	}
+
+	/**
+	 * Immutable results of a query translation with parameter values
+	 * stripped.
+	 */
+	static class Template {
+
+		private String sql;
+		private DbAttribute[] attributes;
+		private int[] positions;
+		private Map<ObjAttribute, ColumnDescriptor> attributeOverrides;
+		private ColumnDescriptor[] resultColumns;
+		private boolean suppressingDistinct;
+		private boolean hasJoins;
+
+		/**
+		 * Creates a template from a translator that has just translated a
+		 * query with the provided parameter values. Returns null if the
+		 * translator bindings do not correspond one-to-one to the values, as
+		 * in this case the values can't be reliably rebound.
+		 */
+		static Template create(SelectTranslator translator, List<Object> values) throws Exception {
+
+			String sql = translator.getSql();
+			DbAttributeBinding[] bindings = translator.getBindings();
+
+			int len = bindings.length;
+			if (len != values.size()) {
+				return null;
+			}
+
+			DbAttribute[] attributes = new DbAttribute[len];
+			int[] positions = new int[len];
+
+			for (int i = 0; i < len; i++) {
+
+				// the value must come from the query unchanged, and not from
+				// an entity qualifier or some translator transformation
+				if (bindings[i].isExcluded() || bindings[i].getValue() != values.get(i)) {
+					return null;
+				}
+
+				attributes[i] = bindings[i].getAttribute();
+				positions[i] = bindings[i].getStatementPosition();
+			}
+
+			Template template = new Template();
+			template.sql = sql;
+			template.attributes = attributes;
+			template.positions = positions;
+			template.attributeOverrides = translator.getAttributeOverrides();
+			template.resultColumns = copy(translator.getResultColumns());
+			template.suppressingDistinct = translator.isSuppressingDistinct();
+			template.hasJoins = translator.hasJoins();
+			return template;
+		}
+
+		/**
+		 * Returns a translator for the new set of values, or null if the
+		 * values do not match this template.
+		 */
+		SelectTranslator bind(List<Object> values, ExtendedTypeMap types) {
+
+			int len = attributes.length;
+			if (len != values.size()) {
+				return null;
+			}
+
+			DbAttributeBinding[] bindings = new DbAttributeBinding[len];
+			for (int i = 0; i < len; i++) {
+				Object value = values.get(i);
+
+				DbAttributeBinding binding = new DbAttributeBinding(attributes[i]);
+				binding.setStatementPosition(positions[i]);
+				binding.setValue(value);
+				binding.setExtendedType(types.getRegisteredType(value.getClass()));
+				bindings[i] = binding;
+			}
+
+			return new CachedSelectTranslator(this, bindings);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.translator.select;
+
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.util.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+
+/**
+ * A {@link SelectTranslatorFactory} decorator that caches translation results
+ * keyed by a normalized query "shape" (root entity, qualifier structure with
+ * parameter values abstracted out, orderings, prefetches, limit/offset and
+ * DbAdapter). Queries that only differ in parameter values reuse the SQL text
+ * and result metadata of the first translation and only rebind the
+ * parameters. Queries that can't be reliably normalized (e.g. SelectQuery
+ * subclasses, custom expressions or compound ObjectIds used as values) are
+ * passed to the delegate factory on every call.
+ * <p>
+ * Note that the cache assumes the mapping is not changed once the queries are
+ * executed.
+ * 
+ * @since 4.1
+ */
+public class CachingSelectTranslatorFactory implements SelectTranslatorFactory {
+
+	protected SelectTranslatorFactory delegate;
+	protected ConcurrentMap<QueryShape, CachedSelectTranslator.Template> cache;
+
+	public CachingSelectTranslatorFactory(SelectTranslatorFactory delegate, int maxSize) {
+
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Non-positive cache size: " + maxSize);
+		}
+
+		this.delegate = delegate;
+		this.cache = new ConcurrentLinkedHashMap.Builder<QueryShape, CachedSelectTranslator.Template>()
+				.maximumWeightedCapacity(maxSize).build();
+	}
+
+	@Override
+	public SelectTranslator translator(SelectQuery<?> query, DbAdapter adapter, EntityResolver entityResolver) {
+
+		QueryShape shape = QueryShape.of(query, adapter, entityResolver);
+		if (shape == null) {
+			return delegate.translator(query, adapter, entityResolver);
+		}
+
+		CachedSelectTranslator.Template template = cache.get(shape);
+		if (template != null) {
+			SelectTranslator translator = template.bind(shape.getValues(), adapter.getExtendedTypes());
+			if (translator != null) {
+				return translator;
+			}
+		}
+
+		SelectTranslator translator = delegate.translator(query, adapter, entityResolver);
+
+		try {
+			template = CachedSelectTranslator.Template.create(translator, shape.getValues());
+		} catch (Exception e) {
+			// a failed translator may be in an inconsistent state, so let the
+			// caller deal with the failure using a fresh one
+			return delegate.translator(query, adapter, entityResolver);
+		}
+
+		if (template != null) {
+			cache.put(shape, template);
+		}
+
+		return translator;
+	}
+
+	/**
+	 * Returns the number of cached translations.
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Removes all cached translations.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+}
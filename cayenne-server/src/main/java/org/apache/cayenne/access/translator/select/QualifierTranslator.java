@@ -20,14 +20,20 @@
 package org.apache.cayenne.access.translator.select;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.Persistent;
+import org.apache.cayenne.access.types.SQLArrayType;
 import org.apache.cayenne.dba.TypesMapping;
 import org.apache.cayenne.exp.Expression;
 import org.apache.cayenne.exp.TraversalHandler;
@@ -41,6 +47,7 @@ import org.apache.cayenne.map.DbAttribute;
 import org.apache.cayenne.map.DbRelationship;
 import org.apache.cayenne.map.JoinType;
 import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.ObjectBulkQuery;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SelectQuery;
 import org.apache.cayenne.reflect.ClassDescriptor;
@@ -51,6 +58,15 @@ import org.apache.cayenne.reflect.ClassDescriptor;
  */
 public class QualifierTranslator extends QueryAssemblerHelper implements TraversalHandler {
 
+	/**
+	 * IN lists shorter than this produce only a few distinct statements, and
+	 * are always translated as is.
+	 */
+	static final int MIN_OPTIMIZED_IN_LIST_SIZE = 5;
+
+	private static final Set<Class<?>> ARRAY_IN_LIST_TYPES = new HashSet<>(
+			Arrays.asList(Integer.class, Long.class, Short.class, String.class, BigDecimal.class));
+
 	protected DataObjectMatchTranslator objectMatchTranslator;
 	protected boolean matchingObject;
 	protected boolean caseInsensitive;
@@ -70,6 +86,12 @@ public class QualifierTranslator extends QueryAssemblerHelper implements Travers
 	 */
 	protected Expression qualifier;
 
+	/**
+	 * Values of the IN list being translated as a single array parameter, or
+	 * null if the current list is translated as a regular list.
+	 */
+	private Object[] inListArray;
+
 	public QualifierTranslator(QueryAssembler queryAssembler) {
 		super(queryAssembler);
 
@@ -128,7 +150,9 @@ public class QualifierTranslator extends QueryAssemblerHelper implements Travers
 
 		Query q = queryAssembler.getQuery();
 
-		Expression qualifier = ((SelectQuery<?>) q).getQualifier();
+		Expression qualifier = q instanceof ObjectBulkQuery
+				? ((ObjectBulkQuery<?, ?>) q).getWhere()
+				: ((SelectQuery<?>) q).getQualifier();
 
 		// append Entity qualifiers, taking inheritance into account
 		ObjEntity entity = getObjEntity();
@@ -276,10 +300,13 @@ public class QualifierTranslator extends QueryAssemblerHelper implements Travers
 				out.append(" >= ");
 				break;
 			case Expression.IN:
-				out.append(" IN ");
-				break;
 			case Expression.NOT_IN:
-				out.append(" NOT IN ");
+				inListArray = inListArray(node);
+				if (inListArray != null) {
+					appendInListArrayOperator(node.getType() == Expression.NOT_IN);
+				} else {
+					out.append(node.getType() == Expression.NOT_IN ? " NOT IN " : " IN ");
+				}
 				break;
 			case Expression.LIKE:
 				out.append(" LIKE ");
@@ -532,7 +559,13 @@ public class QualifierTranslator extends QueryAssemblerHelper implements Travers
 					appendDbPath(parentNode);
 					break;
 				case Expression.LIST:
-					appendList(parentNode, paramsDbType(parentNode));
+					if (inListArray != null) {
+						Object[] values = inListArray;
+						inListArray = null;
+						appendInListArray(values, paramsDbType(parentNode));
+					} else {
+						appendList(parentNode, paramsDbType(parentNode));
+					}
 					break;
 				case Expression.FUNCTION_CALL:
 					appendFunctionArg(leaf, (ASTFunctionCall)parentNode);
@@ -582,16 +615,135 @@ public class QualifierTranslator extends QueryAssemblerHelper implements Travers
 
 		// process first element outside the loop
 		// (unroll loop to avoid condition checking
+		Object last;
 		if (it.hasNext()) {
-			appendLiteral(it.next(), paramDesc, listExpr);
+			last = it.next();
+			appendLiteral(last, paramDesc, listExpr);
 		} else {
 			return;
 		}
 
+		int size = 1;
 		while (it.hasNext()) {
 			out.append(", ");
-			appendLiteral(it.next(), paramDesc, listExpr);
+			last = it.next();
+			appendLiteral(last, paramDesc, listExpr);
+			size++;
+		}
+
+		// repeating the last value doesn't change the result of IN / NOT IN,
+		// but reduces the number of distinct statements for the DB to parse
+		if (size >= MIN_OPTIMIZED_IN_LIST_SIZE && !matchingObject && queryAssembler.getAdapter().supportsInListPadding()) {
+			for (int i = size, padded = inListPaddedSize(size); i < padded; i++) {
+				out.append(", ");
+				appendLiteral(last, paramDesc, listExpr);
+			}
+		}
+	}
+
+	/**
+	 * Returns the size an IN list of a given size is padded to. Small lists
+	 * are padded to the next power of two, larger ones - to the next multiple
+	 * of 100, so that padding never pushes a list over a round DB limit, such
+	 * as 1000 elements on Oracle.
+	 */
+	static int inListPaddedSize(int size) {
+		if (size <= 128) {
+			return Integer.highestOneBit(size - 1) << 1;
+		}
+
+		return (size + 99) / 100 * 100;
+	}
+
+	/**
+	 * Returns IN list values if the list can be bound as a single array
+	 * parameter. That is, if the adapter supports array binding, and all the
+	 * values are non-null and of the same simple type.
+	 */
+	private Object[] inListArray(Expression inExpr) {
+
+		if (matchingObject || !queryAssembler.getAdapter().supportsInListArrayBinding()) {
+			return null;
+		}
+
+		Object operand = inExpr.getOperand(1);
+		if (!(operand instanceof Expression) || ((Expression) operand).getType() != Expression.LIST) {
+			return null;
+		}
+
+		Object list = ((Expression) operand).getOperand(0);
+		Object[] values;
+		if (list instanceof Collection) {
+			values = ((Collection<?>) list).toArray();
+		} else if (list instanceof Object[]) {
+			values = ((Object[]) list).clone();
+		} else {
+			return null;
+		}
+
+		if (values.length < MIN_OPTIMIZED_IN_LIST_SIZE) {
+			return null;
 		}
+
+		Class<?> type = null;
+		for (int i = 0; i < values.length; i++) {
+			Object value = values[i];
+
+			if (value instanceof Persistent) {
+				value = ((Persistent) value).getObjectId();
+			}
+
+			if (value instanceof ObjectId) {
+				ObjectId id = (ObjectId) value;
+				Map<String, Object> snapshot = id.getIdSnapshot();
+				if (id.isTemporary() || snapshot.size() != 1) {
+					return null;
+				}
+
+				value = snapshot.values().iterator().next();
+			}
+
+			if (value == null) {
+				return null;
+			}
+
+			if (type == null) {
+				type = value.getClass();
+				if (!ARRAY_IN_LIST_TYPES.contains(type)) {
+					return null;
+				}
+			} else if (type != value.getClass()) {
+				return null;
+			}
+
+			values[i] = value;
+		}
+
+		return values;
+	}
+
+	/**
+	 * Appends an operator for an IN list bound as a single array parameter.
+	 * The list itself is then appended by
+	 * {@link #appendInListArray(Object[], DbAttribute)}.
+	 *
+	 * @since 4.1
+	 */
+	protected void appendInListArrayOperator(boolean not) {
+		out.append(not ? " <> ALL " : " = ANY ");
+	}
+
+	/**
+	 * Appends an IN list bound as a single array parameter. Default
+	 * implementation binds a JDBC array created via
+	 * {@link java.sql.Connection#createArrayOf(String, Object[])}.
+	 *
+	 * @since 4.1
+	 */
+	protected void appendInListArray(Object[] values, DbAttribute paramDesc) {
+		String elementType = TypesMapping.getSqlNameByType(TypesMapping.getSqlTypeByJava(values[0].getClass()));
+		out.append('?');
+		queryAssembler.addToParamList(paramDesc, values, new SQLArrayType(elementType.toLowerCase()));
 	}
 
 	@Override
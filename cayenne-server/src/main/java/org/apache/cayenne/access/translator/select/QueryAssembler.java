@@ -158,6 +158,16 @@ public abstract class QueryAssembler {
 				? adapter.getExtendedTypes().getRegisteredType(anObject.getClass())
 				: adapter.getExtendedTypes().getDefaultType();
 
+		addToParamList(dbAttr, anObject, extendedType);
+	}
+
+	/**
+	 * Registers <code>anObject</code> as a PreparedStatement parameter that
+	 * should be bound using the provided ExtendedType.
+	 *
+	 * @since 4.1
+	 */
+	public void addToParamList(DbAttribute dbAttr, Object anObject, ExtendedType extendedType) {
 		DbAttributeBinding binding = new DbAttributeBinding(dbAttr);
 		binding.setStatementPosition(bindings.size() + 1);
 		binding.setValue(anObject);
@@ -0,0 +1,305 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.translator.select;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.Property;
+import org.apache.cayenne.exp.parser.ASTExtract;
+import org.apache.cayenne.exp.parser.ASTFunctionCall;
+import org.apache.cayenne.exp.parser.ASTList;
+import org.apache.cayenne.exp.parser.ASTNamedParameter;
+import org.apache.cayenne.exp.parser.ASTPath;
+import org.apache.cayenne.exp.parser.ASTScalar;
+import org.apache.cayenne.exp.parser.PatternMatchNode;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.query.Ordering;
+import org.apache.cayenne.query.PrefetchTreeNode;
+import org.apache.cayenne.query.QueryMetadata;
+import org.apache.cayenne.query.SelectQuery;
+
+/**
+ * A normalized "shape" of a {@link SelectQuery}, i.e. everything that
+ * determines the SQL produced by the translator, with the parameter values
+ * abstracted out. Only the value classes are included in the shape. The values
+ * themselves are collected in the order they are expected to appear in the
+ * translator bindings. Two queries with equal shapes translate to the same SQL
+ * and differ only in the bound parameters.
+ * 
+ * @since 4.1
+ */
+final class QueryShape {
+
+	private static final String EXPRESSION_PACKAGE = ASTPath.class.getPackage().getName();
+
+	private final DbAdapter adapter;
+	private final EntityResolver resolver;
+	private final Object dbEntity;
+	private final Object objEntity;
+	private final String shape;
+	private final int hashCode;
+
+	// not a part of the key
+	private final List<Object> values;
+
+	/**
+	 * Returns a shape of the query, or null if the query can't be reliably
+	 * normalized.
+	 */
+	static QueryShape of(SelectQuery<?> query, DbAdapter adapter, EntityResolver resolver) {
+
+		// subclasses may carry extra state affecting the translation
+		if (query.getClass() != SelectQuery.class) {
+			return null;
+		}
+
+		QueryMetadata md = query.getMetaData(resolver);
+		Builder builder = new Builder();
+
+		builder.append(md.isFetchingDataRows()).append(md.getFetchLimit()).append(md.getFetchOffset())
+				.append(md.getPageSize()).append(query.isDistinct()).append(md.isSuppressingDistinct())
+				.append(query.canReturnScalarValue());
+
+		Map<String, String> aliases = md.getPathSplitAliases();
+		builder.append(aliases == null || aliases.isEmpty() ? "" : new TreeMap<>(aliases).toString());
+
+		builder.appendPrefetch(md.getPrefetchTree());
+
+		// the order of the parts below must match the order in which the
+		// translator creates parameter bindings
+
+		Collection<Property<?>> columns = query.getColumns();
+		if (columns != null) {
+			builder.out.append("C[");
+			for (Property<?> column : columns) {
+				builder.append(column.getName()).append(column.getType().getName());
+				builder.appendExpression(column.getExpression());
+			}
+			builder.out.append(']');
+		}
+
+		builder.out.append("Q[");
+		builder.appendExpression(query.getQualifier());
+		builder.out.append("]H[");
+		builder.appendExpression(query.getHavingQualifier());
+		builder.out.append("]O[");
+
+		List<Ordering> orderings = query.getOrderings();
+		if (orderings != null) {
+			for (Ordering ordering : orderings) {
+				builder.append(ordering.getSortOrder().name()).append(ordering.isNullSortedFirst());
+				builder.appendExpression(ordering.getSortSpec());
+			}
+		}
+		builder.out.append(']');
+
+		if (!builder.cacheable) {
+			return null;
+		}
+
+		return new QueryShape(adapter, resolver, md.getDbEntity(), md.getObjEntity(), builder.out.toString(),
+				builder.values);
+	}
+
+	private QueryShape(DbAdapter adapter, EntityResolver resolver, Object dbEntity, Object objEntity, String shape,
+			List<Object> values) {
+		this.adapter = adapter;
+		this.resolver = resolver;
+		this.dbEntity = dbEntity;
+		this.objEntity = objEntity;
+		this.shape = shape;
+		this.values = values;
+
+		int hash = shape.hashCode();
+		hash = 31 * hash + System.identityHashCode(adapter);
+		hash = 31 * hash + System.identityHashCode(resolver);
+		hash = 31 * hash + System.identityHashCode(dbEntity);
+		hash = 31 * hash + System.identityHashCode(objEntity);
+		this.hashCode = hash;
+	}
+
+	/**
+	 * Returns query parameter values in the order they should be bound.
+	 */
+	List<Object> getValues() {
+		return values;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+
+		if (!(object instanceof QueryShape)) {
+			return false;
+		}
+
+		QueryShape other = (QueryShape) object;
+		return hashCode == other.hashCode && adapter == other.adapter && resolver == other.resolver
+				&& dbEntity == other.dbEntity && objEntity == other.objEntity && shape.equals(other.shape);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public String toString() {
+		return shape;
+	}
+
+	private static class Builder {
+
+		StringBuilder out = new StringBuilder(128);
+		List<Object> values = new ArrayList<>();
+		boolean cacheable = true;
+
+		Builder append(Object part) {
+			out.append(part).append(';');
+			return this;
+		}
+
+		void appendPrefetch(PrefetchTreeNode node) {
+			if (node == null) {
+				return;
+			}
+
+			out.append("P[").append(node.getName()).append(';').append(node.getSemantics()).append(';')
+					.append(node.isPhantom());
+			for (PrefetchTreeNode child : node.getChildren()) {
+				appendPrefetch(child);
+			}
+			out.append(']');
+		}
+
+		void appendExpression(Expression e) {
+
+			if (e == null) {
+				out.append('-');
+				return;
+			}
+
+			// custom expression classes may have state we don't know about
+			// ... also skip unresolved parameters
+			if (!EXPRESSION_PACKAGE.equals(e.getClass().getPackage().getName()) || e instanceof ASTNamedParameter) {
+				cacheable = false;
+				return;
+			}
+
+			out.append(e.getClass().getSimpleName()).append('(');
+
+			if (e instanceof ASTPath) {
+				ASTPath path = (ASTPath) e;
+				out.append(path.getPath());
+
+				Map<String, String> aliases = path.getPathAliases();
+				if (aliases != null && !aliases.isEmpty()) {
+					out.append(new TreeMap<>(aliases));
+				}
+
+				out.append(')');
+				return;
+			}
+
+			if (e instanceof ASTScalar) {
+				appendValue(((ASTScalar) e).getValue());
+				out.append(')');
+				return;
+			}
+
+			if (e instanceof ASTList) {
+				appendValue(e.getOperand(0));
+				out.append(')');
+				return;
+			}
+
+			if (e instanceof ASTExtract) {
+				out.append(((ASTExtract) e).getPart()).append(';');
+			} else if (e instanceof ASTFunctionCall) {
+				out.append(((ASTFunctionCall) e).getFunctionName()).append(';');
+			} else if (e instanceof PatternMatchNode) {
+				out.append((int) ((PatternMatchNode) e).getEscapeChar()).append(';');
+			}
+
+			int len = e.getOperandCount();
+			for (int i = 0; i < len; i++) {
+				Object operand = e.getOperand(i);
+				if (operand instanceof Expression) {
+					appendExpression((Expression) operand);
+				} else {
+					appendValue(operand);
+				}
+			}
+
+			out.append(')');
+		}
+
+		void appendValue(Object value) {
+
+			if (value == null) {
+				out.append("null;");
+			} else if (value instanceof Persistent) {
+				appendId(((Persistent) value).getObjectId());
+			} else if (value instanceof ObjectId) {
+				appendId((ObjectId) value);
+			} else if (value instanceof Collection) {
+				Collection<?> collection = (Collection<?>) value;
+				out.append('[').append(collection.size()).append(':');
+				for (Object element : collection) {
+					appendValue(element);
+				}
+				out.append(']');
+			} else if (value instanceof Object[]) {
+				Object[] array = (Object[]) value;
+				out.append('[').append(array.length).append(':');
+				for (Object element : array) {
+					appendValue(element);
+				}
+				out.append(']');
+			} else {
+				out.append(value.getClass().getName()).append(';');
+				values.add(value);
+			}
+		}
+
+		private void appendId(ObjectId id) {
+
+			// compound ids are matched by the translator in an order we don't
+			// control, so only single column ids can be reliably rebound
+			if (id == null || id.isTemporary() || id.getIdSnapshot().size() != 1) {
+				cacheable = false;
+				return;
+			}
+
+			Object value = id.getIdSnapshot().values().iterator().next();
+			out.append("id:").append(id.getEntityName()).append(';');
+			appendValue(value);
+		}
+	}
+}
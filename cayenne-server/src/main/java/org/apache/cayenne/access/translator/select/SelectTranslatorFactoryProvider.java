@@ -0,0 +1,49 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.translator.select;
+
+import org.apache.cayenne.configuration.Constants;
+import org.apache.cayenne.configuration.RuntimeProperties;
+import org.apache.cayenne.di.DIRuntimeException;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.di.Provider;
+
+/**
+ * Creates a {@link SelectTranslatorFactory}, wrapping the default factory in a
+ * {@link CachingSelectTranslatorFactory} if a positive
+ * {@link Constants#SELECT_TRANSLATOR_CACHE_SIZE_PROPERTY} is set.
+ * 
+ * @since 4.1
+ */
+public class SelectTranslatorFactoryProvider implements Provider<SelectTranslatorFactory> {
+
+	protected RuntimeProperties properties;
+
+	public SelectTranslatorFactoryProvider(@Inject RuntimeProperties properties) {
+		this.properties = properties;
+	}
+
+	@Override
+	public SelectTranslatorFactory get() throws DIRuntimeException {
+		SelectTranslatorFactory factory = new DefaultSelectTranslatorFactory();
+
+		int cacheSize = properties.getInt(Constants.SELECT_TRANSLATOR_CACHE_SIZE_PROPERTY, 0);
+		return cacheSize > 0 ? new CachingSelectTranslatorFactory(factory, cacheSize) : factory;
+	}
+}
@@ -0,0 +1,117 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access.types;
+
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+
+/**
+ * An ExtendedType that binds an array of values as a single JDBC array
+ * parameter. Used for IN lists translated to a single array parameter.
+ * Arrays are created via {@link java.sql.Connection#createArrayOf(String, Object[])}
+ * with a configured element type name. If the element type name is null, the
+ * array is passed to the driver as is via
+ * {@link PreparedStatement#setObject(int, Object)}.
+ *
+ * @since 4.1
+ */
+public class SQLArrayType implements ExtendedType<Object[]> {
+
+    private String elementTypeName;
+
+    public SQLArrayType(String elementTypeName) {
+        this.elementTypeName = elementTypeName;
+    }
+
+    /**
+     * Returns the database type name of the array elements.
+     */
+    public String getElementTypeName() {
+        return elementTypeName;
+    }
+
+    @Override
+    public String getClassName() {
+        return Object[].class.getName();
+    }
+
+    @Override
+    public void setJdbcObject(
+            PreparedStatement statement,
+            Object[] value,
+            int pos,
+            int type,
+            int scale) throws Exception {
+
+        if (value == null) {
+            statement.setNull(pos, Types.ARRAY);
+        } else if (elementTypeName == null) {
+            statement.setObject(pos, value);
+        } else {
+            statement.setArray(pos, statement.getConnection().createArrayOf(elementTypeName, value));
+        }
+    }
+
+    @Override
+    public Object[] materializeObject(ResultSet rs, int index, int type) throws Exception {
+        return toObjectArray(rs.getArray(index));
+    }
+
+    @Override
+    public Object[] materializeObject(CallableStatement rs, int index, int type) throws Exception {
+        return toObjectArray(rs.getArray(index));
+    }
+
+    private Object[] toObjectArray(Array array) throws Exception {
+        return array != null ? (Object[]) array.getArray() : null;
+    }
+
+    @Override
+    public String toString(Object[] value) {
+        if (value == null) {
+            return "NULL";
+        }
+
+        StringBuilder buffer = new StringBuilder();
+        buffer.append('[');
+
+        int len = Math.min(value.length, TRIM_VALUES_THRESHOLD);
+        for (int i = 0; i < len; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+
+            Object element = value[i];
+            if (element instanceof String) {
+                buffer.append('\'').append(element).append('\'');
+            } else {
+                buffer.append(element);
+            }
+        }
+
+        if (value.length > len) {
+            buffer.append(", ...");
+        }
+
+        return buffer.append(']').toString();
+    }
+}
@@ -0,0 +1,327 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.cache;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.util.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+
+/**
+ * Loads query cache entries on behalf of a {@link QueryCache}, so that concurrent requests for the same missing
+ * entry wait for a single fetch instead of running the same query in parallel. Optionally supports "refresh-ahead"
+ * of the entries older than a given interval: the first caller that reads such an entry re-runs the query, while
+ * the concurrent callers keep getting the old value until the new one is stored. So entries that are read often
+ * are kept fresh without anyone waiting for an expired entry to be rebuilt.
+ * <p>
+ * The refresh is done on the caller thread, as {@link QueryCacheEntryFactory} is bound to the query action and the
+ * context that requested the entry.
+ * </p>
+ * <p>
+ * Each removal of cache entries starts a new "generation" of the cache. A fetch started before its key was removed,
+ * or before the whole cache or a group was cleared, may return data that was changed in the meantime, so it is
+ * neither joined by the new callers nor stored (see {@link #store(String, long, Runnable)}). Fetches of other keys
+ * are not affected by the removal of a single key.
+ * </p>
+ *
+ * @since 4.1
+ */
+public class CoalescingCacheLoader {
+
+    /**
+     * Maximum number of keys whose last removal generation is remembered. When exceeded, fetches started before the
+     * forgotten removals are treated as stale.
+     */
+    static final int MAX_TRACKED_REMOVALS = 10000;
+
+    private final ConcurrentMap<String, Load> loads;
+    private final long refreshAhead;
+    private final Map<String, Long> writeTimes;
+    private final ReadWriteLock generationLock;
+    private final Map<String, Long> removals;
+    private volatile long generation;
+    private long clearGeneration;
+
+    /**
+     * Creates a loader that only coalesces concurrent fetches.
+     */
+    public CoalescingCacheLoader() {
+        this(0, 0);
+    }
+
+    /**
+     * Creates a loader that coalesces concurrent fetches and refreshes entries older than "refreshAhead"
+     * milliseconds.
+     *
+     * @param refreshAhead      entry age in milliseconds after which the entry is refreshed on read. Zero or
+     *                          negative value disables refresh-ahead.
+     * @param maxTrackedEntries maximum number of keys whose write times are remembered. Entries with unknown
+     *                          write time are considered written on their first read.
+     */
+    public CoalescingCacheLoader(long refreshAhead, int maxTrackedEntries) {
+        this.loads = new ConcurrentHashMap<>();
+        this.refreshAhead = refreshAhead;
+        this.writeTimes = refreshAhead > 0
+                ? new ConcurrentLinkedHashMap.Builder<String, Long>()
+                        .maximumWeightedCapacity(Math.max(1, maxTrackedEntries)).build()
+                : null;
+        this.generationLock = new ReentrantReadWriteLock();
+
+        // guarded by the generation lock
+        this.removals = new LinkedHashMap<String, Long>() {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() > MAX_TRACKED_REMOVALS) {
+                    clearGeneration = Math.max(clearGeneration, eldest.getValue());
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    public boolean isRefreshAheadEnabled() {
+        return writeTimes != null;
+    }
+
+    /**
+     * Returns a missing entry, obtaining it from the factory. If another thread is already fetching the same key,
+     * waits for its result instead. The factory is expected to check the cache again, as the entry may have been
+     * stored by a concurrent fetch, and to store the entry in the cache.
+     */
+    @SuppressWarnings("rawtypes")
+    public List load(String key, QueryCacheEntryFactory factory) {
+
+        if (key == null) {
+            return factory.createObject();
+        }
+
+        Load load = new Load();
+        Load inFlight;
+        while ((inFlight = loads.putIfAbsent(key, load)) != null) {
+
+            // a nested fetch of the same key by the thread that is already fetching it would never finish
+            if (inFlight.owner == Thread.currentThread()) {
+                return factory.createObject();
+            }
+
+            if (inFlight.isCurrent(key)) {
+                return inFlight.await(key);
+            }
+
+            // started before the entry was invalidated, so its result may be stale; run our own fetch instead
+            if (loads.replace(key, inFlight, load)) {
+                break;
+            }
+        }
+
+        return load.run(key, factory);
+    }
+
+    /**
+     * Returns an existing entry, refreshing it on the caller thread if refresh-ahead is due. If the entry is
+     * already being fetched by another thread, returns the current value without waiting.
+     */
+    @SuppressWarnings("rawtypes")
+    public List get(String key, List value, QueryCacheEntryFactory factory) {
+
+        if (key == null || !isRefreshDue(key)) {
+            return value;
+        }
+
+        Load load = new Load();
+        Load inFlight = loads.putIfAbsent(key, load);
+        if (inFlight != null && (inFlight.isCurrent(key) || !loads.replace(key, inFlight, load))) {
+            return value;
+        }
+
+        return load.run(key, factory);
+    }
+
+    /**
+     * Returns the current generation of the cache. A fetch should read it before running the query and pass it to
+     * {@link #store(String, long, Runnable)}.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Runs the action that stores a fetched entry in the cache, unless the entry was removed or the cache was cleared
+     * since the given generation. Returns whether the entry was stored. Concurrent invalidation waits for the action
+     * to finish, so the entry is either not stored or is removed by the invalidation.
+     */
+    public boolean store(String key, long generation, Runnable store) {
+        Lock lock = generationLock.readLock();
+        lock.lock();
+        try {
+            if (!isCurrent(key, generation)) {
+                return false;
+            }
+
+            store.run();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that an entry was stored in the cache.
+     */
+    public void written(String key) {
+        if (writeTimes != null && key != null) {
+            writeTimes.put(key, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Records that an entry is about to be removed from the cache, starting a new generation for this key only. Must
+     * be called before the entry is removed.
+     */
+    public void removed(String key) {
+        if (key == null) {
+            return;
+        }
+
+        Lock lock = generationLock.writeLock();
+        lock.lock();
+        try {
+            removals.remove(key);
+            removals.put(key, ++generation);
+        } finally {
+            lock.unlock();
+        }
+
+        // detach the fetch of the previous generation, so that no one else joins it
+        loads.remove(key);
+
+        if (writeTimes != null) {
+            writeTimes.remove(key);
+        }
+    }
+
+    /**
+     * Records that a group of entries or the whole cache is about to be removed, starting a new generation and
+     * forgetting write times of all entries. Must be called before the entries are removed.
+     */
+    public void clear() {
+        Lock lock = generationLock.writeLock();
+        lock.lock();
+        try {
+            clearGeneration = ++generation;
+
+            // all the older generations are now stale
+            removals.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        // detach the fetches of the previous generation, so that no one else joins them
+        loads.clear();
+
+        if (writeTimes != null) {
+            writeTimes.clear();
+        }
+    }
+
+    /**
+     * Returns whether a fetch of the key started in the given generation may be stored. Must be called under the
+     * generation lock.
+     */
+    private boolean isCurrent(String key, long generation) {
+        if (generation < clearGeneration) {
+            return false;
+        }
+
+        Long removed = removals.get(key);
+        return removed == null || removed <= generation;
+    }
+
+    private boolean isRefreshDue(String key) {
+
+        if (writeTimes == null) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        Long writeTime = writeTimes.get(key);
+        if (writeTime == null) {
+            // an entry we don't know the age of, e.g. stored before this loader was created
+            writeTimes.put(key, now);
+            return false;
+        }
+
+        return now - writeTime >= refreshAhead;
+    }
+
+    private class Load extends CompletableFuture<List<?>> {
+
+        final Thread owner = Thread.currentThread();
+        final long generation = CoalescingCacheLoader.this.generation;
+
+        boolean isCurrent(String key) {
+            Lock lock = generationLock.readLock();
+            lock.lock();
+            try {
+                return CoalescingCacheLoader.this.isCurrent(key, generation);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @SuppressWarnings("rawtypes")
+        List run(String key, QueryCacheEntryFactory factory) {
+            try {
+                List result = factory.createObject();
+                complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                completeExceptionally(e);
+                throw e;
+            } finally {
+                loads.remove(key, this);
+            }
+        }
+
+        @SuppressWarnings("rawtypes")
+        List await(String key) {
+            try {
+                return get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CayenneRuntimeException("Interrupted while waiting for cache entry: %s", e, key);
+            } catch (ExecutionException e) {
+                throw new CayenneRuntimeException("Error fetching cache entry: %s", e.getCause(), key);
+            }
+        }
+    }
+}
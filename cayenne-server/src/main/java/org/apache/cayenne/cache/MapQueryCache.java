@@ -29,7 +29,9 @@ import org.apache.cayenne.util.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 
 /**
  * A default implementation of the {@link QueryCache} interface that stores data in a
- * non-expiring LRUMap.
+ * non-expiring LRUMap. Concurrent requests for the same missing entry wait for a single
+ * fetch. Optionally entries older than a "refresh-ahead" interval are re-fetched by the
+ * first caller that reads them, while other callers keep getting the old value.
  * 
  * @since 3.0
  */
@@ -42,14 +44,27 @@ public class MapQueryCache implements QueryCache, Serializable {
     protected final Map<String, Map<String, List<?>>> cacheGroups;
 
     private int maxSize;
+    private long refreshAhead;
+    private transient volatile CoalescingCacheLoader loader;
 
     public MapQueryCache() {
         this(DEFAULT_CACHE_SIZE);
     }
 
     public MapQueryCache(int maxSize) {
+        this(maxSize, 0);
+    }
+
+    /**
+     * Creates a cache that refreshes entries older than "refreshAhead" milliseconds when
+     * they are read via {@link #get(QueryMetadata, QueryCacheEntryFactory)}.
+     *
+     * @since 4.1
+     */
+    public MapQueryCache(int maxSize, long refreshAhead) {
         this.cacheGroups = new ConcurrentHashMap<>();
         this.maxSize = maxSize;
+        this.refreshAhead = refreshAhead;
     }
 
     public List get(QueryMetadata metadata) {
@@ -65,24 +80,38 @@ public class MapQueryCache implements QueryCache, Serializable {
 
     /**
      * Returns a non-null cached value. If it is not present in the cache, it is obtained
-     * by calling {@link QueryCacheEntryFactory#createObject()} without blocking the cache. As
-     * a result there is a potential of multiple threads to be updating cache in parallel -
-     * this wouldn't lead to corruption of the cache, but can be suboptimal.
+     * by calling {@link QueryCacheEntryFactory#createObject()} without blocking the cache.
+     * Other threads requesting the same entry in the meantime wait for this result
+     * instead of running the same query.
      */
     @SuppressWarnings("rawtypes")
     public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
         List result = get(metadata);
-        if (result == null) {
-            List newObject = factory.createObject();
-            if (newObject == null) {
-                throw new CayenneRuntimeException("Null on cache rebuilding: %s", metadata.getCacheKey());
-            }
+        if (result != null) {
+            return getLoader().get(metadata.getCacheKey(), result, () -> fetch(metadata, factory));
+        }
+
+        return getLoader().load(metadata.getCacheKey(), () -> {
+
+            // may have been stored while we were waiting to start the fetch
+            List cached = get(metadata);
+            return cached != null ? cached : fetch(metadata, factory);
+        });
+    }
+
+    @SuppressWarnings("rawtypes")
+    private List fetch(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+        CoalescingCacheLoader loader = getLoader();
+        long generation = loader.getGeneration();
 
-            result = newObject;
-            put(metadata, result);
+        List newObject = factory.createObject();
+        if (newObject == null) {
+            throw new CayenneRuntimeException("Null on cache rebuilding: %s", metadata.getCacheKey());
         }
 
-        return result;
+        // not stored if the entry was invalidated during the fetch, as the result may be stale
+        loader.store(metadata.getCacheKey(), generation, () -> put(metadata, newObject));
+        return newObject;
     }
 
     public void put(QueryMetadata metadata, List results) {
@@ -95,6 +124,8 @@ public class MapQueryCache implements QueryCache, Serializable {
         synchronized (map) {
             map.put(key, results);
         }
+
+        getLoader().written(key);
     }
 
     public void remove(String key) {
@@ -102,6 +133,8 @@ public class MapQueryCache implements QueryCache, Serializable {
             return;
         }
 
+        getLoader().removed(key);
+
         for(Map<String, List<?>> map : cacheGroups.values()) {
             synchronized (map) {
                 map.remove(key);
@@ -111,6 +144,7 @@ public class MapQueryCache implements QueryCache, Serializable {
 
     public void removeGroup(String groupKey) {
         if (groupKey != null) {
+            getLoader().clear();
             cacheGroups.remove(groupKey);
         }
     }
@@ -120,6 +154,7 @@ public class MapQueryCache implements QueryCache, Serializable {
     }
 
     public void clear() {
+        getLoader().clear();
         cacheGroups.clear();
     }
 
@@ -133,6 +168,30 @@ public class MapQueryCache implements QueryCache, Serializable {
         return size;
     }
 
+    /**
+     * @since 4.1
+     */
+    public long getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    private CoalescingCacheLoader getLoader() {
+
+        // not serialized, so has to be created lazily
+        CoalescingCacheLoader loader = this.loader;
+        if (loader == null) {
+            synchronized (this) {
+                loader = this.loader;
+                if (loader == null) {
+                    loader = new CoalescingCacheLoader(refreshAhead, maxSize);
+                    this.loader = loader;
+                }
+            }
+        }
+
+        return loader;
+    }
+
     protected Map<String, List<?>> createIfAbsent(QueryMetadata metadata) {
         return createIfAbsent(cacheName(metadata));
     }
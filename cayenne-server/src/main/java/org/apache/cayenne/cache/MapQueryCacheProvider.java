@@ -40,6 +40,7 @@ public class MapQueryCacheProvider implements Provider<QueryCache> {
         int size = properties.getInt(
                 Constants.QUERY_CACHE_SIZE_PROPERTY,
                 MapQueryCache.DEFAULT_CACHE_SIZE);
-        return new MapQueryCache(size);
+        long refreshAhead = properties.getLong(Constants.QUERY_CACHE_REFRESH_AHEAD_PROPERTY, 0);
+        return new MapQueryCache(size, refreshAhead);
     }
 }
@@ -130,6 +130,44 @@ public interface Constants {
      */
     String JDBC_VALIDATION_QUERY_PROPERTY = "cayenne.jdbc.validation_query";
 
+    /**
+     * Defines a minimal time in milliseconds a pooled connection should stay
+     * idle before it is validated again on checkout. Zero (the default) means
+     * validating connections on every checkout.
+     *
+     * @since 4.1
+     */
+    String JDBC_VALIDATION_IDLE_TIME_PROPERTY = "cayenne.jdbc.validation_idle_time";
+
+    /**
+     * A boolean property that enables a connection pool mode where each thread
+     * first tries to reuse the connection it used last, bypassing the shared
+     * pool queue. Defaults to "false".
+     *
+     * @since 4.1
+     */
+    String JDBC_THREAD_AFFINITY_PROPERTY = "cayenne.jdbc.thread_affinity";
+
+    /**
+     * An integer property defining the maximum number of PreparedStatements
+     * cached per pooled connection. Statements are keyed by SQL text and
+     * result set options and evicted in LRU order. Zero (the default)
+     * disables statement caching.
+     *
+     * @since 4.1
+     */
+    String JDBC_STATEMENT_CACHE_SIZE_PROPERTY = "cayenne.jdbc.statement_cache_size";
+
+    /**
+     * An integer property defining the maximum number of cached SelectQuery
+     * translations. Queries that only differ in parameter values reuse the SQL
+     * and result metadata of a cached translation. Zero (the default) disables
+     * the cache.
+     *
+     * @since 4.1
+     */
+    String SELECT_TRANSLATOR_CACHE_SIZE_PROPERTY = "cayenne.selecttranslator.cache.size";
+
     /**
      * An integer property defining the maximum number of entries in the query
      * cache. Note that not all QueryCache providers may respect this property.
@@ -138,6 +176,16 @@ public interface Constants {
      */
     String QUERY_CACHE_SIZE_PROPERTY = "cayenne.querycache.size";
 
+    /**
+     * A long property defining the age in milliseconds after which a query cache entry
+     * is refreshed by the next caller that reads it, while the concurrent callers keep
+     * getting the old value. Zero (the default) disables refresh-ahead. Respected by
+     * MapQueryCache and JCacheQueryCache.
+     *
+     * @since 4.1
+     */
+    String QUERY_CACHE_REFRESH_AHEAD_PROPERTY = "cayenne.querycache.refresh_ahead";
+
     /**
      * An optional name of the runtime DataDomain. If not specified (which is
      * normally the case), the name is inferred from the configuration name.
@@ -158,6 +206,17 @@ public interface Constants {
      */
     String SERVER_OBJECT_RETAIN_STRATEGY_PROPERTY = "cayenne.server.object_retain_strategy";
 
+    /**
+     * A boolean property defining whether contexts should use
+     * {@link org.apache.cayenne.access.StripedObjectStore}, that allows
+     * reads of registered objects without locking the store, so that they are
+     * not blocked by snapshot event processing. Only applies when cross-contexts
+     * synchronization is enabled. Default is "false".
+     *
+     * @since 4.1
+     */
+    String SERVER_OBJECT_STORE_STRIPED_PROPERTY = "cayenne.server.object_store_striped";
+
     /**
      * A boolean property that defines whether runtime should use external
      * transactions. Possible values are "true" or "false".
@@ -182,6 +241,54 @@ public interface Constants {
      */
     String SERVER_MAX_ID_QUALIFIER_SIZE_PROPERTY = "cayenne.server.max_id_qualifier_size";
 
+    /**
+     * An integer property that defines a maximum number of threads used to
+     * run chunked DISJOINT_BY_ID prefetch queries and sibling prefetches in
+     * parallel. Each thread uses a separate pooled connection. Parallel
+     * execution is skipped when a transaction is bound to the calling thread.
+     * Zero (the default) disables parallel prefetching.
+     *
+     * @since 4.1
+     */
+    String SERVER_PREFETCH_THREADS_PROPERTY = "cayenne.server.prefetch_threads";
+
+    /**
+     * A boolean property that switches paginated queries to keyset (seek)
+     * pagination when possible. Instead of reading the ids of the entire
+     * result upfront, pages are fetched with a WHERE clause that continues
+     * after the sort keys of the previous page. Defaults to "false".
+     *
+     * @see org.apache.cayenne.access.KeysetIncrementalFaultList
+     * @since 4.1
+     */
+    String SERVER_KEYSET_PAGINATION_PROPERTY = "cayenne.server.keyset_pagination";
+
+    /**
+     * An integer property that defines a number of pages of a paginated query
+     * result that are resolved in the background ahead of the page being
+     * accessed. Read-ahead queries run in a dedicated pool with as many
+     * threads as the number of pages to read ahead, resolving their prefetches
+     * sequentially. Pages that don't fit in the pool queue are not read ahead.
+     * Zero (the default) disables page read-ahead.
+     *
+     * @since 4.1
+     */
+    String SERVER_PAGE_READ_AHEAD_PROPERTY = "cayenne.server.page_read_ahead";
+
+    /**
+     * An integer property that defines a maximum number of rows of an insert
+     * or upsert batch sent in a single multi-row "VALUES (...), (...), ..."
+     * statement. Only used with adapters that support multi-row inserts, and
+     * for inserts that don't read back generated keys. The number of rows is
+     * further reduced to keep statement parameters within the limits of all
+     * such databases. Values less than 2 (the default is 1) disable multi-row
+     * statements.
+     *
+     * @see org.apache.cayenne.dba.DbAdapter#supportsMultiRowInsert()
+     * @since 4.1
+     */
+    String SERVER_MULTI_ROW_BATCH_SIZE_PROPERTY = "cayenne.server.multi_row_batch_size";
+
     /**
      * Defines a maximum time in milliseconds that a connection request could
      * wait in the connection queue. After this period expires, an exception
@@ -216,4 +323,58 @@ public interface Constants {
      */
     String SNAPSHOT_CACHE_SIZE_PROPERTY = "cayenne.DataRowStore.snapshot.size";
 
+    /**
+     * Defines a time window in milliseconds during which snapshot changes of
+     * local commits are accumulated by the DataRowStore and then posted as a
+     * single SnapshotEvent. Zero (the default) disables coalescing and posts
+     * an event per commit.
+     *
+     * @since 4.1
+     */
+    String SNAPSHOT_EVENTS_WINDOW_PROPERTY = "cayenne.DataRowStore.events.window";
+
+    /**
+     * Defines the maximum number of ObjectIds accumulated in a coalesced
+     * SnapshotEvent before it is posted, regardless of the time window.
+     * Default is 1000.
+     *
+     * @since 4.1
+     */
+    String SNAPSHOT_EVENTS_WINDOW_SIZE_PROPERTY = "cayenne.DataRowStore.events.window_size";
+
+    /**
+     * Defines the number of threads dispatching non-blocking events in the
+     * default EventManager. Zero or less creates a single-threaded manager.
+     * Default is 5.
+     *
+     * @since 4.1
+     */
+    String EVENT_DISPATCH_THREADS_PROPERTY = "cayenne.event.dispatch_threads";
+
+    /**
+     * Defines the maximum number of non-blocking events queued by the default
+     * EventManager. Zero or less means unbounded queue. Default is 0.
+     *
+     * @since 4.1
+     */
+    String EVENT_QUEUE_CAPACITY_PROPERTY = "cayenne.event.queue_capacity";
+
+    /**
+     * Defines what the default EventManager does when its event queue is full.
+     * Only applies if {@link #EVENT_QUEUE_CAPACITY_PROPERTY} is set. Possible
+     * values are "BLOCK" (the default), "DROP_OLDEST" and "COALESCE".
+     *
+     * @see org.apache.cayenne.event.DefaultEventManager.OverflowPolicy
+     * @since 4.1
+     */
+    String EVENT_QUEUE_OVERFLOW_POLICY_PROPERTY = "cayenne.event.queue_overflow_policy";
+
+    /**
+     * A boolean property that makes the default EventManager dispatch events
+     * on virtual threads, if supported by the JVM. Default is "false".
+     *
+     * @since 4.1
+     */
+    String EVENT_VIRTUAL_THREADS_PROPERTY = "cayenne.event.virtual_threads";
+
 }
@@ -22,12 +22,14 @@ import org.apache.cayenne.access.DataRowStore;
 import org.apache.cayenne.access.NoSyncObjectStore;
 import org.apache.cayenne.access.ObjectMapRetainStrategy;
 import org.apache.cayenne.access.ObjectStore;
+import org.apache.cayenne.access.StripedObjectStore;
 import org.apache.cayenne.di.Inject;
 
 /**
  * A default implementation of {@link ObjectStoreFactory} which makes decision to
  * turn {@link ObjectStore}'s syncing with parent {@link DataRowStore} on or off 
- * basing on {@link RuntimeProperties}.
+ * basing on {@link RuntimeProperties}. Can also create a {@link StripedObjectStore} if
+ * {@link Constants#SERVER_OBJECT_STORE_STRIPED_PROPERTY} is set.
  * 
  * @since 3.1
  */
@@ -41,8 +43,13 @@ public class DefaultObjectStoreFactory implements ObjectStoreFactory {
     
     public ObjectStore createObjectStore(DataRowStore dataRowCache) {
         boolean sync = runtimeProperties.getBoolean(Constants.SERVER_CONTEXTS_SYNC_PROPERTY, true);
-        
-        return sync ? new ObjectStore(dataRowCache, retainStrategy.createObjectMap()) 
-                : new NoSyncObjectStore(dataRowCache, retainStrategy.createObjectMap());
+
+        if (!sync) {
+            return new NoSyncObjectStore(dataRowCache, retainStrategy.createObjectMap());
+        }
+
+        boolean striped = runtimeProperties.getBoolean(Constants.SERVER_OBJECT_STORE_STRIPED_PROPERTY, false);
+        return striped ? new StripedObjectStore(dataRowCache, retainStrategy.createConcurrentObjectMap())
+                : new ObjectStore(dataRowCache, retainStrategy.createObjectMap());
     }
 }
@@ -117,6 +117,9 @@ public class DataDomainProvider implements Provider<DataDomain> {
 		DataDomain dataDomain = createDataDomain(descriptor.getName());
 
 		dataDomain.setMaxIdQualifierSize(runtimeProperties.getInt(Constants.SERVER_MAX_ID_QUALIFIER_SIZE_PROPERTY, -1));
+		dataDomain.setPrefetchThreads(runtimeProperties.getInt(Constants.SERVER_PREFETCH_THREADS_PROPERTY, 0));
+		dataDomain.setKeysetPagination(runtimeProperties.getBoolean(Constants.SERVER_KEYSET_PAGINATION_PROPERTY, false));
+		dataDomain.setPageReadAhead(runtimeProperties.getInt(Constants.SERVER_PAGE_READ_AHEAD_PROPERTY, 0));
 
 		dataDomain.setQueryCache(new NestedQueryCache(queryCache));
 		dataDomain.setEntitySorter(injector.getInstance(EntitySorter.class));
@@ -24,7 +24,9 @@ import org.apache.cayenne.access.jdbc.SQLTemplateProcessor;
 import org.apache.cayenne.access.jdbc.reader.RowReaderFactory;
 import org.apache.cayenne.access.translator.batch.BatchTranslatorFactory;
 import org.apache.cayenne.access.translator.select.SelectTranslatorFactory;
+import org.apache.cayenne.configuration.Constants;
 import org.apache.cayenne.configuration.DataNodeDescriptor;
+import org.apache.cayenne.configuration.RuntimeProperties;
 import org.apache.cayenne.di.AdhocObjectFactory;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.log.JdbcEventLogger;
@@ -63,6 +65,9 @@ public class DefaultDataNodeFactory implements DataNodeFactory {
     @Inject
     protected SQLTemplateProcessor sqlTemplateProcessor;
 
+    @Inject
+    protected RuntimeProperties runtimeProperties;
+
     @Override
     public DataNode createDataNode(DataNodeDescriptor nodeDescriptor) throws Exception {
 
@@ -73,6 +78,7 @@ public class DefaultDataNodeFactory implements DataNodeFactory {
         dataNode.setBatchTranslatorFactory(batchTranslatorFactory);
         dataNode.setSelectTranslatorFactory(selectTranslatorFactory);
         dataNode.setSqlTemplateProcessor(sqlTemplateProcessor);
+        dataNode.setMultiRowBatchSize(runtimeProperties.getInt(Constants.SERVER_MULTI_ROW_BATCH_SIZE_PROPERTY, 1));
 
         DataSource dataSource = dataSourceFactory.getDataSource(nodeDescriptor);
 
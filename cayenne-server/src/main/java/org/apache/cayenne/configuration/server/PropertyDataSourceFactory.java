@@ -70,11 +70,15 @@ public class PropertyDataSourceFactory implements DataSourceFactory {
 		long maxQueueWaitTime = properties.getLong(Constants.JDBC_MAX_QUEUE_WAIT_TIME,
 				UnmanagedPoolingDataSource.MAX_QUEUE_WAIT_DEFAULT);
 		String validationQuery = properties.get(Constants.JDBC_VALIDATION_QUERY_PROPERTY);
+		long validationIdleTime = properties.getLong(Constants.JDBC_VALIDATION_IDLE_TIME_PROPERTY, 0);
+		boolean threadAffinity = properties.getBoolean(Constants.JDBC_THREAD_AFFINITY_PROPERTY, false);
+		int statementCacheSize = properties.getInt(Constants.JDBC_STATEMENT_CACHE_SIZE_PROPERTY, 0);
 
 		Driver driver = objectFactory.newInstance(Driver.class, driverClass);
 		return DataSourceBuilder.url(url).driver(driver).userName(username).password(password)
 				.pool(minConnections, maxConnections).maxQueueWaitTime(maxQueueWaitTime)
-				.validationQuery(validationQuery).build();
+				.validationQuery(validationQuery).validationIdleTime(validationIdleTime)
+				.threadAffinity(threadAffinity).statementCacheSize(statementCacheSize).build();
 	}
 
 	protected int getIntProperty(String propertyName, String suffix, int defaultValue) {
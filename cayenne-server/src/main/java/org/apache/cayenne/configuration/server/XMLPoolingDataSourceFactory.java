@@ -66,13 +66,17 @@ public class XMLPoolingDataSourceFactory implements DataSourceFactory {
 
 		long maxQueueWaitTime = properties.getLong(Constants.JDBC_MAX_QUEUE_WAIT_TIME,
 				UnmanagedPoolingDataSource.MAX_QUEUE_WAIT_DEFAULT);
+		long validationIdleTime = properties.getLong(Constants.JDBC_VALIDATION_IDLE_TIME_PROPERTY, 0);
+		boolean threadAffinity = properties.getBoolean(Constants.JDBC_THREAD_AFFINITY_PROPERTY, false);
+		int statementCacheSize = properties.getInt(Constants.JDBC_STATEMENT_CACHE_SIZE_PROPERTY, 0);
 
 		Driver driver = objectFactory.newInstance(Driver.class, descriptor.getJdbcDriver());
 
 		return DataSourceBuilder.url(descriptor.getDataSourceUrl()).driver(driver).userName(descriptor.getUserName())
 				.password(descriptor.getPassword())
 				.pool(descriptor.getMinConnections(), descriptor.getMaxConnections())
-				.maxQueueWaitTime(maxQueueWaitTime).build();
+				.maxQueueWaitTime(maxQueueWaitTime).validationIdleTime(validationIdleTime)
+				.threadAffinity(threadAffinity).statementCacheSize(statementCacheSize).build();
 	}
 
 }
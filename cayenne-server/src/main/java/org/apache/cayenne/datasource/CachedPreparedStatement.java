@@ -0,0 +1,848 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.datasource;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.apache.cayenne.datasource.PreparedStatementCache.StatementKey;
+
+/**
+ * A {@link PreparedStatement} wrapper handed out by the
+ * {@link PreparedStatementCache}. Closing it returns the underlying statement
+ * to the cache after restoring statement settings changed by the caller.
+ * 
+ * @since 4.1
+ */
+class CachedPreparedStatement implements PreparedStatement {
+
+	private PoolAwareConnection owner;
+	private PreparedStatement statement;
+	private StatementKey key;
+	private PreparedStatementCache cache;
+	private int generation;
+
+	private boolean closed;
+	private boolean reusable;
+	private boolean batched;
+	private List<ResultSet> resultSets;
+
+	// original values of the settings modified by the caller, null if not
+	// modified
+	private Integer fetchSize;
+	private Integer fetchDirection;
+	private Long maxRows;
+	private Integer maxFieldSize;
+	private Integer queryTimeout;
+	private boolean escapeProcessingChanged;
+
+	CachedPreparedStatement(PoolAwareConnection owner, PreparedStatement statement, StatementKey key,
+			PreparedStatementCache cache, int generation) {
+		this.owner = owner;
+		this.statement = statement;
+		this.key = key;
+		this.cache = cache;
+		this.generation = generation;
+		this.reusable = true;
+	}
+
+	PreparedStatement getStatement() {
+		return statement;
+	}
+
+	private ResultSet track(ResultSet rs) {
+		if (rs != null) {
+			if (resultSets == null) {
+				resultSets = new ArrayList<>(2);
+			}
+			resultSets.add(rs);
+		}
+
+		return rs;
+	}
+
+	private SQLException failed(SQLException e) {
+		reusable = false;
+		return e;
+	}
+
+	/**
+	 * Brings the statement to the state it had when it was created. Returns
+	 * false if this is not possible.
+	 */
+	private boolean reset() {
+
+		if (!reusable) {
+			return false;
+		}
+
+		try {
+			if (resultSets != null) {
+				for (ResultSet rs : resultSets) {
+					rs.close();
+				}
+			}
+
+			statement.clearParameters();
+
+			if (batched) {
+				statement.clearBatch();
+			}
+
+			if (fetchSize != null) {
+				statement.setFetchSize(fetchSize);
+			}
+
+			if (fetchDirection != null) {
+				statement.setFetchDirection(fetchDirection);
+			}
+
+			if (maxRows != null) {
+				statement.setLargeMaxRows(maxRows);
+			}
+
+			if (maxFieldSize != null) {
+				statement.setMaxFieldSize(maxFieldSize);
+			}
+
+			if (queryTimeout != null) {
+				statement.setQueryTimeout(queryTimeout);
+			}
+
+			if (escapeProcessingChanged) {
+				statement.setEscapeProcessing(true);
+			}
+
+			statement.clearWarnings();
+			return true;
+		} catch (SQLException | UnsupportedOperationException e) {
+			return false;
+		}
+	}
+
+	private void checkOpen() throws SQLException {
+		if (closed) {
+			throw new SQLException("Statement is closed");
+		}
+	}
+
+	@Override
+	public void close() throws SQLException {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+		cache.release(key, statement, generation, reset());
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return closed;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		checkOpen();
+		return owner;
+	}
+
+	@Override
+	public ResultSet executeQuery() throws SQLException {
+		checkOpen();
+		try {
+			return track(statement.executeQuery());
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate() throws SQLException {
+		checkOpen();
+		try {
+			return statement.executeUpdate();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate() throws SQLException {
+		checkOpen();
+		try {
+			return statement.executeLargeUpdate();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public boolean execute() throws SQLException {
+		checkOpen();
+		try {
+			return statement.execute();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void addBatch() throws SQLException {
+		checkOpen();
+		batched = true;
+		statement.addBatch();
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException {
+		checkOpen();
+		try {
+			return statement.executeBatch();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public long[] executeLargeBatch() throws SQLException {
+		checkOpen();
+		try {
+			return statement.executeLargeBatch();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void clearBatch() throws SQLException {
+		checkOpen();
+		statement.clearBatch();
+		batched = false;
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException {
+		checkOpen();
+		return track(statement.getResultSet());
+	}
+
+	@Override
+	public ResultSet getGeneratedKeys() throws SQLException {
+		checkOpen();
+		return track(statement.getGeneratedKeys());
+	}
+
+	@Override
+	public int getUpdateCount() throws SQLException {
+		checkOpen();
+		return statement.getUpdateCount();
+	}
+
+	@Override
+	public long getLargeUpdateCount() throws SQLException {
+		checkOpen();
+		return statement.getLargeUpdateCount();
+	}
+
+	@Override
+	public boolean getMoreResults() throws SQLException {
+		checkOpen();
+		return statement.getMoreResults();
+	}
+
+	@Override
+	public boolean getMoreResults(int current) throws SQLException {
+		checkOpen();
+		return statement.getMoreResults(current);
+	}
+
+	@Override
+	public void clearParameters() throws SQLException {
+		checkOpen();
+		statement.clearParameters();
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException {
+		checkOpen();
+		return statement.getMetaData();
+	}
+
+	@Override
+	public ParameterMetaData getParameterMetaData() throws SQLException {
+		checkOpen();
+		return statement.getParameterMetaData();
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		checkOpen();
+		return statement.getFetchSize();
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		checkOpen();
+		if (fetchSize == null) {
+			fetchSize = statement.getFetchSize();
+		}
+		statement.setFetchSize(rows);
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException {
+		checkOpen();
+		return statement.getFetchDirection();
+	}
+
+	@Override
+	public void setFetchDirection(int direction) throws SQLException {
+		checkOpen();
+		if (fetchDirection == null) {
+			fetchDirection = statement.getFetchDirection();
+		}
+		statement.setFetchDirection(direction);
+	}
+
+	@Override
+	public int getMaxRows() throws SQLException {
+		checkOpen();
+		return statement.getMaxRows();
+	}
+
+	@Override
+	public void setMaxRows(int max) throws SQLException {
+		checkOpen();
+		if (maxRows == null) {
+			maxRows = (long) statement.getMaxRows();
+		}
+		statement.setMaxRows(max);
+	}
+
+	@Override
+	public long getLargeMaxRows() throws SQLException {
+		checkOpen();
+		return statement.getLargeMaxRows();
+	}
+
+	@Override
+	public void setLargeMaxRows(long max) throws SQLException {
+		checkOpen();
+		if (maxRows == null) {
+			maxRows = statement.getLargeMaxRows();
+		}
+		statement.setLargeMaxRows(max);
+	}
+
+	@Override
+	public int getMaxFieldSize() throws SQLException {
+		checkOpen();
+		return statement.getMaxFieldSize();
+	}
+
+	@Override
+	public void setMaxFieldSize(int max) throws SQLException {
+		checkOpen();
+		if (maxFieldSize == null) {
+			maxFieldSize = statement.getMaxFieldSize();
+		}
+		statement.setMaxFieldSize(max);
+	}
+
+	@Override
+	public int getQueryTimeout() throws SQLException {
+		checkOpen();
+		return statement.getQueryTimeout();
+	}
+
+	@Override
+	public void setQueryTimeout(int seconds) throws SQLException {
+		checkOpen();
+		if (queryTimeout == null) {
+			queryTimeout = statement.getQueryTimeout();
+		}
+		statement.setQueryTimeout(seconds);
+	}
+
+	@Override
+	public void setEscapeProcessing(boolean enable) throws SQLException {
+		checkOpen();
+		escapeProcessingChanged = true;
+		statement.setEscapeProcessing(enable);
+	}
+
+	@Override
+	public void setCursorName(String name) throws SQLException {
+		checkOpen();
+		// can't be reverted, so the statement should not be reused
+		reusable = false;
+		statement.setCursorName(name);
+	}
+
+	@Override
+	public void setPoolable(boolean poolable) throws SQLException {
+		checkOpen();
+		if (!poolable) {
+			reusable = false;
+		}
+		statement.setPoolable(poolable);
+	}
+
+	@Override
+	public boolean isPoolable() throws SQLException {
+		checkOpen();
+		return reusable;
+	}
+
+	@Override
+	public void closeOnCompletion() throws SQLException {
+		checkOpen();
+		reusable = false;
+		statement.closeOnCompletion();
+	}
+
+	@Override
+	public boolean isCloseOnCompletion() throws SQLException {
+		checkOpen();
+		return statement.isCloseOnCompletion();
+	}
+
+	@Override
+	public void cancel() throws SQLException {
+		checkOpen();
+		statement.cancel();
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		checkOpen();
+		return statement.getWarnings();
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		checkOpen();
+		statement.clearWarnings();
+	}
+
+	@Override
+	public int getResultSetConcurrency() throws SQLException {
+		checkOpen();
+		return statement.getResultSetConcurrency();
+	}
+
+	@Override
+	public int getResultSetType() throws SQLException {
+		checkOpen();
+		return statement.getResultSetType();
+	}
+
+	@Override
+	public int getResultSetHoldability() throws SQLException {
+		checkOpen();
+		return statement.getResultSetHoldability();
+	}
+
+	// plain java.sql.Statement methods that take SQL text are not cacheable
+	// and are passed through, marking the statement as non-reusable
+
+	@Override
+	public ResultSet executeQuery(String sql) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.executeQuery(sql);
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.executeUpdate(sql);
+	}
+
+	@Override
+	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.executeUpdate(sql, autoGeneratedKeys);
+	}
+
+	@Override
+	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.executeUpdate(sql, columnIndexes);
+	}
+
+	@Override
+	public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.executeUpdate(sql, columnNames);
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.executeLargeUpdate(sql);
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.executeLargeUpdate(sql, autoGeneratedKeys);
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.executeLargeUpdate(sql, columnIndexes);
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.executeLargeUpdate(sql, columnNames);
+	}
+
+	@Override
+	public boolean execute(String sql) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.execute(sql);
+	}
+
+	@Override
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.execute(sql, autoGeneratedKeys);
+	}
+
+	@Override
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.execute(sql, columnIndexes);
+	}
+
+	@Override
+	public boolean execute(String sql, String[] columnNames) throws SQLException {
+		checkOpen();
+		reusable = false;
+		return statement.execute(sql, columnNames);
+	}
+
+	@Override
+	public void addBatch(String sql) throws SQLException {
+		checkOpen();
+		reusable = false;
+		statement.addBatch(sql);
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType) throws SQLException {
+		statement.setNull(parameterIndex, sqlType);
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+		statement.setNull(parameterIndex, sqlType, typeName);
+	}
+
+	@Override
+	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+		statement.setBoolean(parameterIndex, x);
+	}
+
+	@Override
+	public void setByte(int parameterIndex, byte x) throws SQLException {
+		statement.setByte(parameterIndex, x);
+	}
+
+	@Override
+	public void setShort(int parameterIndex, short x) throws SQLException {
+		statement.setShort(parameterIndex, x);
+	}
+
+	@Override
+	public void setInt(int parameterIndex, int x) throws SQLException {
+		statement.setInt(parameterIndex, x);
+	}
+
+	@Override
+	public void setLong(int parameterIndex, long x) throws SQLException {
+		statement.setLong(parameterIndex, x);
+	}
+
+	@Override
+	public void setFloat(int parameterIndex, float x) throws SQLException {
+		statement.setFloat(parameterIndex, x);
+	}
+
+	@Override
+	public void setDouble(int parameterIndex, double x) throws SQLException {
+		statement.setDouble(parameterIndex, x);
+	}
+
+	@Override
+	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+		statement.setBigDecimal(parameterIndex, x);
+	}
+
+	@Override
+	public void setString(int parameterIndex, String x) throws SQLException {
+		statement.setString(parameterIndex, x);
+	}
+
+	@Override
+	public void setNString(int parameterIndex, String value) throws SQLException {
+		statement.setNString(parameterIndex, value);
+	}
+
+	@Override
+	public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+		statement.setBytes(parameterIndex, x);
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x) throws SQLException {
+		statement.setDate(parameterIndex, x);
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+		statement.setDate(parameterIndex, x, cal);
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x) throws SQLException {
+		statement.setTime(parameterIndex, x);
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+		statement.setTime(parameterIndex, x, cal);
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+		statement.setTimestamp(parameterIndex, x);
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+		statement.setTimestamp(parameterIndex, x, cal);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		statement.setAsciiStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+		statement.setAsciiStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+		statement.setAsciiStream(parameterIndex, x);
+	}
+
+	@Deprecated
+	@Override
+	public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		statement.setUnicodeStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		statement.setBinaryStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+		statement.setBinaryStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+		statement.setBinaryStream(parameterIndex, x);
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+		statement.setCharacterStream(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+		statement.setCharacterStream(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+		statement.setCharacterStream(parameterIndex, reader);
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+		statement.setNCharacterStream(parameterIndex, value, length);
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+		statement.setNCharacterStream(parameterIndex, value);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+		statement.setObject(parameterIndex, x, targetSqlType);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x) throws SQLException {
+		statement.setObject(parameterIndex, x);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+		statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+		statement.setObject(parameterIndex, x, targetSqlType);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength)
+			throws SQLException {
+		statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+	}
+
+	@Override
+	public void setRef(int parameterIndex, Ref x) throws SQLException {
+		statement.setRef(parameterIndex, x);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, Blob x) throws SQLException {
+		statement.setBlob(parameterIndex, x);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+		statement.setBlob(parameterIndex, inputStream, length);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+		statement.setBlob(parameterIndex, inputStream);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Clob x) throws SQLException {
+		statement.setClob(parameterIndex, x);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+		statement.setClob(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader) throws SQLException {
+		statement.setClob(parameterIndex, reader);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, NClob value) throws SQLException {
+		statement.setNClob(parameterIndex, value);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+		statement.setNClob(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+		statement.setNClob(parameterIndex, reader);
+	}
+
+	@Override
+	public void setArray(int parameterIndex, Array x) throws SQLException {
+		statement.setArray(parameterIndex, x);
+	}
+
+	@Override
+	public void setURL(int parameterIndex, URL x) throws SQLException {
+		statement.setURL(parameterIndex, x);
+	}
+
+	@Override
+	public void setRowId(int parameterIndex, RowId x) throws SQLException {
+		statement.setRowId(parameterIndex, x);
+	}
+
+	@Override
+	public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+		statement.setSQLXML(parameterIndex, xmlObject);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || statement.isWrapperFor(iface);
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		return iface.isInstance(this) ? iface.cast(this) : statement.unwrap(iface);
+	}
+}
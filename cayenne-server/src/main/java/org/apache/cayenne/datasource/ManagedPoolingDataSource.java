@@ -55,6 +55,15 @@ public class ManagedPoolingDataSource implements PoolingDataSource, ScopeEventLi
 		return dataSourceManager;
 	}
 
+	/**
+	 * Returns usage statistics of the underlying pool.
+	 * 
+	 * @since 4.1
+	 */
+	public PoolingDataSourceMetrics getMetrics() {
+		return dataSourceManager.getDataSource().getMetrics();
+	}
+
 	int poolSize() {
 		return dataSourceManager.getDataSource().poolSize();
 	}
@@ -37,6 +37,9 @@ import java.sql.Struct;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.cayenne.datasource.PreparedStatementCache.StatementKey;
 
 /**
  * A {@link Connection} wrapper that interacts with the
@@ -51,16 +54,120 @@ public class PoolAwareConnection implements Connection {
 	private Connection connection;
 	private String validationQuery;
 
+	// state used by the thread affinity mode of the parent pool
+	private final AtomicBoolean leased;
+	private final AtomicBoolean queued;
+	private volatile long lastReleased;
+
+	// null if statement caching is disabled
+	private PreparedStatementCache statementCache;
+
 	public PoolAwareConnection(UnmanagedPoolingDataSource parent, Connection connection, String validationQuery) {
+		this(parent, connection, validationQuery, null);
+	}
+
+	/**
+	 * Creates a connection wrapper that reuses PreparedStatements via the
+	 * provided cache. The cache may be null, disabling statement caching.
+	 * 
+	 * @since 4.1
+	 */
+	PoolAwareConnection(UnmanagedPoolingDataSource parent, Connection connection, String validationQuery,
+			PreparedStatementCache statementCache) {
 		this.parent = parent;
 		this.connection = connection;
 		this.validationQuery = validationQuery;
+		this.statementCache = statementCache;
+		this.leased = new AtomicBoolean(true);
+		this.queued = new AtomicBoolean(false);
+		this.lastReleased = System.currentTimeMillis();
 	}
 
 	Connection getConnection() {
 		return connection;
 	}
 
+	/**
+	 * Atomically marks this connection as checked out. Returns false if the
+	 * connection is already in use by someone else or was retired.
+	 * 
+	 * @since 4.1
+	 */
+	boolean tryLease() {
+		return leased.compareAndSet(false, true);
+	}
+
+	/**
+	 * Returns true if the connection is checked out or retired.
+	 * 
+	 * @since 4.1
+	 */
+	boolean isLeased() {
+		return leased.get();
+	}
+
+	/**
+	 * Atomically marks this connection as present in the pool queue. Returns
+	 * false if it is already there, e.g. left in the queue after it was
+	 * checked out via the thread affinity fast path.
+	 * 
+	 * @since 4.1
+	 */
+	boolean markQueued() {
+		return queued.compareAndSet(false, true);
+	}
+
+	/**
+	 * Marks this connection as taken from the pool queue.
+	 * 
+	 * @since 4.1
+	 */
+	void unmarkQueued() {
+		queued.set(false);
+	}
+
+	/**
+	 * Marks this connection as available and records the time of the
+	 * release.
+	 * 
+	 * @since 4.1
+	 */
+	void release() {
+		lastReleased = System.currentTimeMillis();
+		leased.set(false);
+	}
+
+	/**
+	 * Returns the time in milliseconds when this connection was last returned
+	 * to the pool.
+	 * 
+	 * @since 4.1
+	 */
+	long getLastReleased() {
+		return lastReleased;
+	}
+
+	/**
+	 * Closes all cached statements of this connection. Called when the
+	 * connection is retired from the pool.
+	 * 
+	 * @since 4.1
+	 */
+	void closeStatementCache() {
+		if (statementCache != null) {
+			statementCache.close();
+		}
+	}
+
+	private PreparedStatement prepareCached(StatementKey key) throws SQLException {
+		try {
+			return statementCache.prepare(this, connection, key);
+		} catch (SQLException sqlEx) {
+			recover(sqlEx);
+			return statementCache.prepare(this, connection, key);
+		}
+	}
+
 	boolean validate() {
 
 		if (validationQuery == null) {
@@ -87,6 +194,11 @@ public class PoolAwareConnection implements Connection {
 
 	void recover(SQLException reconnectCause) throws SQLException {
 
+		// statements of the old connection are unusable
+		if (statementCache != null) {
+			statementCache.clear();
+		}
+
 		try {
 			connection.close();
 		} catch (SQLException e) {
@@ -253,6 +365,11 @@ public class PoolAwareConnection implements Connection {
 
 	@Override
 	public PreparedStatement prepareStatement(String sql) throws SQLException {
+		if (statementCache != null) {
+			return prepareCached(new StatementKey(sql, StatementKey.UNSPECIFIED, StatementKey.UNSPECIFIED,
+					StatementKey.UNSPECIFIED));
+		}
+
 		try {
 			return connection.prepareStatement(sql);
 		} catch (SQLException sqlEx) {
@@ -264,6 +381,10 @@ public class PoolAwareConnection implements Connection {
 	@Override
 	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
 			throws SQLException {
+		if (statementCache != null) {
+			return prepareCached(new StatementKey(sql, resultSetType, resultSetConcurrency, StatementKey.UNSPECIFIED));
+		}
+
 		try {
 			return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
 		} catch (SQLException sqlEx) {
@@ -404,6 +525,10 @@ public class PoolAwareConnection implements Connection {
 
 	@Override
 	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+		if (statementCache != null) {
+			return prepareCached(new StatementKey(sql, StatementKey.UNSPECIFIED, StatementKey.UNSPECIFIED,
+					autoGeneratedKeys));
+		}
 
 		try {
 			return connection.prepareStatement(sql, autoGeneratedKeys);
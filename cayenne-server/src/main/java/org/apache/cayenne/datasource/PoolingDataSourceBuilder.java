@@ -63,6 +63,42 @@ public class PoolingDataSourceBuilder {
 		return this;
 	}
 
+	/**
+	 * Sets a minimal time in milliseconds a connection should stay idle in the
+	 * pool before it is validated again on checkout. The default is zero,
+	 * meaning connections are validated on every checkout.
+	 * 
+	 * @since 4.1
+	 */
+	public PoolingDataSourceBuilder validationIdleTime(long validationIdleTime) {
+		poolParameters.setValidationIdleTime(validationIdleTime);
+		return this;
+	}
+
+	/**
+	 * Enables a pool mode where each thread is handed back the connection it
+	 * used last if it is still idle, bypassing the shared pool queue.
+	 * 
+	 * @since 4.1
+	 */
+	public PoolingDataSourceBuilder threadAffinity(boolean threadAffinity) {
+		poolParameters.setThreadAffinity(threadAffinity);
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of PreparedStatements cached per pooled
+	 * connection. Statements are keyed by SQL text and result set options and
+	 * evicted in LRU order. The default is zero, meaning statement caching is
+	 * disabled.
+	 * 
+	 * @since 4.1
+	 */
+	public PoolingDataSourceBuilder statementCacheSize(int statementCacheSize) {
+		poolParameters.setStatementCacheSize(statementCacheSize);
+		return this;
+	}
+
 	/**
 	 * Builds a pooling DataSource that needs to be explicitly closed by the
 	 * caller when no longer in use.
@@ -84,6 +120,16 @@ public class PoolingDataSourceBuilder {
 			throw new CayenneRuntimeException("Minimum number of connections can not be bigger then maximum.");
 		}
 
+		if (poolParameters.getValidationIdleTime() < 0) {
+			throw new CayenneRuntimeException("Validation idle time can not be negative (%d)."
+					, poolParameters.getValidationIdleTime());
+		}
+
+		if (poolParameters.getStatementCacheSize() < 0) {
+			throw new CayenneRuntimeException("Statement cache size can not be negative (%d)."
+					, poolParameters.getStatementCacheSize());
+		}
+
 		DataSource nonPooling = nonPoolingBuilder.build();
 		return buildManaged(buildPooling(nonPooling));
 	}
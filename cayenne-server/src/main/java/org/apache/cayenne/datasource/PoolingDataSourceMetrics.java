@@ -0,0 +1,164 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.datasource;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects usage statistics of a single {@link UnmanagedPoolingDataSource}.
+ * 
+ * @since 4.1
+ */
+public class PoolingDataSourceMetrics implements PoolingDataSourceMetricsMXBean {
+
+	private UnmanagedPoolingDataSource dataSource;
+
+	private LongAdder checkouts;
+	private LongAdder fastPathCheckouts;
+	private LongAdder waits;
+	private LongAdder waitNanos;
+	private LongAdder timeouts;
+	private LongAdder validations;
+	private LongAdder validationFailures;
+	private LongAdder validationNanos;
+	private LongAdder statementCacheHits;
+	private LongAdder statementCacheMisses;
+	private LongAdder statementCacheEvictions;
+
+	PoolingDataSourceMetrics(UnmanagedPoolingDataSource dataSource) {
+		this.dataSource = dataSource;
+		this.checkouts = new LongAdder();
+		this.fastPathCheckouts = new LongAdder();
+		this.waits = new LongAdder();
+		this.waitNanos = new LongAdder();
+		this.timeouts = new LongAdder();
+		this.validations = new LongAdder();
+		this.validationFailures = new LongAdder();
+		this.validationNanos = new LongAdder();
+		this.statementCacheHits = new LongAdder();
+		this.statementCacheMisses = new LongAdder();
+		this.statementCacheEvictions = new LongAdder();
+	}
+
+	void checkedOut(boolean fastPath) {
+		checkouts.increment();
+		if (fastPath) {
+			fastPathCheckouts.increment();
+		}
+	}
+
+	void waited(long nanos, boolean timedOut) {
+		waits.increment();
+		waitNanos.add(nanos);
+		if (timedOut) {
+			timeouts.increment();
+		}
+	}
+
+	void validated(long nanos, boolean valid) {
+		validations.increment();
+		validationNanos.add(nanos);
+		if (!valid) {
+			validationFailures.increment();
+		}
+	}
+
+	void statementCacheHit() {
+		statementCacheHits.increment();
+	}
+
+	void statementCacheMiss() {
+		statementCacheMisses.increment();
+	}
+
+	void statementCacheEviction() {
+		statementCacheEvictions.increment();
+	}
+
+	@Override
+	public int getPoolSize() {
+		return dataSource.poolSize();
+	}
+
+	@Override
+	public int getActiveConnections() {
+		return Math.max(0, dataSource.poolSize() - dataSource.availableSize());
+	}
+
+	@Override
+	public int getIdleConnections() {
+		return dataSource.availableSize();
+	}
+
+	@Override
+	public long getCheckoutCount() {
+		return checkouts.sum();
+	}
+
+	@Override
+	public long getFastPathCheckoutCount() {
+		return fastPathCheckouts.sum();
+	}
+
+	@Override
+	public long getWaitCount() {
+		return waits.sum();
+	}
+
+	@Override
+	public long getTotalWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+	}
+
+	@Override
+	public long getTimeoutCount() {
+		return timeouts.sum();
+	}
+
+	@Override
+	public long getValidationCount() {
+		return validations.sum();
+	}
+
+	@Override
+	public long getValidationFailureCount() {
+		return validationFailures.sum();
+	}
+
+	@Override
+	public long getTotalValidationTime() {
+		return TimeUnit.NANOSECONDS.toMillis(validationNanos.sum());
+	}
+
+	@Override
+	public long getStatementCacheHitCount() {
+		return statementCacheHits.sum();
+	}
+
+	@Override
+	public long getStatementCacheMissCount() {
+		return statementCacheMisses.sum();
+	}
+
+	@Override
+	public long getStatementCacheEvictionCount() {
+		return statementCacheEvictions.sum();
+	}
+}
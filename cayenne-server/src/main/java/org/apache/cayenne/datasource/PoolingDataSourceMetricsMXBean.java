@@ -0,0 +1,106 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.datasource;
+
+/**
+ * A JMX-compatible view of {@link UnmanagedPoolingDataSource} usage statistics.
+ * Can be registered with an MBeanServer by the application.
+ * 
+ * @since 4.1
+ */
+public interface PoolingDataSourceMetricsMXBean {
+
+	/**
+	 * Returns the total number of connections in the pool, both idle and in
+	 * use.
+	 */
+	int getPoolSize();
+
+	/**
+	 * Returns the number of connections currently checked out of the pool.
+	 */
+	int getActiveConnections();
+
+	/**
+	 * Returns the number of connections currently idle in the pool.
+	 */
+	int getIdleConnections();
+
+	/**
+	 * Returns the total number of successful connection checkouts.
+	 */
+	long getCheckoutCount();
+
+	/**
+	 * Returns the number of checkouts served from the thread affinity fast
+	 * path.
+	 */
+	long getFastPathCheckoutCount();
+
+	/**
+	 * Returns the number of checkouts that had to wait for a connection to be
+	 * returned to the pool.
+	 */
+	long getWaitCount();
+
+	/**
+	 * Returns the total time in milliseconds spent waiting for connections.
+	 */
+	long getTotalWaitTime();
+
+	/**
+	 * Returns the number of checkouts that timed out.
+	 */
+	long getTimeoutCount();
+
+	/**
+	 * Returns the number of executed validation queries.
+	 */
+	long getValidationCount();
+
+	/**
+	 * Returns the number of connections that failed validation and were
+	 * retired.
+	 */
+	long getValidationFailureCount();
+
+	/**
+	 * Returns the total time in milliseconds spent running validation queries.
+	 */
+	long getTotalValidationTime();
+
+	/**
+	 * Returns the number of PreparedStatements served from per-connection
+	 * statement caches.
+	 */
+	long getStatementCacheHitCount();
+
+	/**
+	 * Returns the number of PreparedStatements that had to be prepared
+	 * because they were not found in a statement cache. Always zero if
+	 * statement caching is disabled.
+	 */
+	long getStatementCacheMissCount();
+
+	/**
+	 * Returns the number of PreparedStatements closed because a statement
+	 * cache reached its capacity.
+	 */
+	long getStatementCacheEvictionCount();
+}
@@ -29,6 +29,9 @@ public class PoolingDataSourceParameters {
 	private int minConnections;
 	private int maxConnections;
 	private long maxQueueWaitTime;
+	private long validationIdleTime;
+	private boolean threadAffinity;
+	private int statementCacheSize;
 
 	public int getMinConnections() {
 		return minConnections;
@@ -61,4 +64,56 @@ public class PoolingDataSourceParameters {
 	public void setValidationQuery(String validationQuery) {
 		this.validationQuery = validationQuery;
 	}
+
+	/**
+	 * Returns a minimal time in milliseconds a connection should stay idle in
+	 * the pool before it is validated again on checkout. Zero means that
+	 * connections are validated on every checkout.
+	 * 
+	 * @since 4.1
+	 */
+	public long getValidationIdleTime() {
+		return validationIdleTime;
+	}
+
+	/**
+	 * @since 4.1
+	 */
+	public void setValidationIdleTime(long validationIdleTime) {
+		this.validationIdleTime = validationIdleTime;
+	}
+
+	/**
+	 * Returns whether the pool should try to hand a thread the same connection
+	 * it used last, without going through the shared pool queue.
+	 * 
+	 * @since 4.1
+	 */
+	public boolean isThreadAffinity() {
+		return threadAffinity;
+	}
+
+	/**
+	 * @since 4.1
+	 */
+	public void setThreadAffinity(boolean threadAffinity) {
+		this.threadAffinity = threadAffinity;
+	}
+
+	/**
+	 * Returns the maximum number of PreparedStatements cached per pooled
+	 * connection. Zero means statement caching is disabled.
+	 * 
+	 * @since 4.1
+	 */
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	/**
+	 * @since 4.1
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
 }
@@ -0,0 +1,232 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * A per-connection LRU cache of {@link PreparedStatement} objects, keyed by
+ * SQL text and result set options. Statements are handed out to callers
+ * wrapped in a {@link CachedPreparedStatement}, whose close() method returns
+ * the underlying statement to the cache instead of closing it. While a
+ * statement is checked out it is not present in the cache, so concurrent use
+ * of the same SQL on a single connection results in separate statements.
+ * 
+ * @since 4.1
+ */
+class PreparedStatementCache {
+
+	private int capacity;
+	private PoolingDataSourceMetrics metrics;
+	private LinkedHashMap<StatementKey, PreparedStatement> statements;
+
+	// incremented every time the cache is cleared, so that statements created
+	// for a previous physical connection are not returned into the cache
+	private int generation;
+	private boolean closed;
+
+	PreparedStatementCache(int capacity, PoolingDataSourceMetrics metrics) {
+
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Non-positive statement cache capacity: " + capacity);
+		}
+
+		this.capacity = capacity;
+		this.metrics = metrics;
+		this.statements = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Returns a statement matching the key, either taken from the cache or
+	 * freshly prepared on the provided connection.
+	 */
+	PreparedStatement prepare(PoolAwareConnection owner, Connection connection, StatementKey key)
+			throws SQLException {
+
+		PreparedStatement statement;
+		int generation;
+
+		synchronized (this) {
+			statement = statements.remove(key);
+			generation = this.generation;
+		}
+
+		if (statement != null) {
+			if (metrics != null) {
+				metrics.statementCacheHit();
+			}
+		} else {
+			if (metrics != null) {
+				metrics.statementCacheMiss();
+			}
+
+			statement = key.prepare(connection);
+		}
+
+		return new CachedPreparedStatement(owner, statement, key, this, generation);
+	}
+
+	/**
+	 * Returns a statement that was released by the caller back to the cache,
+	 * evicting the least recently used statement if the cache is full.
+	 */
+	void release(StatementKey key, PreparedStatement statement, int generation, boolean reusable) {
+
+		PreparedStatement evicted = null;
+
+		synchronized (this) {
+
+			if (!reusable || closed || generation != this.generation || statements.containsKey(key)) {
+				evicted = statement;
+			} else {
+				statements.put(key, statement);
+
+				if (statements.size() > capacity) {
+					Iterator<PreparedStatement> it = statements.values().iterator();
+					evicted = it.next();
+					it.remove();
+
+					if (metrics != null) {
+						metrics.statementCacheEviction();
+					}
+				}
+			}
+		}
+
+		if (evicted != null) {
+			closeQuietly(evicted);
+		}
+	}
+
+	/**
+	 * Closes all cached statements. Statements currently checked out will be
+	 * closed when released by the caller.
+	 */
+	void clear() {
+
+		Collection<PreparedStatement> toClose;
+
+		synchronized (this) {
+			toClose = new ArrayList<>(statements.values());
+			statements.clear();
+			generation++;
+		}
+
+		for (PreparedStatement statement : toClose) {
+			closeQuietly(statement);
+		}
+	}
+
+	/**
+	 * Closes all cached statements and stops caching any statements released
+	 * afterwards.
+	 */
+	void close() {
+		synchronized (this) {
+			closed = true;
+		}
+
+		clear();
+	}
+
+	synchronized int size() {
+		return statements.size();
+	}
+
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			// ignore, the statement is being discarded anyways
+		}
+	}
+
+	/**
+	 * A cache key combining SQL text with the options a statement was created
+	 * with.
+	 */
+	static final class StatementKey {
+
+		static final int UNSPECIFIED = -1;
+
+		private final String sql;
+		private final int resultSetType;
+		private final int resultSetConcurrency;
+		private final int autoGeneratedKeys;
+		private final int hashCode;
+
+		StatementKey(String sql, int resultSetType, int resultSetConcurrency, int autoGeneratedKeys) {
+			this.sql = Objects.requireNonNull(sql);
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+			this.autoGeneratedKeys = autoGeneratedKeys;
+
+			int hash = sql.hashCode();
+			hash = 31 * hash + resultSetType;
+			hash = 31 * hash + resultSetConcurrency;
+			hash = 31 * hash + autoGeneratedKeys;
+			this.hashCode = hash;
+		}
+
+		PreparedStatement prepare(Connection connection) throws SQLException {
+			if (autoGeneratedKeys != UNSPECIFIED) {
+				return connection.prepareStatement(sql, autoGeneratedKeys);
+			}
+
+			if (resultSetType != UNSPECIFIED) {
+				return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+			}
+
+			return connection.prepareStatement(sql);
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+
+			if (!(object instanceof StatementKey)) {
+				return false;
+			}
+
+			StatementKey key = (StatementKey) object;
+			return hashCode == key.hashCode && resultSetType == key.resultSetType
+					&& resultSetConcurrency == key.resultSetConcurrency && autoGeneratedKeys == key.autoGeneratedKeys
+					&& sql.equals(key.sql);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public String toString() {
+			return sql;
+		}
+	}
+}
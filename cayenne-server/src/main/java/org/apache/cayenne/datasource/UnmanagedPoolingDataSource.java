@@ -29,6 +29,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
@@ -101,6 +102,13 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 	private int minConnections;
 	private int maxConnections;
 	private String validationQuery;
+	private long validationIdleTime;
+	private int statementCacheSize;
+
+	private boolean threadAffinity;
+	private ThreadLocal<PoolAwareConnection> lastUsedConnection;
+	private AtomicInteger waitingThreads;
+	private PoolingDataSourceMetrics metrics;
 
 	static int maxIdleConnections(int min, int max) {
 		return min == max ? min : min + (int) Math.ceil((max - min) / 2d);
@@ -128,6 +136,12 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 		this.nonPoolingDataSource = nonPoolingDataSource;
 		this.maxQueueWaitTime = parameters.getMaxQueueWaitTime();
 		this.validationQuery = parameters.getValidationQuery();
+		this.validationIdleTime = parameters.getValidationIdleTime();
+		this.threadAffinity = parameters.isThreadAffinity();
+		this.statementCacheSize = parameters.getStatementCacheSize();
+		this.lastUsedConnection = new ThreadLocal<>();
+		this.waitingThreads = new AtomicInteger();
+		this.metrics = new PoolingDataSourceMetrics(this);
 		this.minConnections = minConnections;
 		this.maxConnections = maxConnections;
 		this.pool = new ConcurrentHashMap<PoolAwareConnection, Object>((int) (maxConnections / 0.75));
@@ -153,7 +167,21 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 	}
 
 	int availableSize() {
-		return available.size();
+
+		if (!threadAffinity) {
+			return available.size();
+		}
+
+		// skip connections left in the queue after the affinity fast path
+		// checked them out
+		int size = 0;
+		for (PoolAwareConnection c : available) {
+			if (!c.isLeased()) {
+				size++;
+			}
+		}
+
+		return size;
 	}
 
 	int canExpandSize() {
@@ -181,7 +209,8 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 		// do not grow or shrink abruptly ... open or close 1 connection on
 		// each call
 
-		if (available.size() < minConnections) {
+		int availableSize = availableSize();
+		if (availableSize < minConnections) {
 
 			try {
 				PoolAwareConnection c = createUnchecked();
@@ -192,7 +221,7 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 				LOGGER.info("Error creating new connection when managing connection pool, ignoring", e);
 			}
 
-		} else if (available.size() > maxIdleConnections) {
+		} else if (availableSize > maxIdleConnections) {
 
 			PoolAwareConnection c = uncheckNonBlocking(false);
 			if (c != null) {
@@ -207,10 +236,17 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 	 * be an unchecked connection.
 	 */
 	void retire(PoolAwareConnection connection) {
+
+		// make sure an idle connection can't be picked by the thread affinity
+		// fast path anymore
+		connection.tryLease();
+
 		pool.remove(connection);
 
 		poolCap.release();
 
+		connection.closeStatementCache();
+
 		try {
 			connection.getConnection().close();
 		} catch (SQLException e) {
@@ -226,6 +262,15 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 
 		// TODO: rollback any in-process tx?
 
+		connection.release();
+
+		// in the thread affinity mode the connection may still be in the queue
+		// if it was checked out via the fast path. It is available again as
+		// soon as it is released, so it must not be queued twice
+		if (threadAffinity && !connection.markQueued()) {
+			return;
+		}
+
 		// the queue may overflow potentially and we won't be able to add the
 		// object
 		if (!available.offer(connection)) {
@@ -234,31 +279,130 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 	}
 
 	PoolAwareConnection uncheckNonBlocking(boolean validate) {
-		PoolAwareConnection c = available.poll();
+		PoolAwareConnection c = pollAvailable();
 		return validate ? validateUnchecked(c) : c;
 	}
 
 	PoolAwareConnection uncheckBlocking(boolean validate) {
+
+		long t0 = System.nanoTime();
+		long deadline = t0 + TimeUnit.MILLISECONDS.toNanos(maxQueueWaitTime);
+
 		PoolAwareConnection c;
+		waitingThreads.incrementAndGet();
 		try {
-			c = available.poll(maxQueueWaitTime, TimeUnit.MILLISECONDS);
+			do {
+				c = available.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			} while (c != null && !leaseQueued(c));
 		} catch (InterruptedException e) {
-			return null;
+			c = null;
+		} finally {
+			waitingThreads.decrementAndGet();
 		}
 
+		metrics.waited(System.nanoTime() - t0, c == null);
 		return validate ? validateUnchecked(c) : c;
 	}
 
-	PoolAwareConnection validateUnchecked(PoolAwareConnection c) {
+	/**
+	 * Returns a connection last used by the current thread if it is still
+	 * idle. The connection is claimed with a single CAS, without taking it
+	 * from the pool queue. Its queue entry is skipped by whoever polls it
+	 * next. To keep the queue order fair, the fast path is not taken while
+	 * other threads are waiting for a connection.
+	 */
+	PoolAwareConnection uncheckAffine() {
 
-		if (c == null || c.validate()) {
+		PoolAwareConnection c = lastUsedConnection.get();
+		if (c == null || waitingThreads.get() > 0) {
+			return null;
+		}
+
+		// the connection is in use by another thread or was retired
+		if (!c.tryLease()) {
+			lastUsedConnection.remove();
+			return null;
+		}
+
+		if (isValid(c)) {
 			return c;
 		}
 
-		// this will recursively validate all connections that exist in the pool
-		// until a valid one is found or a pool is exhausted
+		lastUsedConnection.remove();
 		retire(c);
-		return validateUnchecked(available.poll());
+		return null;
+	}
+
+	PoolAwareConnection validateUnchecked(PoolAwareConnection c) {
+
+		// this will validate connections that exist in the pool until a valid
+		// one is found or a pool is exhausted
+		while (c != null && !isValid(c)) {
+			retire(c);
+			c = pollAvailable();
+		}
+
+		return c;
+	}
+
+	boolean isValid(PoolAwareConnection c) {
+
+		// recently used connections are assumed to be valid
+		if (validationIdleTime > 0 && System.currentTimeMillis() - c.getLastReleased() < validationIdleTime) {
+			return true;
+		}
+
+		if (validationQuery == null) {
+			return c.validate();
+		}
+
+		long t0 = System.nanoTime();
+		boolean valid = c.validate();
+		metrics.validated(System.nanoTime() - t0, valid);
+		return valid;
+	}
+
+	/**
+	 * Takes the next connection from the pool queue without blocking.
+	 */
+	private PoolAwareConnection pollAvailable() {
+		PoolAwareConnection c;
+		do {
+			c = available.poll();
+		} while (c != null && !leaseQueued(c));
+
+		return c;
+	}
+
+	/**
+	 * Claims a connection taken from the queue. In the thread affinity mode
+	 * the connection may have been concurrently picked via the fast path, and
+	 * such connection must be skipped.
+	 */
+	private boolean leaseQueued(PoolAwareConnection c) {
+
+		if (!threadAffinity) {
+			return true;
+		}
+
+		// must be unmarked before leasing, so that a concurrent release of a
+		// connection checked out via the fast path puts it back in the queue
+		c.unmarkQueued();
+		return c.tryLease();
+	}
+
+	/**
+	 * Remembers a connection handed out to a caller, so that the same thread
+	 * could reuse it after it is returned to the pool.
+	 */
+	private Connection checkedOut(PoolAwareConnection c, boolean fastPath) throws SQLException {
+
+		if (threadAffinity) {
+			lastUsedConnection.set(c);
+		}
+
+		metrics.checkedOut(fastPath);
+		return resetState(c);
 	}
 
 	PoolAwareConnection createUnchecked() throws SQLException {
@@ -289,7 +433,10 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 	}
 
 	PoolAwareConnection createWrapped() throws SQLException {
-		return new PoolAwareConnection(this, createUnwrapped(), validationQuery);
+		PreparedStatementCache statementCache = statementCacheSize > 0
+				? new PreparedStatementCache(statementCacheSize, metrics)
+				: null;
+		return new PoolAwareConnection(this, createUnwrapped(), validationQuery, statementCache);
 	}
 
 	/**
@@ -323,25 +470,33 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 	public Connection getConnection() throws SQLException {
 
 		// strategy for getting a connection -
+		// 0. reuse a connection last used by this thread (if enabled)
 		// 1. quick peek for available connections
 		// 2. create new one
 		// 3. wait for a user to return connection
 
 		PoolAwareConnection c;
 
+		if (threadAffinity) {
+			c = uncheckAffine();
+			if (c != null) {
+				return checkedOut(c, true);
+			}
+		}
+
 		c = uncheckNonBlocking(true);
 		if (c != null) {
-			return resetState(c);
+			return checkedOut(c, false);
 		}
 
 		c = createUnchecked();
 		if (c != null) {
-			return resetState(c);
+			return checkedOut(c, false);
 		}
 
 		c = uncheckBlocking(true);
 		if (c != null) {
-			return resetState(c);
+			return checkedOut(c, false);
 		}
 
 		int poolSize = poolSize();
@@ -393,6 +548,15 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 		return nonPoolingDataSource.getParentLogger();
 	}
 
+	/**
+	 * Returns usage statistics of this pool.
+	 * 
+	 * @since 4.1
+	 */
+	public PoolingDataSourceMetrics getMetrics() {
+		return metrics;
+	}
+
 	String getValidationQuery() {
 		return validationQuery;
 	}
@@ -412,4 +576,12 @@ public class UnmanagedPoolingDataSource implements PoolingDataSource {
 	int getMaxConnections() {
 		return maxConnections;
 	}
+
+	long getValidationIdleTime() {
+		return validationIdleTime;
+	}
+
+	boolean isThreadAffinity() {
+		return threadAffinity;
+	}
 }
@@ -22,6 +22,7 @@ package org.apache.cayenne.dba;
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.translator.ParameterBinding;
+import org.apache.cayenne.access.translator.batch.UpsertBatchTranslator;
 import org.apache.cayenne.access.translator.ejbql.EJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
@@ -36,6 +37,7 @@ import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
 import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.query.UpsertBatchQuery;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -115,6 +117,14 @@ public class AutoAdapter implements DbAdapter {
 		return getAdapter().getQualifierTranslator(queryAssembler);
 	}
 
+	/**
+	 * @since 4.1
+	 */
+	@Override
+	public UpsertBatchTranslator getUpsertTranslator(UpsertBatchQuery query) {
+		return getAdapter().getUpsertTranslator(query);
+	}
+
 	@Override
 	public SQLAction getAction(Query query, DataNode node) {
 		return getAdapter().getAction(query, node);
@@ -135,6 +145,38 @@ public class AutoAdapter implements DbAdapter {
 		return getAdapter().supportsGeneratedKeys();
 	}
 
+	/**
+	 * @since 4.1
+	 */
+	@Override
+	public boolean supportsGeneratedKeysForBatchInserts() {
+		return getAdapter().supportsGeneratedKeysForBatchInserts();
+	}
+
+	/**
+	 * @since 4.1
+	 */
+	@Override
+	public boolean supportsInListPadding() {
+		return getAdapter().supportsInListPadding();
+	}
+
+	/**
+	 * @since 4.1
+	 */
+	@Override
+	public boolean supportsInListArrayBinding() {
+		return getAdapter().supportsInListArrayBinding();
+	}
+
+	/**
+	 * @since 4.1
+	 */
+	@Override
+	public boolean supportsMultiRowInsert() {
+		return getAdapter().supportsMultiRowInsert();
+	}
+
 	@Override
 	public boolean supportsBatchUpdates() {
 		return getAdapter().supportsBatchUpdates();
@@ -20,6 +20,7 @@ package org.apache.cayenne.dba;
 
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.translator.ParameterBinding;
+import org.apache.cayenne.access.translator.batch.UpsertBatchTranslator;
 import org.apache.cayenne.access.translator.ejbql.EJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
@@ -32,6 +33,7 @@ import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
 import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.query.UpsertBatchQuery;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -62,6 +64,17 @@ public interface DbAdapter {
 
 	QualifierTranslator getQualifierTranslator(QueryAssembler queryAssembler);
 
+	/**
+	 * Returns a translator of an "insert or update" batch to the SQL dialect of
+	 * the target database. By default returns a translator that generates a
+	 * standard SQL MERGE statement.
+	 *
+	 * @since 4.1
+	 */
+	default UpsertBatchTranslator getUpsertTranslator(UpsertBatchQuery query) {
+		return new UpsertBatchTranslator(query, this);
+	}
+
 	/**
 	 * Returns an instance of SQLAction that should handle the query.
 	 *
@@ -92,6 +105,59 @@ public interface DbAdapter {
 	 */
 	boolean supportsGeneratedKeys();
 
+	/**
+	 * Returns true if the target database and its JDBC driver can return
+	 * generated keys for all rows of a statement executed via
+	 * {@link java.sql.Statement#executeBatch()}, in the order the rows were
+	 * added to the batch. If this returns false, inserts into tables with
+	 * generated PKs are executed one row at a time. Returns false unless
+	 * overridden.
+	 *
+	 * @since 4.1
+	 */
+	default boolean supportsGeneratedKeysForBatchInserts() {
+		return false;
+	}
+
+	/**
+	 * Returns true if IN lists in generated SQL should be padded up to a
+	 * limited set of sizes by repeating the last value. This keeps the number
+	 * of distinct statements small, so that they can be reused by the database
+	 * statement cache and the connection pool statement cache. Returns false
+	 * unless overridden.
+	 *
+	 * @since 4.1
+	 */
+	default boolean supportsInListPadding() {
+		return false;
+	}
+
+	/**
+	 * Returns true if the target database can match a single column against a
+	 * JDBC array bound as a single statement parameter, i.e. translate
+	 * <code>column IN (?, ?, ...)</code> as <code>column = ANY (?)</code>.
+	 * Returns false unless overridden.
+	 *
+	 * @since 4.1
+	 */
+	default boolean supportsInListArrayBinding() {
+		return false;
+	}
+
+	/**
+	 * Returns true if the target database can insert multiple rows with a
+	 * single INSERT statement with a "VALUES (...), (...), ..." list. If so,
+	 * batches of inserts and upserts that don't need generated keys are sent
+	 * as multi-row statements, with the number of rows per statement defined
+	 * by {@link org.apache.cayenne.access.DataNode#getMultiRowBatchSize()}.
+	 * Returns false unless overridden.
+	 *
+	 * @since 4.1
+	 */
+	default boolean supportsMultiRowInsert() {
+		return false;
+	}
+
 	/**
 	 * Returns <code>true</code> if the target database supports batch updates.
 	 */
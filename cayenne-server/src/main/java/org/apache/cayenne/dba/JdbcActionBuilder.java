@@ -21,12 +21,14 @@ package org.apache.cayenne.dba;
 
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.jdbc.BatchAction;
+import org.apache.cayenne.access.jdbc.BulkAction;
 import org.apache.cayenne.access.jdbc.EJBQLAction;
 import org.apache.cayenne.access.jdbc.ProcedureAction;
 import org.apache.cayenne.access.jdbc.SQLTemplateAction;
 import org.apache.cayenne.access.jdbc.SelectAction;
 import org.apache.cayenne.query.BatchQuery;
 import org.apache.cayenne.query.EJBQLQuery;
+import org.apache.cayenne.query.ObjectBulkQuery;
 import org.apache.cayenne.query.ProcedureQuery;
 import org.apache.cayenne.query.SQLAction;
 import org.apache.cayenne.query.SQLActionVisitor;
@@ -83,4 +85,12 @@ public class JdbcActionBuilder implements SQLActionVisitor {
     public SQLAction ejbqlAction(EJBQLQuery query) {
         return new EJBQLAction(query, this, dataNode);
     }
+
+    /**
+     * @since 4.1
+     */
+    @Override
+    public SQLAction bulkAction(ObjectBulkQuery<?, ?> query) {
+        return new BulkAction(query, dataNode);
+    }
 }
@@ -23,6 +23,7 @@ import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.translator.ParameterBinding;
 import org.apache.cayenne.access.translator.batch.BatchTranslatorFactory;
+import org.apache.cayenne.access.translator.batch.UpsertBatchTranslator;
 import org.apache.cayenne.access.translator.ejbql.EJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.ejbql.JdbcEJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.select.DefaultSelectTranslator;
@@ -46,6 +47,7 @@ import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
 import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.Resource;
 import org.apache.cayenne.resource.ResourceLocator;
 import org.apache.cayenne.util.Util;
@@ -73,6 +75,10 @@ public class JdbcAdapter implements DbAdapter {
     protected boolean supportsBatchUpdates;
     protected boolean supportsUniqueConstraints;
     protected boolean supportsGeneratedKeys;
+    protected boolean supportsGeneratedKeysForBatchInserts;
+    protected boolean supportsInListPadding;
+    protected boolean supportsInListArrayBinding;
+    protected boolean supportsMultiRowInsert;
     protected EJBQLTranslatorFactory ejbqlTranslatorFactory;
 
     protected ResourceLocator resourceLocator;
@@ -556,6 +562,17 @@ public class JdbcAdapter implements DbAdapter {
         }
     }
 
+    /**
+     * Creates and returns a translator that generates a standard SQL MERGE
+     * statement.
+     *
+     * @since 4.1
+     */
+    @Override
+    public UpsertBatchTranslator getUpsertTranslator(UpsertBatchQuery query) {
+        return new UpsertBatchTranslator(query, this);
+    }
+
     @Override
     public boolean supportsBatchUpdates() {
         return this.supportsBatchUpdates;
@@ -580,6 +597,66 @@ public class JdbcAdapter implements DbAdapter {
         this.supportsGeneratedKeys = flag;
     }
 
+    /**
+     * @since 4.1
+     */
+    @Override
+    public boolean supportsGeneratedKeysForBatchInserts() {
+        return supportsGeneratedKeysForBatchInserts;
+    }
+
+    /**
+     * @since 4.1
+     */
+    public void setSupportsGeneratedKeysForBatchInserts(boolean flag) {
+        this.supportsGeneratedKeysForBatchInserts = flag;
+    }
+
+    /**
+     * @since 4.1
+     */
+    @Override
+    public boolean supportsInListPadding() {
+        return supportsInListPadding;
+    }
+
+    /**
+     * @since 4.1
+     */
+    public void setSupportsInListPadding(boolean flag) {
+        this.supportsInListPadding = flag;
+    }
+
+    /**
+     * @since 4.1
+     */
+    @Override
+    public boolean supportsInListArrayBinding() {
+        return supportsInListArrayBinding;
+    }
+
+    /**
+     * @since 4.1
+     */
+    public void setSupportsInListArrayBinding(boolean flag) {
+        this.supportsInListArrayBinding = flag;
+    }
+
+    /**
+     * @since 4.1
+     */
+    @Override
+    public boolean supportsMultiRowInsert() {
+        return supportsMultiRowInsert;
+    }
+
+    /**
+     * @since 4.1
+     */
+    public void setSupportsMultiRowInsert(boolean flag) {
+        this.supportsMultiRowInsert = flag;
+    }
+
     /**
      * Returns a translator factory for EJBQL to SQL translation. The factory is
      * normally initialized in constructor by calling
@@ -72,6 +72,7 @@ public class DB2Adapter extends JdbcAdapter {
             @Inject ValueObjectTypeRegistry valueObjectTypeRegistry) {
         super(runtimeProperties, defaultExtendedTypes, userExtendedTypes, extendedTypeFactories, resourceLocator, valueObjectTypeRegistry);
         setSupportsGeneratedKeys(true);
+        setSupportsMultiRowInsert(true);
     }
 
     /**
@@ -19,6 +19,9 @@
 
 package org.apache.cayenne.dba.h2;
 
+import org.apache.cayenne.access.translator.batch.UpsertBatchTranslator;
+import org.apache.cayenne.access.translator.select.QualifierTranslator;
+import org.apache.cayenne.access.translator.select.QueryAssembler;
 import org.apache.cayenne.access.types.ExtendedType;
 import org.apache.cayenne.access.types.ExtendedTypeFactory;
 import org.apache.cayenne.access.types.ValueObjectTypeRegistry;
@@ -28,6 +31,7 @@ import org.apache.cayenne.dba.JdbcAdapter;
 import org.apache.cayenne.dba.PkGenerator;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.ResourceLocator;
 
 import java.util.List;
@@ -55,6 +59,26 @@ public class H2Adapter extends JdbcAdapter {
             @Inject ValueObjectTypeRegistry valueObjectTypeRegistry) {
         super(runtimeProperties, defaultExtendedTypes, userExtendedTypes, extendedTypeFactories, resourceLocator, valueObjectTypeRegistry);
         setSupportsGeneratedKeys(true);
+        setSupportsMultiRowInsert(true);
+        setSupportsInListArrayBinding(true);
+    }
+
+    /**
+     * @since 4.1
+     */
+    @Override
+    public QualifierTranslator getQualifierTranslator(QueryAssembler queryAssembler) {
+        QualifierTranslator translator = new H2QualifierTranslator(queryAssembler);
+        translator.setCaseInsensitive(caseInsensitiveCollations);
+        return translator;
+    }
+
+    /**
+     * @since 4.1
+     */
+    @Override
+    public UpsertBatchTranslator getUpsertTranslator(UpsertBatchQuery query) {
+        return new H2UpsertBatchTranslator(query, this);
     }
 
     @Override
@@ -0,0 +1,52 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba.h2;
+
+import org.apache.cayenne.access.translator.select.QualifierTranslator;
+import org.apache.cayenne.access.translator.select.QueryAssembler;
+import org.apache.cayenne.access.types.SQLArrayType;
+import org.apache.cayenne.dba.TypesMapping;
+import org.apache.cayenne.map.DbAttribute;
+
+/**
+ * H2 qualifier translator. Translates long IN lists to a subquery over a
+ * single array parameter, i.e. <code>column IN (SELECT X FROM TABLE(X INTEGER = ?))</code>.
+ *
+ * @since 4.1
+ */
+public class H2QualifierTranslator extends QualifierTranslator {
+
+    public H2QualifierTranslator(QueryAssembler queryAssembler) {
+        super(queryAssembler);
+    }
+
+    @Override
+    protected void appendInListArrayOperator(boolean not) {
+        out.append(not ? " NOT IN " : " IN ");
+    }
+
+    @Override
+    protected void appendInListArray(Object[] values, DbAttribute paramDesc) {
+        String elementType = TypesMapping.getSqlNameByType(TypesMapping.getSqlTypeByJava(values[0].getClass()));
+        out.append("SELECT X FROM TABLE(X ").append(elementType).append(" = ?)");
+
+        // H2 driver accepts Object[] as an array parameter
+        queryAssembler.addToParamList(paramDesc, values, new SQLArrayType(null));
+    }
+}
@@ -77,6 +77,7 @@ public class HSQLDBAdapter extends JdbcAdapter {
 		    @Inject ValueObjectTypeRegistry valueObjectTypeRegistry) {
 		super(runtimeProperties, defaultExtendedTypes, userExtendedTypes, extendedTypeFactories, resourceLocator, valueObjectTypeRegistry);
 		setSupportsGeneratedKeys(true);
+		setSupportsMultiRowInsert(true);
 	}
 
 	/**
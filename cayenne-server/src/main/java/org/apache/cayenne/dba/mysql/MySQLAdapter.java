@@ -24,6 +24,7 @@ import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.translator.ParameterBinding;
 import org.apache.cayenne.access.translator.ejbql.EJBQLTranslatorFactory;
 import org.apache.cayenne.access.translator.ejbql.JdbcEJBQLTranslatorFactory;
+import org.apache.cayenne.access.translator.batch.UpsertBatchTranslator;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
 import org.apache.cayenne.access.translator.select.SelectTranslator;
@@ -47,6 +48,7 @@ import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
 import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.ResourceLocator;
 
 import java.sql.PreparedStatement;
@@ -102,6 +104,8 @@ public class MySQLAdapter extends JdbcAdapter {
 		setSupportsBatchUpdates(true);
 		setSupportsUniqueConstraints(true);
 		setSupportsGeneratedKeys(true);
+		setSupportsGeneratedKeysForBatchInserts(true);
+		setSupportsMultiRowInsert(true);
 	}
 
 	@Override
@@ -121,6 +125,14 @@ public class MySQLAdapter extends JdbcAdapter {
 		return translator;
 	}
 
+	/**
+	 * @since 4.1
+	 */
+	@Override
+	public UpsertBatchTranslator getUpsertTranslator(UpsertBatchQuery query) {
+		return new MySQLUpsertBatchTranslator(query, this);
+	}
+
 	/**
 	 * Uses special action builder to create the right action.
 	 * 
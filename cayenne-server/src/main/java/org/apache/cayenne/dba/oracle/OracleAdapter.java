@@ -23,6 +23,7 @@ import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.translator.ParameterBinding;
 import org.apache.cayenne.access.translator.ejbql.EJBQLTranslatorFactory;
+import org.apache.cayenne.access.translator.batch.UpsertBatchTranslator;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
 import org.apache.cayenne.access.translator.select.SelectTranslator;
@@ -46,6 +47,7 @@ import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
 import org.apache.cayenne.query.SelectQuery;
 import org.apache.cayenne.query.UpdateBatchQuery;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.ResourceLocator;
 
 import java.lang.reflect.Field;
@@ -168,6 +170,10 @@ public class OracleAdapter extends JdbcAdapter {
 
 		// enable batch updates by default
 		setSupportsBatchUpdates(true);
+
+		// binding arrays requires named collection types and a driver
+		// specific API, so keep the number of distinct IN lists low instead
+		setSupportsInListPadding(true);
 	}
 
 	/**
@@ -290,6 +296,14 @@ public class OracleAdapter extends JdbcAdapter {
 		return translator;
 	}
 
+	/**
+	 * @since 4.1
+	 */
+	@Override
+	public UpsertBatchTranslator getUpsertTranslator(UpsertBatchQuery query) {
+		return new OracleUpsertBatchTranslator(query, this);
+	}
+
 	/**
 	 * Uses OracleActionBuilder to create the right action.
 	 *
@@ -0,0 +1,71 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.dba.oracle;
+
+import java.util.List;
+
+import org.apache.cayenne.access.translator.batch.UpsertBatchTranslator;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.dba.QuotingStrategy;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.query.UpsertBatchQuery;
+
+/**
+ * Translates UpsertBatchQuery to Oracle MERGE statement. As Oracle has no
+ * "VALUES" table constructor, the source rows are selected from DUAL.
+ * 
+ * @since 4.1
+ */
+class OracleUpsertBatchTranslator extends UpsertBatchTranslator {
+
+    OracleUpsertBatchTranslator(UpsertBatchQuery query, DbAdapter adapter) {
+        super(query, adapter);
+    }
+
+    @Override
+    protected void appendSource(StringBuilder buffer, int rowCount) {
+
+        QuotingStrategy strategy = adapter.getQuotingStrategy();
+        List<DbAttribute> columns = getColumns();
+
+        buffer.append('(');
+        for (int r = 0; r < rowCount; r++) {
+            if (r > 0) {
+                buffer.append(" UNION ALL ");
+            }
+
+            buffer.append("SELECT ");
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+
+                buffer.append('?');
+
+                // column aliases are only needed in the first SELECT
+                if (r == 0) {
+                    buffer.append(' ').append(strategy.quotedName(columns.get(i)));
+                }
+            }
+            buffer.append(" FROM DUAL");
+        }
+
+        buffer.append(") ").append(SOURCE_ALIAS);
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.cayenne.dba.postgres;
 import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.translator.ParameterBinding;
+import org.apache.cayenne.access.translator.batch.UpsertBatchTranslator;
 import org.apache.cayenne.access.translator.select.QualifierTranslator;
 import org.apache.cayenne.access.translator.select.QueryAssembler;
 import org.apache.cayenne.access.translator.select.SelectTranslator;
@@ -43,6 +44,7 @@ import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.query.Query;
 import org.apache.cayenne.query.SQLAction;
 import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.query.UpsertBatchQuery;
 import org.apache.cayenne.resource.ResourceLocator;
 
 import java.sql.PreparedStatement;
@@ -78,6 +80,9 @@ public class PostgresAdapter extends JdbcAdapter {
 		super(runtimeProperties, defaultExtendedTypes, userExtendedTypes, extendedTypeFactories, resourceLocator, valueObjectTypeRegistry);
 		setSupportsBatchUpdates(true);
 		setSupportsGeneratedKeys(true);
+		setSupportsGeneratedKeysForBatchInserts(true);
+		setSupportsMultiRowInsert(true);
+		setSupportsInListArrayBinding(true);
 	}
 
 	/**
@@ -267,6 +272,14 @@ public class PostgresAdapter extends JdbcAdapter {
 		return translator;
 	}
 
+	/**
+	 * @since 4.1
+	 */
+	@Override
+	public UpsertBatchTranslator getUpsertTranslator(UpsertBatchQuery query) {
+		return new PostgresUpsertBatchTranslator(query, this);
+	}
+
 	/**
 	 * @see JdbcAdapter#createPkGenerator()
 	 */
@@ -73,6 +73,7 @@ public class SQLiteAdapter extends JdbcAdapter {
                 valueObjectTypeRegistry);
         this.setSupportsUniqueConstraints(false);
         this.setSupportsGeneratedKeys(true);
+        this.setSupportsMultiRowInsert(true);
     }
 
     @Override
@@ -0,0 +1,38 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.event;
+
+import java.util.EventObject;
+
+/**
+ * An event that can be combined with an earlier event of the same type, subject and sender. Used by
+ * {@link DefaultEventManager} with {@link DefaultEventManager.OverflowPolicy#COALESCE} policy to save space in a
+ * full event queue. Events that don't implement this interface are never coalesced.
+ *
+ * @since 4.1
+ */
+public interface CoalescibleEvent {
+
+    /**
+     * Returns an event that has the same effect on the listeners as the "earlier" event followed by this one.
+     * Neither of the two events should be modified.
+     */
+    EventObject coalesce(EventObject earlier);
+}
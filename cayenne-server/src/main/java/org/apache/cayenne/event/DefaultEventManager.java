@@ -22,29 +22,102 @@ import org.apache.cayenne.CayenneRuntimeException;
 import org.apache.cayenne.di.BeforeScopeEnd;
 import org.apache.cayenne.util.Invocation;
 
-import java.util.ArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.Collections;
 import java.util.EventObject;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A default implementation of {@link EventManager}.
+ * <p>
+ * Non-blocking events are dispatched by a pool of threads. Each thread owns a
+ * queue ("lane"). All events of a given subject go to the same lane, so they
+ * are delivered in the order they were posted, while different subjects are
+ * dispatched in parallel. Delivery of an event to each of the non-blocking
+ * listeners is routed by subject and listener, so that the listeners of a
+ * single subject are also notified in parallel.
+ * </p>
+ * <p>
+ * By default the queues are unbounded. If a queue capacity is set, what
+ * happens when a lane is full is determined by the {@link OverflowPolicy}.
+ * Dropped events are counted in {@link #getMetrics()} and logged.
+ * </p>
  * 
  * @since 3.1
  */
 public class DefaultEventManager implements EventManager {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultEventManager.class);
+
     static final int DEFAULT_DISPATCH_THREAD_COUNT = 5;
 
+    // minimal interval between the warnings about dropped events
+    static final long DROP_WARNING_INTERVAL_MS = 10000;
+
+    /**
+     * Default queue capacity. Zero means unbounded queue.
+     * 
+     * @since 4.1
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 0;
+
+    /**
+     * Defines how non-blocking events are handled when the dispatch queue is
+     * full.
+     * 
+     * @since 4.1
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * The posting thread waits until there's space in the queue. Dispatch
+         * threads posting events never wait and drop the oldest events
+         * instead, to avoid deadlocks. Such drops are counted and logged.
+         */
+        BLOCK,
+
+        /**
+         * The oldest queued events are discarded to make room for the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Queued events for the same subject, sender and listener are merged
+         * into the new one, if the events implement {@link CoalescibleEvent}.
+         * If there are no such events, the oldest queued events are
+         * discarded.
+         */
+        COALESCE
+    }
+
     // keeps weak references to subjects
     protected Map<EventSubject, DispatchQueue> subjects;
+
+    /**
+     * @deprecated since 4.1 non-blocking events are queued in per-thread
+     *             lanes. This list is no longer used for dispatching.
+     */
+    @Deprecated
     protected List<Dispatch> eventQueue;
+
     protected boolean singleThread;
     protected volatile boolean stopped;
-    List<DispatchThread> dispatchThreads;
+    protected OverflowPolicy overflowPolicy;
+    DispatchLane[] lanes;
+    EventManagerMetrics metrics;
+    private final AtomicLong lastDropWarning;
 
     /**
      * Creates a multithreaded EventManager using default thread count.
@@ -59,28 +132,101 @@ public class DefaultEventManager implements EventManager {
      * less.
      */
     public DefaultEventManager(int dispatchThreadCount) {
+        this(dispatchThreadCount, DEFAULT_QUEUE_CAPACITY, OverflowPolicy.BLOCK, null);
+    }
+
+    /**
+     * Creates an EventManager with the specified number of dispatch threads
+     * and a bounded event queue.
+     * 
+     * @param dispatchThreadCount
+     *            a number of dispatch threads. Zero or less creates a
+     *            single-threaded EventManager.
+     * @param queueCapacity
+     *            the maximum number of queued non-blocking events, split
+     *            evenly between dispatch threads. Zero or less means
+     *            unbounded queue.
+     * @param overflowPolicy
+     *            what to do when the queue is full.
+     * @param threadFactory
+     *            a factory of dispatch threads, e.g. a virtual thread factory.
+     *            If null, daemon platform threads are created.
+     * @since 4.1
+     */
+    @SuppressWarnings("deprecation")
+    public DefaultEventManager(int dispatchThreadCount, int queueCapacity, OverflowPolicy overflowPolicy,
+            ThreadFactory threadFactory) {
+
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Null overflow policy");
+        }
+
         this.subjects = Collections
                 .synchronizedMap(new WeakHashMap<EventSubject, DispatchQueue>());
         this.eventQueue = Collections.synchronizedList(new LinkedList<Dispatch>());
         this.singleThread = dispatchThreadCount <= 0;
+        this.overflowPolicy = overflowPolicy;
+        this.lastDropWarning = new AtomicLong();
 
         if (!singleThread) {
-            dispatchThreads = new ArrayList<>(dispatchThreadCount);
+
+            int laneCapacity = queueCapacity > 0
+                    ? Math.max(1, (queueCapacity + dispatchThreadCount - 1) / dispatchThreadCount)
+                    : 0;
+            this.lanes = new DispatchLane[dispatchThreadCount];
+            this.metrics = new EventManagerMetrics(this, laneCapacity * dispatchThreadCount);
 
             String prefix = "cayenne-event-";
 
             // start dispatch threads
             for (int i = 0; i < dispatchThreadCount; i++) {
-                DispatchThread thread = new DispatchThread(prefix + i);
-                dispatchThreads.add(thread);
-                thread.start();
+                lanes[i] = new DispatchLane(laneCapacity);
+
+                Thread thread;
+                if (threadFactory != null) {
+                    thread = threadFactory.newThread(lanes[i]);
+                } else {
+                    thread = new Thread(lanes[i], prefix + i);
+                    thread.setDaemon(true);
+                }
+
+                lanes[i].thread = thread;
+            }
+
+            for (DispatchLane lane : lanes) {
+                lane.thread.start();
             }
         }
         else {
-            dispatchThreads = Collections.emptyList();
+            this.lanes = new DispatchLane[0];
+            this.metrics = new EventManagerMetrics(this, 0);
         }
     }
 
+    /**
+     * Returns an object with statistics of the non-blocking event dispatch.
+     * 
+     * @since 4.1
+     */
+    public EventManagerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @since 4.1
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    int queueDepth() {
+        int depth = 0;
+        for (DispatchLane lane : lanes) {
+            depth += lane.queue.size();
+        }
+        return depth;
+    }
+
     /**
      * Returns true if the EventManager was stopped via {@link #shutdown()} method.
      * 
@@ -114,11 +260,10 @@ public class DefaultEventManager implements EventManager {
 
             this.stopped = true;
 
-            for (DispatchThread thread : dispatchThreads) {
-                thread.interrupt();
+            for (DispatchLane lane : lanes) {
+                lane.thread.interrupt();
+                lane.queue.clear();
             }
-
-            dispatchThreads.clear();
         }
     }
 
@@ -327,12 +472,45 @@ public class DefaultEventManager implements EventManager {
         }
 
         // add dispatch to the queue and return
-        synchronized (eventQueue) {
-            eventQueue.add(new Dispatch(event, subject));
-            eventQueue.notifyAll();
+        enqueue(new Dispatch(event, subject));
+    }
+
+    void enqueue(Dispatch dispatch) {
+        if (stopped) {
+            return;
+        }
+
+        lanes[laneIndex(dispatch)].enqueue(dispatch);
+    }
+
+    // all events for the same subject (and listener) go to the same lane to preserve ordering
+    int laneIndex(Dispatch dispatch) {
+        int hash = dispatch.laneHash();
+        hash ^= (hash >>> 16);
+        return (hash & 0x7fffffff) % lanes.length;
+    }
+
+    void dropped(Dispatch dispatch) {
+        metrics.dropped();
+
+        long now = System.currentTimeMillis();
+        long lastWarning = lastDropWarning.get();
+        if (now - lastWarning >= DROP_WARNING_INTERVAL_MS && lastDropWarning.compareAndSet(lastWarning, now)) {
+            LOGGER.warn("Event queue is full, dropped event for subject '{}'. Total dropped events: {}",
+                    dispatch.subject.getSubjectName(), metrics.getDroppedCount());
         }
     }
 
+    boolean isDispatchThread(Thread thread) {
+        for (DispatchLane lane : lanes) {
+            if (lane.thread == thread) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private void dispatchEvent(Dispatch dispatch) {
         DispatchQueue dispatchQueue = dispatchQueueForSubject(dispatch.subject, false);
         if (dispatchQueue != null) {
@@ -357,6 +535,7 @@ public class DefaultEventManager implements EventManager {
 
         EventObject[] eventArgument;
         EventSubject subject;
+        long queuedAt;
 
         Dispatch(EventObject event, EventSubject subject) {
             this(new EventObject[] {
@@ -373,10 +552,32 @@ public class DefaultEventManager implements EventManager {
             return eventArgument[0].getSource();
         }
 
+        int laneHash() {
+            return subject.hashCode();
+        }
+
         void fire() {
             DefaultEventManager.this.dispatchEvent(Dispatch.this);
         }
 
+        // whether the queued dispatch can be merged into this one
+        boolean canCoalesce(Dispatch queued) {
+            return eventArgument[0] instanceof CoalescibleEvent
+                    && queued.getClass() == getClass()
+                    && queued.eventArgument[0].getClass() == eventArgument[0].getClass()
+                    && queued.subject.equals(subject)
+                    && queued.getSender() == getSender();
+        }
+
+        void coalesce(EventObject earlier) {
+            EventObject merged = ((CoalescibleEvent) eventArgument[0]).coalesce(earlier);
+
+            // the array may be shared with the invocation dispatches of the same event
+            eventArgument = new EventObject[] {
+                merged
+            };
+        }
+
         boolean fire(Invocation invocation) {
             if (invocation instanceof NonBlockingInvocation) {
 
@@ -386,13 +587,7 @@ public class DefaultEventManager implements EventManager {
                 }
 
                 // inject single invocation dispatch into the queue
-                synchronized (eventQueue) {
-                    eventQueue.add(new InvocationDispatch(
-                            eventArgument,
-                            subject,
-                            invocation));
-                    eventQueue.notifyAll();
-                }
+                enqueue(new InvocationDispatch(eventArgument, subject, invocation));
 
                 return true;
             }
@@ -413,12 +608,22 @@ public class DefaultEventManager implements EventManager {
             this.target = target;
         }
 
+        @Override
+        int laneHash() {
+            return 31 * subject.hashCode() + System.identityHashCode(target);
+        }
+
         @Override
         void fire() {
             // there is no way to kill the invocation if it is bad...
             // so don't check for status
             target.fire(eventArgument);
         }
+
+        @Override
+        boolean canCoalesce(Dispatch queued) {
+            return super.canCoalesce(queued) && ((InvocationDispatch) queued).target == target;
+        }
     }
 
     // subclass exists only to tag invocations that should be
@@ -431,39 +636,99 @@ public class DefaultEventManager implements EventManager {
         }
     }
 
-    final class DispatchThread extends Thread {
+    // an event queue with a single thread dispatching from it
+    final class DispatchLane implements Runnable {
 
-        DispatchThread(String name) {
-            super(name);
-            setDaemon(true);
+        final BlockingQueue<Dispatch> queue;
+        Thread thread;
+
+        DispatchLane(int capacity) {
+            this.queue = capacity > 0 ? new ArrayBlockingQueue<Dispatch>(capacity) : new LinkedBlockingQueue<Dispatch>();
         }
 
-        @Override
-        public void run() {
-            while (!stopped) {
+        void enqueue(Dispatch dispatch) {
+            dispatch.queuedAt = System.nanoTime();
+            metrics.posted();
 
-                // get event from the queue, if the queue
-                // is empty, just wait
-                Dispatch dispatch = null;
+            if (queue.offer(dispatch)) {
+                return;
+            }
 
-                synchronized (DefaultEventManager.this.eventQueue) {
-                    if (DefaultEventManager.this.eventQueue.size() > 0) {
-                        dispatch = DefaultEventManager.this.eventQueue.remove(0);
+            switch (overflowPolicy) {
+                case BLOCK:
+                    // dispatch threads may post events themselves, waiting
+                    // could deadlock them
+                    if (!isDispatchThread(Thread.currentThread())) {
+                        put(dispatch);
+                        return;
                     }
-                    else {
-                        try {
-                            // wake up occasionally to check whether EM has been stopped
-                            DefaultEventManager.this.eventQueue.wait(3 * 60 * 1000);
-                        }
-                        catch (InterruptedException e) {
-                            // ignore interrupts...
-                        }
+                    break;
+                case COALESCE:
+                    coalesce(dispatch);
+                    break;
+                default:
+                    break;
+            }
+
+            while (!queue.offer(dispatch)) {
+                Dispatch oldest = queue.poll();
+                if (oldest != null) {
+                    dropped(oldest);
+                }
+            }
+        }
+
+        void put(Dispatch dispatch) {
+            metrics.blocked();
+
+            try {
+                // wake up occasionally to check whether EM has been stopped
+                while (!stopped) {
+                    if (queue.offer(dispatch, 1, TimeUnit.SECONDS)) {
+                        return;
                     }
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
 
-                // dispatch outside of synchronized block
-                if (!stopped && dispatch != null) {
-                    // this try/catch is needed to prevent DispatchThread
+            metrics.dropped();
+        }
+
+        void coalesce(Dispatch dispatch) {
+
+            // merge the matching queued events in the order they were posted
+            EventObject merged = null;
+            Iterator<Dispatch> it = queue.iterator();
+            while (it.hasNext()) {
+                Dispatch queued = it.next();
+                if (dispatch.canCoalesce(queued)) {
+                    it.remove();
+                    EventObject event = queued.eventArgument[0];
+                    merged = merged != null ? ((CoalescibleEvent) event).coalesce(merged) : event;
+                    metrics.coalesced();
+                }
+            }
+
+            if (merged != null) {
+                dispatch.coalesce(merged);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+
+                Dispatch dispatch;
+                try {
+                    dispatch = queue.take();
+                } catch (InterruptedException e) {
+                    // shutdown interrupts the thread, otherwise ignore
+                    continue;
+                }
+
+                if (!stopped) {
+                    // this try/catch is needed to prevent dispatch thread
                     // from dying on dispatch errors
                     try {
                         dispatch.fire();
@@ -471,6 +736,8 @@ public class DefaultEventManager implements EventManager {
                     catch (Throwable th) {
                         // ignoring exception
                     }
+
+                    metrics.dispatched(System.nanoTime() - dispatch.queuedAt);
                 }
             }
         }
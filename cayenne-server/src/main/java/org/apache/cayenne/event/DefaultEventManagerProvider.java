@@ -0,0 +1,88 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.event;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.cayenne.ConfigurationException;
+import org.apache.cayenne.configuration.Constants;
+import org.apache.cayenne.configuration.RuntimeProperties;
+import org.apache.cayenne.di.DIRuntimeException;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.di.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates {@link DefaultEventManager} configured from runtime properties.
+ * 
+ * @since 4.1
+ */
+public class DefaultEventManagerProvider implements Provider<EventManager> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultEventManagerProvider.class);
+
+    protected RuntimeProperties properties;
+
+    public DefaultEventManagerProvider(@Inject RuntimeProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public EventManager get() throws DIRuntimeException {
+
+        int threads = properties.getInt(Constants.EVENT_DISPATCH_THREADS_PROPERTY,
+                DefaultEventManager.DEFAULT_DISPATCH_THREAD_COUNT);
+        int capacity = properties.getInt(Constants.EVENT_QUEUE_CAPACITY_PROPERTY,
+                DefaultEventManager.DEFAULT_QUEUE_CAPACITY);
+        DefaultEventManager.OverflowPolicy policy = overflowPolicy();
+
+        ThreadFactory threadFactory = properties.getBoolean(Constants.EVENT_VIRTUAL_THREADS_PROPERTY, false)
+                ? virtualThreadFactory()
+                : null;
+
+        return new DefaultEventManager(threads, capacity, policy, threadFactory);
+    }
+
+    protected DefaultEventManager.OverflowPolicy overflowPolicy() {
+        String policy = properties.get(Constants.EVENT_QUEUE_OVERFLOW_POLICY_PROPERTY);
+        if (policy == null) {
+            return DefaultEventManager.OverflowPolicy.BLOCK;
+        }
+
+        try {
+            return DefaultEventManager.OverflowPolicy.valueOf(policy.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid event queue overflow policy: %s", policy);
+        }
+    }
+
+    // Thread.ofVirtual() is only available since Java 21, so it is looked up reflectively
+    protected ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "cayenne-event-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Virtual threads are not supported by this JVM, will dispatch events on platform threads");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.event;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects statistics of non-blocking event dispatch of a
+ * {@link DefaultEventManager}.
+ * 
+ * @since 4.1
+ */
+public class EventManagerMetrics implements EventManagerMetricsMXBean {
+
+	private DefaultEventManager eventManager;
+	private int queueCapacity;
+
+	private LongAdder posted;
+	private LongAdder dispatched;
+	private LongAdder dropped;
+	private LongAdder coalesced;
+	private LongAdder blocked;
+	private LongAdder latencyNanos;
+	private LongAccumulator maxLatencyNanos;
+
+	EventManagerMetrics(DefaultEventManager eventManager, int queueCapacity) {
+		this.eventManager = eventManager;
+		this.queueCapacity = queueCapacity;
+		this.posted = new LongAdder();
+		this.dispatched = new LongAdder();
+		this.dropped = new LongAdder();
+		this.coalesced = new LongAdder();
+		this.blocked = new LongAdder();
+		this.latencyNanos = new LongAdder();
+		this.maxLatencyNanos = new LongAccumulator(Math::max, 0);
+	}
+
+	void posted() {
+		posted.increment();
+	}
+
+	void dispatched(long nanos) {
+		dispatched.increment();
+		latencyNanos.add(nanos);
+		maxLatencyNanos.accumulate(nanos);
+	}
+
+	void dropped() {
+		dropped.increment();
+	}
+
+	void coalesced() {
+		coalesced.increment();
+	}
+
+	void blocked() {
+		blocked.increment();
+	}
+
+	@Override
+	public int getQueueDepth() {
+		return eventManager.queueDepth();
+	}
+
+	@Override
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	@Override
+	public long getPostedCount() {
+		return posted.sum();
+	}
+
+	@Override
+	public long getDispatchedCount() {
+		return dispatched.sum();
+	}
+
+	@Override
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	@Override
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	@Override
+	public long getBlockedCount() {
+		return blocked.sum();
+	}
+
+	@Override
+	public long getTotalDispatchLatency() {
+		return TimeUnit.NANOSECONDS.toMillis(latencyNanos.sum());
+	}
+
+	@Override
+	public long getMaxDispatchLatency() {
+		return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+	}
+}
@@ -0,0 +1,78 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.event;
+
+/**
+ * A JMX-compatible view of {@link DefaultEventManager} dispatch statistics.
+ * Can be registered with an MBeanServer by the application.
+ * 
+ * @since 4.1
+ */
+public interface EventManagerMetricsMXBean {
+
+	/**
+	 * Returns the number of non-blocking events waiting to be dispatched.
+	 */
+	int getQueueDepth();
+
+	/**
+	 * Returns the maximum number of events that can be queued, or zero if the
+	 * queue is unbounded.
+	 */
+	int getQueueCapacity();
+
+	/**
+	 * Returns the total number of posted non-blocking events, including
+	 * per-listener dispatches of blocking events to non-blocking listeners.
+	 */
+	long getPostedCount();
+
+	/**
+	 * Returns the number of dispatched non-blocking events.
+	 */
+	long getDispatchedCount();
+
+	/**
+	 * Returns the number of events discarded because the queue was full.
+	 */
+	long getDroppedCount();
+
+	/**
+	 * Returns the number of queued events replaced by newer ones.
+	 */
+	long getCoalescedCount();
+
+	/**
+	 * Returns the number of times a posting thread had to wait for space in
+	 * the queue.
+	 */
+	long getBlockedCount();
+
+	/**
+	 * Returns the total time in milliseconds between posting and completed
+	 * dispatch of all dispatched events.
+	 */
+	long getTotalDispatchLatency();
+
+	/**
+	 * Returns the longest time in milliseconds between posting and completed
+	 * dispatch of an event.
+	 */
+	long getMaxDispatchLatency();
+}
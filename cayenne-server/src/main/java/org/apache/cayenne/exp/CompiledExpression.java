@@ -0,0 +1,126 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.exp;
+
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.apache.cayenne.exp.parser.ExpressionCompiler;
+import org.apache.cayenne.reflect.ClassDescriptor;
+import org.apache.cayenne.util.ConversionUtil;
+
+/**
+ * An {@link Expression} compiled for repeated in-memory evaluation. Object
+ * paths are pre-resolved against a {@link ClassDescriptor} and comparisons
+ * with constants are specialized, so filtering large collections of objects
+ * with the same expression is much cheaper than calling
+ * {@link Expression#match(Object)} for each object. Evaluation results are
+ * the same as those of the source expression.
+ * <p>
+ * Instances are immutable and thread-safe, as long as the source expression
+ * is not modified after compilation.
+ *
+ * @see Expression#compile(ClassDescriptor)
+ * @since 4.1
+ */
+public class CompiledExpression implements Predicate<Object> {
+
+	protected Expression expression;
+	protected Function<Object, Object> evaluator;
+
+	public CompiledExpression(Expression expression, ClassDescriptor descriptor) {
+		this.expression = expression;
+		this.evaluator = new ExpressionCompiler(descriptor).compile(expression);
+	}
+
+	/**
+	 * Returns the source expression.
+	 */
+	public Expression getExpression() {
+		return expression;
+	}
+
+	/**
+	 * Calculates expression value with object as a context for path
+	 * expressions.
+	 */
+	public Object evaluate(Object o) {
+		return evaluator.apply(o);
+	}
+
+	/**
+	 * Calculates expression boolean value with object as a context for path
+	 * expressions.
+	 */
+	public boolean match(Object o) {
+		return ConversionUtil.toBoolean(evaluate(o));
+	}
+
+	@Override
+	public boolean test(Object o) {
+		return match(o);
+	}
+
+	/**
+	 * Returns the first object in the list that matches the expression.
+	 */
+	public <T> T first(List<T> objects) {
+		for (T o : objects) {
+			if (match(o)) {
+				return o;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns a list of objects that match the expression.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> filterObjects(Collection<T> objects) {
+		if (objects == null || objects.size() == 0) {
+			return new LinkedList<>();
+		}
+
+		return (List<T>) filter(objects, new LinkedList<>());
+	}
+
+	/**
+	 * Adds objects matching this expression from the source collection to the
+	 * target collection.
+	 */
+	public <T> Collection<?> filter(Collection<T> source, Collection<T> target) {
+		for (T o : source) {
+			if (match(o)) {
+				target.add(o);
+			}
+		}
+
+		return target;
+	}
+
+	@Override
+	public String toString() {
+		return expression.toString();
+	}
+}
@@ -0,0 +1,586 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.exp.parser;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.cayenne.Cayenne;
+import org.apache.cayenne.DataObject;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.ExpressionException;
+import org.apache.cayenne.reflect.ArcProperty;
+import org.apache.cayenne.reflect.AttributeProperty;
+import org.apache.cayenne.reflect.ClassDescriptor;
+import org.apache.cayenne.reflect.PropertyDescriptor;
+import org.apache.cayenne.reflect.PropertyUtils;
+import org.apache.cayenne.reflect.ToOneProperty;
+import org.apache.cayenne.util.ConversionUtil;
+import org.apache.cayenne.util.Util;
+
+/**
+ * Compiles an expression tree into a tree of evaluation functions that can be
+ * applied to many objects without re-walking the AST. Object paths are resolved
+ * to {@link PropertyDescriptor PropertyDescriptors} of the root
+ * {@link ClassDescriptor} up front, and comparisons of a path against a
+ * constant are specialized for whole numbers, Strings and BigDecimals. Any node
+ * that can not be compiled is evaluated by the original expression node, so the
+ * result of a compiled expression is always the same as of
+ * {@link Expression#evaluate(Object)}.
+ * <p>
+ * The compiled function references the nodes of the source expression, so the
+ * expression must not be modified after it was compiled.
+ *
+ * @since 4.1
+ */
+public class ExpressionCompiler {
+
+	/**
+	 * A compiled node of the expression tree.
+	 */
+	interface CompiledNode {
+
+		Object evaluate(Object object) throws Exception;
+	}
+
+	/**
+	 * A compiled condition applied to a single evaluated left-hand side value.
+	 */
+	interface CompiledCondition {
+
+		Boolean evaluate(Object lhs) throws Exception;
+	}
+
+	protected ClassDescriptor descriptor;
+
+	/**
+	 * Creates a compiler for expressions evaluated against objects described by
+	 * the descriptor. The descriptor may be null, in which case object paths are
+	 * resolved per call, same as in the interpreted expression.
+	 */
+	public ExpressionCompiler(ClassDescriptor descriptor) {
+		this.descriptor = descriptor;
+	}
+
+	/**
+	 * Compiles the expression into a function that returns the same value as
+	 * {@link Expression#evaluate(Object)}.
+	 */
+	public Function<Object, Object> compile(Expression expression) {
+		if (!(expression instanceof SimpleNode)) {
+			return expression::evaluate;
+		}
+
+		CompiledNode node = compileNode(expression);
+		String string = expression.toString();
+		return object -> {
+			// same unified exception processing as in SimpleNode.evaluate
+			try {
+				return node.evaluate(object);
+			} catch (Throwable th) {
+				throw new ExpressionException("Error evaluating expression '%s'", string, Util.unwindException(th),
+						string);
+			}
+		};
+	}
+
+	protected CompiledNode compileNode(Object node) {
+
+		if (node == null) {
+			return object -> null;
+		}
+
+		if (!(node instanceof SimpleNode)) {
+			return ((Expression) node)::evaluate;
+		}
+
+		if (node instanceof ASTScalar) {
+			Object value = ((ASTScalar) node).getValue();
+			return object -> value;
+		}
+
+		if (node instanceof ASTList) {
+			Object[] values = ((ASTList) node).values;
+			return object -> values;
+		}
+
+		if (node instanceof ASTObjPath) {
+			return compilePath((ASTObjPath) node);
+		}
+
+		if (node instanceof ASTAnd) {
+			return compileAnd((ASTAnd) node);
+		}
+
+		if (node instanceof ASTOr) {
+			return compileOr((ASTOr) node);
+		}
+
+		if (node instanceof ASTNot) {
+			return compileNot((ASTNot) node);
+		}
+
+		if (node instanceof ConditionNode) {
+			return compileCondition((ConditionNode) node);
+		}
+
+		SimpleNode simpleNode = (SimpleNode) node;
+		return simpleNode::evaluate;
+	}
+
+	protected CompiledNode[] compileChildren(SimpleNode node) {
+		int len = node.jjtGetNumChildren();
+		CompiledNode[] children = new CompiledNode[len];
+		for (int i = 0; i < len; i++) {
+			children[i] = compileNode(node.jjtGetChild(i));
+		}
+		return children;
+	}
+
+	protected CompiledNode compileAnd(ASTAnd node) {
+		CompiledNode[] children = compileChildren(node);
+		if (children.length == 0) {
+			return object -> Boolean.FALSE;
+		}
+
+		return object -> {
+			boolean unknown = false;
+			for (CompiledNode child : children) {
+				Object value = child.evaluate(object);
+				if (value == null) {
+					unknown = true;
+				} else if (!ConversionUtil.toBoolean(value)) {
+					return Boolean.FALSE;
+				}
+			}
+
+			return unknown ? null : Boolean.TRUE;
+		};
+	}
+
+	protected CompiledNode compileOr(ASTOr node) {
+		CompiledNode[] children = compileChildren(node);
+		if (children.length == 0) {
+			return object -> Boolean.FALSE;
+		}
+
+		return object -> {
+			boolean unknown = false;
+			for (CompiledNode child : children) {
+				Object value = child.evaluate(object);
+				if (value == null) {
+					unknown = true;
+				} else if (ConversionUtil.toBoolean(value)) {
+					return Boolean.TRUE;
+				}
+			}
+
+			return unknown ? null : Boolean.FALSE;
+		};
+	}
+
+	protected CompiledNode compileNot(ASTNot node) {
+		if (node.jjtGetNumChildren() == 0) {
+			return object -> Boolean.FALSE;
+		}
+
+		CompiledNode child = compileNode(node.jjtGetChild(0));
+		return object -> {
+			Object value = child.evaluate(object);
+			if (value == null) {
+				return null;
+			}
+
+			return ConversionUtil.toBoolean(value) ? Boolean.FALSE : Boolean.TRUE;
+		};
+	}
+
+	protected CompiledNode compileCondition(ConditionNode node) {
+		int requiredLen = node.getRequiredChildrenCount();
+		if (node.jjtGetNumChildren() != requiredLen) {
+			return object -> Boolean.FALSE;
+		}
+
+		if (requiredLen == 0) {
+			return object -> node.evaluateSubNode(null, null);
+		}
+
+		CompiledNode[] children = compileChildren(node);
+		CompiledCondition condition = requiredLen == 2 ? compileConstantCondition(node) : null;
+
+		if (condition != null) {
+			CompiledNode lhs = children[0];
+			return object -> evaluateCondition(lhs.evaluate(object), condition);
+		}
+
+		return object -> {
+			Object[] evaluatedChildren = new Object[requiredLen];
+			for (int i = 0; i < requiredLen; i++) {
+				evaluatedChildren[i] = children[i].evaluate(object);
+			}
+
+			return evaluateCondition(evaluatedChildren[0], lhs -> node.evaluateSubNode(lhs, evaluatedChildren));
+		};
+	}
+
+	/**
+	 * Applies the condition to the left-hand side value the same way as
+	 * {@link ConditionNode} does, i.e. matching any element of a collection.
+	 */
+	static Boolean evaluateCondition(Object lhs, CompiledCondition condition) throws Exception {
+		// don't care here for keys
+		if (lhs instanceof Map) {
+			lhs = ((Map<?, ?>) lhs).values();
+		}
+
+		if (lhs instanceof Collection) {
+			for (Object element : (Collection<?>) lhs) {
+				if (condition.evaluate(element) == Boolean.TRUE) {
+					return Boolean.TRUE;
+				}
+			}
+			return Boolean.FALSE;
+		}
+
+		return condition.evaluate(lhs);
+	}
+
+	/**
+	 * Returns a specialized condition for a binary node with a constant right
+	 * hand side, or null if the node has no specialized form.
+	 */
+	protected CompiledCondition compileConstantCondition(ConditionNode node) {
+		Node rhsNode = node.jjtGetChild(1);
+
+		switch (node.getType()) {
+		case Expression.EQUAL_TO:
+		case Expression.NOT_EQUAL_TO:
+		case Expression.LESS_THAN:
+		case Expression.LESS_THAN_EQUAL_TO:
+		case Expression.GREATER_THAN:
+		case Expression.GREATER_THAN_EQUAL_TO:
+			if (!(rhsNode instanceof ASTScalar)) {
+				return null;
+			}
+			Object rhs = ((ASTScalar) rhsNode).getValue();
+			if (rhs instanceof Collection) {
+				return null;
+			}
+			return compileComparison(node.getType(), new ConstantOperand(rhs));
+		case Expression.IN:
+		case Expression.NOT_IN:
+			if (!(rhsNode instanceof ASTList)) {
+				return null;
+			}
+			return compileIn(node.getType() == Expression.NOT_IN, ((ASTList) rhsNode).values);
+		default:
+			return null;
+		}
+	}
+
+	private CompiledCondition compileComparison(int type, ConstantOperand rhs) {
+		switch (type) {
+		case Expression.EQUAL_TO:
+			return lhs -> rhs.eq(lhs) ? Boolean.TRUE : Boolean.FALSE;
+		case Expression.NOT_EQUAL_TO:
+			return lhs -> rhs.eq(lhs) ? Boolean.FALSE : Boolean.TRUE;
+		case Expression.LESS_THAN:
+			return lhs -> {
+				Integer c = rhs.compare(lhs);
+				return c == null ? null : c < 0 ? Boolean.TRUE : Boolean.FALSE;
+			};
+		case Expression.LESS_THAN_EQUAL_TO:
+			return lhs -> {
+				Integer c = rhs.compare(lhs);
+				return c == null ? null : c <= 0 ? Boolean.TRUE : Boolean.FALSE;
+			};
+		case Expression.GREATER_THAN:
+			return lhs -> {
+				Integer c = rhs.compare(lhs);
+				return c == null ? null : c > 0 ? Boolean.TRUE : Boolean.FALSE;
+			};
+		case Expression.GREATER_THAN_EQUAL_TO:
+			return lhs -> {
+				Integer c = rhs.compare(lhs);
+				return c == null ? null : c >= 0 ? Boolean.TRUE : Boolean.FALSE;
+			};
+		default:
+			throw new IllegalArgumentException("Unexpected comparison type: " + type);
+		}
+	}
+
+	private CompiledCondition compileIn(boolean not, Object[] values) {
+		Boolean found = not ? Boolean.FALSE : Boolean.TRUE;
+		Boolean notFound = not ? Boolean.TRUE : Boolean.FALSE;
+
+		if (values == null) {
+			return lhs -> Boolean.FALSE;
+		}
+
+		Set<Long> longs = new HashSet<>();
+		Set<String> strings = new HashSet<>();
+		int nonNullCount = 0, longCount = 0, stringCount = 0;
+		for (Object value : values) {
+			if (value != null) {
+				nonNullCount++;
+				if (ConstantOperand.isWholeNumber(value)) {
+					longs.add(((Number) value).longValue());
+					longCount++;
+				} else if (value instanceof String) {
+					strings.add((String) value);
+					stringCount++;
+				}
+			}
+		}
+
+		ConstantOperand[] operands = new ConstantOperand[nonNullCount];
+		for (int i = 0, j = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				operands[j++] = new ConstantOperand(values[i]);
+			}
+		}
+
+		Set<Long> longSet = longCount > 0 && longCount == nonNullCount ? longs : null;
+		Set<String> stringSet = stringCount > 0 && stringCount == nonNullCount ? strings : null;
+
+		return lhs -> {
+			// check against NULL can be done only with IS NULL operator, so
+			// NULL is never "in" and never "not in" a list
+			if (lhs == null) {
+				return Boolean.FALSE;
+			}
+
+			if (longSet != null && ConstantOperand.isWholeNumber(lhs)) {
+				return longSet.contains(((Number) lhs).longValue()) ? found : notFound;
+			}
+
+			if (stringSet != null && lhs instanceof String) {
+				return stringSet.contains(lhs) ? found : notFound;
+			}
+
+			for (ConstantOperand operand : operands) {
+				if (operand.eq(lhs)) {
+					return found;
+				}
+			}
+
+			return notFound;
+		};
+	}
+
+	protected CompiledNode compilePath(ASTObjPath node) {
+		CompiledPath path = descriptor != null ? CompiledPath.compile(descriptor, node.getPath()) : null;
+		if (path == null) {
+			return node::evaluateNode;
+		}
+
+		return object -> path.rootType.isInstance(object) ? path.read(object) : node.evaluateNode(object);
+	}
+
+	/**
+	 * A constant right-hand side of a binary condition with its value
+	 * pre-converted for the common comparisons. Falls back to {@link Evaluator}
+	 * for any other combination of types, so the results are always the same as
+	 * in the interpreted expression.
+	 */
+	static class ConstantOperand {
+
+		final Object value;
+		final boolean wholeNumber;
+		final long longValue;
+		final BigDecimal decimalValue;
+
+		ConstantOperand(Object value) {
+			this.value = value;
+			this.wholeNumber = isWholeNumber(value);
+			this.longValue = wholeNumber ? ((Number) value).longValue() : 0L;
+			this.decimalValue = value instanceof Number ? ConversionUtil.toBigDecimal(value) : null;
+		}
+
+		static boolean isWholeNumber(Object value) {
+			return value instanceof Integer || value instanceof Long || value instanceof Short
+					|| value instanceof Byte;
+		}
+
+		boolean eq(Object lhs) {
+			if (lhs == null) {
+				return value == null;
+			}
+
+			if (value == null) {
+				return false;
+			}
+
+			if (wholeNumber && isWholeNumber(lhs)) {
+				return ((Number) lhs).longValue() == longValue;
+			}
+
+			if (value instanceof String && lhs instanceof String) {
+				return lhs.equals(value);
+			}
+
+			if (decimalValue != null && lhs instanceof BigDecimal) {
+				return ((BigDecimal) lhs).compareTo(decimalValue) == 0;
+			}
+
+			return Evaluator.evaluator(lhs).eq(lhs, value);
+		}
+
+		@SuppressWarnings("unchecked")
+		Integer compare(Object lhs) {
+			if (lhs == null || value == null) {
+				return null;
+			}
+
+			if (wholeNumber && isWholeNumber(lhs)) {
+				return Long.compare(((Number) lhs).longValue(), longValue);
+			}
+
+			if (value instanceof String && lhs instanceof String) {
+				return ((String) lhs).compareTo((String) value);
+			}
+
+			if (decimalValue != null && lhs instanceof BigDecimal) {
+				return ((BigDecimal) lhs).compareTo(decimalValue);
+			}
+
+			return Evaluator.evaluator(lhs).compare(lhs, value);
+		}
+	}
+
+	/**
+	 * An object path resolved to a chain of property descriptors. The part of
+	 * the path that can not be resolved statically (e.g. anything after a
+	 * to-many relationship) is read per call, same as in {@link ASTObjPath}.
+	 */
+	static class CompiledPath {
+
+		final Class<?> rootType;
+		final PropertyDescriptor[] properties;
+		final Class<?>[] types;
+		final String[] remainders;
+		final String remainder;
+
+		CompiledPath(Class<?> rootType, PropertyDescriptor[] properties, Class<?>[] types, String[] remainders,
+				String remainder) {
+			this.rootType = rootType;
+			this.properties = properties;
+			this.types = types;
+			this.remainders = remainders;
+			this.remainder = remainder;
+		}
+
+		static CompiledPath compile(ClassDescriptor descriptor, String path) {
+			if (path == null || path.isEmpty()) {
+				return null;
+			}
+
+			String[] segments = path.split("\\.", -1);
+			int len = segments.length;
+
+			PropertyDescriptor[] properties = new PropertyDescriptor[len];
+			Class<?>[] types = new Class<?>[len];
+			String[] remainders = new String[len];
+
+			ClassDescriptor current = descriptor;
+			int resolved = 0;
+			int offset = 0;
+			for (int i = 0; i < len; i++) {
+				String segment = segments[i];
+				if (segment.isEmpty()) {
+					return null;
+				}
+
+				remainders[i] = path.substring(offset);
+				offset += segment.length() + 1;
+
+				if (current == null) {
+					break;
+				}
+
+				if (segment.charAt(segment.length() - 1) == '+') {
+					// outer join marker is ignored in the middle of the path
+					// and is invalid at the end of it
+					if (i == len - 1) {
+						return null;
+					}
+					segment = segment.substring(0, segment.length() - 1);
+				}
+
+				PropertyDescriptor property = current.getProperty(segment);
+				if (property instanceof ToOneProperty) {
+					properties[i] = property;
+					types[i] = current.getObjectClass();
+					current = ((ArcProperty) property).getTargetDescriptor();
+				} else if (property instanceof AttributeProperty && i == len - 1) {
+					properties[i] = property;
+					types[i] = current.getObjectClass();
+					current = null;
+				} else {
+					break;
+				}
+
+				resolved++;
+			}
+
+			if (resolved == 0) {
+				return null;
+			}
+
+			PropertyDescriptor[] resolvedProperties = new PropertyDescriptor[resolved];
+			Class<?>[] resolvedTypes = new Class<?>[resolved];
+			System.arraycopy(properties, 0, resolvedProperties, 0, resolved);
+			System.arraycopy(types, 0, resolvedTypes, 0, resolved);
+
+			return new CompiledPath(descriptor.getObjectClass(), resolvedProperties, resolvedTypes, remainders,
+					resolved < len ? remainders[resolved] : null);
+		}
+
+		Object read(Object object) throws Exception {
+			boolean dataObjectRoot = object instanceof DataObject;
+			Object value = object;
+
+			for (int i = 0; i < properties.length; i++) {
+				if (i > 0 && !types[i].isInstance(value)) {
+					return readRemainder(value, remainders[i], dataObjectRoot);
+				}
+
+				value = properties[i].readProperty(value);
+				if (value == null) {
+					return null;
+				}
+			}
+
+			return remainder != null ? readRemainder(value, remainder, dataObjectRoot) : value;
+		}
+
+		private static Object readRemainder(Object value, String remainder, boolean dataObjectRoot) {
+			if (value instanceof DataObject) {
+				return ((DataObject) value).readNestedProperty(remainder);
+			}
+
+			return dataObjectRoot ? Cayenne.readNestedProperty(value, remainder)
+					: PropertyUtils.getProperty(value, remainder);
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.query;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.map.DataMap;
+import org.apache.cayenne.map.EntityResolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A superclass of fluent queries that change or delete all rows of an entity
+ * table matching a qualifier with a single SQL statement, without loading the
+ * objects into an {@link ObjectContext}. Qualifiers are built the same way as
+ * for {@link ObjectSelect}, but may only reference the attributes of the root
+ * entity and its to-one relationships' foreign keys, as the statement can't
+ * contain joins.
+ * <p>
+ * After the statement is executed, cached snapshots of the entity matching the
+ * qualifier are invalidated, and so are the objects registered in the contexts
+ * that listen to the snapshot cache events. The query cache groups specified
+ * with {@link #cacheGroups(String...)} are cleared.
+ * </p>
+ *
+ * @since 4.1
+ */
+public abstract class ObjectBulkQuery<T, Q extends ObjectBulkQuery<T, Q>> implements Query {
+
+    private static final long serialVersionUID = 8263590315417924624L;
+
+    protected Class<?> entityType;
+    protected String entityName;
+    protected Expression where;
+    protected String[] cacheGroups;
+
+    protected ObjectBulkQuery() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private Q self() {
+        return (Q) this;
+    }
+
+    protected Q entityType(Class<?> entityType) {
+        this.entityType = entityType;
+        this.entityName = null;
+        return self();
+    }
+
+    protected Q entityName(String entityName) {
+        this.entityType = null;
+        this.entityName = entityName;
+        return self();
+    }
+
+    /**
+     * Appends a qualifier expression of this query. An equivalent to
+     * {@link #and(Expression...)} that can be used a syntactic sugar.
+     *
+     * @return this object
+     */
+    public Q where(Expression expression) {
+        return and(expression);
+    }
+
+    /**
+     * Appends a qualifier expression of this query, using provided expression
+     * String and an array of position parameters. This is an equivalent to
+     * calling "and".
+     *
+     * @return this object
+     */
+    public Q where(String expressionString, Object... parameters) {
+        return and(ExpressionFactory.exp(expressionString, parameters));
+    }
+
+    /**
+     * AND's provided expressions to the existing WHERE clause expression.
+     *
+     * @return this object
+     */
+    public Q and(Expression... expressions) {
+        if (expressions == null || expressions.length == 0) {
+            return self();
+        }
+
+        return and(Arrays.asList(expressions));
+    }
+
+    /**
+     * AND's provided expressions to the existing WHERE clause expression.
+     *
+     * @return this object
+     */
+    public Q and(Collection<Expression> expressions) {
+        if (expressions == null || expressions.isEmpty()) {
+            return self();
+        }
+
+        where = ExpressionFactory.and(withWhere(expressions));
+        return self();
+    }
+
+    /**
+     * OR's provided expressions to the existing WHERE clause expression.
+     *
+     * @return this object
+     */
+    public Q or(Expression... expressions) {
+        if (expressions == null || expressions.length == 0) {
+            return self();
+        }
+
+        return or(Arrays.asList(expressions));
+    }
+
+    /**
+     * OR's provided expressions to the existing WHERE clause expression.
+     *
+     * @return this object
+     */
+    public Q or(Collection<Expression> expressions) {
+        if (expressions == null || expressions.isEmpty()) {
+            return self();
+        }
+
+        where = ExpressionFactory.or(withWhere(expressions));
+        return self();
+    }
+
+    private Collection<Expression> withWhere(Collection<Expression> expressions) {
+        if (where == null) {
+            return expressions;
+        }
+
+        Collection<Expression> all = new ArrayList<>(expressions.size() + 1);
+        all.add(where);
+        all.addAll(expressions);
+        return all;
+    }
+
+    /**
+     * Sets query cache groups to clear after the query is executed.
+     *
+     * @return this object
+     */
+    public Q cacheGroups(String... cacheGroups) {
+        this.cacheGroups = cacheGroups;
+        return self();
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    /**
+     * Returns a WHERE clause Expression of this query.
+     */
+    public Expression getWhere() {
+        return where;
+    }
+
+    public String[] getCacheGroups() {
+        return cacheGroups != null ? cacheGroups : new String[0];
+    }
+
+    /**
+     * Executes the query, returning the number of affected rows.
+     */
+    protected int execute(ObjectContext context) {
+        QueryResponse response = context.performGenericQuery(this);
+
+        int[] counts = response.firstUpdateCount();
+        if (counts == null || counts.length != 1) {
+            throw new CayenneRuntimeException("Expected a single update count");
+        }
+
+        return counts[0];
+    }
+
+    @Override
+    public QueryMetadata getMetaData(EntityResolver resolver) {
+        Object root = entityType != null ? entityType : entityName;
+        if (root == null) {
+            throw new CayenneRuntimeException("Undefined root entity of the query");
+        }
+
+        BaseQueryMetadata metadata = new BaseQueryMetadata();
+        metadata.resolve(root, resolver);
+
+        if (metadata.getObjEntity() == null) {
+            throw new CayenneRuntimeException("Unrecognized root entity of the query: %s", root);
+        }
+
+        return metadata;
+    }
+
+    @Override
+    public void route(QueryRouter router, EntityResolver resolver, Query substitutedQuery) {
+        DataMap map = getMetaData(resolver).getDataMap();
+
+        if (map == null) {
+            throw new CayenneRuntimeException("No DataMap found, can't route query %s", this);
+        }
+
+        router.route(router.engineForDataMap(map), this, substitutedQuery);
+    }
+
+    @Override
+    public SQLAction createSQLAction(SQLActionVisitor visitor) {
+        return visitor.bulkAction(this);
+    }
+}
@@ -0,0 +1,78 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.query;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.exp.Expression;
+
+/**
+ * A query that deletes all rows of an entity matching a qualifier with a
+ * single <code>DELETE ... WHERE ...</code> statement, without fetching the
+ * objects. For example:
+ * <pre>
+ * {@code
+ * int deleted = ObjectDelete.query(Painting.class)
+ *      .where(Painting.ESTIMATED_PRICE.lt(new BigDecimal(100)))
+ *      .delete(context);
+ * }
+ * </pre>
+ * Delete rules of the entity relationships are not applied, so the rows
+ * referencing the deleted rows must be taken care of separately.
+ *
+ * @since 4.1
+ */
+public class ObjectDelete<T> extends ObjectBulkQuery<T, ObjectDelete<T>> {
+
+    private static final long serialVersionUID = 4711957446522101226L;
+
+    /**
+     * Creates a query that deletes rows of an entity mapped to a given
+     * persistent class.
+     */
+    public static <T> ObjectDelete<T> query(Class<T> entityType) {
+        return new ObjectDelete<T>().entityType(entityType);
+    }
+
+    /**
+     * Creates a query that deletes rows of an entity mapped to a given
+     * persistent class and matching a qualifier.
+     */
+    public static <T> ObjectDelete<T> query(Class<T> entityType, Expression expression) {
+        return query(entityType).where(expression);
+    }
+
+    /**
+     * Creates a query that deletes rows of an entity with a given name. This
+     * form is most often used for generic entities that don't map to a
+     * distinct class.
+     */
+    public static ObjectDelete<Object> query(String entityName) {
+        return new ObjectDelete<>().entityName(entityName);
+    }
+
+    protected ObjectDelete() {
+    }
+
+    /**
+     * Runs the DELETE statement, returning the number of deleted rows.
+     */
+    public int delete(ObjectContext context) {
+        return execute(context);
+    }
+}
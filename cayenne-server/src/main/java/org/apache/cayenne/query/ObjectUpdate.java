@@ -0,0 +1,114 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.query;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.Property;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A query that updates all rows of an entity matching a qualifier with a
+ * single <code>UPDATE ... SET ... WHERE ...</code> statement, without fetching
+ * the objects. For example:
+ * <pre>
+ * {@code
+ * int updated = ObjectUpdate.query(Artist.class)
+ *      .set(Artist.ARTIST_NAME, "Unknown")
+ *      .where(Artist.DATE_OF_BIRTH.isNull())
+ *      .update(context);
+ * }
+ * </pre>
+ * Only the attributes of the root entity can be set.
+ *
+ * @since 4.1
+ */
+public class ObjectUpdate<T> extends ObjectBulkQuery<T, ObjectUpdate<T>> {
+
+    private static final long serialVersionUID = -5049307441939734417L;
+
+    protected Map<String, Object> values;
+
+    /**
+     * Creates a query that updates rows of an entity mapped to a given
+     * persistent class.
+     */
+    public static <T> ObjectUpdate<T> query(Class<T> entityType) {
+        return new ObjectUpdate<T>().entityType(entityType);
+    }
+
+    /**
+     * Creates a query that updates rows of an entity mapped to a given
+     * persistent class and matching a qualifier.
+     */
+    public static <T> ObjectUpdate<T> query(Class<T> entityType, Expression expression) {
+        return query(entityType).where(expression);
+    }
+
+    /**
+     * Creates a query that updates rows of an entity with a given name. This
+     * form is most often used for generic entities that don't map to a
+     * distinct class.
+     */
+    public static ObjectUpdate<Object> query(String entityName) {
+        return new ObjectUpdate<>().entityName(entityName);
+    }
+
+    protected ObjectUpdate() {
+        this.values = new LinkedHashMap<>();
+    }
+
+    /**
+     * Sets a new value of an attribute.
+     *
+     * @return this object
+     */
+    public <V> ObjectUpdate<T> set(Property<V> property, V value) {
+        return set(property.getName(), value);
+    }
+
+    /**
+     * Sets a new value of an attribute with a given name. The name can be
+     * either an ObjAttribute name or a DB column name prefixed with "db:".
+     *
+     * @return this object
+     */
+    public ObjectUpdate<T> set(String attribute, Object value) {
+        values.put(attribute, value);
+        return this;
+    }
+
+    /**
+     * Runs the UPDATE statement, returning the number of updated rows.
+     */
+    public int update(ObjectContext context) {
+        return execute(context);
+    }
+
+    /**
+     * Returns new attribute values keyed by attribute name, in the order they
+     * were set.
+     */
+    public Map<String, Object> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+}
@@ -23,10 +23,13 @@ import java.io.PrintWriter;
 import java.io.Serializable;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Function;
 
 import org.apache.cayenne.configuration.ConfigurationNodeVisitor;
 import org.apache.cayenne.configuration.EmptyConfigurationNodeVisitor;
@@ -34,6 +37,9 @@ import org.apache.cayenne.exp.Expression;
 import org.apache.cayenne.exp.ExpressionException;
 import org.apache.cayenne.exp.parser.ASTDbPath;
 import org.apache.cayenne.exp.parser.ASTObjPath;
+import org.apache.cayenne.exp.parser.ExpressionCompiler;
+import org.apache.cayenne.reflect.ClassDescriptor;
+import org.apache.cayenne.reflect.UnresolvablePathException;
 import org.apache.cayenne.util.ConversionUtil;
 import org.apache.cayenne.util.Util;
 import org.apache.cayenne.util.XMLEncoder;
@@ -76,6 +82,59 @@ public class Ordering implements Comparator<Object>, Serializable, XMLSerializab
 		objects.sort(comparator);
 	}
 
+	/**
+	 * Orders a given list of objects of the same type, using a List of
+	 * Orderings compiled against the object descriptor. Unlike
+	 * {@link #orderList(List, List)}, sort values are calculated once per
+	 * object instead of once per comparison. List being ordered is modified in
+	 * place.
+	 *
+	 * @param objects elements to sort
+	 * @param orderings list of Orderings to be applied
+	 * @param descriptor descriptor of the sorted objects, may be null
+	 * @since 4.1
+	 */
+	@SuppressWarnings("unchecked")
+	public static void orderList(List<?> objects, List<? extends Ordering> orderings, ClassDescriptor descriptor) {
+		if (objects == null || orderings == null || orderings.isEmpty()) {
+			return;
+		}
+
+		int width = orderings.size();
+		List<Function<Object, Object>> sortValues = new ArrayList<>(width);
+		for (Ordering ordering : orderings) {
+			sortValues.add(ordering.compileSortValue(descriptor));
+		}
+
+		// each row is an object followed by its sort values
+		Object[][] rows = new Object[objects.size()][];
+		int i = 0;
+		for (Object object : objects) {
+			Object[] row = new Object[width + 1];
+			row[0] = object;
+			for (int j = 0; j < width; j++) {
+				row[j + 1] = sortValues.get(j).apply(object);
+			}
+			rows[i++] = row;
+		}
+
+		Arrays.sort(rows, (r1, r2) -> {
+			for (int j = 0; j < width; j++) {
+				int result = orderings.get(j).compareSortValues(r1[j + 1], r2[j + 1]);
+				if (result != 0) {
+					return result;
+				}
+			}
+			return 0;
+		});
+
+		ListIterator<Object> it = ((List<Object>) objects).listIterator();
+		for (Object[] row : rows) {
+			it.next();
+			it.set(row[0]);
+		}
+	}
+
 	/**
 	 * Orders a given list of objects, using a List of Orderings applied
 	 * according the default iteration order of the Orderings list. I.e. each
@@ -393,30 +452,49 @@ public class Ordering implements Comparator<Object>, Serializable, XMLSerializab
 	@Override
 	public int compare(Object o1, Object o2) {
 		Expression exp = getSortSpec();
-		Object value1 = null;
-		Object value2 = null;
+		return compareSortValues(sortValue(exp::evaluate, o1), sortValue(exp::evaluate, o2));
+	}
+
+	/**
+	 * Returns a comparator equivalent to this Ordering, with the sort spec
+	 * compiled for objects described by the descriptor.
+	 *
+	 * @param descriptor descriptor of the compared objects, may be null
+	 * @since 4.1
+	 */
+	public Comparator<Object> compile(ClassDescriptor descriptor) {
+		Function<Object, Object> sortValue = compileSortValue(descriptor);
+		return (o1, o2) -> compareSortValues(sortValue.apply(o1), sortValue.apply(o2));
+	}
+
+	/**
+	 * Returns a function calculating the value compared by this ordering.
+	 */
+	Function<Object, Object> compileSortValue(ClassDescriptor descriptor) {
+		Function<Object, Object> evaluator = new ExpressionCompiler(descriptor).compile(getSortSpec());
+		return object -> sortValue(evaluator, object);
+	}
+
+	private Object sortValue(Function<Object, Object> evaluator, Object object) {
+		Object value;
 		try {
-			value1 = exp.evaluate(o1);
+			value = evaluator.apply(object);
 		} catch (ExpressionException e) {
-			if (pathExceptionSuppressed && e.getCause() instanceof org.apache.cayenne.reflect.UnresolvablePathException) {
+			if (pathExceptionSuppressed && e.getCause() instanceof UnresolvablePathException) {
 				// do nothing, we expect this
+				return null;
 			} else {
 				// re-throw
 				throw e;
 			}
 		}
 
-		try {
-			value2 = exp.evaluate(o2);
-		} catch (ExpressionException e) {
-			if (pathExceptionSuppressed && e.getCause() instanceof org.apache.cayenne.reflect.UnresolvablePathException) {
-				// do nothing, we expect this
-			} else {
-				// rethrow
-				throw e;
-			}
-		}
+		// TODO: to upper case should probably be defined as a separate
+		// expression type
+		return isCaseInsensitive() ? ConversionUtil.toUpperCase(value) : value;
+	}
 
+	int compareSortValues(Object value1, Object value2) {
 		if (value1 == null && value2 == null) {
 			return 0;
 		} else if (value1 == null) {
@@ -425,14 +503,6 @@ public class Ordering implements Comparator<Object>, Serializable, XMLSerializab
 			return nullSortedFirst ? 1 : -1;
 		}
 
-		if (isCaseInsensitive()) {
-			// TODO: to upper case should probably be defined as a separate
-			// expression
-			// type
-			value1 = ConversionUtil.toUpperCase(value1);
-			value2 = ConversionUtil.toUpperCase(value2);
-		}
-
 		int compareResult = ConversionUtil.toComparable(value1).compareTo(ConversionUtil.toComparable(value2));
 		return (isAscending()) ? compareResult : -compareResult;
 	}
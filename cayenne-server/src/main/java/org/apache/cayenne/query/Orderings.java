@@ -24,6 +24,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+import org.apache.cayenne.reflect.ClassDescriptor;
+
 /**
   * <p>Orderings is provided so that you can chain Ordering together and then use 
   * the result to pass into methods that require List&lt;Ordering&gt;</p>
@@ -111,4 +113,17 @@ public class Orderings extends ArrayList<Ordering> {
 	 public <T> void orderList(List<T> list) {
 	 	Ordering.orderList(list, this);
 	 }
+
+	 /**
+	 * Sorts the given list of objects of the same type with these Orderings,
+	 * compiled against the descriptor of the objects.
+	 * 
+	 * @param <T> the type of the list
+	 * @param list the list to sort
+	 * @param descriptor descriptor of the sorted objects, may be null
+	 * @since 4.1
+	 */
+	 public <T> void orderList(List<T> list, ClassDescriptor descriptor) {
+	 	Ordering.orderList(list, this, descriptor);
+	 }
 }
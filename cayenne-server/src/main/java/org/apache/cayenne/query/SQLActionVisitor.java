@@ -19,6 +19,8 @@
 
 package org.apache.cayenne.query;
 
+import org.apache.cayenne.CayenneRuntimeException;
+
 /**
  * A factory interface to create standard SQLActions for a set of standard queries.
  * Instances of SQLActionVisitor are passed by Cayenne to a Query in
@@ -56,4 +58,14 @@ public interface SQLActionVisitor {
      * Creates an action to execute EJBQL query.
      */
     SQLAction ejbqlAction(EJBQLQuery query);
+
+    /**
+     * Creates an action to execute a bulk UPDATE or DELETE query. Throws an
+     * exception unless overridden.
+     *
+     * @since 4.1
+     */
+    default SQLAction bulkAction(ObjectBulkQuery<?, ?> query) {
+        throw new CayenneRuntimeException("Bulk queries are not supported by %s", getClass().getName());
+    }
 }
@@ -25,6 +25,7 @@ import org.apache.cayenne.ResultIterator;
 import org.apache.cayenne.ResultIteratorCallback;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * A common interface for grouping together different kinds of queries that
@@ -110,4 +111,18 @@ public interface Select<T> extends Query {
 	 * @since 4.0
 	 */
 	ResultBatchIterator<T> batchIterator(ObjectContext context, int size);
+
+	/**
+	 * Creates a sequential Stream of the query results based on the provided
+	 * context. It is backed by an open result set, that is released when the
+	 * stream is fully consumed or closed. The caller should close streams that
+	 * may not be consumed to the end, e.g. with try-with-resources.
+	 * <p>
+	 * Essentially the inversion of "ObjectContext.stream(Select)".
+	 *
+	 * @since 4.1
+	 */
+	default Stream<T> stream(ObjectContext context) {
+		return context.stream(this);
+	}
 }
@@ -0,0 +1,104 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+
+/**
+ * Batched "insert or update" query. Each row is inserted if the table has no
+ * row with the same values of the key attributes, and otherwise the existing
+ * row is updated with the values of all the other attributes. Key attributes
+ * default to the PK of the DbEntity, but can be set to the columns of any
+ * unique constraint. The SQL is generated by the DbAdapter, e.g. as
+ * "INSERT ... ON CONFLICT ... DO UPDATE" on PostgreSQL, "INSERT ... ON
+ * DUPLICATE KEY UPDATE" on MySQL or "MERGE" on other databases.
+ * <p>
+ * Unlike the other batch queries, UpsertBatchQuery is not created by Cayenne
+ * during commit, and is intended for bulk synchronization of table data. It
+ * can be run via {@link org.apache.cayenne.ObjectContext#performGenericQuery(Query)}.
+ * A batch should not contain more than one row with the same key.
+ *
+ * @since 4.1
+ */
+public class UpsertBatchQuery extends BatchQuery {
+
+    protected List<DbAttribute> keyAttributes;
+
+    /**
+     * Creates an UpsertBatchQuery that matches existing rows by PK.
+     */
+    public UpsertBatchQuery(DbEntity entity, int batchCapacity) {
+        this(entity, entity.getPrimaryKeys(), batchCapacity);
+    }
+
+    /**
+     * Creates an UpsertBatchQuery that matches existing rows by the values of
+     * a given set of attributes.
+     */
+    public UpsertBatchQuery(DbEntity entity, Collection<DbAttribute> keyAttributes, int batchCapacity) {
+        super(entity, new ArrayList<>(entity.getAttributes()), batchCapacity);
+
+        if (keyAttributes == null || keyAttributes.isEmpty()) {
+            throw new IllegalArgumentException("No key attributes for upsert into " + entity.getName());
+        }
+
+        this.keyAttributes = new ArrayList<>(keyAttributes);
+    }
+
+    /**
+     * Returns attributes used to match batch rows against the existing rows.
+     */
+    public List<DbAttribute> getKeyAttributes() {
+        return keyAttributes;
+    }
+
+    /**
+     * Returns true if a given attribute is one of the key attributes.
+     */
+    public boolean isKeyAttribute(DbAttribute attribute) {
+        return keyAttributes.contains(attribute);
+    }
+
+    /**
+     * Adds a snapshot to batch. A shortcut for "add(snapshot, null)".
+     */
+    public void add(Map<String, Object> snapshot) {
+        add(snapshot, null);
+    }
+
+    /**
+     * Adds a snapshot to batch, optionally storing the object id for the
+     * snapshot.
+     */
+    public void add(final Map<String, Object> snapshot, ObjectId id) {
+        rows.add(new BatchQueryRow(id, null) {
+            @Override
+            public Object getValue(int i) {
+                return getValue(snapshot, dbAttributes.get(i));
+            }
+        });
+    }
+}
@@ -0,0 +1,251 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.reflect;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates and caches property accessors that call getters and setters via
+ * classes generated with {@link LambdaMetafactory}, and read and write fields
+ * via {@link MethodHandle MethodHandles}, instead of going through reflection
+ * on every call. If the generated access is not possible for a given
+ * property, e.g. because of class visibility, a regular reflection-based
+ * accessor is returned.
+ *
+ * @since 4.1
+ */
+public class AccessorFactory {
+
+	private static final MethodType READER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType WRITER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private final ConcurrentMap<AccessorKey, Accessor> accessors;
+
+	public AccessorFactory() {
+		this.accessors = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns a cached accessor that reads and writes an object field
+	 * directly.
+	 */
+	public Accessor fieldAccessor(Class<?> objectClass, String propertyName, Class<?> propertyType) {
+		AccessorKey key = new AccessorKey(false, objectClass, propertyName, propertyType);
+		return accessors.computeIfAbsent(key,
+				k -> compile(new FieldAccessor(objectClass, propertyName, propertyType)));
+	}
+
+	/**
+	 * Returns a cached accessor that reads and writes an object property via
+	 * JavaBean get/set methods.
+	 */
+	public Accessor beanAccessor(Class<?> objectClass, String propertyName, Class<?> propertyType) {
+		AccessorKey key = new AccessorKey(true, objectClass, propertyName, propertyType);
+		return accessors.computeIfAbsent(key,
+				k -> compile(new BeanAccessor(objectClass, propertyName, propertyType)));
+	}
+
+	/**
+	 * Returns the number of cached accessors.
+	 */
+	public int size() {
+		return accessors.size();
+	}
+
+	/**
+	 * Returns a compiled version of a reflection-based accessor, or the
+	 * accessor itself if it can't be compiled.
+	 */
+	public static Accessor compile(Accessor accessor) {
+
+		try {
+			if (accessor instanceof BeanAccessor) {
+				return compileBeanAccessor((BeanAccessor) accessor);
+			} else if (accessor instanceof FieldAccessor) {
+				return compileFieldAccessor((FieldAccessor) accessor);
+			}
+		} catch (Throwable th) {
+			// falling back to reflection
+		}
+
+		return accessor;
+	}
+
+	static CompiledAccessor compileBeanAccessor(BeanAccessor accessor) throws Throwable {
+
+		Method readMethod = accessor.readMethod;
+		Method writeMethod = accessor.writeMethod;
+
+		CompiledAccessor.Reader reader = canGenerate(readMethod)
+				? generateReader(readMethod)
+				: handleReader(MethodHandles.lookup().unreflect(accessible(readMethod)));
+
+		CompiledAccessor.Writer writer = null;
+		Class<?> convertTo = null;
+		if (writeMethod != null) {
+			writer = canGenerate(writeMethod)
+					? generateWriter(writeMethod)
+					: handleWriter(MethodHandles.lookup().unreflect(accessible(writeMethod)));
+			convertTo = writeMethod.getParameterTypes()[0];
+		}
+
+		return new CompiledAccessor(accessor, reader, writer, convertTo, accessor.nullValue);
+	}
+
+	static CompiledAccessor compileFieldAccessor(FieldAccessor accessor) throws Throwable {
+
+		// FieldAccessor has already made the field accessible
+		Field field = accessor.field;
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		CompiledAccessor.Reader reader = handleReader(lookup.unreflectGetter(field));
+
+		// final fields are written via reflection by the delegate
+		CompiledAccessor.Writer writer = Modifier.isFinal(field.getModifiers())
+				? null
+				: handleWriter(lookup.unreflectSetter(field));
+
+		return new CompiledAccessor(accessor, reader, writer, null, accessor.nullValue);
+	}
+
+	private static CompiledAccessor.Reader handleReader(MethodHandle handle) {
+		MethodHandle getter = handle.asType(READER_TYPE);
+		return object -> (Object) getter.invokeExact(object);
+	}
+
+	private static CompiledAccessor.Writer handleWriter(MethodHandle handle) {
+		MethodHandle setter = handle.asType(WRITER_TYPE);
+		return (object, value) -> {
+			setter.invokeExact(object, value);
+		};
+	}
+
+	private static CompiledAccessor.Reader generateReader(Method method) throws Throwable {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodType instantiatedType = MethodType.methodType(method.getReturnType(), method.getDeclaringClass()).wrap();
+
+		CallSite site = LambdaMetafactory.metafactory(lookup, "read", MethodType.methodType(CompiledAccessor.Reader.class),
+				READER_TYPE, lookup.unreflect(method), instantiatedType);
+		return (CompiledAccessor.Reader) site.getTarget().invoke();
+	}
+
+	private static CompiledAccessor.Writer generateWriter(Method method) throws Throwable {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodType instantiatedType = MethodType
+				.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0]).wrap()
+				.changeReturnType(void.class);
+
+		CallSite site = LambdaMetafactory.metafactory(lookup, "write", MethodType.methodType(CompiledAccessor.Writer.class),
+				WRITER_TYPE, lookup.unreflect(method), instantiatedType);
+		return (CompiledAccessor.Writer) site.getTarget().invoke();
+	}
+
+	/**
+	 * Checks whether a class calling the method directly can be generated.
+	 * Such a class is defined in Cayenne class loader, so all the classes in
+	 * the method signature must be public and visible to this loader.
+	 */
+	private static boolean canGenerate(Method method) {
+
+		if (!isVisible(method.getDeclaringClass()) || !isVisible(method.getReturnType())) {
+			return false;
+		}
+
+		for (Class<?> type : method.getParameterTypes()) {
+			if (!isVisible(type)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isVisible(Class<?> type) {
+
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+
+		if (type.isPrimitive()) {
+			return true;
+		}
+
+		if (!Modifier.isPublic(type.getModifiers())) {
+			return false;
+		}
+
+		try {
+			return Class.forName(type.getName(), false, AccessorFactory.class.getClassLoader()) == type;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	private static Method accessible(Method method) {
+		if (!method.isAccessible()) {
+			method.setAccessible(true);
+		}
+		return method;
+	}
+
+	static final class AccessorKey {
+
+		private final boolean bean;
+		private final Class<?> objectClass;
+		private final String propertyName;
+		private final Class<?> propertyType;
+
+		AccessorKey(boolean bean, Class<?> objectClass, String propertyName, Class<?> propertyType) {
+			this.bean = bean;
+			this.objectClass = objectClass;
+			this.propertyName = propertyName;
+			this.propertyType = propertyType;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+
+			if (!(object instanceof AccessorKey)) {
+				return false;
+			}
+
+			AccessorKey key = (AccessorKey) object;
+			return bean == key.bean && objectClass == key.objectClass && propertyType == key.propertyType
+					&& Objects.equals(propertyName, key.propertyName);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(bean, objectClass, propertyName, propertyType);
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.reflect;
+
+import java.io.ObjectStreamException;
+
+/**
+ * An accessor that reads and writes a property via code generated by
+ * {@link AccessorFactory}, avoiding reflective calls. Wraps a reflection-based
+ * accessor for the same property, that handles writing when the property
+ * can't be written directly. Generated code is not serializable, so the
+ * accessor is serialized as its reflection-based delegate.
+ *
+ * @since 4.1
+ */
+public class CompiledAccessor implements Accessor {
+
+	private static final long serialVersionUID = -5453298611553498470L;
+
+	/**
+	 * Reads property value of an object.
+	 */
+	interface Reader {
+
+		Object read(Object object) throws Throwable;
+	}
+
+	/**
+	 * Writes property value of an object.
+	 */
+	interface Writer {
+
+		void write(Object object, Object value) throws Throwable;
+	}
+
+	protected Accessor delegate;
+	protected transient Reader reader;
+	protected transient Writer writer;
+	protected Class<?> convertTo;
+	protected Object nullValue;
+
+	CompiledAccessor(Accessor delegate, Reader reader, Writer writer, Class<?> convertTo, Object nullValue) {
+		this.delegate = delegate;
+		this.reader = reader;
+		this.writer = writer;
+		this.convertTo = convertTo;
+		this.nullValue = nullValue;
+	}
+
+	/**
+	 * Returns a reflection-based accessor for the same property.
+	 */
+	public Accessor getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Replaces this accessor with its reflection-based delegate in the
+	 * serialized form.
+	 */
+	Object writeReplace() throws ObjectStreamException {
+		return delegate;
+	}
+
+	@Override
+	public String getName() {
+		return delegate.getName();
+	}
+
+	@Override
+	public Object getValue(Object object) throws PropertyException {
+		try {
+			return reader.read(object);
+		} catch (Throwable th) {
+			throw new PropertyException("Error reading property: " + getName(), this, object, th);
+		}
+	}
+
+	@Override
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void setValue(Object object, Object newValue) throws PropertyException {
+
+		if (writer == null) {
+			delegate.setValue(object, newValue);
+			return;
+		}
+
+		try {
+			if (convertTo != null) {
+				Converter converter = ConverterFactory.factory.getConverter(convertTo);
+				if (converter != null) {
+					newValue = converter.convert(newValue, (Class) convertTo);
+				}
+			}
+
+			// this will take care of primitives.
+			if (newValue == null) {
+				newValue = this.nullValue;
+			}
+
+			writer.write(object, newValue);
+		} catch (Throwable th) {
+			throw new PropertyException("Error writing property: " + getName(), this, object, th);
+		}
+	}
+}
@@ -42,8 +42,14 @@ public abstract class PersistentDescriptorFactory implements ClassDescriptorFact
 
     protected ClassDescriptorMap descriptorMap;
 
+    /**
+     * @since 4.1
+     */
+    protected AccessorFactory accessorFactory;
+
     public PersistentDescriptorFactory(ClassDescriptorMap descriptorMap) {
         this.descriptorMap = descriptorMap;
+        this.accessorFactory = new AccessorFactory();
     }
 
     public ClassDescriptor getDescriptor(String entityName) {
@@ -67,7 +73,7 @@ public abstract class PersistentDescriptorFactory implements ClassDescriptorFact
         descriptor.setEntity(entity);
         descriptor.setSuperclassDescriptor(superDescriptor);
         descriptor.setObjectClass(entityClass);
-        descriptor.setPersistenceStateAccessor(new BeanAccessor(entityClass, "persistenceState", Integer.TYPE));
+        descriptor.setPersistenceStateAccessor(accessorFactory.beanAccessor(entityClass, "persistenceState", Integer.TYPE));
 
         // only include this entity attributes and skip superclasses...
         for (ObjAttribute attribute : descriptor.getEntity().getDeclaredAttributes()) {
@@ -295,7 +301,7 @@ public abstract class PersistentDescriptorFactory implements ClassDescriptorFact
      */
     protected Accessor createAccessor(PersistentDescriptor descriptor, String propertyName, Class<?> propertyType)
             throws PropertyException {
-        return new FieldAccessor(descriptor.getObjectClass(), propertyName, propertyType);
+        return accessorFactory.fieldAccessor(descriptor.getObjectClass(), propertyName, propertyType);
     }
 
     /**
@@ -316,7 +322,7 @@ public abstract class PersistentDescriptorFactory implements ClassDescriptorFact
      */
     protected Accessor createEmbeddableAccessor(EmbeddableDescriptor descriptor, String propertyName,
             Class<?> propertyType) {
-        return new FieldAccessor(descriptor.getObjectClass(), propertyName, propertyType);
+        return accessorFactory.fieldAccessor(descriptor.getObjectClass(), propertyName, propertyType);
     }
 
     /**
@@ -112,7 +112,7 @@ public class PropertyUtils {
 		if (Map.class.isAssignableFrom(objectClass)) {
 			return new MapAccessor(propertyName);
 		} else {
-			return new BeanAccessor(objectClass, propertyName, null);
+			return AccessorFactory.compile(new BeanAccessor(objectClass, propertyName, null));
 		}
 	}
 
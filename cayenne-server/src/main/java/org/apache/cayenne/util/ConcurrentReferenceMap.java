@@ -0,0 +1,259 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base class for thread-safe maps storing values wrapped into references. Unlike
+ * {@link ReferenceMap}, reads and writes don't require external synchronization,
+ * and cleared references are purged in constant time per reference.
+ *
+ * @see ConcurrentWeakValueMap
+ * @see ConcurrentSoftValueMap
+ *
+ * @since 4.1
+ */
+abstract class ConcurrentReferenceMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 5349165738574389137L;
+
+    protected transient ConcurrentHashMap<K, Reference<V>> map;
+
+    protected transient ReferenceQueue<V> referenceQueue;
+
+    protected transient Set<Entry<K, V>> entrySet;
+
+    public ConcurrentReferenceMap() {
+        map = new ConcurrentHashMap<>();
+        referenceQueue = new ReferenceQueue<>();
+    }
+
+    public ConcurrentReferenceMap(int initialCapacity) {
+        map = new ConcurrentHashMap<>(initialCapacity);
+        referenceQueue = new ReferenceQueue<>();
+    }
+
+    @Override
+    public int size() {
+        checkReferenceQueue();
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        checkReferenceQueue();
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        checkReferenceQueue();
+        return map.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        checkReferenceQueue();
+        Reference<V> ref = map.get(key);
+        return ref != null ? ref.get() : null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if(value == null) {
+            throw new NullPointerException("ConcurrentReferenceMap can't contain null values");
+        }
+        checkReferenceQueue();
+        Reference<V> oldValue = map.put(key, newReference(key, value));
+        return oldValue != null ? oldValue.get() : null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        checkReferenceQueue();
+        Reference<V> oldValue = map.remove(key);
+        return oldValue != null ? oldValue.get() : null;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        while(referenceQueue.poll() != null) {
+            // just purge this queue
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        checkReferenceQueue();
+        Set<Entry<K, V>> es = entrySet;
+        if(es == null) {
+            entrySet = es = new ReferenceEntrySet();
+        }
+        return es;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void checkReferenceQueue() {
+        Reference<? extends V> reference;
+        while((reference = referenceQueue.poll()) != null) {
+            // only remove the entry if it was not replaced with another value since
+            // the reference was created
+            map.remove(((KeyedReference<K>) reference).getKey(), reference);
+        }
+    }
+
+    abstract Reference<V> newReference(K key, V value);
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+
+        Map<K, V> replacementMap = new HashMap<>(map.size());
+        for(Entry<K, V> entry : entrySet()) {
+            replacementMap.put(entry.getKey(), entry.getValue());
+        }
+        out.writeObject(replacementMap);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        @SuppressWarnings("unchecked")
+        Map<K, V> replacement = (Map<K, V>) in.readObject();
+        map = new ConcurrentHashMap<>(replacement.size());
+        referenceQueue = new ReferenceQueue<>();
+        putAll(replacement);
+    }
+
+    interface KeyedReference<K> {
+        K getKey();
+    }
+
+    static class KeyedWeakReference<K, V> extends WeakReference<V> implements KeyedReference<K> {
+
+        private final K key;
+
+        KeyedWeakReference(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+    }
+
+    static class KeyedSoftReference<K, V> extends SoftReference<V> implements KeyedReference<K> {
+
+        private final K key;
+
+        KeyedSoftReference(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+    }
+
+    class ReferenceEntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new ReferenceEntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+    }
+
+    class ReferenceEntryIterator implements Iterator<Entry<K, V>> {
+
+        Iterator<Entry<K, Reference<V>>> internalIterator;
+
+        Entry<K, V> next;
+        Entry<K, V> last;
+
+        ReferenceEntryIterator() {
+            internalIterator = map.entrySet().iterator();
+            tryAdvance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            tryAdvance();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if(last == null) {
+                throw new IllegalStateException();
+            }
+            map.remove(last.getKey());
+            last = null;
+        }
+
+        private void tryAdvance() {
+            next = null;
+
+            // the underlying iterator is weakly consistent, so it is safe to
+            // continue iterating while the map is modified
+            while(internalIterator.hasNext()) {
+                Entry<K, Reference<V>> nextRefEntry = internalIterator.next();
+                V value = nextRefEntry.getValue().get();
+                if(value != null) {
+                    next = new SimpleImmutableEntry<>(nextRefEntry.getKey(), value);
+                    break;
+                }
+            }
+        }
+    }
+}
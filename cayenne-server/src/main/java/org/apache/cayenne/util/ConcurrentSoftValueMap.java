@@ -0,0 +1,54 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.util;
+
+import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.util.Map;
+
+/**
+ * Thread-safe map that stores values wrapped into {@link java.lang.ref.SoftReference}.
+ *
+ * @see SoftValueMap
+ *
+ * @since 4.1
+ */
+public class ConcurrentSoftValueMap<K, V> extends ConcurrentReferenceMap<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 4481750278937152906L;
+
+    public ConcurrentSoftValueMap() {
+        super();
+    }
+
+    public ConcurrentSoftValueMap(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    public ConcurrentSoftValueMap(Map<? extends K, ? extends V> m) {
+        super(m.size());
+        putAll(m);
+    }
+
+    @Override
+    Reference<V> newReference(K key, V value) {
+        return new KeyedSoftReference<>(key, value, referenceQueue);
+    }
+}
@@ -0,0 +1,91 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.util;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.cayenne.ResultIterator;
+
+/**
+ * A Spliterator over a {@link ResultIterator} that closes the iterator when it
+ * is exhausted or when the stream created by {@link #stream(ResultIterator)} is
+ * closed, whichever happens first.
+ *
+ * @since 4.1
+ */
+public class ResultIteratorSpliterator<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+
+    private ResultIterator<T> parent;
+    private boolean closed;
+
+    /**
+     * Creates a sequential Stream over the iterator. The underlying result set
+     * is released when the stream is fully consumed or closed. Streams that may
+     * be abandoned before reaching the end must be closed explicitly, e.g. with
+     * try-with-resources.
+     */
+    public static <T> Stream<T> stream(ResultIterator<T> iterator) {
+        ResultIteratorSpliterator<T> spliterator = new ResultIteratorSpliterator<>(iterator);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    public ResultIteratorSpliterator(ResultIterator<T> parent) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED);
+        this.parent = parent;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (closed) {
+            return false;
+        }
+
+        boolean hasNext;
+        T next = null;
+        try {
+            hasNext = parent.hasNextRow();
+            if (hasNext) {
+                next = parent.nextRow();
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+
+        if (!hasNext) {
+            close();
+            return false;
+        }
+
+        action.accept(next);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            parent.close();
+        }
+    }
+}
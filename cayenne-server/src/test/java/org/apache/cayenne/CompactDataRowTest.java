@@ -0,0 +1,210 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.cayenne.util.Util;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompactDataRowTest {
+
+    private CompactDataRow createRow() {
+        CompactDataRow.Layout layout = CompactDataRow.Layout.forKeys("A", "B", "C");
+        return new CompactDataRow(layout, new Object[] { 1, null, "c" });
+    }
+
+    @Test
+    public void testLayout_Interned() {
+        CompactDataRow.Layout l1 = CompactDataRow.Layout.forKeys("X", "Y");
+        CompactDataRow.Layout l2 = CompactDataRow.Layout.forKeys("X", "Y");
+        CompactDataRow.Layout l3 = CompactDataRow.Layout.forKeys("Y", "X");
+
+        assertSame(l1, l2);
+        assertFalse(l1 == l3);
+    }
+
+    @Test
+    public void testLayout_Duplicates() {
+        CompactDataRow.Layout layout = CompactDataRow.Layout.forKeys("X", "Y", "X");
+        assertEquals(2, layout.size());
+        assertEquals(0, layout.indexOf("X"));
+        assertEquals(1, layout.indexOf("Y"));
+        assertEquals(-1, layout.indexOf("Z"));
+    }
+
+    @Test
+    public void testGet() {
+        CompactDataRow row = createRow();
+
+        assertEquals(3, row.size());
+        assertEquals(1, row.get("A"));
+        assertNull(row.get("B"));
+        assertTrue(row.containsKey("B"));
+        assertFalse(row.containsKey("Z"));
+        assertTrue(row.containsValue("c"));
+        assertTrue(row.containsValue(null));
+        assertEquals("x", row.getOrDefault("Z", "x"));
+    }
+
+    @Test
+    public void testPutRemove() {
+        CompactDataRow row = createRow();
+
+        assertEquals(1, row.put("A", 2));
+        assertEquals(2, row.get("A"));
+
+        assertEquals("c", row.remove("C"));
+        assertEquals(2, row.size());
+        assertFalse(row.containsKey("C"));
+        assertNull(row.remove("C"));
+
+        assertNull(row.put("C", "d"));
+        assertEquals(3, row.size());
+        assertNotNull(row.getLayout());
+    }
+
+    @Test
+    public void testPut_UnknownKey() {
+        CompactDataRow row = createRow();
+
+        row.put("Z", "z");
+        assertNull(row.getLayout());
+        assertEquals(4, row.size());
+        assertEquals(1, row.get("A"));
+        assertEquals("z", row.get("Z"));
+        assertTrue(row.containsKey("B"));
+    }
+
+    @Test
+    public void testEqualsHashMap() {
+        CompactDataRow row = createRow();
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("A", 1);
+        map.put("B", null);
+        map.put("C", "c");
+
+        assertEquals(map, row);
+        assertEquals(row, map);
+        assertEquals(map.hashCode(), row.hashCode());
+        assertEquals(new DataRow(map), row);
+    }
+
+    @Test
+    public void testEntrySet_Iterator() {
+        CompactDataRow row = createRow();
+
+        Iterator<Map.Entry<String, Object>> it = row.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Object> e = it.next();
+            if ("A".equals(e.getKey())) {
+                e.setValue(5);
+            } else if ("B".equals(e.getKey())) {
+                it.remove();
+            }
+        }
+
+        assertEquals(2, row.size());
+        assertEquals(5, row.get("A"));
+        assertFalse(row.containsKey("B"));
+        assertEquals(2, row.keySet().size());
+        assertTrue(row.keySet().contains("C"));
+        assertTrue(row.values().contains("c"));
+    }
+
+    @Test
+    public void testEntrySet_Inflated() {
+        CompactDataRow row = createRow();
+
+        Iterator<Map.Entry<String, Object>> it = row.entrySet().iterator();
+        Map.Entry<String, Object> a = it.next();
+
+        row.put("Z", "z");
+        assertNull(row.getLayout());
+
+        // entries read through the current storage
+        assertEquals(1, a.getValue());
+        a.setValue(5);
+        assertEquals(5, row.get("A"));
+
+        try {
+            it.next();
+            fail("Iterator must fail after the row storage changed");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+
+        assertEquals(4, row.entrySet().size());
+        assertTrue(row.keySet().iterator().hasNext());
+    }
+
+    @Test
+    public void testClone() {
+        CompactDataRow row = createRow();
+        row.setEntityName("E1");
+        row.setReplacesVersion(5);
+
+        DataRow clone = (DataRow) row.clone();
+        assertEquals(row, clone);
+        assertEquals(row.getVersion(), clone.getVersion());
+        assertEquals(5, clone.getReplacesVersion());
+        assertEquals("E1", clone.getEntityName());
+
+        clone.put("A", 10);
+        assertEquals(1, row.get("A"));
+    }
+
+    @Test
+    public void testApplyDiff() {
+        CompactDataRow row = createRow();
+
+        DataRow diff = new DataRow(2);
+        diff.put("B", "b");
+
+        DataRow merged = row.applyDiff(diff);
+        assertEquals("b", merged.get("B"));
+        assertNull(row.get("B"));
+        assertEquals(3, merged.size());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        CompactDataRow row = createRow();
+        row.setEntityName("E1");
+
+        Object clone = Util.cloneViaSerialization(row);
+        assertEquals(DataRow.class, clone.getClass());
+        assertEquals(row, clone);
+        assertEquals(row.getVersion(), ((DataRow) clone).getVersion());
+        assertEquals("E1", ((DataRow) clone).getEntityName());
+    }
+}
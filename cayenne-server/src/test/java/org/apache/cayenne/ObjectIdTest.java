@@ -22,7 +22,10 @@ package org.apache.cayenne;
 import org.apache.cayenne.util.Util;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
 import java.math.BigDecimal;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -31,6 +34,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -79,6 +83,43 @@ public class ObjectIdTest {
         assertEquals(perm1, perm2);
     }
 
+    @Test
+    public void testSerializabilityCompound() throws Exception {
+        Map<String, Object> hm = new HashMap<>();
+        hm.put("KEY1", 1);
+        hm.put("KEY2", "x");
+        ObjectId perm1 = new ObjectId("E1", hm);
+
+        ObjectId perm2 = Util.cloneViaSerialization(perm1);
+        assertNotSame(perm1, perm2);
+        assertEquals(perm1, perm2);
+        assertEquals(hm, perm2.getIdSnapshot());
+    }
+
+    @Test
+    public void testDeserializeCompound_PreviousVersion() throws Exception {
+
+        // ObjectId("E1", {KEY1=1, KEY2="x"}) serialized by Cayenne 4.0, with compound keys stored in a HashMap
+        String serialized = "rO0ABXNyABtvcmcuYXBhY2hlLmNheWVubmUuT2JqZWN0SWTgkQAJI0aD5QIABkwACmVudGl0eU5hbWV0ABJMamF2YS9sYW5nL1N0" +
+                "cmluZztbAANrZXl0AAJbQkwADG9iamVjdElkS2V5c3QAD0xqYXZhL3V0aWwvTWFwO0wAEHJlcGxhY2VtZW50SWRNYXBxAH4AA0wA" +
+                "CXNpbmdsZUtleXEAfgABTAALc2luZ2xlVmFsdWV0ABJMamF2YS9sYW5nL09iamVjdDt4cHQAAkUxcHNyABFqYXZhLnV0aWwuSGFz" +
+                "aE1hcAUH2sHDFmDRAwACRgAKbG9hZEZhY3RvckkACXRocmVzaG9sZHhwP0AAAAAAAAN3CAAAAAQAAAACdAAES0VZMnQAAXh0AARL" +
+                "RVkxc3IAEWphdmEubGFuZy5JbnRlZ2VyEuKgpPeBhzgCAAFJAAV2YWx1ZXhyABBqYXZhLmxhbmcuTnVtYmVyhqyVHQuU4IsCAAB4" +
+                "cAAAAAF4cHBw";
+
+        ObjectId id;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+                Base64.getDecoder().decode(serialized)))) {
+            id = (ObjectId) in.readObject();
+        }
+
+        Map<String, Object> hm = new HashMap<>();
+        hm.put("KEY1", 1);
+        hm.put("KEY2", "x");
+        assertEquals(new ObjectId("E1", hm), id);
+        assertEquals(hm, id.getIdSnapshot());
+    }
+
     @Test
     public void testEquals0() {
         ObjectId oid1 = new ObjectId("TE");
@@ -288,4 +329,47 @@ public class ObjectIdTest {
         assertEquals(i1, i2);
         assertEquals(i1.toString(), i2.toString());
     }
+
+    @Test
+    public void testGetIdSnapshot_Compound() {
+        Map<String, Object> m1 = new HashMap<>();
+        m1.put("b", 2);
+        m1.put("a", 1);
+        ObjectId id = new ObjectId("e1", m1);
+
+        Map<String, Object> snapshot = id.getIdSnapshot();
+        assertEquals(m1, snapshot);
+        assertEquals(m1.hashCode(), snapshot.hashCode());
+        assertEquals(1, snapshot.get("a"));
+        assertTrue(snapshot.containsKey("b"));
+        assertFalse(snapshot.containsKey("c"));
+        assertNull(snapshot.get(5));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetIdSnapshot_CompoundUnmodifiable() {
+        Map<String, Object> m1 = new HashMap<>();
+        m1.put("a", 1);
+        m1.put("b", 2);
+
+        new ObjectId("e1", m1).getIdSnapshot().put("c", 3);
+    }
+
+    @Test
+    public void testNotEqual_SingleVsCompound() {
+        Map<String, Object> m1 = new HashMap<>();
+        m1.put("a", 1);
+        m1.put("b", 2);
+
+        ObjectId compound = new ObjectId("e1", m1);
+        ObjectId single = new ObjectId("e1", "a", 1);
+        ObjectId empty = new ObjectId("e1", new HashMap<String, Object>());
+
+        assertFalse(compound.equals(single));
+        assertFalse(single.equals(compound));
+        assertFalse(compound.equals(empty));
+        assertFalse(empty.equals(compound));
+        assertFalse(empty.equals(single));
+        assertTrue(empty.equals(new ObjectId("e1", new HashMap<String, Object>())));
+    }
 }
@@ -40,10 +40,15 @@ import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 
 @UseServerRuntime(CayenneProjects.TESTMAP_PROJECT)
@@ -218,4 +223,103 @@ public class DataContextDisjointByIdPrefetchIT extends ServerCase {
         });
     }
 
+    @Test
+    public void testParallelChunks() throws Exception {
+        createThreeArtistsWithPlentyOfPaintingsDataSet();
+        createTwoPaintingsWithInfos();
+
+        DataDomain domain = context.getParentDataDomain();
+        int maxIdQualifierSize = domain.getMaxIdQualifierSize();
+        int prefetchThreads = domain.getPrefetchThreads();
+
+        // one query per parent id, run in parallel along with the sibling prefetch
+        domain.setMaxIdQualifierSize(1);
+        domain.setPrefetchThreads(2);
+
+        try {
+            SelectQuery query = new SelectQuery(Painting.class);
+            query.addPrefetch(Painting.TO_ARTIST.disjointById());
+            query.addPrefetch(Painting.TO_PAINTING_INFO.disjointById());
+            query.addOrdering("db:" + Painting.PAINTING_ID_PK_COLUMN, SortOrder.ASCENDING);
+
+            final List<Painting> result = context.performQuery(query);
+            queryInterceptor.runWithQueriesBlocked(new UnitTestClosure() {
+
+                public void execute() {
+                    assertEquals(10, result.size());
+
+                    for (Painting p : result) {
+                        Artist artist = (Artist) p.readPropertyDirectly(Painting.TO_ARTIST.getName());
+                        assertNotNull(artist);
+                        assertEquals(PersistenceState.COMMITTED, artist.getPersistenceState());
+                    }
+
+                    assertEquals("bag1", result.get(0).getToArtist().getArtistName());
+                    assertEquals("bag3", result.get(9).getToArtist().getArtistName());
+                    assertEquals("red", result.get(0).getToPaintingInfo().getTextReview());
+                    assertEquals("green", result.get(1).getToPaintingInfo().getTextReview());
+                }
+            });
+        } finally {
+            domain.setMaxIdQualifierSize(maxIdQualifierSize);
+            domain.setPrefetchThreads(prefetchThreads);
+        }
+    }
+
+    @Test
+    public void testParallelChunks_PageReadAhead() throws Exception {
+        createThreeArtistsWithPlentyOfPaintingsDataSet();
+        createTwoPaintingsWithInfos();
+
+        DataDomain domain = context.getParentDataDomain();
+        int maxIdQualifierSize = domain.getMaxIdQualifierSize();
+        int prefetchThreads = domain.getPrefetchThreads();
+        int pageReadAhead = domain.getPageReadAhead();
+
+        // single thread pools, with read-ahead pages carrying prefetches that would otherwise run in parallel
+        domain.setMaxIdQualifierSize(1);
+        domain.setPrefetchThreads(1);
+        domain.setPageReadAhead(1);
+
+        ExecutorService consumer = Executors.newSingleThreadExecutor();
+        try {
+            assertNotSame(domain.getPrefetchExecutor(), domain.getReadAheadExecutor());
+
+            SelectQuery query = new SelectQuery(Painting.class);
+            query.addPrefetch(Painting.TO_ARTIST.disjointById());
+            query.addPrefetch(Painting.TO_PAINTING_INFO.disjointById());
+            query.addOrdering("db:" + Painting.PAINTING_ID_PK_COLUMN, SortOrder.ASCENDING);
+            query.setPageSize(2);
+
+            final List<Painting> result = context.performQuery(query);
+            assertTrue(result instanceof IncrementalFaultList);
+            assertEquals(1, ((IncrementalFaultList<?>) result).getReadAheadPages());
+
+            Future<List<String>> names = consumer.submit(() -> {
+                List<String> artistNames = new ArrayList<>();
+                for (Painting p : result) {
+                    Artist artist = (Artist) p.readPropertyDirectly(Painting.TO_ARTIST.getName());
+                    assertNotNull(artist);
+                    assertEquals(PersistenceState.COMMITTED, artist.getPersistenceState());
+                    artistNames.add(artist.getArtistName());
+                }
+                return artistNames;
+            });
+
+            List<String> artistNames = names.get(30, TimeUnit.SECONDS);
+            assertEquals(10, artistNames.size());
+            assertEquals("bag1", artistNames.get(0));
+            assertEquals("bag3", artistNames.get(9));
+        } finally {
+            consumer.shutdownNow();
+            domain.setMaxIdQualifierSize(maxIdQualifierSize);
+            domain.setPrefetchThreads(prefetchThreads);
+            domain.setPageReadAhead(pageReadAhead);
+        }
+    }
+
+    private void createTwoPaintingsWithInfos() throws Exception {
+        tPaintingInfo.insert(1, "red");
+        tPaintingInfo.insert(2, "green");
+    }
 }
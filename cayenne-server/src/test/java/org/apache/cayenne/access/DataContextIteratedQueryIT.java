@@ -18,11 +18,15 @@
  ****************************************************************/
 package org.apache.cayenne.access;
 
+import org.apache.cayenne.Cayenne;
 import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.PersistenceState;
 import org.apache.cayenne.ResultBatchIterator;
 import org.apache.cayenne.ResultIterator;
 import org.apache.cayenne.ResultIteratorCallback;
 import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.query.ObjectSelect;
 import org.apache.cayenne.query.SelectQuery;
 import org.apache.cayenne.test.jdbc.DBHelper;
 import org.apache.cayenne.test.jdbc.TableHelper;
@@ -35,11 +39,18 @@ import org.apache.cayenne.unit.di.server.UseServerRuntime;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 @UseServerRuntime(CayenneProjects.TESTMAP_PROJECT)
 public class DataContextIteratedQueryIT extends ServerCase {
@@ -174,6 +185,135 @@ public class DataContextIteratedQueryIT extends ServerCase {
     }
 
 
+    @Test
+    public void testStream() throws Exception {
+        createLargeArtistsDataSet();
+
+        try (Stream<Artist> stream = ObjectSelect.query(Artist.class).stream(context)) {
+            List<Artist> artists = stream.collect(Collectors.toList());
+            assertEquals(20, artists.size());
+
+            for (Artist a : artists) {
+                assertSame(context, a.getObjectContext());
+                assertSame(a, context.getGraphManager().getNode(a.getObjectId()));
+            }
+        }
+    }
+
+    @Test
+    public void testStream_DataRows() throws Exception {
+        createArtistsDataSet();
+
+        try (Stream<DataRow> stream = ObjectSelect.dataRowQuery(Artist.class).stream(context)) {
+            assertEquals(7, stream.filter(r -> r.get("ARTIST_ID") != null).count());
+        }
+    }
+
+    @Test
+    public void testStream_Batches() throws Exception {
+        createLargeArtistsDataSet();
+
+        SelectQuery<Artist> q1 = new SelectQuery<>(Artist.class);
+        q1.addOrdering(Artist.ARTIST_NAME.asc());
+
+        try (Stream<Artist> stream = context.stream(q1, 3, false)) {
+            List<String> names = stream.map(Artist::getArtistName).collect(Collectors.toList());
+            assertEquals(20, names.size());
+            assertEquals("artist1", names.get(0));
+        }
+    }
+
+    @Test
+    public void testStream_ScratchContext() throws Exception {
+        createArtistsAndPaintingsDataSet();
+
+        try (Stream<Artist> stream = context.stream(ObjectSelect.query(Artist.class), 2, true)) {
+            Set<ObjectContext> contexts = new HashSet<>();
+
+            stream.forEach(a -> {
+                assertNotSame(context, a.getObjectContext());
+                contexts.add(a.getObjectContext());
+
+                // related objects can still be resolved
+                assertEquals(1, a.getPaintingArray().size());
+            });
+
+            // 7 objects in batches of 2
+            assertEquals(4, contexts.size());
+        }
+
+        assertEquals(0, context.getObjectStore().registeredObjectsCount());
+    }
+
+    @Test
+    public void testStream_ShortCircuit() throws Exception {
+        createLargeArtistsDataSet();
+
+        try (Stream<Artist> stream = ObjectSelect.query(Artist.class).stream(context)) {
+            assertTrue(stream.findFirst().isPresent());
+        }
+
+        // the connection must have been released by now, so the next query
+        // should work even with a single connection pool
+        assertEquals(20, ObjectSelect.query(Artist.class).selectCount(context));
+    }
+
+
+    @Test
+    public void testEvictingIterator() throws Exception {
+        createLargeArtistsDataSet();
+
+        SelectQuery<Artist> q1 = new SelectQuery<>(Artist.class);
+
+        try (EvictingResultIterator<Artist> it = context.evictingIterator(q1, 5)) {
+            int count = 0;
+
+            for (Artist a : it) {
+                count++;
+                assertEquals(PersistenceState.COMMITTED, a.getPersistenceState());
+
+                // only the current batch stays registered
+                assertTrue(context.getObjectStore().registeredObjectsCount() <= 5);
+            }
+
+            assertEquals(20, count);
+            assertEquals(15, it.getEvictedCount());
+        }
+
+        assertEquals(0, context.getObjectStore().registeredObjectsCount());
+    }
+
+    @Test
+    public void testEvictingIterator_KeepsModifiedAndPreexisting() throws Exception {
+        createLargeArtistsDataSet();
+
+        Artist preexisting = Cayenne.objectForPK(context, Artist.class, 1);
+        assertEquals(1, context.getObjectStore().registeredObjectsCount());
+
+        SelectQuery<Artist> q1 = new SelectQuery<>(Artist.class);
+
+        Artist modified = null;
+        EvictingResultIterator<Artist> it = context.evictingIterator(q1, 5);
+        try (ResultBatchIterator<Artist> batches = new ResultBatchIterator<>(it, 5)) {
+            for (List<Artist> batch : batches) {
+                assertEquals(5, batch.size());
+
+                if (modified == null) {
+                    modified = batch.get(batch.get(0) == preexisting ? 1 : 0);
+                    modified.setArtistName("modified");
+                }
+            }
+        }
+
+        assertEquals(18, it.getEvictedCount());
+        assertEquals(2, context.getObjectStore().registeredObjectsCount());
+        assertSame(preexisting, Cayenne.objectForPK(context, Artist.class, 1));
+        assertEquals(PersistenceState.COMMITTED, preexisting.getPersistenceState());
+        assertEquals(PersistenceState.MODIFIED, modified.getPersistenceState());
+        assertSame(context, modified.getObjectContext());
+    }
+
+
     @Test
     public void testPerformIteratedQuery_Count() throws Exception {
 
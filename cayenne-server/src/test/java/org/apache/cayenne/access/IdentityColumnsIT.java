@@ -150,6 +150,40 @@ public class IdentityColumnsIT extends ServerCase {
         }
     }
 
+    @Test
+    public void testNewObjects_MultipleRows() throws Exception {
+
+        // on adapters that support generated keys for JDBC batches all three
+        // rows are inserted in a single batch and the keys are matched to
+        // objects by position
+        GeneratedColumnTestEntity[] objects = new GeneratedColumnTestEntity[3];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = context.newObject(GeneratedColumnTestEntity.class);
+            objects[i].setName("n_" + i);
+        }
+
+        context.commitChanges();
+
+        TableHelper table = new TableHelper(dbHelper, "GENERATED_COLUMN_TEST").setColumns("GENERATED_COLUMN", "NAME");
+        assertEquals(objects.length, table.getRowCount());
+
+        for (int i = 0; i < objects.length; i++) {
+            int id = Cayenne.intPKForObject(objects[i]);
+            assertEquals("n_" + i, table.selectAll().stream()
+                    .filter(row -> ((Number) row[0]).intValue() == id)
+                    .map(row -> row[1])
+                    .findFirst()
+                    .orElse(null));
+        }
+
+        context.invalidateObjects((Object[]) objects);
+        for (int i = 0; i < objects.length; i++) {
+            GeneratedColumnTestEntity object = Cayenne.objectForPK(context, GeneratedColumnTestEntity.class,
+                    Cayenne.intPKForObject(objects[i]));
+            assertEquals("n_" + i, object.getName());
+        }
+    }
+
     /**
      * Tests CAY-422 bug.
      */
@@ -18,8 +18,14 @@
  ****************************************************************/
 package org.apache.cayenne.access;
 
+import org.apache.cayenne.Cayenne;
 import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.exp.Expression;
+import org.apache.cayenne.exp.ExpressionFactory;
 import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.query.SortOrder;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
 import org.apache.cayenne.testdo.testmap.Artist;
 import org.apache.cayenne.unit.di.server.CayenneProjects;
 import org.apache.cayenne.unit.di.server.ServerCase;
@@ -27,6 +33,9 @@ import org.apache.cayenne.unit.di.server.UseServerRuntime;
 import org.apache.cayenne.util.Util;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
@@ -36,6 +45,9 @@ public class IncrementalFaultListIT extends ServerCase {
 	@Inject
 	protected DataContext context;
 
+	@Inject
+	protected DBHelper dbHelper;
+
     @Test
 	public void testSerialization() throws Exception {
 		SelectQuery query = new SelectQuery(Artist.class);
@@ -49,4 +61,48 @@ public class IncrementalFaultListIT extends ServerCase {
 		assertEquals(i1.getClass(), i2.getClass());
 	}
 
+
+	@Test
+	public void testJoinIdQualifiers() {
+		List<Expression> sameColumn = Arrays.asList(
+				ExpressionFactory.matchDbExp("ARTIST_ID", 1),
+				ExpressionFactory.matchDbExp("ARTIST_ID", 2),
+				ExpressionFactory.matchDbExp("ARTIST_ID", 3));
+		assertEquals(ExpressionFactory.inDbExp("ARTIST_ID", 1, 2, 3).toString(),
+				IncrementalFaultList.joinIdQualifiers(sameColumn).toString());
+
+		List<Expression> differentColumns = Arrays.asList(
+				ExpressionFactory.matchDbExp("ARTIST_ID", 1),
+				ExpressionFactory.matchDbExp("ARTIST_NAME", "a"));
+		assertEquals(ExpressionFactory.joinExp(Expression.OR, differentColumns).toString(),
+				IncrementalFaultList.joinIdQualifiers(differentColumns).toString());
+
+		List<Expression> compound = Arrays.asList(
+				ExpressionFactory.matchDbExp("ARTIST_ID", 1).andExp(ExpressionFactory.matchDbExp("ARTIST_NAME", "a")),
+				ExpressionFactory.matchDbExp("ARTIST_ID", 2).andExp(ExpressionFactory.matchDbExp("ARTIST_NAME", "b")));
+		assertEquals(ExpressionFactory.joinExp(Expression.OR, compound).toString(),
+				IncrementalFaultList.joinIdQualifiers(compound).toString());
+	}
+
+	@Test
+	public void testResolvePages() throws Exception {
+		TableHelper tArtist = new TableHelper(dbHelper, "ARTIST");
+		tArtist.setColumns("ARTIST_ID", "ARTIST_NAME");
+		for (int i = 1; i <= 25; i++) {
+			tArtist.insert(i, "artist" + i);
+		}
+
+		// pages of 10 ids are resolved with a single IN qualifier, that the adapter may pad or bind as an array
+		SelectQuery<Artist> query = new SelectQuery<>(Artist.class);
+		query.setPageSize(10);
+		query.addOrdering("db:ARTIST_ID", SortOrder.ASCENDING);
+		IncrementalFaultList<Artist> list = new IncrementalFaultList<>(context, query, 10000);
+
+		assertEquals(25, list.size());
+		for (int i = 0; i < list.size(); i++) {
+			Artist artist = list.get(i);
+			assertEquals(i + 1, Cayenne.intPKForObject(artist));
+			assertEquals("artist" + (i + 1), artist.getArtistName());
+		}
+	}
 }
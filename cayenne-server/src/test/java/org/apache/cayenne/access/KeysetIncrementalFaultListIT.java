@@ -0,0 +1,228 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.access;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.Ordering;
+import org.apache.cayenne.query.SelectQuery;
+import org.apache.cayenne.query.SortOrder;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.unit.di.server.CayenneProjects;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.apache.cayenne.unit.di.server.UseServerRuntime;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@UseServerRuntime(CayenneProjects.TESTMAP_PROJECT)
+public class KeysetIncrementalFaultListIT extends ServerCase {
+
+    @Inject
+    private DataContext context;
+
+    @Inject
+    private DBHelper dbHelper;
+
+    private TableHelper tArtist;
+
+    @Before
+    public void setUp() throws Exception {
+        tArtist = new TableHelper(dbHelper, "ARTIST");
+        tArtist.setColumns("ARTIST_ID", "ARTIST_NAME");
+    }
+
+    private void createArtistsDataSet() throws Exception {
+        // names repeat to check that PK is used as a tie-breaker
+        for (int i = 1; i <= 25; i++) {
+            tArtist.insert(33000 + i, "artist" + (char) ('a' + i % 7));
+        }
+    }
+
+    private KeysetIncrementalFaultList<Artist> prepareList(int pageSize, SortOrder order) throws Exception {
+        createArtistsDataSet();
+
+        SelectQuery<Artist> query = new SelectQuery<>(Artist.class);
+        query.setPageSize(pageSize);
+        query.addOrdering(Artist.ARTIST_NAME.getName(), order);
+
+        KeysetIncrementalFaultList<Artist> list = KeysetIncrementalFaultList.forQuery(context, query,
+                query.getMetaData(context.getEntityResolver()));
+        assertNotNull(list);
+        return list;
+    }
+
+    @Test
+    public void testSize() throws Exception {
+        KeysetIncrementalFaultList<Artist> list = prepareList(6, SortOrder.ASCENDING);
+        assertEquals(25, list.size());
+    }
+
+    @Test
+    public void testIterate() throws Exception {
+        KeysetIncrementalFaultList<Artist> list = prepareList(6, SortOrder.ASCENDING);
+
+        List<Artist> all = ObjectSelect.query(Artist.class)
+                .orderBy(Artist.ARTIST_NAME.asc(), new Ordering("db:ARTIST_ID", SortOrder.ASCENDING))
+                .select(context);
+
+        int i = 0;
+        for (Artist a : list) {
+            assertTrue(a == all.get(i++));
+        }
+
+        assertEquals(25, i);
+    }
+
+    @Test
+    public void testIterate_Descending() throws Exception {
+        KeysetIncrementalFaultList<Artist> list = prepareList(4, SortOrder.DESCENDING);
+
+        String last = null;
+        int i = 0;
+        for (Artist a : list) {
+            if (last != null) {
+                assertTrue(last.compareTo(a.getArtistName()) >= 0);
+            }
+            last = a.getArtistName();
+            i++;
+        }
+
+        assertEquals(25, i);
+    }
+
+    @Test
+    public void testGet_LastPageFirst() throws Exception {
+        KeysetIncrementalFaultList<Artist> list = prepareList(6, SortOrder.ASCENDING);
+
+        Artist last = list.get(24);
+        assertNotNull(last);
+
+        // preceding pages are already resolved to find the last page boundary
+        assertTrue(last == list.get(24));
+        assertNotNull(list.get(0));
+        assertEquals(25, list.subList(0, 25).size());
+    }
+
+    @Test
+    public void testReadAhead() throws Exception {
+        KeysetIncrementalFaultList<Artist> list = prepareList(6, SortOrder.ASCENDING);
+
+        // run read-ahead in the caller thread to make it deterministic
+        list.setReadAhead(2, Runnable::run);
+
+        list.get(0);
+        assertNotNull(list.pages.get(1));
+        assertNotNull(list.pages.get(2));
+        assertNull(list.pages.get(3));
+    }
+
+    @Test
+    public void testDataRows() throws Exception {
+        createArtistsDataSet();
+
+        SelectQuery<DataRow> query = SelectQuery.dataRowQuery(Artist.class);
+        query.setPageSize(10);
+        query.addOrdering("db:ARTIST_ID", SortOrder.DESCENDING);
+
+        KeysetIncrementalFaultList<DataRow> list = KeysetIncrementalFaultList.forQuery(context, query,
+                query.getMetaData(context.getEntityResolver()));
+        assertNotNull(list);
+        assertEquals(25, list.size());
+
+        for (int i = 0; i < 25; i++) {
+            assertEquals(33025L - i, ((Number) list.get(i).get("ARTIST_ID")).longValue());
+        }
+    }
+
+    @Test
+    public void testUnsupportedOrdering() throws Exception {
+        SelectQuery<Artist> query = new SelectQuery<>(Artist.class);
+        query.setPageSize(10);
+
+        // nullable column
+        query.addOrdering(Artist.DATE_OF_BIRTH.getName(), SortOrder.ASCENDING);
+        assertNull(KeysetIncrementalFaultList.forQuery(context, query,
+                query.getMetaData(context.getEntityResolver())));
+
+        // case-insensitive ordering
+        query.clearOrderings();
+        query.addOrdering(Artist.ARTIST_NAME.getName(), SortOrder.ASCENDING_INSENSITIVE);
+        assertNull(KeysetIncrementalFaultList.forQuery(context, query,
+                query.getMetaData(context.getEntityResolver())));
+
+        // ordering by a function
+        query.clearOrderings();
+        query.addOrdering(Artist.ARTIST_NAME.length().asc());
+        assertNull(KeysetIncrementalFaultList.forQuery(context, query,
+                query.getMetaData(context.getEntityResolver())));
+    }
+
+    @Test
+    public void testPaginatedQuery() throws Exception {
+        createArtistsDataSet();
+
+        DataDomain domain = context.getParentDataDomain();
+        domain.setKeysetPagination(true);
+        try {
+            List<Artist> list = ObjectSelect.query(Artist.class)
+                    .orderBy(Artist.ARTIST_NAME.desc())
+                    .pageSize(10)
+                    .select(context);
+
+            assertTrue(list instanceof KeysetIncrementalFaultList);
+            assertEquals(25, list.size());
+            assertNotNull(list.get(24));
+        } finally {
+            domain.setKeysetPagination(false);
+        }
+    }
+
+    @Test
+    public void testPaginatedQuery_FunctionOrdering() throws Exception {
+        createArtistsDataSet();
+
+        DataDomain domain = context.getParentDataDomain();
+        domain.setKeysetPagination(true);
+        try {
+            List<Artist> list = ObjectSelect.query(Artist.class)
+                    .orderBy(Artist.ARTIST_NAME.length().asc())
+                    .pageSize(10)
+                    .select(context);
+
+            // falls back to the offset pagination
+            assertFalse(list instanceof KeysetIncrementalFaultList);
+            assertEquals(25, list.size());
+            assertNotNull(list.get(24));
+        } finally {
+            domain.setKeysetPagination(false);
+        }
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.apache.cayenne.access;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 import org.apache.cayenne.ObjectId;
@@ -27,21 +28,25 @@ import org.apache.cayenne.Persistent;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @since 4.0
  */
 public class ObjectStoreTest {
 
+    private DataRowStore sharedCache;
     private ObjectStore objectStore;
 
     @Before
     public void before() {
-        DataRowStore sharedCache = mock(DataRowStore.class);
+        this.sharedCache = mock(DataRowStore.class);
         this.objectStore = new ObjectStore(sharedCache, new HashMap<Object, Persistent>());
     }
 
@@ -68,4 +73,62 @@ public class ObjectStoreTest {
         verify(object, times(0)).setObjectId(null);
         verify(object).setObjectContext(null);
         verify(object).setPersistenceState(PersistenceState.TRANSIENT);    }
-}
\ No newline at end of file
+
+    @Test
+    public void testObjectsEvicted() {
+
+        ObjectId id1 = new ObjectId("E1", "ID", 1);
+        Persistent committed = mock(Persistent.class);
+        when(committed.getObjectId()).thenReturn(id1);
+        when(committed.getPersistenceState()).thenReturn(PersistenceState.COMMITTED);
+
+        ObjectId id2 = new ObjectId("E1", "ID", 2);
+        Persistent modified = mock(Persistent.class);
+        when(modified.getObjectId()).thenReturn(id2);
+        when(modified.getPersistenceState()).thenReturn(PersistenceState.MODIFIED);
+
+        ObjectId id3 = new ObjectId("E1", "ID", 3);
+        Persistent unregistered = mock(Persistent.class);
+        when(unregistered.getObjectId()).thenReturn(id3);
+        when(unregistered.getPersistenceState()).thenReturn(PersistenceState.HOLLOW);
+
+        DataContext context = mock(DataContext.class);
+        when(context.isUsingSharedSnapshotCache()).thenReturn(false);
+        objectStore.setContext(context);
+
+        objectStore.registerNode(id1, committed);
+        objectStore.registerNode(id2, modified);
+
+        assertEquals(1, objectStore.objectsEvicted(Arrays.asList(committed, modified, unregistered)));
+
+        assertNull(objectStore.getNode(id1));
+        assertSame(modified, objectStore.getNode(id2));
+
+        verify(sharedCache).forgetSnapshot(id1);
+        verify(sharedCache, times(0)).forgetSnapshot(id2);
+        verify(committed).setPersistenceState(PersistenceState.TRANSIENT);
+        verify(modified, times(0)).setPersistenceState(PersistenceState.TRANSIENT);
+        verify(unregistered, times(0)).setPersistenceState(PersistenceState.TRANSIENT);
+    }
+
+    @Test
+    public void testObjectsEvicted_SharedCache() {
+
+        ObjectId id = new ObjectId("E1", "ID", 1);
+        Persistent committed = mock(Persistent.class);
+        when(committed.getObjectId()).thenReturn(id);
+        when(committed.getPersistenceState()).thenReturn(PersistenceState.COMMITTED);
+
+        DataContext context = mock(DataContext.class);
+        when(context.isUsingSharedSnapshotCache()).thenReturn(true);
+        objectStore.setContext(context);
+
+        objectStore.registerNode(id, committed);
+        assertEquals(1, objectStore.objectsEvicted(Arrays.asList(committed)));
+
+        // other contexts may use the snapshot
+        assertNull(objectStore.getNode(id));
+        verify(sharedCache, times(0)).forgetSnapshot(id);
+        verify(committed).setPersistenceState(PersistenceState.TRANSIENT);
+    }
+}
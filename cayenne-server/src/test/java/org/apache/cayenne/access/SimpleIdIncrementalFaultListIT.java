@@ -34,9 +34,13 @@ import org.apache.cayenne.unit.di.server.UseServerRuntime;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.Assert.*;
 
@@ -232,6 +236,48 @@ public class SimpleIdIncrementalFaultListIT extends ServerCase {
         assertEquals(0, list.getUnfetchedObjects());
     }
 
+    @Test
+    public void testReadAhead() throws Exception {
+        SimpleIdIncrementalFaultList<?> list = prepareList(6);
+
+        // run read-ahead in the caller thread to make it deterministic
+        list.setReadAhead(2, Runnable::run);
+        assertEquals(2, list.getReadAheadPages());
+
+        list.get(0);
+        assertEquals(25 - 18, list.getUnfetchedObjects());
+        assertTrue(list.elements.get(17) instanceof Artist);
+        assertTrue(list.elements.get(18) instanceof Long);
+
+        // accessing the same page again doesn't trigger read-ahead
+        list.get(1);
+        assertEquals(25 - 18, list.getUnfetchedObjects());
+
+        list.get(6);
+        assertEquals(0, list.getUnfetchedObjects());
+    }
+
+    @Test
+    public void testReadAhead_Executor() throws Exception {
+        SimpleIdIncrementalFaultList<?> list = prepareList(4);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            list.setReadAhead(3, executor);
+
+            Set<Object> seen = new HashSet<>();
+            for (Object o : list) {
+                assertTrue(o instanceof Artist);
+                assertTrue(seen.add(o));
+            }
+
+            assertEquals(25, seen.size());
+            assertEquals(0, list.getUnfetchedObjects());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void testPageIndex() throws Exception {
         SimpleIdIncrementalFaultList<?> list = prepareList(6);
@@ -0,0 +1,181 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.access;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.access.event.SnapshotEvent;
+import org.apache.cayenne.configuration.Constants;
+import org.apache.cayenne.configuration.DefaultRuntimeProperties;
+import org.apache.cayenne.event.DefaultEventManager;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotEventCoalescerTest {
+
+    private DataRowStore store;
+    private DefaultEventManager eventManager;
+    private List<SnapshotEvent> events = Collections.synchronizedList(new ArrayList<SnapshotEvent>());
+
+    private void createStore(long window, int windowSize) {
+        Map<String, String> props = new HashMap<>();
+        props.put(Constants.SNAPSHOT_EVENTS_WINDOW_PROPERTY, String.valueOf(window));
+        props.put(Constants.SNAPSHOT_EVENTS_WINDOW_SIZE_PROPERTY, String.valueOf(windowSize));
+
+        eventManager = new DefaultEventManager(0);
+        store = new DataRowStore("coalescerTest", new DefaultRuntimeProperties(props), eventManager);
+        eventManager.addListener(this, "onEvent", SnapshotEvent.class, store.getSnapshotEventSubject());
+    }
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.shutdown();
+        }
+
+        if (eventManager != null) {
+            eventManager.shutdown();
+        }
+    }
+
+    public void onEvent(SnapshotEvent event) {
+        events.add(event);
+    }
+
+    private static ObjectId id(int id) {
+        return new ObjectId("Artist", "ARTIST_ID", id);
+    }
+
+    private static Map<ObjectId, DataRow> diff(ObjectId id, String key, Object value) {
+        DataRow row = new DataRow(2);
+        row.put(key, value);
+        return Collections.singletonMap(id, row);
+    }
+
+    @Test
+    public void testMergeDiffs() {
+        createStore(60000, 1000);
+        Object poster = new Object();
+
+        store.eventCoalescer.add(poster, diff(id(1), "A", 1), null, null, null);
+        store.eventCoalescer.add(poster, diff(id(1), "B", 2), null, null, null);
+        store.eventCoalescer.add(poster, diff(id(2), "A", 3), null, null, null);
+        assertEquals(0, events.size());
+
+        store.eventCoalescer.flush();
+        assertEquals(1, events.size());
+
+        SnapshotEvent event = events.get(0);
+        assertSame(store, event.getSource());
+        assertSame(poster, event.getPostedBy());
+        assertEquals(2, event.getModifiedDiffs().size());
+
+        DataRow merged = event.getModifiedDiffs().get(id(1));
+        assertEquals(1, merged.get("A"));
+        assertEquals(2, merged.get("B"));
+    }
+
+    @Test
+    public void testDeleteSupersedesOtherChanges() {
+        createStore(60000, 1000);
+        Object poster = new Object();
+
+        store.eventCoalescer.add(poster, diff(id(1), "A", 1), null, null, Collections.singleton(id(2)));
+        store.eventCoalescer.add(poster, null, Collections.singleton(id(1)), null, null);
+        store.eventCoalescer.add(poster, null, Collections.singleton(id(2)), null, null);
+        store.eventCoalescer.flush();
+
+        assertEquals(1, events.size());
+        SnapshotEvent event = events.get(0);
+        assertTrue(event.getModifiedDiffs().isEmpty());
+        assertTrue(event.getIndirectlyModifiedIds().isEmpty());
+        assertEquals(2, event.getDeletedIds().size());
+    }
+
+    @Test
+    public void testReinsertAfterDelete() {
+        createStore(60000, 1000);
+        Object poster = new Object();
+
+        store.eventCoalescer.add(poster, null, Collections.singleton(id(1)), null, null);
+        store.eventCoalescer.add(poster, diff(id(1), "A", 1), null, null, null);
+        store.eventCoalescer.flush();
+
+        assertEquals(1, events.size());
+        SnapshotEvent event = events.get(0);
+        assertTrue(event.getDeletedIds().isEmpty());
+        assertEquals(1, event.getModifiedDiffs().get(id(1)).get("A"));
+    }
+
+    @Test
+    public void testMultiplePosters() {
+        createStore(60000, 1000);
+
+        store.eventCoalescer.add(new Object(), null, null, Collections.singleton(id(1)), null);
+        store.eventCoalescer.add(new Object(), null, null, Collections.singleton(id(2)), null);
+        store.eventCoalescer.flush();
+
+        assertEquals(1, events.size());
+        assertNull(events.get(0).getPostedBy());
+        assertEquals(2, events.get(0).getInvalidatedIds().size());
+    }
+
+    @Test
+    public void testFlushOnSize() {
+        createStore(60000, 2);
+        Object poster = new Object();
+
+        store.eventCoalescer.add(poster, null, Collections.singleton(id(1)), null, null);
+        assertEquals(0, events.size());
+
+        store.eventCoalescer.add(poster, null, Collections.singleton(id(2)), null, null);
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void testFlushOnWindow() throws Exception {
+        createStore(50, 1000);
+
+        store.processSnapshotChanges(
+                new Object(),
+                Collections.<ObjectId, DataRow>emptyMap(),
+                Collections.singleton(id(1)),
+                Collections.<ObjectId>emptyList(),
+                Collections.<ObjectId>emptyList());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (events.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, events.size());
+    }
+}
@@ -0,0 +1,141 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+package org.apache.cayenne.access;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.access.event.SnapshotEvent;
+import org.apache.cayenne.configuration.DefaultRuntimeProperties;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.event.DefaultEventManager;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.unit.di.server.CayenneProjects;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.apache.cayenne.unit.di.server.UseServerRuntime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @since 4.1
+ */
+@UseServerRuntime(CayenneProjects.TESTMAP_PROJECT)
+public class StripedObjectStoreIT extends ServerCase {
+
+    @Inject
+    private ServerRuntime runtime;
+
+    @Inject
+    private DBHelper dbHelper;
+
+    private DefaultEventManager eventManager;
+    private StripedObjectStore objectStore;
+    private DataContext context;
+
+    @Before
+    public void setUp() throws Exception {
+        eventManager = new DefaultEventManager();
+        DataRowStore cache = new DataRowStore(
+                "stripedTest",
+                new DefaultRuntimeProperties(Collections.<String, String>emptyMap()),
+                eventManager);
+
+        objectStore = new StripedObjectStore(cache, new ConcurrentHashMap<>());
+        context = new DataContext(runtime.getDataDomain(), objectStore);
+
+        TableHelper tArtist = new TableHelper(dbHelper, "ARTIST");
+        tArtist.setColumns("ARTIST_ID", "ARTIST_NAME");
+        for (int i = 1; i <= 20; i++) {
+            tArtist.insert(i, "artist" + i);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (eventManager != null) {
+            eventManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testSnapshotEventsConcurrentWithLocalObject() throws Exception {
+
+        ObjectContext source = runtime.newContext();
+        List<Artist> artists = ObjectSelect.query(Artist.class).select(source);
+
+        // resolve the same objects in the striped context, so that events have something to merge
+        assertEquals(artists.size(), ObjectSelect.query(Artist.class).select(context).size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // event processing and localObject must not deadlock on the ObjectStore monitor and the stripe locks
+            Future<?> events = executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    Map<ObjectId, DataRow> diffs = new HashMap<>();
+                    for (Artist a : artists) {
+                        DataRow diff = new DataRow(2);
+                        diff.put("ARTIST_NAME", "name" + i);
+                        diffs.put(a.getObjectId(), diff);
+                    }
+
+                    ObjectId invalidated = artists.get(i % artists.size()).getObjectId();
+                    objectStore.processSnapshotEvent(new SnapshotEvent(
+                            this,
+                            source,
+                            diffs,
+                            Collections.<ObjectId>emptyList(),
+                            Collections.singletonList(invalidated),
+                            Collections.<ObjectId>emptyList()));
+                }
+            });
+
+            Future<?> locals = executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    for (Artist a : artists) {
+                        context.localObject(a);
+                    }
+                }
+            });
+
+            events.get(30, TimeUnit.SECONDS);
+            locals.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(artists.size(), objectStore.registeredObjectsCount());
+    }
+}
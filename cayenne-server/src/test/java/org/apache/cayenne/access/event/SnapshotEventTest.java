@@ -24,11 +24,16 @@ import org.apache.cayenne.ObjectId;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class SnapshotEventTest {
 
@@ -54,4 +59,31 @@ public class SnapshotEventTest {
         assertSame(modified, event.getModifiedDiffs());
         assertSame(related, event.getIndirectlyModifiedIds());
     }
+
+    @Test
+    public void testCoalesce() {
+        Object source = new Object();
+        ObjectId id1 = new ObjectId("E1", "ID", 1);
+        ObjectId id2 = new ObjectId("E1", "ID", 2);
+        ObjectId id3 = new ObjectId("E1", "ID", 3);
+
+        DataRow diff1 = new DataRow(2);
+        diff1.put("NAME", "a");
+        DataRow diff2 = new DataRow(2);
+        diff2.put("NAME", "b");
+
+        SnapshotEvent earlier = new SnapshotEvent(source, source, Collections.singletonMap(id1, diff1),
+                Arrays.asList(id2, id3), null, null);
+
+        // id2 is re-inserted, id1 is deleted
+        SnapshotEvent later = new SnapshotEvent(source, source, Collections.singletonMap(id2, diff2),
+                Collections.singleton(id1), null, null);
+
+        SnapshotEvent merged = (SnapshotEvent) later.coalesce(earlier);
+        assertSame(source, merged.getSource());
+        assertSame(source, merged.getPostedBy());
+        assertEquals(Collections.singletonMap(id2, diff2), merged.getModifiedDiffs());
+        assertEquals(new HashSet<>(Arrays.asList(id1, id3)), new HashSet<>(merged.getDeletedIds()));
+        assertTrue(merged.getInvalidatedIds().isEmpty());
+    }
 }
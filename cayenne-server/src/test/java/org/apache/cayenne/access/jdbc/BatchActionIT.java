@@ -19,6 +19,7 @@
 
 package org.apache.cayenne.access.jdbc;
 
+import org.apache.cayenne.access.DataContext;
 import org.apache.cayenne.access.DataNode;
 import org.apache.cayenne.access.jdbc.reader.RowReaderFactory;
 import org.apache.cayenne.configuration.server.ServerRuntime;
@@ -27,12 +28,14 @@ import org.apache.cayenne.di.AdhocObjectFactory;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.map.EntityResolver;
 import org.apache.cayenne.query.InsertBatchQuery;
+import org.apache.cayenne.query.ObjectSelect;
 import org.apache.cayenne.testdo.testmap.Artist;
 import org.apache.cayenne.unit.di.server.CayenneProjects;
 import org.apache.cayenne.unit.di.server.ServerCase;
 import org.apache.cayenne.unit.di.server.UseServerRuntime;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.mock;
 
@@ -45,6 +48,9 @@ public class BatchActionIT extends ServerCase {
     @Inject
     private AdhocObjectFactory objectFactory;
 
+    @Inject
+    private DataContext context;
+
     @Test
     public void testHasGeneratedKeys1() throws Exception {
         EntityResolver resolver = runtime.getChannel().getEntityResolver();
@@ -77,6 +83,27 @@ public class BatchActionIT extends ServerCase {
         assertFalse(new BatchAction(batch2, node, false).hasGeneratedKeys());
     }
 
+    @Test
+    public void testMultiRowInsert() throws Exception {
+        DataNode node = runtime.getDataDomain().getDataNodes().iterator().next();
+        int multiRowBatchSize = node.getMultiRowBatchSize();
+        node.setMultiRowBatchSize(3);
+
+        try {
+            for (int i = 0; i < 7; i++) {
+                Artist a = context.newObject(Artist.class);
+                a.setArtistName("a" + i);
+            }
+
+            context.commitChanges();
+        } finally {
+            node.setMultiRowBatchSize(multiRowBatchSize);
+        }
+
+        assertEquals(7L, ObjectSelect.query(Artist.class).selectCount(context));
+        assertEquals(1L, ObjectSelect.query(Artist.class, Artist.ARTIST_NAME.eq("a6")).selectCount(context));
+    }
+
     JdbcAdapter buildAdapter(boolean supportGeneratedKeys) {
         JdbcAdapter adapter = objectFactory.newInstance(JdbcAdapter.class, JdbcAdapter.class.getName());
         adapter.setSupportsGeneratedKeys(supportGeneratedKeys);
@@ -75,6 +75,20 @@ public class InsertBatchTranslatorIT extends ServerCase {
                 generatedSql);
     }
 
+    @Test
+    public void testCreateSqlString_MultiRow() throws Exception {
+        DbEntity entity = runtime.getDataDomain().getEntityResolver().getObjEntity(SimpleLockingTestEntity.class)
+                .getDbEntity();
+
+        DbAdapter adapter = objectFactory.newInstance(DbAdapter.class, JdbcAdapter.class.getName());
+        InsertBatchQuery insertQuery = new InsertBatchQuery(entity, 3);
+        InsertBatchTranslator builder = new InsertBatchTranslator(insertQuery, adapter);
+
+        assertEquals(builder.getSql(), builder.getSql(1));
+        assertEquals("INSERT INTO " + entity.getName() + " (DESCRIPTION, INT_COLUMN_NOTNULL, INT_COLUMN_NULL, LOCKING_TEST_ID, NAME) "
+                + "VALUES (?, ?, ?, ?, ?), (?, ?, ?, ?, ?), (?, ?, ?, ?, ?)", builder.getSql(3));
+    }
+
     @Test
     public void testCreateSqlStringWithIdentifiersQuote() throws Exception {
         DbEntity entity = runtime.getDataDomain().getEntityResolver().getObjEntity(SimpleLockingTestEntity.class)
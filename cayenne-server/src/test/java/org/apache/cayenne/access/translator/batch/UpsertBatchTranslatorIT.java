@@ -0,0 +1,133 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.access.translator.batch;
+
+import org.apache.cayenne.access.translator.DbAttributeBinding;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.dba.JdbcAdapter;
+import org.apache.cayenne.dba.h2.H2Adapter;
+import org.apache.cayenne.dba.mysql.MySQLAdapter;
+import org.apache.cayenne.dba.postgres.PostgresAdapter;
+import org.apache.cayenne.di.AdhocObjectFactory;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.query.UpsertBatchQuery;
+import org.apache.cayenne.testdo.locking.SimpleLockingTestEntity;
+import org.apache.cayenne.unit.di.server.CayenneProjects;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.apache.cayenne.unit.di.server.UseServerRuntime;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+@UseServerRuntime(CayenneProjects.LOCKING_PROJECT)
+public class UpsertBatchTranslatorIT extends ServerCase {
+
+    private static final String COLUMNS = "(DESCRIPTION, INT_COLUMN_NOTNULL, INT_COLUMN_NULL, LOCKING_TEST_ID, NAME)";
+
+    @Inject
+    private ServerRuntime runtime;
+
+    @Inject
+    private AdhocObjectFactory objectFactory;
+
+    @Test
+    public void testCreateSqlString() throws Exception {
+        DbEntity entity = getEntity();
+        DbAdapter adapter = objectFactory.newInstance(DbAdapter.class, JdbcAdapter.class.getName());
+
+        BatchTranslator translator = adapter.getUpsertTranslator(new UpsertBatchQuery(entity, 1));
+        assertEquals("MERGE INTO " + entity.getName() + " tgt USING (VALUES (?, ?, ?, ?, ?)) AS src " + COLUMNS
+                        + " ON (tgt.LOCKING_TEST_ID = src.LOCKING_TEST_ID)"
+                        + " WHEN MATCHED THEN UPDATE SET DESCRIPTION = src.DESCRIPTION,"
+                        + " INT_COLUMN_NOTNULL = src.INT_COLUMN_NOTNULL, INT_COLUMN_NULL = src.INT_COLUMN_NULL,"
+                        + " NAME = src.NAME"
+                        + " WHEN NOT MATCHED THEN INSERT " + COLUMNS
+                        + " VALUES (src.DESCRIPTION, src.INT_COLUMN_NOTNULL, src.INT_COLUMN_NULL, src.LOCKING_TEST_ID, src.NAME)",
+                translator.getSql());
+    }
+
+    @Test
+    public void testCreateSqlString_Postgres() throws Exception {
+        DbEntity entity = getEntity();
+        DbAdapter adapter = objectFactory.newInstance(DbAdapter.class, PostgresAdapter.class.getName());
+
+        MultiRowBatchTranslator translator = adapter.getUpsertTranslator(new UpsertBatchQuery(entity, 2));
+        assertEquals("INSERT INTO " + entity.getName() + " " + COLUMNS
+                        + " VALUES (?, ?, ?, ?, ?), (?, ?, ?, ?, ?)"
+                        + " ON CONFLICT (LOCKING_TEST_ID) DO UPDATE SET DESCRIPTION = EXCLUDED.DESCRIPTION,"
+                        + " INT_COLUMN_NOTNULL = EXCLUDED.INT_COLUMN_NOTNULL, INT_COLUMN_NULL = EXCLUDED.INT_COLUMN_NULL,"
+                        + " NAME = EXCLUDED.NAME",
+                translator.getSql(2));
+    }
+
+    @Test
+    public void testCreateSqlString_MySQL() throws Exception {
+        DbEntity entity = getEntity();
+        DbAdapter adapter = objectFactory.newInstance(DbAdapter.class, MySQLAdapter.class.getName());
+
+        BatchTranslator translator = adapter.getUpsertTranslator(new UpsertBatchQuery(entity, 1));
+        assertEquals("INSERT INTO " + entity.getName() + " " + COLUMNS + " VALUES (?, ?, ?, ?, ?)"
+                        + " ON DUPLICATE KEY UPDATE DESCRIPTION = VALUES(DESCRIPTION),"
+                        + " INT_COLUMN_NOTNULL = VALUES(INT_COLUMN_NOTNULL), INT_COLUMN_NULL = VALUES(INT_COLUMN_NULL),"
+                        + " NAME = VALUES(NAME)",
+                translator.getSql());
+    }
+
+    @Test
+    public void testCreateSqlString_H2() throws Exception {
+        DbEntity entity = getEntity();
+        DbAdapter adapter = objectFactory.newInstance(DbAdapter.class, H2Adapter.class.getName());
+
+        MultiRowBatchTranslator translator = adapter.getUpsertTranslator(new UpsertBatchQuery(entity, 2));
+        assertEquals("MERGE INTO " + entity.getName() + " " + COLUMNS
+                        + " KEY (LOCKING_TEST_ID) VALUES (?, ?, ?, ?, ?), (?, ?, ?, ?, ?)",
+                translator.getSql(2));
+    }
+
+    @Test
+    public void testUpdateBindings_MultiRow() throws Exception {
+        DbEntity entity = getEntity();
+        DbAdapter adapter = objectFactory.newInstance(DbAdapter.class, JdbcAdapter.class.getName());
+
+        UpsertBatchQuery query = new UpsertBatchQuery(entity, 2);
+        Map<String, Object> row = new HashMap<>();
+        row.put("LOCKING_TEST_ID", 5);
+        row.put("NAME", "n5");
+        query.add(row);
+        query.add(row);
+
+        MultiRowBatchTranslator translator = adapter.getUpsertTranslator(query);
+
+        DbAttributeBinding[] bindings = translator.updateBindings(query.getRows().get(1), 1);
+        assertEquals(6, bindings[0].getStatementPosition());
+        assertEquals(10, bindings[4].getStatementPosition());
+        assertEquals("n5", bindings[4].getValue());
+    }
+
+    private DbEntity getEntity() {
+        return runtime.getDataDomain().getEntityResolver().getObjEntity(SimpleLockingTestEntity.class)
+                .getDbEntity();
+    }
+}
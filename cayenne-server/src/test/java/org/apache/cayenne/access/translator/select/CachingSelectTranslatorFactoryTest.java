@@ -0,0 +1,250 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.access.translator.select;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cayenne.access.jdbc.ColumnDescriptor;
+import org.apache.cayenne.access.translator.DbAttributeBinding;
+import org.apache.cayenne.access.types.ExtendedTypeMap;
+import org.apache.cayenne.dba.DbAdapter;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.map.DataMap;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.ObjAttribute;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.SelectQuery;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingSelectTranslatorFactoryTest {
+
+	private EntityResolver resolver;
+	private DbAdapter adapter;
+	private DbAttribute nameAttribute;
+	private StubTranslatorFactory delegate;
+
+	@Before
+	public void before() {
+		DbEntity dbEntity = new DbEntity("ARTIST");
+		nameAttribute = new DbAttribute("NAME");
+		dbEntity.addAttribute(nameAttribute);
+
+		ObjEntity objEntity = new ObjEntity("Artist");
+		objEntity.setDbEntity(dbEntity);
+		objEntity.addAttribute(new ObjAttribute("name", String.class.getName(), objEntity));
+
+		DataMap map = new DataMap("m");
+		map.addDbEntity(dbEntity);
+		map.addObjEntity(objEntity);
+
+		resolver = new EntityResolver(Collections.singleton(map));
+
+		ExtendedTypeMap types = new ExtendedTypeMap();
+		adapter = (DbAdapter) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { DbAdapter.class },
+				(proxy, method, args) -> {
+					if (method.getName().equals("getExtendedTypes")) {
+						return types;
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+
+		delegate = new StubTranslatorFactory();
+	}
+
+	private SelectQuery<Object> query(String qualifier, Object... params) {
+		SelectQuery<Object> query = new SelectQuery<>("Artist");
+		query.setQualifier(ExpressionFactory.exp(qualifier, params));
+		return query;
+	}
+
+	@Test
+	public void testShape_ValuesAbstracted() {
+		QueryShape s1 = QueryShape.of(query("name = $n", "a"), adapter, resolver);
+		QueryShape s2 = QueryShape.of(query("name = $n", "b"), adapter, resolver);
+
+		assertNotNull(s1);
+		assertEquals(s1, s2);
+		assertEquals(s1.hashCode(), s2.hashCode());
+		assertEquals(Collections.singletonList("b"), s2.getValues());
+	}
+
+	@Test
+	public void testShape_Structure() {
+		QueryShape s1 = QueryShape.of(query("name = $n", "a"), adapter, resolver);
+
+		assertNotEquals(s1, QueryShape.of(query("name = $n", 1), adapter, resolver));
+		assertNotEquals(s1, QueryShape.of(query("name = $n", (Object) null), adapter, resolver));
+		assertNotEquals(s1, QueryShape.of(query("name like $n", "a"), adapter, resolver));
+		assertNotEquals(s1, QueryShape.of(query("db:NAME = $n", "a"), adapter, resolver));
+		assertNotEquals(QueryShape.of(query("name in ('a', 'b')"), adapter, resolver),
+				QueryShape.of(query("name in ('a', 'b', 'c')"), adapter, resolver));
+
+		SelectQuery<Object> limited = query("name = $n", "a");
+		limited.setFetchLimit(10);
+		assertNotEquals(s1, QueryShape.of(limited, adapter, resolver));
+	}
+
+	@Test
+	public void testShape_Values() {
+		QueryShape shape = QueryShape.of(query("name in ('a', 'b') or name = $n or name = null", "c"), adapter,
+				resolver);
+		assertEquals(3, shape.getValues().size());
+		assertEquals("a", shape.getValues().get(0));
+		assertEquals("b", shape.getValues().get(1));
+		assertEquals("c", shape.getValues().get(2));
+	}
+
+	@Test
+	public void testTranslator_Hit() throws Exception {
+		CachingSelectTranslatorFactory factory = new CachingSelectTranslatorFactory(delegate, 10);
+
+		SelectTranslator t1 = factory.translator(query("name = $n", "a"), adapter, resolver);
+		assertEquals(1, delegate.created);
+		assertEquals(1, factory.size());
+		assertEquals("a", t1.getBindings()[0].getValue());
+
+		SelectTranslator t2 = factory.translator(query("name = $n", "b"), adapter, resolver);
+		assertEquals(1, delegate.created);
+		assertTrue(t2 instanceof CachedSelectTranslator);
+		assertSame(t1.getSql(), t2.getSql());
+
+		DbAttributeBinding[] bindings = t2.getBindings();
+		assertEquals(1, bindings.length);
+		assertEquals("b", bindings[0].getValue());
+		assertEquals(1, bindings[0].getStatementPosition());
+		assertSame(nameAttribute, bindings[0].getAttribute());
+	}
+
+	@Test
+	public void testTranslator_ResultColumnsNotShared() throws Exception {
+		CachingSelectTranslatorFactory factory = new CachingSelectTranslatorFactory(delegate, 10);
+
+		factory.translator(query("name = $n", "a"), adapter, resolver);
+		SelectTranslator t2 = factory.translator(query("name = $n", "b"), adapter, resolver);
+
+		ColumnDescriptor[] columns = t2.getResultColumns();
+		columns[0].setJavaClass(Integer.class.getName());
+		columns[0] = null;
+
+		SelectTranslator t3 = factory.translator(query("name = $n", "c"), adapter, resolver);
+		assertEquals(1, delegate.created);
+		assertEquals(String.class.getName(), t3.getResultColumns()[0].getJavaClass());
+	}
+
+	@Test
+	public void testTranslator_BindingsMismatch() throws Exception {
+		CachingSelectTranslatorFactory factory = new CachingSelectTranslatorFactory(delegate, 10);
+
+		// simulate a binding not coming from the query, e.g. from an entity
+		// qualifier
+		delegate.extraBinding = "x";
+
+		factory.translator(query("name = $n", "a"), adapter, resolver);
+		factory.translator(query("name = $n", "b"), adapter, resolver);
+
+		assertEquals(2, delegate.created);
+		assertEquals(0, factory.size());
+	}
+
+	private class StubTranslatorFactory implements SelectTranslatorFactory {
+
+		int created;
+		Object extraBinding;
+
+		@Override
+		public SelectTranslator translator(SelectQuery<?> query, DbAdapter adapter, EntityResolver entityResolver) {
+			created++;
+
+			List<DbAttributeBinding> bindings = new ArrayList<>();
+			for (Object value : QueryShape.of(query, adapter, entityResolver).getValues()) {
+				bind(bindings, value);
+			}
+
+			if (extraBinding != null) {
+				bind(bindings, extraBinding);
+			}
+
+			return new StubTranslator("SELECT " + created, bindings.toArray(new DbAttributeBinding[0]));
+		}
+
+		private void bind(List<DbAttributeBinding> bindings, Object value) {
+			DbAttributeBinding binding = new DbAttributeBinding(nameAttribute);
+			binding.setStatementPosition(bindings.size() + 1);
+			binding.setValue(value);
+			bindings.add(binding);
+		}
+	}
+
+	private static class StubTranslator implements SelectTranslator {
+
+		private String sql;
+		private DbAttributeBinding[] bindings;
+
+		StubTranslator(String sql, DbAttributeBinding[] bindings) {
+			this.sql = sql;
+			this.bindings = bindings;
+		}
+
+		@Override
+		public String getSql() {
+			return sql;
+		}
+
+		@Override
+		public DbAttributeBinding[] getBindings() {
+			return bindings;
+		}
+
+		@Override
+		public Map<ObjAttribute, ColumnDescriptor> getAttributeOverrides() {
+			return Collections.emptyMap();
+		}
+
+		@Override
+		public ColumnDescriptor[] getResultColumns() {
+			return new ColumnDescriptor[] { new ColumnDescriptor("NAME", Types.VARCHAR) };
+		}
+
+		@Override
+		public boolean isSuppressingDistinct() {
+			return false;
+		}
+
+		@Override
+		public boolean hasJoins() {
+			return false;
+		}
+	}
+}
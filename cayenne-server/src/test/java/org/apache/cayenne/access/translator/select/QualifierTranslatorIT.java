@@ -19,6 +19,7 @@
 
 package org.apache.cayenne.access.translator.select;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
@@ -26,6 +27,9 @@ import java.util.Arrays;
 
 import org.apache.cayenne.ObjectId;
 import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.access.translator.DbAttributeBinding;
+import org.apache.cayenne.dba.h2.H2Adapter;
+import org.apache.cayenne.di.AdhocObjectFactory;
 import org.apache.cayenne.di.Inject;
 import org.apache.cayenne.exp.Expression;
 import org.apache.cayenne.exp.ExpressionFactory;
@@ -52,6 +56,9 @@ public class QualifierTranslatorIT extends ServerCase {
 	@Inject
 	private ServerCaseDataSourceFactory dataSourceFactory;
 
+	@Inject
+	private AdhocObjectFactory objectFactory;
+
 	// TODO: not an integration test; extract into *Test
 	@Test
 	public void testNonQualifiedQuery() throws Exception {
@@ -94,6 +101,54 @@ public class QualifierTranslatorIT extends ServerCase {
 		doExpressionTest(Exhibit.class, exp, "ta.GALLERY_NAME IN (?, ?, ?)");
 	}
 
+	@Test
+	public void testBinary_InLong() throws Exception {
+		Expression exp = ExpressionFactory.inExp("toGallery.galleryName", "g1", "g2", "g3", "g4", "g5", "g6");
+
+		SelectQuery<Exhibit> q = new SelectQuery<>(Exhibit.class, exp);
+		TstQueryAssembler qa = new TstQueryAssembler(q, node.getAdapter(), node.getEntityResolver());
+
+		// use the adapter translator, as some adapters render array-bound lists differently
+		String translated = node.getAdapter().getQualifierTranslator(qa).appendPart(new StringBuilder()).toString();
+
+		if (node.getAdapter() instanceof H2Adapter) {
+			assertEquals("ta.GALLERY_NAME IN (SELECT X FROM TABLE(X VARCHAR = ?))", translated);
+			assertEquals(1, qa.getBindings().length);
+		} else if (node.getAdapter().supportsInListArrayBinding()) {
+			assertEquals("ta.GALLERY_NAME = ANY (?)", translated);
+			assertEquals(1, qa.getBindings().length);
+		} else if (node.getAdapter().supportsInListPadding()) {
+			assertEquals("ta.GALLERY_NAME IN (?, ?, ?, ?, ?, ?, ?, ?)", translated);
+			assertEquals(8, qa.getBindings().length);
+		} else {
+			assertEquals("ta.GALLERY_NAME IN (?, ?, ?, ?, ?, ?)", translated);
+			assertEquals(6, qa.getBindings().length);
+		}
+	}
+
+	@Test
+	public void testBinary_InLong_H2() throws Exception {
+		H2Adapter adapter = objectFactory.newInstance(H2Adapter.class, H2Adapter.class.getName());
+		Expression exp = ExpressionFactory.inExp("toGallery.galleryName", "g1", "g2", "g3", "g4", "g5", "g6");
+
+		SelectQuery<Exhibit> q = new SelectQuery<>(Exhibit.class, exp);
+		TstQueryAssembler qa = new TstQueryAssembler(q, adapter, node.getEntityResolver());
+
+		String translated = adapter.getQualifierTranslator(qa).appendPart(new StringBuilder()).toString();
+		assertEquals("ta.GALLERY_NAME IN (SELECT X FROM TABLE(X VARCHAR = ?))", translated);
+
+		DbAttributeBinding[] bindings = qa.getBindings();
+		assertEquals(1, bindings.length);
+		assertArrayEquals(new Object[] { "g1", "g2", "g3", "g4", "g5", "g6" }, (Object[]) bindings[0].getValue());
+
+		// mixed value types can't be bound as an array
+		Expression mixed = ExpressionFactory.inExp("toGallery.galleryName", "g1", "g2", "g3", "g4", "g5", 6);
+		TstQueryAssembler mixedQa = new TstQueryAssembler(new SelectQuery<>(Exhibit.class, mixed), adapter,
+				node.getEntityResolver());
+		assertEquals("ta.GALLERY_NAME IN (?, ?, ?, ?, ?, ?)",
+				adapter.getQualifierTranslator(mixedQa).appendPart(new StringBuilder()).toString());
+	}
+
 	@Test
 	public void testBinary_Like() throws Exception {
 		doExpressionTest(Exhibit.class, "toGallery.galleryName like 'a%'", "ta.GALLERY_NAME LIKE ?");
@@ -0,0 +1,39 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.access.translator.select;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class QualifierTranslatorTest {
+
+	@Test
+	public void testInListPaddedSize() {
+		assertEquals(8, QualifierTranslator.inListPaddedSize(5));
+		assertEquals(8, QualifierTranslator.inListPaddedSize(8));
+		assertEquals(16, QualifierTranslator.inListPaddedSize(9));
+		assertEquals(128, QualifierTranslator.inListPaddedSize(100));
+		assertEquals(128, QualifierTranslator.inListPaddedSize(128));
+		assertEquals(200, QualifierTranslator.inListPaddedSize(129));
+		assertEquals(1000, QualifierTranslator.inListPaddedSize(901));
+		assertEquals(1000, QualifierTranslator.inListPaddedSize(1000));
+	}
+}
@@ -23,9 +23,20 @@ import org.apache.cayenne.util.Util;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class MapQueryCacheTest {
 
@@ -47,4 +58,175 @@ public class MapQueryCacheTest {
         assertNotNull(deserialized);
         assertEquals(1, deserialized.size());
     }
+
+    @Test
+    public void testGet_CoalescesConcurrentMisses() throws Exception {
+
+        MapQueryCache cache = new MapQueryCache(5);
+        MockQueryMetadata metadata = metadata("key");
+
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch fetchAllowed = new CountDownLatch(1);
+        List<Object> result = Collections.singletonList("x");
+
+        QueryCacheEntryFactory factory = () -> {
+            fetches.incrementAndGet();
+            fetchStarted.countDown();
+            try {
+                fetchAllowed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return result;
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<List> first = executor.submit(() -> cache.get(metadata, factory));
+            assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+
+            List<Future<List>> others = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                others.add(executor.submit(() -> cache.get(metadata, factory)));
+            }
+
+            // let the other threads reach the in-flight fetch
+            Thread.sleep(100);
+            fetchAllowed.countDown();
+
+            assertSame(result, first.get(5, TimeUnit.SECONDS));
+            for (Future<List> other : others) {
+                assertSame(result, other.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    public void testGet_RemovedWhileFetching() throws Exception {
+
+        MapQueryCache cache = new MapQueryCache(5);
+        MockQueryMetadata metadata = metadata("key");
+
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch fetchAllowed = new CountDownLatch(1);
+        List<Object> stale = Collections.singletonList("stale");
+        List<Object> fresh = Collections.singletonList("fresh");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List> first = executor.submit(() -> cache.get(metadata, () -> {
+                fetchStarted.countDown();
+                try {
+                    fetchAllowed.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return stale;
+            }));
+            assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+
+            // e.g. invalidated by a commit; the in-flight fetch may have read the old data
+            cache.remove("key");
+
+            // must not join the fetch started before the removal
+            Future<List> second = executor.submit(() -> cache.get(metadata, () -> fresh));
+            assertSame(fresh, second.get(5, TimeUnit.SECONDS));
+
+            fetchAllowed.countDown();
+            assertSame(stale, first.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the stale result must not overwrite the fresh one
+        assertSame(fresh, cache.get(metadata));
+
+        cache.removeGroup(MapQueryCache.DEFAULT_CACHE_NAME);
+        assertNull(cache.get(metadata));
+    }
+
+    @Test
+    public void testGet_OtherKeyRemovedWhileFetching() throws Exception {
+
+        MapQueryCache cache = new MapQueryCache(5);
+        MockQueryMetadata metadata = metadata("key");
+        MockQueryMetadata otherMetadata = metadata("other");
+        cache.put(otherMetadata, Collections.singletonList("other"));
+
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch fetchAllowed = new CountDownLatch(1);
+        List<Object> result = Collections.singletonList("x");
+
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            Future<List> first = executor.submit(() -> cache.get(metadata, () -> {
+                fetchStarted.countDown();
+                try {
+                    fetchAllowed.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return result;
+            }));
+            assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+
+            cache.remove("other");
+
+            fetchAllowed.countDown();
+            assertSame(result, first.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // removal of an unrelated entry doesn't make the fetched result stale
+        assertSame(result, cache.get(metadata));
+        assertNull(cache.get(otherMetadata));
+    }
+
+    @Test
+    public void testGet_NoRefreshAhead() {
+
+        MapQueryCache cache = new MapQueryCache(5);
+        MockQueryMetadata metadata = metadata("key");
+
+        List<Object> r1 = Collections.singletonList("1");
+        List<Object> r2 = Collections.singletonList("2");
+
+        assertSame(r1, cache.get(metadata, () -> r1));
+        assertSame(r1, cache.get(metadata, () -> r2));
+    }
+
+    @Test
+    public void testGet_RefreshAhead() throws Exception {
+
+        MapQueryCache cache = new MapQueryCache(5, 200);
+        MockQueryMetadata metadata = metadata("key");
+
+        List<Object> r1 = Collections.singletonList("1");
+        List<Object> r2 = Collections.singletonList("2");
+
+        assertSame(r1, cache.get(metadata, () -> r1));
+        assertSame(r1, cache.get(metadata, () -> r2));
+
+        Thread.sleep(300);
+
+        // the entry is old enough to be refreshed by this caller
+        assertSame(r2, cache.get(metadata, () -> r2));
+        assertSame(r2, cache.get(metadata));
+    }
+
+    private static MockQueryMetadata metadata(final String key) {
+        return new MockQueryMetadata() {
+
+            @Override
+            public String getCacheKey() {
+                return key;
+            }
+        };
+    }
 }
@@ -20,6 +20,8 @@ package org.apache.cayenne.datasource;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -203,6 +205,64 @@ public class PoolingDataSourceTest {
 		assertNotNull(c);
 	}
 
+	@Test
+	public void testValidateUnchecked_IdleTime() {
+
+		params.setMaxConnections(1);
+		params.setValidationIdleTime(60000);
+		UnmanagedPoolingDataSource ds = new UnmanagedPoolingDataSource(nonPooling, params);
+
+		// recently released connection must not be validated
+		PoolAwareConnection recent = mock(PoolAwareConnection.class);
+		when(recent.validate()).thenReturn(false);
+		when(recent.getLastReleased()).thenReturn(System.currentTimeMillis());
+		assertSame(recent, ds.validateUnchecked(recent));
+
+		// connection idle for too long must be validated
+		PoolAwareConnection stale = mock(PoolAwareConnection.class);
+		when(stale.getConnection()).thenReturn(mock(Connection.class));
+		when(stale.validate()).thenReturn(false);
+		when(stale.getLastReleased()).thenReturn(0L);
+		assertNull(ds.validateUnchecked(stale));
+	}
+
+	@Test
+	public void testGetConnection_ThreadAffinity() throws SQLException {
+
+		params.setMinConnections(2);
+		params.setMaxConnections(5);
+		params.setThreadAffinity(true);
+		UnmanagedPoolingDataSource ds = new UnmanagedPoolingDataSource(nonPooling, params);
+
+		// connections created by the pool itself are not affine to any thread
+		Connection c1 = ds.getConnection();
+		assertEquals(0, ds.getMetrics().getFastPathCheckoutCount());
+		assertEquals(1, ds.availableSize());
+		c1.close();
+		assertEquals(2, ds.availableSize());
+
+		// same thread should get the same connection back, and the connection
+		// is no longer counted as available
+		Connection c2 = ds.getConnection();
+		assertSame(c1, c2);
+		assertEquals(1, ds.getMetrics().getFastPathCheckoutCount());
+		assertEquals(1, ds.availableSize());
+
+		// while c2 is in use, other idle connections should be handed out
+		Connection c3 = ds.getConnection();
+		assertNotSame(c2, c3);
+		Connection c4 = ds.getConnection();
+		assertNotSame(c2, c4);
+		assertNotSame(c3, c4);
+		assertEquals(3, ds.poolSize());
+
+		c2.close();
+		c3.close();
+		c4.close();
+		assertEquals(3, ds.availableSize());
+		assertEquals(4, ds.getMetrics().getCheckoutCount());
+	}
+
 	PoolAwareConnection[] validConnections(int size) {
 		PoolAwareConnection[] connections = new PoolAwareConnection[size];
 		for (int i = 0; i < size; i++) {
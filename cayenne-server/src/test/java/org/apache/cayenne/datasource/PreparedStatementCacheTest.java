@@ -0,0 +1,203 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.datasource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cayenne.datasource.PreparedStatementCache.StatementKey;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PreparedStatementCacheTest {
+
+	private PoolingDataSourceMetrics metrics;
+	private List<PreparedStatement> prepared;
+	private Map<PreparedStatement, List<String>> calls;
+	private Connection connection;
+
+	@Before
+	public void before() {
+		metrics = new PoolingDataSourceMetrics(null);
+		prepared = new ArrayList<>();
+		calls = new HashMap<>();
+
+		connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					if (method.getName().equals("prepareStatement")) {
+						PreparedStatement statement = createStatement();
+						prepared.add(statement);
+						return statement;
+					}
+
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private PreparedStatement createStatement() {
+		List<String> statementCalls = new ArrayList<>();
+		PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+					statementCalls.add(method.getName());
+					switch (method.getName()) {
+					case "getFetchSize":
+					case "getQueryTimeout":
+						return 0;
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					default:
+						return null;
+					}
+				});
+
+		calls.put(statement, statementCalls);
+		return statement;
+	}
+
+	private static StatementKey key(String sql) {
+		return new StatementKey(sql, StatementKey.UNSPECIFIED, StatementKey.UNSPECIFIED, StatementKey.UNSPECIFIED);
+	}
+
+	private static PreparedStatement unwrap(PreparedStatement statement) {
+		return ((CachedPreparedStatement) statement).getStatement();
+	}
+
+	@Test
+	public void testReuse() throws SQLException {
+		PreparedStatementCache cache = new PreparedStatementCache(5, metrics);
+
+		PreparedStatement s1 = cache.prepare(null, connection, key("SELECT 1"));
+		s1.close();
+		assertTrue(s1.isClosed());
+		assertEquals(1, cache.size());
+
+		PreparedStatement s2 = cache.prepare(null, connection, key("SELECT 1"));
+		assertNotSame(s1, s2);
+		assertSame(unwrap(s1), unwrap(s2));
+		assertEquals(0, cache.size());
+
+		assertEquals(1, prepared.size());
+		assertEquals(1, metrics.getStatementCacheHitCount());
+		assertEquals(1, metrics.getStatementCacheMissCount());
+		assertFalse(calls.get(prepared.get(0)).contains("close"));
+	}
+
+	@Test
+	public void testKeyOptions() throws SQLException {
+		PreparedStatementCache cache = new PreparedStatementCache(5, metrics);
+
+		cache.prepare(null, connection, key("SELECT 1")).close();
+		cache.prepare(null, connection, new StatementKey("SELECT 1", StatementKey.UNSPECIFIED,
+				StatementKey.UNSPECIFIED, 1)).close();
+
+		assertEquals(2, prepared.size());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testConcurrentUse() throws SQLException {
+		PreparedStatementCache cache = new PreparedStatementCache(5, metrics);
+
+		PreparedStatement s1 = cache.prepare(null, connection, key("SELECT 1"));
+		PreparedStatement s2 = cache.prepare(null, connection, key("SELECT 1"));
+		assertNotSame(unwrap(s1), unwrap(s2));
+
+		s1.close();
+		s2.close();
+
+		// only one statement per key is retained
+		assertEquals(1, cache.size());
+		assertTrue(calls.get(unwrap(s2)).contains("close"));
+	}
+
+	@Test
+	public void testLRUEviction() throws SQLException {
+		PreparedStatementCache cache = new PreparedStatementCache(2, metrics);
+
+		cache.prepare(null, connection, key("SELECT 1")).close();
+		cache.prepare(null, connection, key("SELECT 2")).close();
+
+		// touch the first statement, so that the second one becomes eldest
+		cache.prepare(null, connection, key("SELECT 1")).close();
+		cache.prepare(null, connection, key("SELECT 3")).close();
+
+		assertEquals(2, cache.size());
+		assertEquals(1, metrics.getStatementCacheEvictionCount());
+		assertFalse(calls.get(prepared.get(0)).contains("close"));
+		assertTrue(calls.get(prepared.get(1)).contains("close"));
+	}
+
+	@Test
+	public void testReset() throws SQLException {
+		PreparedStatementCache cache = new PreparedStatementCache(2, metrics);
+
+		PreparedStatement s1 = cache.prepare(null, connection, key("SELECT 1"));
+		s1.setFetchSize(100);
+		s1.close();
+
+		List<String> statementCalls = calls.get(unwrap(s1));
+		assertTrue(statementCalls.contains("clearParameters"));
+		assertEquals(2, statementCalls.stream().filter("setFetchSize"::equals).count());
+		assertFalse(statementCalls.contains("setQueryTimeout"));
+	}
+
+	@Test
+	public void testNotReusable() throws SQLException {
+		PreparedStatementCache cache = new PreparedStatementCache(2, metrics);
+
+		PreparedStatement s1 = cache.prepare(null, connection, key("SELECT 1"));
+		s1.setPoolable(false);
+		s1.close();
+
+		assertEquals(0, cache.size());
+		assertTrue(calls.get(unwrap(s1)).contains("close"));
+	}
+
+	@Test
+	public void testClear() throws SQLException {
+		PreparedStatementCache cache = new PreparedStatementCache(2, metrics);
+
+		cache.prepare(null, connection, key("SELECT 1")).close();
+		PreparedStatement s2 = cache.prepare(null, connection, key("SELECT 2"));
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertTrue(calls.get(prepared.get(0)).contains("close"));
+
+		// statement checked out before clearing belongs to a stale connection
+		s2.close();
+		assertEquals(0, cache.size());
+		assertTrue(calls.get(unwrap(s2)).contains("close"));
+	}
+}
@@ -19,13 +19,24 @@
 
 package org.apache.cayenne.event;
 
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.access.event.SnapshotEvent;
 import org.apache.cayenne.test.parallel.ParallelTestContainer;
+import org.apache.cayenne.util.Invocation;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EventListener;
 import java.util.EventObject;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -415,6 +426,181 @@ public class DefaultEventManagerTest implements EventListener {
         assertFalse(eventManager.removeListener(this));
     }
 
+    @Test
+    public void testNonBlockingEvents_SubjectOrdering() throws Exception {
+        DefaultEventManager manager = new DefaultEventManager(4);
+        try {
+            EventSubject subject = EventSubject.getSubject(this.getClass(), "ordering");
+            RecordingListener listener = new RecordingListener(null);
+            manager.addListener(listener, "onEvent", IdEvent.class, subject);
+
+            for (int i = 0; i < 1000; i++) {
+                manager.postNonBlockingEvent(new IdEvent(this, i), subject);
+            }
+
+            listener.awaitEvents(1000);
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(Integer.valueOf(i), listener.ids().get(i));
+            }
+
+            assertEquals(1000, manager.getMetrics().getPostedCount());
+            assertEquals(0, manager.getMetrics().getDroppedCount());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testNonBlockingEvents_UnboundedByDefault() throws Exception {
+        DefaultEventManager manager = new DefaultEventManager(1);
+        try {
+            assertEquals(0, manager.getMetrics().getQueueCapacity());
+
+            EventSubject subject = EventSubject.getSubject(this.getClass(), "unbounded");
+            CountDownLatch release = new CountDownLatch(1);
+            RecordingListener listener = new RecordingListener(release);
+            manager.addListener(listener, "onEvent", IdEvent.class, subject);
+
+            manager.postNonBlockingEvent(new IdEvent(this, 0), subject);
+            listener.awaitEvents(1);
+
+            // the dispatch thread is busy, the posting thread must neither wait nor lose events
+            for (int i = 1; i < 20000; i++) {
+                manager.postNonBlockingEvent(new IdEvent(this, i), subject);
+            }
+
+            release.countDown();
+            listener.awaitEvents(20000);
+
+            assertEquals(20000, listener.ids().size());
+            assertEquals(0, manager.getMetrics().getDroppedCount());
+            assertEquals(0, manager.getMetrics().getBlockedCount());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testNonBlockingListeners_SpreadAcrossLanes() throws Exception {
+        DefaultEventManager manager = new DefaultEventManager(4);
+        try {
+            EventSubject subject = EventSubject.getSubject(this.getClass(), "fanout");
+            EventObject[] args = new EventObject[] { new IdEvent(this, 1) };
+
+            // deliveries of the same event to different listeners are not serialized in one lane
+            Set<Integer> lanes = new HashSet<>();
+            for (int i = 0; i < 20; i++) {
+                Invocation invocation = new Invocation(new RecordingListener(null), "onEvent", IdEvent.class);
+                lanes.add(manager.laneIndex(manager.new InvocationDispatch(args, subject, invocation)));
+            }
+
+            assertTrue(lanes.size() > 1);
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testNonBlockingEvents_DropOldest() throws Exception {
+        DefaultEventManager manager = new DefaultEventManager(1, 2, DefaultEventManager.OverflowPolicy.DROP_OLDEST,
+                null);
+        try {
+            EventSubject subject = EventSubject.getSubject(this.getClass(), "drop");
+            CountDownLatch release = new CountDownLatch(1);
+            RecordingListener listener = new RecordingListener(release);
+            manager.addListener(listener, "onEvent", IdEvent.class, subject);
+
+            manager.postNonBlockingEvent(new IdEvent(this, 1), subject);
+            listener.awaitEvents(1);
+
+            // the dispatch thread is busy, so the queue fills up
+            manager.postNonBlockingEvent(new IdEvent(this, 2), subject);
+            manager.postNonBlockingEvent(new IdEvent(this, 3), subject);
+            manager.postNonBlockingEvent(new IdEvent(this, 4), subject);
+            assertEquals(2, manager.getMetrics().getQueueDepth());
+
+            release.countDown();
+            listener.awaitEvents(3);
+
+            assertEquals(Arrays.asList(1, 3, 4), listener.ids());
+            assertEquals(1, manager.getMetrics().getDroppedCount());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testNonBlockingEvents_Coalesce() throws Exception {
+        DefaultEventManager manager = new DefaultEventManager(1, 2, DefaultEventManager.OverflowPolicy.COALESCE,
+                null);
+        try {
+            EventSubject subject = EventSubject.getSubject(this.getClass(), "coalesce");
+            CountDownLatch release = new CountDownLatch(1);
+            RecordingListener listener = new RecordingListener(release);
+            manager.addListener(listener, "onEvent", IdEvent.class, subject);
+
+            Object sender1 = new Object();
+            Object sender2 = new Object();
+
+            manager.postNonBlockingEvent(new IdEvent(this, 1), subject);
+            listener.awaitEvents(1);
+
+            manager.postNonBlockingEvent(new LatestIdEvent(sender1, 2), subject);
+            manager.postNonBlockingEvent(new LatestIdEvent(sender2, 3), subject);
+
+            // replaces the queued event from the same sender
+            manager.postNonBlockingEvent(new LatestIdEvent(sender1, 4), subject);
+
+            release.countDown();
+            listener.awaitEvents(3);
+
+            assertEquals(Arrays.asList(1, 3, 4), listener.ids());
+            assertEquals(1, manager.getMetrics().getCoalescedCount());
+            assertEquals(0, manager.getMetrics().getDroppedCount());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testNonBlockingEvents_CoalesceSnapshotEvents() throws Exception {
+        DefaultEventManager manager = new DefaultEventManager(1, 1, DefaultEventManager.OverflowPolicy.COALESCE,
+                null);
+        try {
+            EventSubject subject = EventSubject.getSubject(this.getClass(), "coalesceSnapshots");
+            CountDownLatch release = new CountDownLatch(1);
+            SnapshotListener listener = new SnapshotListener(release);
+            manager.addListener(listener, "onEvent", SnapshotEvent.class, subject);
+
+            Object source = new Object();
+            ObjectId id1 = new ObjectId("E1", "ID", 1);
+            ObjectId id2 = new ObjectId("E1", "ID", 2);
+            ObjectId id3 = new ObjectId("E1", "ID", 3);
+
+            manager.postNonBlockingEvent(deletedEvent(source, id1), subject);
+            listener.awaitEvents(1);
+
+            manager.postNonBlockingEvent(deletedEvent(source, id2), subject);
+
+            // merged with the queued event, as both events are from the same DataRowStore
+            manager.postNonBlockingEvent(deletedEvent(source, id3), subject);
+
+            release.countDown();
+            listener.awaitEvents(2);
+
+            assertEquals(1, manager.getMetrics().getCoalescedCount());
+            assertEquals(Collections.singleton(id1), new HashSet<>(listener.events().get(0).getDeletedIds()));
+            assertEquals(new HashSet<>(Arrays.asList(id2, id3)),
+                    new HashSet<>(listener.events().get(1).getDeletedIds()));
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    private static SnapshotEvent deletedEvent(Object source, ObjectId id) {
+        return new SnapshotEvent(source, source, null, Collections.singleton(id), null, null);
+    }
+
     // notification method
     public void seeNotification(CayenneEvent event) {
         numberOfReceivedEvents++;
@@ -457,3 +643,103 @@ class MyCayenneEvent extends CayenneEvent {
         super(l);
     }
 }
+
+class IdEvent extends EventObject {
+
+    final int id;
+
+    IdEvent(Object source, int id) {
+        super(source);
+        this.id = id;
+    }
+}
+
+class LatestIdEvent extends IdEvent implements CoalescibleEvent {
+
+    LatestIdEvent(Object source, int id) {
+        super(source, id);
+    }
+
+    @Override
+    public EventObject coalesce(EventObject earlier) {
+        return this;
+    }
+}
+
+// records received snapshot events, optionally blocking on the first one
+class SnapshotListener {
+
+    private final List<SnapshotEvent> events = new ArrayList<>();
+    private final CountDownLatch release;
+
+    SnapshotListener(CountDownLatch release) {
+        this.release = release;
+    }
+
+    public void onEvent(SnapshotEvent event) throws InterruptedException {
+        synchronized (events) {
+            events.add(event);
+            events.notifyAll();
+        }
+
+        if (release != null) {
+            release.await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    List<SnapshotEvent> events() {
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+
+    void awaitEvents(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        synchronized (events) {
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                events.wait(100);
+            }
+        }
+
+        assertEquals(count, events().size());
+    }
+}
+
+// records ids of received events, optionally blocking on the first one
+class RecordingListener {
+
+    private final List<Integer> ids = new ArrayList<>();
+    private final CountDownLatch release;
+
+    RecordingListener(CountDownLatch release) {
+        this.release = release;
+    }
+
+    public void onEvent(IdEvent event) throws InterruptedException {
+        synchronized (ids) {
+            ids.add(event.id);
+            ids.notifyAll();
+        }
+
+        if (release != null) {
+            release.await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    List<Integer> ids() {
+        synchronized (ids) {
+            return new ArrayList<>(ids);
+        }
+    }
+
+    void awaitEvents(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        synchronized (ids) {
+            while (ids.size() < count && System.currentTimeMillis() < deadline) {
+                ids.wait(100);
+            }
+        }
+
+        assertEquals(count, ids().size());
+    }
+}
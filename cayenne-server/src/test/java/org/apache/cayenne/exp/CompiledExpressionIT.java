@@ -0,0 +1,119 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.exp;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.query.Ordering;
+import org.apache.cayenne.query.SortOrder;
+import org.apache.cayenne.reflect.ClassDescriptor;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.testdo.testmap.Painting;
+import org.apache.cayenne.unit.di.server.CayenneProjects;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.apache.cayenne.unit.di.server.UseServerRuntime;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+@UseServerRuntime(CayenneProjects.TESTMAP_PROJECT)
+public class CompiledExpressionIT extends ServerCase {
+
+	@Inject
+	private ObjectContext context;
+
+	private ClassDescriptor descriptor;
+	private List<Painting> paintings;
+
+	@Before
+	public void before() {
+		descriptor = context.getEntityResolver().getClassDescriptor("Painting");
+
+		Artist a1 = context.newObject(Artist.class);
+		a1.setArtistName("A1");
+		Artist a2 = context.newObject(Artist.class);
+		a2.setArtistName("A2");
+
+		paintings = new ArrayList<>();
+		paintings.add(painting("P1", new BigDecimal("10.00"), a1));
+		paintings.add(painting("P2", new BigDecimal("20"), a2));
+		paintings.add(painting("P3", new BigDecimal("15.5"), a1));
+		paintings.add(painting("P4", null, null));
+	}
+
+	private Painting painting(String title, BigDecimal price, Artist artist) {
+		Painting p = context.newObject(Painting.class);
+		p.setPaintingTitle(title);
+		p.setEstimatedPrice(price);
+		p.setToArtist(artist);
+		return p;
+	}
+
+	@Test
+	public void testEvaluate_SameAsInterpreted() {
+		String[] expressions = {
+				"estimatedPrice = 10",
+				"estimatedPrice >= 15",
+				"estimatedPrice in (10, 20)",
+				"paintingTitle in ('P1', 'P3')",
+				"toArtist.artistName = 'A1'",
+				"toArtist+.artistName != 'A1'",
+				"toArtist.paintingArray.paintingTitle = 'P3'",
+				"toArtist = null"
+		};
+
+		for (String string : expressions) {
+			Expression e = ExpressionFactory.exp(string);
+			CompiledExpression compiled = e.compile(descriptor);
+
+			for (Painting p : paintings) {
+				assertEquals(string + " for " + p.getPaintingTitle(), e.evaluate(p), compiled.evaluate(p));
+			}
+		}
+	}
+
+	@Test
+	public void testFilterObjects() {
+		Expression e = Painting.TO_ARTIST.dot(Artist.ARTIST_NAME).eq("A1");
+		assertEquals(asList(paintings.get(0), paintings.get(2)), e.filterObjects(paintings, descriptor));
+	}
+
+	@Test
+	public void testOrderList() {
+		List<Ordering> orderings = asList(
+				new Ordering("toArtist.artistName", SortOrder.DESCENDING),
+				new Ordering("estimatedPrice", SortOrder.ASCENDING));
+
+		List<Painting> expected = new ArrayList<>(paintings);
+		Ordering.orderList(expected, orderings);
+
+		List<Painting> ordered = new ArrayList<>(paintings);
+		Ordering.orderList(ordered, orderings, descriptor);
+
+		assertEquals(expected, ordered);
+		assertEquals(asList(paintings.get(3), paintings.get(1), paintings.get(0), paintings.get(2)), ordered);
+	}
+}
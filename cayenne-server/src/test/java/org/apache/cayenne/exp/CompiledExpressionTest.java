@@ -0,0 +1,176 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.exp;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.testdo.testmap.Painting;
+import org.apache.cayenne.unit.util.TstBean;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompiledExpressionTest {
+
+	private static final String[] EXPRESSIONS = {
+			"estimatedPrice = 10",
+			"estimatedPrice = 10.0",
+			"estimatedPrice != 10",
+			"estimatedPrice < 20",
+			"estimatedPrice <= 15.5",
+			"estimatedPrice > 15",
+			"estimatedPrice >= 10",
+			"estimatedPrice in (10, 20, 30)",
+			"estimatedPrice not in (10, 20)",
+			"estimatedPrice = null",
+			"estimatedPrice != null",
+			"estimatedPrice between 5 and 15",
+			"paintingTitle = 'P1'",
+			"paintingTitle != 'P1'",
+			"paintingTitle < 'P2'",
+			"paintingTitle >= 'P2'",
+			"paintingTitle in ('P1', 'P3')",
+			"paintingTitle not in ('P1', 'P3')",
+			"paintingTitle like 'P%'",
+			"paintingTitle likeIgnoreCase 'p%'",
+			"toArtist.artistName = 'A1'",
+			"toArtist.artistName != 'A1'",
+			"toArtist.artistName in ('A1', 'A2')",
+			"toArtist+.artistName = 'A1'",
+			"toArtist = null",
+			"paintingTitle = 'P1' and estimatedPrice > 5",
+			"paintingTitle = 'P1' or estimatedPrice > 15",
+			"not (paintingTitle = 'P1')",
+			"not (estimatedPrice > 15)",
+			"estimatedPrice > 15 or paintingTitle = 'P2'",
+			"estimatedPrice > 15 and paintingTitle = 'P2'",
+			"estimatedPrice + 5 > 20",
+			"true",
+			"false"
+	};
+
+	private List<Painting> paintings() {
+		Artist a1 = new Artist();
+		a1.setArtistName("A1");
+
+		Artist a2 = new Artist();
+		a2.setArtistName("A2");
+
+		List<Painting> paintings = new ArrayList<>();
+		paintings.add(painting("P1", new BigDecimal("10.00"), a1));
+		paintings.add(painting("P2", new BigDecimal("20"), a2));
+		paintings.add(painting("P3", new BigDecimal("15.5"), a1));
+		paintings.add(painting("P4", null, null));
+		paintings.add(painting(null, new BigDecimal("30"), a2));
+		return paintings;
+	}
+
+	private Painting painting(String title, BigDecimal price, Artist artist) {
+		Painting p = new Painting();
+		p.setPaintingTitle(title);
+		p.setEstimatedPrice(price);
+		p.writePropertyDirectly(Painting.TO_ARTIST.getName(), artist);
+		return p;
+	}
+
+	@Test
+	public void testEvaluate_SameAsInterpreted() {
+		List<Painting> paintings = paintings();
+
+		for (String string : EXPRESSIONS) {
+			Expression e = ExpressionFactory.exp(string);
+			CompiledExpression compiled = e.compile(null);
+
+			for (Painting p : paintings) {
+				assertEquals(string + " for " + p.getPaintingTitle(), e.evaluate(p), compiled.evaluate(p));
+			}
+
+			assertEquals(string, e.filterObjects(paintings), compiled.filterObjects(paintings));
+		}
+	}
+
+	@Test
+	public void testEvaluate_NumberTypes() {
+		TstBean bean = new TstBean(5);
+
+		assertTrue(ExpressionFactory.exp("integer = 5L").compile(null).match(bean));
+		assertTrue(ExpressionFactory.exp("integer < 6L").compile(null).match(bean));
+		assertTrue(ExpressionFactory.exp("integer = 5.0").compile(null).match(bean));
+		assertTrue(ExpressionFactory.exp("integer > 4.5").compile(null).match(bean));
+		assertTrue(ExpressionFactory.exp("integer in (1, 5L, 7)").compile(null).match(bean));
+		assertFalse(ExpressionFactory.exp("integer in (1, 7)").compile(null).match(bean));
+		assertTrue(ExpressionFactory.exp("integer not in (1, 7)").compile(null).match(bean));
+		assertTrue(ExpressionFactory.exp("integer in (1.0, 5.0)").compile(null).match(bean));
+		assertFalse(ExpressionFactory.exp("integer in ('1', 'a')").compile(null).match(bean));
+	}
+
+	@Test
+	public void testEvaluate_CollectionPath() {
+		List<Painting> paintings = paintings();
+		Artist artist = new Artist();
+		artist.writePropertyDirectly(Artist.PAINTING_ARRAY.getName(), paintings);
+
+		CompiledExpression compiled = ExpressionFactory.exp("paintingArray.paintingTitle = 'P3'").compile(null);
+		assertTrue(compiled.match(artist));
+
+		compiled = ExpressionFactory.exp("paintingArray.estimatedPrice in (40, 50)").compile(null);
+		assertFalse(compiled.match(artist));
+	}
+
+	@Test
+	public void testFirst() {
+		List<Painting> paintings = paintings();
+		CompiledExpression compiled = ExpressionFactory.exp("toArtist.artistName = 'A2'").compile(null);
+
+		assertSame(paintings.get(1), compiled.first(paintings));
+		assertNull(ExpressionFactory.exp("paintingTitle = 'X'").compile(null).first(paintings));
+	}
+
+	@Test
+	public void testFilterObjects_Descriptor() {
+		List<Painting> paintings = paintings();
+		Expression e = ExpressionFactory.exp("estimatedPrice >= 15");
+
+		assertEquals(Arrays.asList(paintings.get(1), paintings.get(2), paintings.get(4)),
+				e.filterObjects(paintings, null));
+		assertTrue(e.filterObjects(new ArrayList<Painting>(), null).isEmpty());
+	}
+
+	@Test
+	public void testEvaluate_Exception() {
+		CompiledExpression compiled = ExpressionFactory.exp("noSuchProperty = 1").compile(null);
+
+		try {
+			compiled.match(new TstBean(1));
+			fail("Expected an exception");
+		} catch (ExpressionException e) {
+			assertEquals("noSuchProperty = 1", e.getExpressionString());
+		}
+	}
+}
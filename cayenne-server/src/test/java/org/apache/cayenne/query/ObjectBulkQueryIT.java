@@ -0,0 +1,171 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.query;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.PersistenceState;
+import org.apache.cayenne.access.DataContext;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.testdo.testmap.Painting;
+import org.apache.cayenne.unit.di.server.CayenneProjects;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.apache.cayenne.unit.di.server.UseServerRuntime;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+@UseServerRuntime(CayenneProjects.TESTMAP_PROJECT)
+public class ObjectBulkQueryIT extends ServerCase {
+
+    @Inject
+    private DataContext context;
+
+    @Inject
+    private DBHelper dbHelper;
+
+    private TableHelper tArtist;
+    private TableHelper tPainting;
+
+    @Before
+    public void createDataSet() throws Exception {
+        tArtist = new TableHelper(dbHelper, "ARTIST");
+        tArtist.setColumns("ARTIST_ID", "ARTIST_NAME");
+        for (int i = 1; i <= 10; i++) {
+            tArtist.insert(i, "artist" + i);
+        }
+
+        tPainting = new TableHelper(dbHelper, "PAINTING");
+        tPainting.setColumns("PAINTING_ID", "PAINTING_TITLE", "ARTIST_ID", "ESTIMATED_PRICE");
+        for (int i = 1; i <= 10; i++) {
+            tPainting.insert(i, "painting" + i, i % 2 + 1, i * 100);
+        }
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        int updated = ObjectUpdate.query(Painting.class)
+                .set(Painting.PAINTING_TITLE, "cheap")
+                .where(Painting.ESTIMATED_PRICE.lt(new BigDecimal(500)))
+                .update(context);
+
+        assertEquals(4, updated);
+        assertEquals(4L, ObjectSelect.query(Painting.class, Painting.PAINTING_TITLE.eq("cheap")).selectCount(context));
+    }
+
+    @Test
+    public void testUpdate_NoQualifier() throws Exception {
+        int updated = ObjectUpdate.query(Painting.class)
+                .set("db:ESTIMATED_PRICE", new BigDecimal(1))
+                .update(context);
+
+        assertEquals(10, updated);
+    }
+
+    @Test
+    public void testUpdate_ToOneMatch() throws Exception {
+        Artist a1 = SelectById.query(Artist.class, 1).selectOne(context);
+        List<Painting> paintings = ObjectSelect.query(Painting.class).select(context);
+        assertEquals(10, paintings.size());
+
+        int updated = ObjectUpdate.query(Painting.class)
+                .set(Painting.ESTIMATED_PRICE, null)
+                .where(Painting.TO_ARTIST.eq(a1))
+                .update(context);
+
+        assertEquals(5, updated);
+
+        // a relationship match can't be checked against cached snapshots, so all of them are invalidated
+        int nullPrice = 0;
+        for (Painting p : paintings) {
+            assertEquals(PersistenceState.HOLLOW, p.getPersistenceState());
+            if (p.getEstimatedPrice() == null) {
+                nullPrice++;
+                assertSame(a1, p.getToArtist());
+            }
+        }
+
+        assertEquals(5, nullPrice);
+    }
+
+    @Test
+    public void testUpdate_InvalidatesSnapshots() throws Exception {
+        List<Artist> artists = ObjectSelect.query(Artist.class).select(context);
+        assertEquals(10, artists.size());
+
+        int updated = ObjectUpdate.query(Artist.class)
+                .set(Artist.ARTIST_NAME, "renamed")
+                .where(Artist.ARTIST_NAME.in("artist1", "artist2"))
+                .update(context);
+        assertEquals(2, updated);
+
+        int hollow = 0;
+        for (Artist a : artists) {
+            if (a.getPersistenceState() == PersistenceState.HOLLOW) {
+                hollow++;
+                assertEquals("renamed", a.getArtistName().trim());
+            }
+        }
+
+        assertEquals(2, hollow);
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+        int deleted = ObjectDelete.query(Painting.class)
+                .where(Painting.ESTIMATED_PRICE.gt(new BigDecimal(800)))
+                .delete(context);
+
+        assertEquals(2, deleted);
+        assertEquals(8, tPainting.getRowCount());
+    }
+
+    @Test
+    public void testDelete_InvalidatesSnapshots() throws Exception {
+        Painting p10 = SelectById.query(Painting.class, 10).selectOne(context);
+
+        ObjectDelete.query(Painting.class, Painting.PAINTING_TITLE.eq("painting10")).delete(context);
+        assertEquals(PersistenceState.HOLLOW, p10.getPersistenceState());
+        assertNull(SelectById.query(Painting.class, 10).selectOne(context));
+    }
+
+    @Test
+    public void testRelationshipQualifier() throws Exception {
+        try {
+            ObjectDelete.query(Painting.class)
+                    .where(Painting.TO_ARTIST.dot(Artist.ARTIST_NAME).eq("artist1"))
+                    .delete(context);
+            fail("Joins are not supported");
+        } catch (CayenneRuntimeException e) {
+            // expected
+        }
+
+        assertEquals(10, tPainting.getRowCount());
+    }
+}
@@ -0,0 +1,88 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.query;
+
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ObjectBulkQueryTest {
+
+    @Test
+    public void testQuery_RootType() {
+        ObjectDelete<Artist> q = ObjectDelete.query(Artist.class);
+        assertSame(Artist.class, q.getEntityType());
+        assertNull(q.getEntityName());
+        assertNull(q.getWhere());
+        assertEquals(0, q.getCacheGroups().length);
+    }
+
+    @Test
+    public void testQuery_EntityName() {
+        ObjectUpdate<Object> q = ObjectUpdate.query("Artist");
+        assertNull(q.getEntityType());
+        assertEquals("Artist", q.getEntityName());
+    }
+
+    @Test
+    public void testWhere() {
+        ObjectDelete<Artist> q = ObjectDelete.query(Artist.class)
+                .where(Artist.ARTIST_NAME.eq("a"))
+                .and(Artist.DATE_OF_BIRTH.isNull());
+        assertEquals(ExpressionFactory.exp("artistName = 'a' and dateOfBirth = null"), q.getWhere());
+
+        q.or(Artist.ARTIST_NAME.eq("b"));
+        assertEquals(ExpressionFactory.exp("(artistName = 'a' and dateOfBirth = null) or artistName = 'b'"),
+                q.getWhere());
+    }
+
+    @Test
+    public void testSet() {
+        ObjectUpdate<Artist> q = ObjectUpdate.query(Artist.class, Artist.ARTIST_NAME.eq("a"))
+                .set(Artist.ARTIST_NAME, "b")
+                .set("db:DATE_OF_BIRTH", null);
+
+        Map<String, Object> values = q.getValues();
+        assertEquals(2, values.size());
+
+        Iterator<Map.Entry<String, Object>> it = values.entrySet().iterator();
+        Map.Entry<String, Object> e1 = it.next();
+        assertEquals("artistName", e1.getKey());
+        assertEquals("b", e1.getValue());
+
+        Map.Entry<String, Object> e2 = it.next();
+        assertEquals("db:DATE_OF_BIRTH", e2.getKey());
+        assertNull(e2.getValue());
+    }
+
+    @Test
+    public void testCacheGroups() {
+        ObjectDelete<Artist> q = ObjectDelete.query(Artist.class).cacheGroups("g1", "g2");
+        assertArrayEquals(new String[]{"g1", "g2"}, q.getCacheGroups());
+    }
+}
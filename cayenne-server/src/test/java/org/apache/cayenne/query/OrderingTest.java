@@ -240,6 +240,33 @@ public class OrderingTest {
         assertEquals(list.get(0), orderedList.get(5));
     }
 
+    @Test
+    public void testOrderList_Compiled() {
+        List<TstBean> list = new ArrayList<>(6);
+
+        list.add(new TstBean("c", 1));
+        list.add(new TstBean("C", 30));
+        list.add(new TstBean("a", 5));
+        list.add(new TstBean(null, 1));
+        list.add(new TstBean("b", 2));
+        list.add(new TstBean("B", 5));
+
+        List<Ordering> orderings = asList(
+                new Ordering("string", SortOrder.ASCENDING_INSENSITIVE),
+                new Ordering("integer", SortOrder.DESCENDING));
+
+        List<TstBean> expected = new ArrayList<>(list);
+        Ordering.orderList(expected, orderings);
+
+        List<TstBean> orderedList = new ArrayList<>(list);
+        Ordering.orderList(orderedList, orderings, null);
+        assertEquals(expected, orderedList);
+
+        List<TstBean> sortedList = new ArrayList<>(list);
+        sortedList.sort(orderings.get(0).compile(null).thenComparing(orderings.get(1).compile(null)));
+        assertEquals(expected, sortedList);
+    }
+
     @Test
     public void testOrderedList() {
         Collection<TstBean> set = new HashSet<>(6);
@@ -0,0 +1,129 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.query;
+
+import org.apache.cayenne.access.DataContext;
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.test.jdbc.DBHelper;
+import org.apache.cayenne.test.jdbc.TableHelper;
+import org.apache.cayenne.testdo.testmap.Artist;
+import org.apache.cayenne.unit.UnitDbAdapter;
+import org.apache.cayenne.unit.di.server.CayenneProjects;
+import org.apache.cayenne.unit.di.server.ServerCase;
+import org.apache.cayenne.unit.di.server.UseServerRuntime;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+@UseServerRuntime(CayenneProjects.TESTMAP_PROJECT)
+public class UpsertBatchQueryIT extends ServerCase {
+
+    @Inject
+    private ServerRuntime runtime;
+
+    @Inject
+    private DataContext context;
+
+    @Inject
+    private DBHelper dbHelper;
+
+    @Inject
+    private UnitDbAdapter accessStackAdapter;
+
+    private TableHelper tArtist;
+
+    @Before
+    public void createDataSet() throws Exception {
+        tArtist = new TableHelper(dbHelper, "ARTIST");
+        tArtist.setColumns("ARTIST_ID", "ARTIST_NAME");
+        tArtist.insert(1, "artist1");
+        tArtist.insert(2, "artist2");
+    }
+
+    @Test
+    public void testUpsert() throws Exception {
+        if (!accessStackAdapter.supportsUpsert()) {
+            return;
+        }
+
+        UpsertBatchQuery upsert = createUpsert(2, 3);
+        context.performGenericQuery(upsert);
+
+        assertEquals(3, tArtist.getRowCount());
+        assertEquals(1L, ObjectSelect.query(Artist.class, Artist.ARTIST_NAME.eq("artist1")).selectCount(context));
+        assertEquals(2L, ObjectSelect.query(Artist.class, Artist.ARTIST_NAME.eq("upserted")).selectCount(context));
+    }
+
+    @Test
+    public void testUpsert_MultiRow() throws Exception {
+        if (!accessStackAdapter.supportsUpsert()) {
+            return;
+        }
+
+        DataNode node = context.getParentDataDomain().getDataNodes().iterator().next();
+        int multiRowBatchSize = node.getMultiRowBatchSize();
+        node.setMultiRowBatchSize(3);
+        try {
+            UpsertBatchQuery upsert = createUpsert(1, 2, 3, 4, 5, 6, 7);
+            context.performGenericQuery(upsert);
+        } finally {
+            node.setMultiRowBatchSize(multiRowBatchSize);
+        }
+
+        assertEquals(7, tArtist.getRowCount());
+        assertEquals(7L, ObjectSelect.query(Artist.class, Artist.ARTIST_NAME.eq("upserted")).selectCount(context));
+    }
+
+    @Test
+    public void testUpsert_InvalidatesSnapshots() throws Exception {
+        if (!accessStackAdapter.supportsUpsert()) {
+            return;
+        }
+
+        Artist a2 = SelectById.query(Artist.class, 2).selectOne(context);
+        assertEquals("artist2", a2.getArtistName());
+
+        context.performGenericQuery(createUpsert(2));
+
+        Artist a2Refetched = SelectById.query(Artist.class, 2).selectOne(runtime.newContext());
+        assertEquals("upserted", a2Refetched.getArtistName().trim());
+    }
+
+    private UpsertBatchQuery createUpsert(int... ids) {
+        DbEntity artist = context.getEntityResolver().getDbEntity("ARTIST");
+        UpsertBatchQuery upsert = new UpsertBatchQuery(artist, ids.length);
+
+        for (int id : ids) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("ARTIST_ID", (long) id);
+            row.put("ARTIST_NAME", "upserted");
+            upsert.add(row);
+        }
+
+        return upsert;
+    }
+}
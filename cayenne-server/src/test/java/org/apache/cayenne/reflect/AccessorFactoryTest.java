@@ -0,0 +1,143 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.reflect;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AccessorFactoryTest {
+
+    @Test
+    public void testBeanAccessor() {
+        Accessor accessor = new AccessorFactory().beanAccessor(TstJavaBean.class, "stringField", String.class);
+        assertTrue(accessor instanceof CompiledAccessor);
+
+        TstJavaBean o1 = new TstJavaBean();
+        assertNull(accessor.getValue(o1));
+
+        accessor.setValue(o1, "ABC");
+        assertSame("ABC", o1.getStringField());
+        assertSame("ABC", accessor.getValue(o1));
+    }
+
+    @Test
+    public void testBeanAccessor_Primitive() {
+        Accessor accessor = new AccessorFactory().beanAccessor(TstJavaBean.class, "intField", Integer.TYPE);
+
+        TstJavaBean o1 = new TstJavaBean();
+        accessor.setValue(o1, 5);
+        assertEquals(5, o1.getIntField());
+        assertEquals(5, accessor.getValue(o1));
+
+        // converted
+        accessor.setValue(o1, "6");
+        assertEquals(6, o1.getIntField());
+
+        accessor.setValue(o1, null);
+        assertEquals("Incorrectly set null default", 0, o1.getIntField());
+    }
+
+    @Test
+    public void testBeanAccessor_Boolean() {
+        Accessor accessor = new AccessorFactory().beanAccessor(TstJavaBean.class, "booleanField", Boolean.TYPE);
+
+        TstJavaBean o1 = new TstJavaBean();
+        accessor.setValue(o1, true);
+        assertEquals(Boolean.TRUE, accessor.getValue(o1));
+    }
+
+    @Test
+    public void testBeanAccessor_NonPublicClass() {
+        Accessor accessor = new AccessorFactory().beanAccessor(NonPublicBean.class, "value", String.class);
+        assertTrue(accessor instanceof CompiledAccessor);
+
+        NonPublicBean o1 = new NonPublicBean();
+        accessor.setValue(o1, "ABC");
+        assertEquals("ABC", o1.getValue());
+        assertEquals("ABC", accessor.getValue(o1));
+    }
+
+    @Test
+    public void testBeanAccessor_ReadError() {
+        Accessor accessor = new AccessorFactory().beanAccessor(TstJavaBean.class, "stringField", String.class);
+
+        try {
+            accessor.getValue(new Object());
+            fail("Must have failed reading property of a wrong object");
+        } catch (PropertyException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testFieldAccessor() {
+        Accessor accessor = new AccessorFactory().fieldAccessor(TstFields.class, "intField", Integer.TYPE);
+        assertTrue(accessor instanceof CompiledAccessor);
+
+        TstFields o1 = new TstFields();
+        accessor.setValue(o1, 7);
+        assertEquals(7, o1.intField);
+        assertEquals(7, accessor.getValue(o1));
+
+        accessor.setValue(o1, null);
+        assertEquals(0, o1.intField);
+    }
+
+    @Test
+    public void testSerializedForm() throws Exception {
+        Accessor accessor = new AccessorFactory().beanAccessor(TstJavaBean.class, "stringField", String.class);
+        assertTrue(accessor instanceof CompiledAccessor);
+
+        // generated reader and writer are not serializable, the delegate is written instead
+        CompiledAccessor compiled = (CompiledAccessor) accessor;
+        assertSame(compiled.getDelegate(), compiled.writeReplace());
+        assertTrue(compiled.getDelegate() instanceof BeanAccessor);
+    }
+
+    @Test
+    public void testCaching() {
+        AccessorFactory factory = new AccessorFactory();
+
+        Accessor a1 = factory.fieldAccessor(TstFields.class, "stringField", String.class);
+        assertSame(a1, factory.fieldAccessor(TstFields.class, "stringField", String.class));
+        assertEquals(1, factory.size());
+
+        factory.beanAccessor(TstJavaBean.class, "stringField", String.class);
+        assertEquals(2, factory.size());
+    }
+
+    static class NonPublicBean {
+
+        private String value;
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+}
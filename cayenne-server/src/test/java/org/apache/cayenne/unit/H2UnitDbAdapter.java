@@ -42,4 +42,9 @@ public class H2UnitDbAdapter extends UnitDbAdapter {
     public boolean supportsGeneratedKeysAdd() {
         return true;
     }
+
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
 }
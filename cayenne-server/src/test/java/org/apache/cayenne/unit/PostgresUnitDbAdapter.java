@@ -75,4 +75,9 @@ public class PostgresUnitDbAdapter extends UnitDbAdapter {
     public boolean supportsSerializableTransactionIsolation() {
         return true;
     }
+
+    @Override
+    public boolean supportsUpsert() {
+        return true;
+    }
 }
@@ -250,6 +250,14 @@ public class UnitDbAdapter {
         return false;
     }
 
+    /**
+     * Returns true if the target database supports the "insert or update"
+     * statement generated for UpsertBatchQuery.
+     */
+    public boolean supportsUpsert() {
+        return false;
+    }
+
     protected void executeDDL(Connection con, String ddl) throws Exception {
         logger.info(ddl);
         Statement st = con.createStatement();
@@ -0,0 +1,139 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * As ConcurrentWeakValueMap and ConcurrentSoftValueMap share almost all code
+ * from their super class only one test is present for both of them.
+ *
+ * @since 4.1
+ */
+public class ConcurrentWeakValueMapTest {
+
+    @Test
+    public void testEmptyConstructor() {
+        Map<String, Integer> map = new ConcurrentWeakValueMap<>();
+
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey("nonexistent_key1"));
+        assertFalse(map.containsValue(42));
+        assertNull(map.get("nonexistent_key2"));
+
+        assertEquals(0, map.values().size());
+        assertEquals(0, map.keySet().size());
+        assertEquals(0, map.entrySet().size());
+    }
+
+    @Test
+    public void testMapConstructor() {
+        Map<String, Integer> data = new HashMap<>();
+        data.put("key_1", 123);
+        data.put("key_2", 42);
+        data.put("key_3", 543);
+
+        Map<String, Integer> map = new ConcurrentWeakValueMap<>(data);
+
+        assertEquals(data.size(), map.size());
+        assertTrue(map.containsKey("key_3"));
+        assertTrue(map.containsValue(42));
+        assertEquals(Integer.valueOf(543), map.get("key_3"));
+
+        assertTrue(map.values().containsAll(data.values()));
+        assertTrue(map.keySet().containsAll(data.keySet()));
+        assertTrue(map.entrySet().containsAll(data.entrySet()));
+    }
+
+    @Test
+    public void testSimpleOperations() {
+        Map<String, Integer> map = new ConcurrentWeakValueMap<>();
+
+        map.put("key_4", 44);
+        assertEquals(Integer.valueOf(44), map.get("key_4"));
+        assertEquals(1, map.size());
+
+        int old = map.remove("key_4");
+        assertEquals(44, old);
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey("key_4"));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPutNullValue() {
+        Map<String, Integer> map = new ConcurrentWeakValueMap<>();
+        map.put("key_1", null);
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        Map<String, Integer> data = new HashMap<>();
+        data.put("key_1", 123);
+        data.put("key_2", 42);
+        data.put("key_3", 543);
+
+        Map<String, Integer> map = new ConcurrentWeakValueMap<>(data);
+
+        Iterator<Integer> it = map.values().iterator();
+        while (it.hasNext()) {
+            if (it.next() == 42) {
+                it.remove();
+            }
+        }
+
+        assertEquals(2, map.size());
+        assertFalse(map.containsKey("key_2"));
+    }
+
+    @Test
+    public void testModificationWhileIterating() {
+        Map<String, Integer> data = new HashMap<>();
+        data.put("key_1", 123);
+        data.put("key_2", 42);
+
+        Map<String, Integer> map = new ConcurrentWeakValueMap<>(data);
+
+        // must not throw ConcurrentModificationException
+        for (String key : map.keySet()) {
+            map.put(key + "_copy", 1);
+        }
+
+        assertTrue(map.size() >= 3);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        Map<String, Integer> data = new HashMap<>();
+        data.put("key_1", 123);
+        data.put("key_2", 42);
+
+        ConcurrentWeakValueMap<String, Integer> map = new ConcurrentWeakValueMap<>(data);
+        Map<String, Integer> clone = Util.cloneViaSerialization(map);
+
+        assertEquals(map, clone);
+    }
+}
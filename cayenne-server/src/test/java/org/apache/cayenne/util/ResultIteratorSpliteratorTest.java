@@ -0,0 +1,139 @@
+/*****************************************************************
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ ****************************************************************/
+
+package org.apache.cayenne.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.cayenne.ResultIterator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResultIteratorSpliteratorTest {
+
+    @Test
+    public void testStream_ClosedWhenExhausted() {
+        ListResultIterator<String> iterator = new ListResultIterator<>("a", "b", "c");
+
+        List<String> result = ResultIteratorSpliterator.stream(iterator).collect(Collectors.toList());
+        assertEquals(Arrays.asList("a", "b", "c"), result);
+        assertEquals(1, iterator.closeCount);
+    }
+
+    @Test
+    public void testStream_ClosedWithStream() {
+        ListResultIterator<String> iterator = new ListResultIterator<>("a", "b", "c");
+
+        try (Stream<String> stream = ResultIteratorSpliterator.stream(iterator)) {
+            assertEquals("a", stream.findFirst().get());
+            assertEquals(0, iterator.closeCount);
+        }
+
+        assertEquals(1, iterator.closeCount);
+    }
+
+    @Test
+    public void testStream_ClosedOnce() {
+        ListResultIterator<String> iterator = new ListResultIterator<>("a");
+
+        try (Stream<String> stream = ResultIteratorSpliterator.stream(iterator)) {
+            assertEquals(1, stream.count());
+        }
+
+        assertEquals(1, iterator.closeCount);
+    }
+
+    @Test
+    public void testStream_NullRows() {
+        // e.g. a column query over a nullable column
+        ListResultIterator<String> iterator = new ListResultIterator<>("a", null, "c");
+
+        ResultIteratorSpliterator<String> spliterator = new ResultIteratorSpliterator<>(iterator);
+        assertFalse(spliterator.hasCharacteristics(Spliterator.NONNULL));
+
+        List<String> result = ResultIteratorSpliterator.stream(iterator).collect(Collectors.toList());
+        assertEquals(Arrays.asList("a", null, "c"), result);
+    }
+
+    @Test
+    public void testTryAdvance_AfterClose() {
+        ListResultIterator<String> iterator = new ListResultIterator<>("a", "b");
+        ResultIteratorSpliterator<String> spliterator = new ResultIteratorSpliterator<>(iterator);
+
+        List<String> result = new ArrayList<>();
+        assertTrue(spliterator.tryAdvance(result::add));
+        spliterator.close();
+        assertFalse(spliterator.tryAdvance(result::add));
+
+        assertEquals(Arrays.asList("a"), result);
+        assertEquals(1, iterator.closeCount);
+    }
+
+    static class ListResultIterator<T> implements ResultIterator<T> {
+
+        private Iterator<T> rows;
+        int closeCount;
+
+        @SafeVarargs
+        ListResultIterator(T... rows) {
+            this.rows = Arrays.asList(rows).iterator();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new ResultIteratorIterator<>(this);
+        }
+
+        @Override
+        public List<T> allRows() {
+            List<T> list = new ArrayList<>();
+            rows.forEachRemaining(list::add);
+            return list;
+        }
+
+        @Override
+        public boolean hasNextRow() {
+            return rows.hasNext();
+        }
+
+        @Override
+        public T nextRow() {
+            return rows.next();
+        }
+
+        @Override
+        public void skipRow() {
+            rows.next();
+        }
+
+        @Override
+        public void close() {
+            closeCount++;
+        }
+    }
+}